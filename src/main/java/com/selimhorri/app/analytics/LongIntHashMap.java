@@ -0,0 +1,128 @@
+package com.selimhorri.app.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from a primitive {@code long} to a non-negative {@code int}, laid out
+ * like {@link com.selimhorri.app.readmodel.LongObjectHashMap} but with nothing boxed on either side.
+ * A value of -1 marks an empty slot and is what {@link #get(long)} returns for a missing key.
+ * <p>
+ * Not thread-safe.
+ */
+public class LongIntHashMap {
+
+	public static final int MISSING = -1;
+
+	private static final int MIN_CAPACITY = 8;
+
+	private long[] keys;
+	private int[] values;
+	private int mask;
+	private int size;
+
+	public LongIntHashMap(final int expectedSize) {
+		this.allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1));
+	}
+
+	public int get(final long key) {
+		for (int slot = this.slot(key); this.values[slot] != MISSING; slot = (slot + 1) & this.mask) {
+			if (this.keys[slot] == key)
+				return this.values[slot];
+		}
+		return MISSING;
+	}
+
+	public void put(final long key, final int value) {
+		if (value < 0)
+			throw new IllegalArgumentException("LongIntHashMap only holds non-negative values");
+		int slot = this.slot(key);
+		for (; this.values[slot] != MISSING; slot = (slot + 1) & this.mask) {
+			if (this.keys[slot] == key) {
+				this.values[slot] = value;
+				return;
+			}
+		}
+		this.keys[slot] = key;
+		this.values[slot] = value;
+		if (++this.size > this.keys.length / 2)
+			this.rehash(this.keys.length << 1);
+	}
+
+	public int remove(final long key) {
+		int slot = this.slot(key);
+		for (; this.values[slot] != MISSING; slot = (slot + 1) & this.mask) {
+			if (this.keys[slot] != key)
+				continue;
+			final int previous = this.values[slot];
+			this.shiftBack(slot);
+			this.size--;
+			return previous;
+		}
+		return MISSING;
+	}
+
+	// Moves later entries of the probe run into the freed slot wherever their home slot allows it
+	private void shiftBack(int free) {
+		for (int slot = (free + 1) & this.mask; this.values[slot] != MISSING; slot = (slot + 1) & this.mask) {
+			final int home = this.slot(this.keys[slot]);
+			final boolean movable = free <= slot
+					? home <= free || home > slot
+					: home <= free && home > slot;
+			if (movable) {
+				this.keys[free] = this.keys[slot];
+				this.values[free] = this.values[slot];
+				free = slot;
+			}
+		}
+		this.values[free] = MISSING;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public void clear() {
+		Arrays.fill(this.values, MISSING);
+		this.size = 0;
+	}
+
+	private void rehash(final int capacity) {
+		final long[] oldKeys = this.keys;
+		final int[] oldValues = this.values;
+		this.allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] == MISSING)
+				continue;
+			int slot = this.slot(oldKeys[i]);
+			while (this.values[slot] != MISSING)
+				slot = (slot + 1) & this.mask;
+			this.keys[slot] = oldKeys[i];
+			this.values[slot] = oldValues[i];
+		}
+	}
+
+	private void allocate(final int capacity) {
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		Arrays.fill(this.values, MISSING);
+		this.mask = capacity - 1;
+	}
+
+	// Fibonacci hashing spreads sequential ids, which would otherwise fill one long probe run; the
+	// high half of the product, as generated order ids differ in their high bits only
+	private int slot(final long key) {
+		final long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash >>> 32) & this.mask;
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
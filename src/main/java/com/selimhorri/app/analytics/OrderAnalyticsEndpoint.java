@@ -0,0 +1,161 @@
+package com.selimhorri.app.analytics;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.helper.CentsHelper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+/**
+ * Aggregates over the active orders held by {@link OrderColumnStore}, for dashboards and
+ * operators; fees are in the order currency, dates ISO-8601:
+ * <ul>
+ * <li>{@code GET /actuator/orderanalytics/status}, active orders per status</li>
+ * <li>{@code GET /actuator/orderanalytics/fees?bucketWidth=10&buckets=20[&status=]}, orders per fee range</li>
+ * <li>{@code GET /actuator/orderanalytics/top?limit=10[&status=]}, the orders with the highest fee</li>
+ * <li>{@code GET /actuator/orderanalytics/timeline?from=2024-01-01&to=2024-02-01[&period=P1D][&status=]},
+ * fees summed per period of order date</li>
+ * </ul>
+ * An unknown query answers 404, a malformed argument 400.
+ */
+@Endpoint(id = "orderanalytics")
+@RequiredArgsConstructor
+public class OrderAnalyticsEndpoint {
+
+	private final OrderColumnStore orderColumnStore;
+
+	@ReadOperation
+	public Report query(@Selector final String query, @Nullable final String status, @Nullable final BigDecimal bucketWidth,
+			@Nullable final Integer buckets, @Nullable final Integer limit, @Nullable final String from,
+			@Nullable final String to, @Nullable final String period) {
+		try {
+			final Object result;
+			switch (query) {
+				case "status":
+					result = this.byStatus();
+					break;
+				case "fees":
+					result = this.fees(status(status), bucketWidth == null ? BigDecimal.TEN : bucketWidth,
+							buckets == null ? 20 : buckets);
+					break;
+				case "top":
+					result = this.top(status(status), limit == null ? 10 : limit);
+					break;
+				case "timeline":
+					if (from == null || to == null)
+						throw new IllegalArgumentException("A timeline needs from and to");
+					result = this.timeline(status(status), date(from), date(to),
+							period == null ? Duration.ofDays(1) : Duration.parse(period));
+					break;
+				default:
+					return null;
+			}
+			return new Report(this.orderColumnStore.isWarm(), this.orderColumnStore.size(), result);
+		}
+		catch (IllegalArgumentException | DateTimeParseException | ArithmeticException e) {
+			throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+		}
+	}
+
+	private Map<String, Long> byStatus() {
+		final long[] counts = this.orderColumnStore.countByStatus();
+		final Map<String, Long> byStatus = new LinkedHashMap<>();
+		for (final var status : OrderStatus.values())
+			byStatus.put(status.name(), counts[status.ordinal()]);
+		return byStatus;
+	}
+
+	private List<FeeRange> fees(final OrderStatus status, final BigDecimal bucketWidth, final int buckets) {
+		final long width = CentsHelper.toCents(bucketWidth);
+		final long[] counts = this.orderColumnStore.feeHistogram(status, width, buckets);
+		final List<FeeRange> ranges = new ArrayList<>(counts.length);
+		for (int i = 0; i < counts.length; i++)
+			ranges.add(new FeeRange(CentsHelper.toDecimal(i * width), counts[i]));
+		return ranges;
+	}
+
+	private List<TopOrder> top(final OrderStatus status, final int limit) {
+		final var top = this.orderColumnStore.topByFee(status, limit);
+		final List<TopOrder> orders = new ArrayList<>(top.size());
+		for (int rank = 0; rank < top.size(); rank++)
+			orders.add(new TopOrder(top.orderId(rank), CentsHelper.toDecimal(top.fee(rank))));
+		return orders;
+	}
+
+	private List<Period> timeline(final OrderStatus status, final LocalDateTime from, final LocalDateTime to,
+			final Duration period) {
+		final long[] sums = this.orderColumnStore.feeByPeriod(status, from, to, period);
+		final List<Period> periods = new ArrayList<>(sums.length);
+		for (int i = 0; i < sums.length; i++)
+			periods.add(new Period(from.plus(period.multipliedBy(i)).toString(), CentsHelper.toDecimal(sums[i])));
+		return periods;
+	}
+
+	private static OrderStatus status(final String status) {
+		return status == null ? null : OrderStatus.valueOf(status);
+	}
+
+	// A date alone is its start of day
+	private static LocalDateTime date(final String value) {
+		return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+	}
+
+	@Value
+	public static class Report {
+
+		boolean warm;
+
+		int orders;
+
+		Object result;
+
+	}
+
+	@Value
+	public static class FeeRange {
+
+		BigDecimal from;
+
+		long orders;
+
+	}
+
+	@Value
+	public static class TopOrder {
+
+		@JsonSerialize(using = ToStringSerializer.class)
+		long orderId;
+
+		BigDecimal orderFee;
+
+	}
+
+	@Value
+	public static class Period {
+
+		String from;
+
+		BigDecimal orderFee;
+
+	}
+
+}
+
@@ -0,0 +1,644 @@
+package com.selimhorri.app.analytics;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.selimhorri.app.config.analytics.AnalyticsProperties;
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.event.bus.ChangeEvent;
+import com.selimhorri.app.event.bus.ChangeEventConsumer;
+import com.selimhorri.app.helper.CentsHelper;
+import com.selimhorri.app.helper.EpochMicrosHelper;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Active orders held column by column in primitive arrays, for aggregate queries that scan every
+ * order: one array each for ids, fees in cents, status ordinals, order dates in epoch milliseconds
+ * as if UTC, and versions. A row is found by id through an {@link LongIntHashMap} and a removed row
+ * is replaced by the last one, so the columns stay dense.
+ * <p>
+ * Loaded from the database once the application is ready, then kept up to date from committed
+ * order changes. Changes that arrive during the load are held back and replayed onto it, applied
+ * only when newer than the loaded version. A failed load drops what was held back and is tried
+ * again after {@code retry-interval}; missed changes make the store load again.
+ * <p>
+ * Queries hold the read lock for the length of one scan; above {@code parallel-threshold} rows the
+ * scan is split across the common fork-join pool. They never box a value or touch JPA.
+ */
+@Slf4j
+public class OrderColumnStore implements ChangeEventConsumer {
+
+	static final String LOAD_SQL = "SELECT order_id, order_fee, status, order_date, version FROM orders "
+			+ "WHERE is_active = TRUE";
+
+	public static final long NO_DATE = Long.MIN_VALUE;
+	private static final long UNKNOWN_VERSION = -1;
+	private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+	private final JdbcTemplate jdbcTemplate;
+	private final AnalyticsProperties properties;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final AtomicBoolean loading = new AtomicBoolean();
+
+	// Guarded by lock; pending holds the changes that arrive during a load
+	private Columns columns = new Columns(16);
+	private List<ChangeEvent> pending = new ArrayList<>();
+
+	// Set when a load is asked for, cleared by the loading thread as it starts one
+	private volatile boolean loadRequested;
+	private volatile boolean warm;
+
+	public OrderColumnStore(final JdbcTemplate jdbcTemplate, final AnalyticsProperties properties,
+			final MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.properties = properties;
+		Gauge.builder("orders.analytics.size", this, OrderColumnStore::size)
+				.description("Active orders held by the analytics column store")
+				.register(meterRegistry);
+	}
+
+	@Override
+	public String name() {
+		return "order-analytics";
+	}
+
+	@Override
+	public void onEvent(final ChangeEvent event, final boolean endOfBatch) {
+		if (!event.getType().isOrder())
+			return;
+		this.lock.writeLock().lock();
+		try {
+			if (this.pending != null)
+				this.pending.add(event);
+			// Cold after a failed load, the next load reads the change from the database
+			else if (this.warm)
+				this.columns.apply(event);
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void onEventsMissed() {
+		log.warn("Order analytics store missed change events, loading it again");
+		this.loadInBackground();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		this.loadInBackground();
+	}
+
+	// One loading thread at a time; a load asked for while one runs is done after it
+	private void loadInBackground() {
+		this.loadRequested = true;
+		if (!this.loading.compareAndSet(false, true))
+			return;
+		final var thread = new Thread(() -> {
+			do {
+				while (this.loadRequested) {
+					this.loadRequested = false;
+					if (!this.bootstrap()) {
+						this.loadRequested = true;
+						if (!this.sleep(this.properties.getRetryInterval()))
+							return;
+					}
+				}
+				this.loading.set(false);
+			} while (this.loadRequested && this.loading.compareAndSet(false, true));
+		}, "order-analytics-bootstrap");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private boolean sleep(final Duration duration) {
+		try {
+			Thread.sleep(duration.toMillis());
+			return true;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Reads the active orders into fresh columns and swaps them in. Until the first load is done
+	 * queries see no orders.
+	 *
+	 * @return false when the load failed
+	 */
+	public boolean bootstrap() {
+		final long start = System.nanoTime();
+		final var loaded = new Columns(1024);
+		this.lock.writeLock().lock();
+		try {
+			if (this.pending == null)
+				this.pending = new ArrayList<>();
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+		try {
+			this.jdbcTemplate.query(connection -> {
+				final var statement = connection.prepareStatement(LOAD_SQL);
+				statement.setFetchSize(this.properties.getFetchSize());
+				return statement;
+			}, (RowCallbackHandler) loaded::load);
+		}
+		catch (RuntimeException e) {
+			this.lock.writeLock().lock();
+			try {
+				this.pending = null;
+			}
+			finally {
+				this.lock.writeLock().unlock();
+			}
+			log.error("Could not load the order analytics store, trying again in {}", this.properties.getRetryInterval(), e);
+			return false;
+		}
+		this.lock.writeLock().lock();
+		try {
+			if (this.pending != null)
+				this.pending.forEach(loaded::apply);
+			this.pending = null;
+			this.columns = loaded;
+			this.warm = true;
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+		log.info("Order analytics store loaded {} orders in {} ms", loaded.size,
+				Duration.ofNanos(System.nanoTime() - start).toMillis());
+		return true;
+	}
+
+	public boolean isWarm() {
+		return this.warm;
+	}
+
+	public int size() {
+		this.lock.readLock().lock();
+		try {
+			return this.columns.size;
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return active orders per status, indexed by ordinal
+	 */
+	public long[] countByStatus() {
+		return this.scan(new Scan<long[]>() {
+			@Override
+			long[] scan(final Columns c, final int from, final int to) {
+				final byte[] statuses = c.statuses;
+				final long[] counts = new long[STATUSES.length];
+				for (int i = from; i < to; i++) {
+					if (statuses[i] >= 0)
+						counts[statuses[i]]++;
+				}
+				return counts;
+			}
+
+			@Override
+			long[] combine(final long[] left, final long[] right) {
+				return add(left, right);
+			}
+		});
+	}
+
+	/**
+	 * Orders counted by fee range: bucket {@code i} holds fees from {@code i * bucketWidth} cents
+	 * up to the next bucket, the last one everything above and the first one anything negative.
+	 *
+	 * @param status null for every status
+	 */
+	public long[] feeHistogram(final OrderStatus status, final long bucketWidth, final int buckets) {
+		if (bucketWidth <= 0 || buckets <= 0)
+			throw new IllegalArgumentException("Fee histogram needs a positive bucket width and count");
+		final int wanted = status == null ? -1 : status.ordinal();
+		return this.scan(new Scan<long[]>() {
+			@Override
+			long[] scan(final Columns c, final int from, final int to) {
+				final long[] fees = c.fees;
+				final byte[] statuses = c.statuses;
+				final long[] counts = new long[buckets];
+				final int last = buckets - 1;
+				for (int i = from; i < to; i++) {
+					if (wanted >= 0 && statuses[i] != wanted)
+						continue;
+					final long bucket = fees[i] / bucketWidth;
+					counts[bucket < 0 ? 0 : bucket > last ? last : (int) bucket]++;
+				}
+				return counts;
+			}
+
+			@Override
+			long[] combine(final long[] left, final long[] right) {
+				return add(left, right);
+			}
+		});
+	}
+
+	/**
+	 * Sum of fees, in cents, of the orders dated in each {@code bucket} from {@code from} until
+	 * {@code to}; the last bucket may be cut short by {@code to}.
+	 *
+	 * @param status null for every status
+	 */
+	public long[] feeByPeriod(final OrderStatus status, final LocalDateTime from, final LocalDateTime to,
+			final Duration bucket) {
+		final long start = EpochMicrosHelper.toEpochMicros(from) / 1_000;
+		final long end = EpochMicrosHelper.toEpochMicros(to) / 1_000;
+		final long width = bucket.toMillis();
+		if (width <= 0 || end <= start)
+			throw new IllegalArgumentException("Fee periods need a positive bucket and a range that ends after it starts");
+		final long buckets = (end - start + width - 1) / width;
+		if (buckets > this.properties.getMaxBuckets())
+			throw new IllegalArgumentException(String.format("At most %d periods can be asked for at once",
+					this.properties.getMaxBuckets()));
+		final int wanted = status == null ? -1 : status.ordinal();
+		return this.scan(new Scan<long[]>() {
+			@Override
+			long[] scan(final Columns c, final int from, final int to) {
+				final long[] fees = c.fees;
+				final long[] dates = c.dates;
+				final byte[] statuses = c.statuses;
+				final long[] sums = new long[(int) buckets];
+				for (int i = from; i < to; i++) {
+					final long date = dates[i];
+					// NO_DATE is below any start
+					if (date < start || date >= end || (wanted >= 0 && statuses[i] != wanted))
+						continue;
+					sums[(int) ((date - start) / width)] += fees[i];
+				}
+				return sums;
+			}
+
+			@Override
+			long[] combine(final long[] left, final long[] right) {
+				return add(left, right);
+			}
+		});
+	}
+
+	/**
+	 * The {@code limit} orders with the highest fee, highest first; ties go to the lower id.
+	 *
+	 * @param status null for every status
+	 */
+	public TopOrders topByFee(final OrderStatus status, final int limit) {
+		if (limit <= 0 || limit > this.properties.getMaxTopOrders())
+			throw new IllegalArgumentException(String.format("Between 1 and %d top orders can be asked for",
+					this.properties.getMaxTopOrders()));
+		final int wanted = status == null ? -1 : status.ordinal();
+		return this.scan(new Scan<TopOrders>() {
+			@Override
+			TopOrders scan(final Columns c, final int from, final int to) {
+				final long[] orderIds = c.orderIds;
+				final long[] fees = c.fees;
+				final byte[] statuses = c.statuses;
+				final var top = new TopOrders(limit);
+				for (int i = from; i < to; i++) {
+					if (wanted < 0 || statuses[i] == wanted)
+						top.offer(orderIds[i], fees[i]);
+				}
+				return top;
+			}
+
+			@Override
+			TopOrders combine(final TopOrders left, final TopOrders right) {
+				return left.merge(right);
+			}
+		}).sort();
+	}
+
+	private <R> R scan(final Scan<R> scan) {
+		this.lock.readLock().lock();
+		try {
+			final Columns c = this.columns;
+			final int threshold = Math.max(1, this.properties.getParallelThreshold());
+			if (c.size <= threshold)
+				return scan.scan(c, 0, c.size);
+			// Workers read the columns the caller holds the read lock on
+			return ForkJoinPool.commonPool().invoke(new ScanTask<>(scan, c, 0, c.size, threshold));
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	private static long[] add(final long[] left, final long[] right) {
+		for (int i = 0; i < left.length; i++)
+			left[i] += right[i];
+		return left;
+	}
+
+	/**
+	 * One pass over a range of rows and how two partial results combine.
+	 */
+	private abstract static class Scan<R> {
+
+		abstract R scan(Columns columns, int from, int to);
+
+		abstract R combine(R left, R right);
+
+	}
+
+	private static final class ScanTask<R> extends RecursiveTask<R> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient Scan<R> scan;
+		private final transient Columns columns;
+		private final int from;
+		private final int to;
+		private final int threshold;
+
+		private ScanTask(final Scan<R> scan, final Columns columns, final int from, final int to, final int threshold) {
+			this.scan = scan;
+			this.columns = columns;
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected R compute() {
+			if (this.to - this.from <= this.threshold)
+				return this.scan.scan(this.columns, this.from, this.to);
+			final int middle = (this.from + this.to) >>> 1;
+			final var left = new ScanTask<>(this.scan, this.columns, this.from, middle, this.threshold);
+			left.fork();
+			final R right = new ScanTask<>(this.scan, this.columns, middle, this.to, this.threshold).compute();
+			return this.scan.combine(left.join(), right);
+		}
+
+	}
+
+	/**
+	 * The columns and the id index; not thread-safe, the store guards it.
+	 */
+	private static final class Columns {
+
+		private final LongIntHashMap rows;
+		private long[] orderIds;
+		private long[] fees;
+		private byte[] statuses;
+		private long[] dates;
+		private long[] versions;
+		private int size;
+
+		private Columns(final int capacity) {
+			this.rows = new LongIntHashMap(capacity);
+			this.orderIds = new long[capacity];
+			this.fees = new long[capacity];
+			this.statuses = new byte[capacity];
+			this.dates = new long[capacity];
+			this.versions = new long[capacity];
+		}
+
+		private void load(final ResultSet rs) throws SQLException {
+			final long orderId = rs.getLong(1);
+			final BigDecimal orderFee = rs.getBigDecimal(2);
+			final long fee = orderFee == null ? 0 : CentsHelper.toCents(orderFee);
+			final OrderStatus status = OrderStatus.valueOf(rs.getString(3));
+			final Timestamp orderDate = rs.getTimestamp(4);
+			final long version = rs.getLong(5);
+			this.upsert(orderId, fee, status, orderDate == null ? null : orderDate.toLocalDateTime(),
+					rs.wasNull() ? UNKNOWN_VERSION : version);
+		}
+
+		private void apply(final ChangeEvent event) {
+			final long orderId = event.getEntityId();
+			final long version = event.getVersion() == null ? UNKNOWN_VERSION : event.getVersion();
+			final int row = this.rows.get(orderId);
+			final boolean newer = row == LongIntHashMap.MISSING
+					|| version == UNKNOWN_VERSION
+					|| this.versions[row] == UNKNOWN_VERSION
+					|| version > this.versions[row];
+			if (!newer)
+				return;
+			switch (event.getType()) {
+				case ORDER_CREATED:
+				case ORDER_UPDATED:
+				case ORDER_STATUS_CHANGED:
+					final OrderDto order = event.getOrder();
+					if (order != null) {
+						this.upsert(orderId, order.getOrderFeeCents() == null ? 0 : order.getOrderFeeCents(),
+								order.getOrderStatus(), order.getOrderDate(), version);
+					}
+					// A bulk transition carries only the status
+					else if (row != LongIntHashMap.MISSING) {
+						this.statuses[row] = ordinal(event.getToStatus());
+						this.versions[row] = version;
+					}
+					return;
+				case ORDER_DEACTIVATED:
+					if (row != LongIntHashMap.MISSING)
+						this.remove(orderId, row);
+					return;
+				default:
+					return;
+			}
+		}
+
+		private void upsert(final long orderId, final long fee, final OrderStatus status, final LocalDateTime orderDate,
+				final long version) {
+			int row = this.rows.get(orderId);
+			if (row == LongIntHashMap.MISSING) {
+				if (this.size == this.orderIds.length)
+					this.grow();
+				row = this.size++;
+				this.rows.put(orderId, row);
+				this.orderIds[row] = orderId;
+			}
+			this.fees[row] = fee;
+			this.statuses[row] = ordinal(status);
+			this.dates[row] = orderDate == null ? NO_DATE : EpochMicrosHelper.toEpochMicros(orderDate) / 1_000;
+			this.versions[row] = version;
+		}
+
+		// The last row moves into the hole, so the columns stay dense
+		private void remove(final long orderId, final int row) {
+			this.rows.remove(orderId);
+			final int last = --this.size;
+			if (row != last) {
+				this.orderIds[row] = this.orderIds[last];
+				this.fees[row] = this.fees[last];
+				this.statuses[row] = this.statuses[last];
+				this.dates[row] = this.dates[last];
+				this.versions[row] = this.versions[last];
+				this.rows.put(this.orderIds[row], row);
+			}
+		}
+
+		private void grow() {
+			final int capacity = this.orderIds.length << 1;
+			this.orderIds = Arrays.copyOf(this.orderIds, capacity);
+			this.fees = Arrays.copyOf(this.fees, capacity);
+			this.statuses = Arrays.copyOf(this.statuses, capacity);
+			this.dates = Arrays.copyOf(this.dates, capacity);
+			this.versions = Arrays.copyOf(this.versions, capacity);
+		}
+
+		private static byte ordinal(final OrderStatus status) {
+			return status == null ? -1 : (byte) status.ordinal();
+		}
+
+	}
+
+	/**
+	 * Bounded selection of the highest fees: a min-heap over parallel id and fee arrays while
+	 * scanning, sorted highest first by {@link #sort()}.
+	 */
+	public static final class TopOrders {
+
+		private final long[] orderIds;
+		private final long[] fees;
+		private int size;
+
+		private TopOrders(final int limit) {
+			this.orderIds = new long[limit];
+			this.fees = new long[limit];
+		}
+
+		private void offer(final long orderId, final long fee) {
+			if (this.size < this.orderIds.length) {
+				int i = this.size++;
+				while (i > 0) {
+					final int parent = (i - 1) >>> 1;
+					if (!lower(fee, orderId, this.fees[parent], this.orderIds[parent]))
+						break;
+					this.orderIds[i] = this.orderIds[parent];
+					this.fees[i] = this.fees[parent];
+					i = parent;
+				}
+				this.orderIds[i] = orderId;
+				this.fees[i] = fee;
+				return;
+			}
+			if (!lower(this.fees[0], this.orderIds[0], fee, orderId))
+				return;
+			int i = 0;
+			while (true) {
+				final int left = 2 * i + 1;
+				if (left >= this.size)
+					break;
+				final int right = left + 1;
+				final int child = right < this.size && lower(this.fees[right], this.orderIds[right], this.fees[left],
+						this.orderIds[left]) ? right : left;
+				if (!lower(this.fees[child], this.orderIds[child], fee, orderId))
+					break;
+				this.orderIds[i] = this.orderIds[child];
+				this.fees[i] = this.fees[child];
+				i = child;
+			}
+			this.orderIds[i] = orderId;
+			this.fees[i] = fee;
+		}
+
+		private TopOrders merge(final TopOrders other) {
+			for (int i = 0; i < other.size; i++)
+				this.offer(other.orderIds[i], other.fees[i]);
+			return this;
+		}
+
+		// Heap sort in place: repeatedly moves the lowest to the end
+		private TopOrders sort() {
+			final int count = this.size;
+			for (int end = count - 1; end > 0; end--) {
+				final long lowestId = this.orderIds[0];
+				final long lowestFee = this.fees[0];
+				final long lastId = this.orderIds[end];
+				final long lastFee = this.fees[end];
+				this.size = end;
+				this.orderIds[0] = lastId;
+				this.fees[0] = lastFee;
+				this.siftDown();
+				this.orderIds[end] = lowestId;
+				this.fees[end] = lowestFee;
+			}
+			this.size = count;
+			return this;
+		}
+
+		private void siftDown() {
+			final long orderId = this.orderIds[0];
+			final long fee = this.fees[0];
+			int i = 0;
+			while (true) {
+				final int left = 2 * i + 1;
+				if (left >= this.size)
+					break;
+				final int right = left + 1;
+				final int child = right < this.size && lower(this.fees[right], this.orderIds[right], this.fees[left],
+						this.orderIds[left]) ? right : left;
+				if (!lower(this.fees[child], this.orderIds[child], fee, orderId))
+					break;
+				this.orderIds[i] = this.orderIds[child];
+				this.fees[i] = this.fees[child];
+				i = child;
+			}
+			this.orderIds[i] = orderId;
+			this.fees[i] = fee;
+		}
+
+		// Ranks below: a lower fee, or the same fee and a higher id
+		private static boolean lower(final long fee, final long orderId, final long otherFee, final long otherOrderId) {
+			return fee < otherFee || (fee == otherFee && orderId > otherOrderId);
+		}
+
+		public int size() {
+			return this.size;
+		}
+
+		public long orderId(final int rank) {
+			return this.orderIds[rank];
+		}
+
+		/**
+		 * In cents.
+		 */
+		public long fee(final int rank) {
+			return this.fees[rank];
+		}
+
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
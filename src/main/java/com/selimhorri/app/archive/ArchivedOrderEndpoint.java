@@ -0,0 +1,65 @@
+package com.selimhorri.app.archive;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.lang.Nullable;
+
+import com.selimhorri.app.config.archive.ArchiveProperties;
+import com.selimhorri.app.domain.ArchivedOrder;
+import com.selimhorri.app.repository.ArchivedOrderRepository;
+import com.selimhorri.app.shard.Shards;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Read access to archived orders for operators; they are no longer served by the order API.
+ */
+@Endpoint(id = "archivedorders")
+@RequiredArgsConstructor
+public class ArchivedOrderEndpoint {
+
+	private final ArchivedOrderRepository archivedOrderRepository;
+	private final ArchiveProperties properties;
+	private final Shards shards;
+
+	/**
+	 * Pages through the archive in order id order: pass the last id of a page as {@code after}
+	 * to get the next one. Without a cart every shard is asked for a page and the pages merged.
+	 */
+	@ReadOperation
+	public List<ArchivedOrder> archivedOrders(@Nullable final Integer cartId, @Nullable final Long after,
+			@Nullable final Integer limit) {
+		final int pageSize = limit == null
+				? this.properties.getMaxPageSize()
+				: Math.max(1, Math.min(limit, this.properties.getMaxPageSize()));
+		if (cartId != null)
+			return this.shards.on(this.shards.ofId(cartId), () -> this.archivedOrderRepository.findPage(cartId,
+					after == null ? 0 : after, PageRequest.of(0, pageSize)));
+		return this.shards.page((from, size) -> this.archivedOrderRepository.findPage(null, from, PageRequest.of(0, size)),
+				after == null ? 0 : after, pageSize, ArchivedOrder::getOrderId);
+	}
+
+	/**
+	 * @return null, i.e. 404, when the order is not archived
+	 */
+	@ReadOperation
+	public ArchivedOrder archivedOrder(@Selector final long orderId) {
+		return this.shards.on(this.shards.ofOrder(orderId), () -> this.archivedOrderRepository.findById(orderId))
+				.orElse(null);
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,222 @@
+package com.selimhorri.app.archive;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.selimhorri.app.config.archive.ArchiveProperties;
+import com.selimhorri.app.shard.Shards;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves orders that have been inactive for longer than {@code app.archive.older-than} from
+ * {@code orders} to {@code orders_archive}.
+ * <p>
+ * Orders are walked in id order, a chunk at a time. Each chunk locks its rows, copies them and
+ * deletes them in one short transaction, and the next chunk starts after its last id, so no
+ * statement ever scans from the start of the table or holds locks for long. Between chunks the
+ * archiver sleeps as needed to stay under {@code max-rows-per-second}. Copy and delete select by
+ * the same id range and cutoff, so an order deactivated while a chunk runs is left for a later pass.
+ * <p>
+ * Passes run on the archiver's own thread: a paced pass can take minutes, and the scheduler
+ * thread it is triggered from is shared with the outbox relay, the monitors and the other jobs.
+ */
+@Slf4j
+public class OrderArchiver implements DisposableBean {
+
+	// Orders deactivated before updated_at was stamped fall back to their order date
+	private static final String ELIGIBLE = "is_active = FALSE AND (updated_at < ? OR (updated_at IS NULL AND order_date < ?))";
+	private static final String COUNT_SQL = "SELECT COUNT(*) FROM orders WHERE " + ELIGIBLE;
+	private static final String NEXT_CHUNK_SQL = "SELECT order_id FROM orders WHERE " + ELIGIBLE
+			+ " AND order_id > ? ORDER BY order_id LIMIT ? FOR UPDATE";
+	private static final String COPY_SQL = "INSERT INTO orders_archive (order_id, cart_id, order_date, order_desc, "
+			+ "order_fee, status, version, created_at, updated_at, archived_at) "
+			+ "SELECT order_id, cart_id, order_date, order_desc, order_fee, status, version, created_at, updated_at, ? "
+			+ "FROM orders WHERE order_id > ? AND order_id <= ? AND " + ELIGIBLE;
+	private static final String DELETE_SQL = "DELETE FROM orders WHERE order_id > ? AND order_id <= ? AND " + ELIGIBLE;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final ArchiveProperties properties;
+	private final Shards shards;
+	private final Counter archived;
+	private final Counter failed;
+	private final Timer chunkTimer;
+	private final AtomicLong backlog = new AtomicLong();
+	private final AtomicLong cursor = new AtomicLong();
+	private final AtomicBoolean running = new AtomicBoolean();
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		final var thread = new Thread(runnable, "order-archiver");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public OrderArchiver(final JdbcTemplate jdbcTemplate, final TransactionTemplate transactionTemplate,
+			final ArchiveProperties properties, final Shards shards, final MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.properties = properties;
+		this.shards = shards;
+		this.archived = meterRegistry.counter("orders.archive.archived");
+		this.failed = meterRegistry.counter("orders.archive.failed");
+		this.chunkTimer = Timer.builder("orders.archive.chunk")
+				.description("Time to copy and delete one chunk of archived orders")
+				.register(meterRegistry);
+		Gauge.builder("orders.archive.backlog", this.backlog, AtomicLong::get)
+				.description("Orders due for archiving that the current pass has not reached yet")
+				.register(meterRegistry);
+		Gauge.builder("orders.archive.cursor", this.cursor, AtomicLong::get)
+				.description("Highest order id archived by the current or last pass")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Starts a pass on the archiver thread and returns; skipped while the previous pass still runs.
+	 *
+	 * @return false if a pass was already running
+	 */
+	@Scheduled(fixedDelayString = "${app.archive.interval:PT1H}", initialDelayString = "${app.archive.interval:PT1H}")
+	public boolean archive() {
+		if (!this.running.compareAndSet(false, true)) {
+			log.info("Previous archiving pass still running, skipping this one");
+			return false;
+		}
+		try {
+			this.executor.execute(() -> {
+				try {
+					final var cutoff = Instant.now().minus(this.properties.getOlderThan());
+					// Orders are archived on their own shard
+					this.shards.forEach(shard -> this.archive(cutoff));
+				}
+				finally {
+					this.running.set(false);
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			// Shutting down
+			this.running.set(false);
+			return false;
+		}
+		return true;
+	}
+
+	// Interrupts a running pass, which then ends after its current chunk
+	@Override
+	public void destroy() {
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Archives every order inactive since before {@code cutoff}, unless a chunk fails or the
+	 * thread is interrupted; the next pass then carries on.
+	 *
+	 * @return the number of orders archived
+	 */
+	public long archive(final Instant cutoff) {
+		final var before = Timestamp.from(cutoff);
+		final Long due = this.jdbcTemplate.queryForObject(COUNT_SQL, Long.class, before, before);
+		if (due == null || due == 0)
+			return 0;
+		this.backlog.set(due);
+		this.cursor.set(0);
+		log.info("Archiving {} orders inactive since before {}", due, cutoff);
+
+		final long started = System.nanoTime();
+		long after = 0;
+		long total = 0;
+		try {
+			while (true) {
+				final long from = after;
+				final Chunk chunk = this.chunkTimer.record(() -> this.archiveChunk(before, from));
+				if (chunk == null)
+					break;
+				after = chunk.lastOrderId;
+				total += chunk.archived;
+				this.archived.increment(chunk.archived);
+				this.backlog.set(Math.max(0, due - total));
+				this.cursor.set(after);
+				this.pace(total, started);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.info("Order archiving interrupted after {} orders", total);
+		}
+		catch (RuntimeException e) {
+			this.failed.increment();
+			log.error("Order archiving failed after order {}, {} orders archived", after, total, e);
+		}
+		this.backlog.set(0);
+		log.info("Archived {} orders", total);
+		return total;
+	}
+
+	/**
+	 * @return null once no order after {@code after} is due
+	 */
+	private Chunk archiveChunk(final Timestamp before, final long after) {
+		return this.transactionTemplate.execute(tx -> {
+			final List<Long> orderIds = this.jdbcTemplate.queryForList(NEXT_CHUNK_SQL, Long.class,
+					before, before, after, this.properties.getChunkSize());
+			if (orderIds.isEmpty())
+				return null;
+			final long last = orderIds.get(orderIds.size() - 1);
+			final int copied = this.jdbcTemplate.update(COPY_SQL, Timestamp.from(Instant.now()), after, last, before, before);
+			final int deleted = this.jdbcTemplate.update(DELETE_SQL, after, last, before, before);
+			if (copied != deleted)
+				throw new IllegalStateException(String.format(
+						"Copied %d orders in (%d, %d] to the archive but deleted %d", copied, after, last, deleted));
+			return new Chunk(last, deleted);
+		});
+	}
+
+	// Sleeps until the rows archived so far fit the configured rate
+	private void pace(final long total, final long startedNanos) throws InterruptedException {
+		if (this.properties.getMaxRowsPerSecond() <= 0)
+			return;
+		final long due = startedNanos + total * TimeUnit.SECONDS.toNanos(1) / this.properties.getMaxRowsPerSecond();
+		final long wait = due - System.nanoTime();
+		if (wait > 0)
+			TimeUnit.NANOSECONDS.sleep(wait);
+	}
+
+	private static final class Chunk {
+
+		private final long lastOrderId;
+		private final int archived;
+
+		private Chunk(final long lastOrderId, final int archived) {
+			this.lastOrderId = lastOrderId;
+			this.archived = archived;
+		}
+
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,284 @@
+package com.selimhorri.app.cache;
+
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.selimhorri.app.config.order.OrderProperties;
+import com.selimhorri.app.dto.OrderDto;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Response bodies of GET /api/orders/{orderId}, already serialized, for the orders clients poll.
+ * A hit skips the database, the mapping and Jackson altogether.
+ * <p>
+ * Keys are primitive order ids in open-addressing tables, split into segments that each take
+ * their own lock. A full segment evicts with CLOCK: the hand sweeps the table, clearing the
+ * referenced bit of entries read since its last pass and evicting the first one not read.
+ * <p>
+ * Every cached body carries the order version. {@link #invalidate(long, long)} leaves a marker
+ * with the version the order is about to reach, and a body older than what the cache holds is
+ * never stored. A request that read the order just before a change commits therefore cannot
+ * put the stale body back afterwards.
+ * <p>
+ * Bodies and markers both expire after the configured time to live. That bounds how long a
+ * change the version does not cover, such as the cart's user, is served stale, and how long a
+ * marker left by a write that rolled back keeps the order out of the cache.
+ */
+public class HotOrderCache {
+
+	private static final int SEGMENTS = 16;
+
+	private final boolean enabled;
+	private final long timeToLiveNanos;
+	private final ObjectMapper objectMapper;
+	private final Segment[] segments;
+	private final Counter hits;
+	private final Counter misses;
+	private final Counter evictions;
+
+	public HotOrderCache(final OrderProperties.HotCache properties, final ObjectMapper objectMapper,
+			final MeterRegistry meterRegistry) {
+		this.enabled = properties.isEnabled();
+		this.timeToLiveNanos = properties.getTimeToLive().toNanos();
+		this.objectMapper = objectMapper;
+		final int perSegment = Math.max(1, properties.getCapacity() / SEGMENTS);
+		this.segments = new Segment[SEGMENTS];
+		for (int i = 0; i < SEGMENTS; i++)
+			this.segments[i] = new Segment(perSegment);
+		this.hits = meterRegistry.counter("cache.gets", "cache", "hotOrders", "result", "hit");
+		this.misses = meterRegistry.counter("cache.gets", "cache", "hotOrders", "result", "miss");
+		this.evictions = meterRegistry.counter("cache.evictions", "cache", "hotOrders");
+		Gauge.builder("cache.size", this, HotOrderCache::size)
+				.tag("cache", "hotOrders")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * @return null on a miss
+	 */
+	public CachedOrder get(final long orderId) {
+		if (!this.enabled)
+			return null;
+		final CachedOrder cached = this.segment(orderId).get(orderId);
+		(cached == null ? this.misses : this.hits).increment();
+		return cached;
+	}
+
+	/**
+	 * Serializes the order and keeps the result unless the cache already holds a newer version.
+	 */
+	public CachedOrder put(final OrderDto orderDto) {
+		final CachedOrder cached;
+		try {
+			cached = new CachedOrder(orderDto.getVersion() == null ? -1 : orderDto.getVersion(),
+					this.objectMapper.writeValueAsBytes(orderDto), this.expiresAt());
+		}
+		catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (this.enabled && orderDto.getVersion() != null)
+			this.segment(orderDto.getOrderId()).put(orderDto.getOrderId(), cached);
+		return cached;
+	}
+
+	/**
+	 * Drops the order's body and refuses bodies older than {@code minVersion} from now on.
+	 */
+	public void invalidate(final long orderId, final long minVersion) {
+		if (this.enabled)
+			this.segment(orderId).put(orderId, new CachedOrder(minVersion, null, this.expiresAt()));
+	}
+
+	public void clear() {
+		for (final Segment segment : this.segments)
+			segment.clear();
+	}
+
+	public int size() {
+		int size = 0;
+		for (final Segment segment : this.segments)
+			size += segment.size();
+		return size;
+	}
+
+	private long expiresAt() {
+		return System.nanoTime() + this.timeToLiveNanos;
+	}
+
+	private Segment segment(final long orderId) {
+		// The top bits of the hash pick the segment, the ones below them the slot within it
+		return this.segments[(int) (hash(orderId) >>> 60)];
+	}
+
+	// Fibonacci hashing: generated ids differ in their timestamp bits, the product's high bits
+	// depend on all of them
+	private static long hash(final long orderId) {
+		return orderId * 0x9E3779B97F4A7C15L;
+	}
+
+	public static final class CachedOrder {
+
+		private final long version;
+		// Null for an invalidation marker
+		private final byte[] json;
+		// System.nanoTime() after which the entry counts as absent
+		private final long expiresAt;
+
+		private CachedOrder(final long version, final byte[] json, final long expiresAt) {
+			this.version = version;
+			this.json = json;
+			this.expiresAt = expiresAt;
+		}
+
+		public long getVersion() {
+			return this.version;
+		}
+
+		public byte[] getJson() {
+			return this.json;
+		}
+
+	}
+
+	private final class Segment {
+
+		private final int maxEntries;
+		private final long[] keys;
+		private final CachedOrder[] values;
+		private final boolean[] referenced;
+		private final int mask;
+		private int size;
+		private int hand;
+
+		private Segment(final int maxEntries) {
+			this.maxEntries = maxEntries;
+			// At most half full, so probe runs stay short
+			final int capacity = Integer.highestOneBit(maxEntries * 2 - 1) << 1;
+			this.keys = new long[capacity];
+			this.values = new CachedOrder[capacity];
+			this.referenced = new boolean[capacity];
+			this.mask = capacity - 1;
+		}
+
+		private synchronized CachedOrder get(final long key) {
+			final int slot = this.find(key);
+			if (slot < 0)
+				return null;
+			if (this.isExpired(slot)) {
+				this.remove(slot);
+				return null;
+			}
+			if (this.values[slot].json == null)
+				return null;
+			this.referenced[slot] = true;
+			return this.values[slot];
+		}
+
+		private synchronized void put(final long key, final CachedOrder value) {
+			int slot = this.find(key);
+			if (slot >= 0) {
+				if (value.version < this.values[slot].version && !this.isExpired(slot))
+					return;
+				this.values[slot] = value;
+				this.referenced[slot] = value.json != null;
+				return;
+			}
+			if (this.size >= this.maxEntries)
+				this.evict();
+			for (slot = this.home(key); this.values[slot] != null; slot = (slot + 1) & this.mask) {
+				// Probe to the first free slot
+			}
+			this.keys[slot] = key;
+			this.values[slot] = value;
+			this.referenced[slot] = false;
+			this.size++;
+		}
+
+		private void evict() {
+			while (true) {
+				final int slot = this.hand;
+				this.hand = (this.hand + 1) & this.mask;
+				if (this.values[slot] == null)
+					continue;
+				if (this.referenced[slot] && !this.isExpired(slot)) {
+					this.referenced[slot] = false;
+					continue;
+				}
+				this.remove(slot);
+				evictions.increment();
+				return;
+			}
+		}
+
+		private void remove(int free) {
+			for (int slot = (free + 1) & this.mask; this.values[slot] != null; slot = (slot + 1) & this.mask) {
+				final int home = this.home(this.keys[slot]);
+				final boolean movable = free <= slot
+						? home <= free || home > slot
+						: home <= free && home > slot;
+				if (movable) {
+					this.keys[free] = this.keys[slot];
+					this.values[free] = this.values[slot];
+					this.referenced[free] = this.referenced[slot];
+					free = slot;
+				}
+			}
+			this.values[free] = null;
+			this.referenced[free] = false;
+			this.size--;
+		}
+
+		private boolean isExpired(final int slot) {
+			return this.values[slot].expiresAt - System.nanoTime() <= 0;
+		}
+
+		private int find(final long key) {
+			for (int slot = this.home(key); this.values[slot] != null; slot = (slot + 1) & this.mask) {
+				if (this.keys[slot] == key)
+					return slot;
+			}
+			return -1;
+		}
+
+		private int home(final long key) {
+			return (int) (hash(key) >>> 28) & this.mask;
+		}
+
+		private synchronized void clear() {
+			Arrays.fill(this.values, null);
+			Arrays.fill(this.referenced, false);
+			this.size = 0;
+		}
+
+		private synchronized int size() {
+			return this.size;
+		}
+
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
+
+
+
+
+
+
+
+
+
+
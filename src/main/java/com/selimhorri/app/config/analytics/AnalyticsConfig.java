@@ -0,0 +1,33 @@
+package com.selimhorri.app.config.analytics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.selimhorri.app.analytics.OrderAnalyticsEndpoint;
+import com.selimhorri.app.analytics.OrderColumnStore;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@EnableConfigurationProperties(AnalyticsProperties.class)
+@ConditionalOnProperty(prefix = "app.analytics", name = "enabled", havingValue = "true")
+public class AnalyticsConfig {
+
+	@Bean
+	public OrderColumnStore orderColumnStore(final JdbcTemplate jdbcTemplate, final AnalyticsProperties properties,
+			final MeterRegistry meterRegistry) {
+		return new OrderColumnStore(jdbcTemplate, properties, meterRegistry);
+	}
+
+	@Bean
+	public OrderAnalyticsEndpoint orderAnalyticsEndpoint(final OrderColumnStore orderColumnStore) {
+		return new OrderAnalyticsEndpoint(orderColumnStore);
+	}
+
+
+
+}
+
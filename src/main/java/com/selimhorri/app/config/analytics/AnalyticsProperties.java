@@ -0,0 +1,45 @@
+package com.selimhorri.app.config.analytics;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.analytics")
+@Data
+public class AnalyticsProperties {
+
+	/**
+	 * Keep the active orders in memory, column by column, for the {@code orderanalytics} endpoint.
+	 * Like the read model it only sees changes made through this instance.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Rows fetched per round trip while loading from the database.
+	 */
+	private int fetchSize = 1000;
+
+	/**
+	 * Wait before loading again after a failed load; meanwhile changes are not held back.
+	 */
+	private Duration retryInterval = Duration.ofSeconds(30);
+
+	/**
+	 * Orders scanned by one task; larger stores are split across the common fork-join pool.
+	 */
+	private int parallelThreshold = 65536;
+
+	/**
+	 * Most periods one fee timeline may have.
+	 */
+	private int maxBuckets = 1000;
+
+	/**
+	 * Most orders one top-by-fee query may return.
+	 */
+	private int maxTopOrders = 1000;
+
+}
+
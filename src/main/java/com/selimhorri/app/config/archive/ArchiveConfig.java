@@ -0,0 +1,48 @@
+package com.selimhorri.app.config.archive;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.selimhorri.app.archive.ArchivedOrderEndpoint;
+import com.selimhorri.app.archive.OrderArchiver;
+import com.selimhorri.app.repository.ArchivedOrderRepository;
+import com.selimhorri.app.shard.Shards;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ArchiveProperties.class)
+public class ArchiveConfig {
+
+	@Bean
+	@ConditionalOnProperty(prefix = "app.archive", name = "enabled", havingValue = "true", matchIfMissing = true)
+	public OrderArchiver orderArchiver(final JdbcTemplate jdbcTemplate, final TransactionTemplate transactionTemplate,
+			final ArchiveProperties properties, final Shards shards, final MeterRegistry meterRegistry) {
+		return new OrderArchiver(jdbcTemplate, transactionTemplate, properties, shards, meterRegistry);
+	}
+
+	@Bean
+	public ArchivedOrderEndpoint archivedOrderEndpoint(final ArchivedOrderRepository archivedOrderRepository,
+			final ArchiveProperties properties, final Shards shards) {
+		return new ArchivedOrderEndpoint(archivedOrderRepository, properties, shards);
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
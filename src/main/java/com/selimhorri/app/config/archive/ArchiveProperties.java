@@ -0,0 +1,50 @@
+package com.selimhorri.app.config.archive;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.archive")
+@Data
+public class ArchiveProperties {
+
+	/**
+	 * When off, inactive orders stay in the orders table; archived ones can still be read.
+	 */
+	private boolean enabled = true;
+
+	private Duration interval = Duration.ofHours(1);
+
+	/**
+	 * How long an order must have been inactive before it is archived.
+	 */
+	private Duration olderThan = Duration.ofDays(30);
+
+	/**
+	 * Orders moved per transaction.
+	 */
+	private int chunkSize = 200;
+
+	/**
+	 * Upper bound on the archiving rate, to leave the database to the requests; 0 for none.
+	 */
+	private int maxRowsPerSecond = 500;
+
+	/**
+	 * Most archived orders the archivedorders endpoint returns at once.
+	 */
+	private int maxPageSize = 500;
+
+}
+
+
+
+
+
+
+
+
+
+
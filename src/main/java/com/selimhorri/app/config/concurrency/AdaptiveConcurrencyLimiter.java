@@ -0,0 +1,87 @@
+package com.selimhorri.app.config.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gradient based concurrency limit. Each completed request compares its latency
+ * with a slow-moving average: while they match, the limit grows by about
+ * sqrt(limit), and as latency climbs above {@code rttTolerance} times the
+ * average it shrinks towards half. Failed requests always halve the estimate.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+	private static final int LONG_RTT_WINDOW = 600;
+
+	private final ConcurrencyLimitProperties.Limit settings;
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private volatile int limit;
+
+	// Guarded by this
+	private double estimatedLimit;
+	private double longRtt;
+
+	public AdaptiveConcurrencyLimiter(final ConcurrencyLimitProperties.Limit settings) {
+		this.settings = settings;
+		this.estimatedLimit = settings.getInitialLimit();
+		this.limit = settings.getInitialLimit();
+	}
+
+	public boolean tryAcquire() {
+		while (true) {
+			final int current = this.inFlight.get();
+			if (current >= this.limit)
+				return false;
+			if (this.inFlight.compareAndSet(current, current + 1))
+				return true;
+		}
+	}
+
+	public void release(final long rttNanos, final boolean dropped) {
+		final int inFlightAtCompletion = this.inFlight.getAndDecrement();
+		this.onSample(rttNanos, inFlightAtCompletion, dropped);
+	}
+
+	synchronized void onSample(final long rttNanos, final int inFlightAtCompletion, final boolean dropped) {
+		final double rtt = Math.max(1, rttNanos);
+		this.longRtt = this.longRtt == 0 ? rtt : this.longRtt + (rtt - this.longRtt) / LONG_RTT_WINDOW;
+
+		// Let the average recover quickly once a slow period is over
+		if (this.longRtt / rtt > 2)
+			this.longRtt *= 0.95;
+
+		// An idle service says nothing about how much load it could take
+		if (!dropped && inFlightAtCompletion < this.estimatedLimit / 2)
+			return;
+
+		final double gradient = dropped ? 0.5
+				: Math.max(0.5, Math.min(1.0, this.settings.getRttTolerance() * this.longRtt / rtt));
+		final double target = this.estimatedLimit * gradient + Math.sqrt(this.estimatedLimit);
+		final double smoothed = this.estimatedLimit * (1 - this.settings.getSmoothing())
+				+ target * this.settings.getSmoothing();
+
+		this.estimatedLimit = Math.max(this.settings.getMinLimit(), Math.min(this.settings.getMaxLimit(), smoothed));
+		this.limit = (int) this.estimatedLimit;
+	}
+
+	public int getLimit() {
+		return this.limit;
+	}
+
+	public int getInFlight() {
+		return this.inFlight.get();
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
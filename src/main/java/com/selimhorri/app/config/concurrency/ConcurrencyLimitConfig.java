@@ -0,0 +1,39 @@
+package com.selimhorri.app.config.concurrency;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+@ConditionalOnProperty(prefix = "app.concurrency-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+	@Bean
+	public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+			final ConcurrencyLimitProperties properties, final MeterRegistry meterRegistry) {
+		final var registration = new FilterRegistrationBean<>(new ConcurrencyLimitFilter(properties, meterRegistry));
+		registration.addUrlPatterns("/api/*");
+		// Ahead of the SQL statement counting filter, so shed requests cost as little as possible
+		registration.setOrder(Ordered.LOWEST_PRECEDENCE - 200);
+		return registration;
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
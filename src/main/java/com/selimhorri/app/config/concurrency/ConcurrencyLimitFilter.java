@@ -0,0 +1,102 @@
+package com.selimhorri.app.config.concurrency;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sheds API requests above the adaptive read/write limits with 503 and Retry-After
+ * before they reach a Tomcat worker's JDBC call.
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+	private final ConcurrencyLimitProperties properties;
+	private final AdaptiveConcurrencyLimiter readLimiter;
+	private final AdaptiveConcurrencyLimiter writeLimiter;
+	private final Counter readRejections;
+	private final Counter writeRejections;
+
+	public ConcurrencyLimitFilter(final ConcurrencyLimitProperties properties, final MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.readLimiter = new AdaptiveConcurrencyLimiter(properties.getRead());
+		this.writeLimiter = new AdaptiveConcurrencyLimiter(properties.getWrite());
+		this.readRejections = this.register(meterRegistry, "read", this.readLimiter);
+		this.writeRejections = this.register(meterRegistry, "write", this.writeLimiter);
+	}
+
+	@Override
+	protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+			final FilterChain filterChain) throws ServletException, IOException {
+
+		final boolean read = isRead(request);
+		final var limiter = read ? this.readLimiter : this.writeLimiter;
+		if (!limiter.tryAcquire()) {
+			(read ? this.readRejections : this.writeRejections).increment();
+			log.debug("Shedding {} {}: {} limit {} reached", request.getMethod(), request.getRequestURI(),
+					read ? "read" : "write", limiter.getLimit());
+			response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+			response.setHeader(HttpHeaders.RETRY_AFTER,
+					String.valueOf(Math.max(1, (this.properties.getRetryAfter().toMillis() + 999) / 1000)));
+			return;
+		}
+
+		final long start = System.nanoTime();
+		var dropped = true;
+		try {
+			filterChain.doFilter(request, response);
+			dropped = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+		}
+		finally {
+			limiter.release(System.nanoTime() - start, dropped);
+		}
+	}
+
+	AdaptiveConcurrencyLimiter limiterFor(final boolean read) {
+		return read ? this.readLimiter : this.writeLimiter;
+	}
+
+	private static boolean isRead(final HttpServletRequest request) {
+		final var method = HttpMethod.resolve(request.getMethod());
+		return method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS;
+	}
+
+	private Counter register(final MeterRegistry meterRegistry, final String kind,
+			final AdaptiveConcurrencyLimiter limiter) {
+		Gauge.builder("http.server.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+				.tag("kind", kind)
+				.register(meterRegistry);
+		Gauge.builder("http.server.concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+				.tag("kind", kind)
+				.register(meterRegistry);
+		return Counter.builder("http.server.concurrency.rejected")
+				.tag("kind", kind)
+				.register(meterRegistry);
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,73 @@
+package com.selimhorri.app.config.concurrency;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@ConfigurationProperties(prefix = "app.concurrency-limit")
+@Data
+public class ConcurrencyLimitProperties {
+
+	private boolean enabled = true;
+
+	/**
+	 * Sent as Retry-After on shed requests.
+	 */
+	private Duration retryAfter = Duration.ofSeconds(1);
+
+	/**
+	 * GET, HEAD and OPTIONS requests.
+	 */
+	private final Limit read = new Limit(50, 10, 400);
+
+	/**
+	 * Everything else; kept lower so writes holding row locks cannot starve the reads.
+	 */
+	private final Limit write = new Limit(20, 5, 100);
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Limit {
+
+		private int initialLimit;
+
+		private int minLimit;
+
+		private int maxLimit;
+
+		/**
+		 * Weight of each new estimate in the limit, 0 to 1.
+		 */
+		private double smoothing = 0.2;
+
+		/**
+		 * How much slower than the long-term average a request may be before the limit shrinks.
+		 */
+		private double rttTolerance = 1.5;
+
+		public Limit(final int initialLimit, final int minLimit, final int maxLimit) {
+			this.initialLimit = initialLimit;
+			this.minLimit = minLimit;
+			this.maxLimit = maxLimit;
+		}
+
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,86 @@
+package com.selimhorri.app.config.entitycache;
+
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+@Configuration
+@EnableConfigurationProperties(EntityCacheProperties.class)
+public class EntityCacheConfig {
+
+	/**
+	 * Local Caffeine caches behind the Hibernate regions, one per configured region. Each context
+	 * gets a cache manager of its own, so two of them in one JVM never share entries.
+	 */
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(prefix = "app.entity-cache", name = "enabled", havingValue = "true")
+	public CacheManager entityCacheManager(final EntityCacheProperties properties) {
+		final var provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+		final var cacheManager = provider.getCacheManager(URI.create("entity-cache:" + UUID.randomUUID()),
+				EntityCacheConfig.class.getClassLoader());
+		properties.getRegions().forEach((name, region) -> {
+			final var configuration = new CaffeineConfiguration<Object, Object>();
+			configuration.setMaximumSize(OptionalLong.of(region.getMaxEntries()));
+			configuration.setExpireAfterWrite(OptionalLong.of(region.getTimeToLive().toNanos()));
+			cacheManager.createCache(name, configuration);
+		});
+		// Query results are checked against these, so they must outlive every result and are never evicted
+		cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+				new CaffeineConfiguration<Object, Object>());
+		return cacheManager;
+	}
+
+	/**
+	 * Turned off explicitly when disabled: with hibernate-jcache on the classpath Hibernate would
+	 * otherwise pick it up on its own.
+	 */
+	@Bean
+	public HibernatePropertiesCustomizer entityCacheCustomizer(final EntityCacheProperties properties,
+			final ObjectProvider<CacheManager> entityCacheManager) {
+		return hibernateProperties -> {
+			final var cacheManager = entityCacheManager.getIfAvailable();
+			if (cacheManager == null) {
+				hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+				hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, false);
+				return;
+			}
+			hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+			hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, properties.isQueryCache());
+			hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+			hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+			// A region missing from app.entity-cache.regions would get an unbounded cache
+			hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+			// Feeds the per-region hibernate.second.level.cache.* and hibernate.cache.query.* meters
+			hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, true);
+		};
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
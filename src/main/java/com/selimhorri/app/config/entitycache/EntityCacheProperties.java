@@ -0,0 +1,51 @@
+package com.selimhorri.app.config.entitycache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.entity-cache")
+@Data
+public class EntityCacheProperties {
+
+	/**
+	 * Hibernate second-level cache for the entities and queries marked cacheable. Every instance
+	 * keeps its own copy, so a change made through another instance is seen here only once the
+	 * entry expires.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Also cache the results of queries marked cacheable; any write to a table they read drops them.
+	 */
+	private boolean queryCache = true;
+
+	/**
+	 * Keyed by region name. Every region an entity or query uses must be listed.
+	 */
+	private Map<String, Region> regions = new HashMap<>();
+
+	@Data
+	public static class Region {
+
+		private long maxEntries = 10_000;
+
+		private Duration timeToLive = Duration.ofMinutes(5);
+
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,40 @@
+package com.selimhorri.app.config.eventbus;
+
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.selimhorri.app.event.bus.ChangeEventBus;
+import com.selimhorri.app.event.bus.ChangeEventConsumer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@EnableConfigurationProperties(EventBusProperties.class)
+public class EventBusConfig {
+
+	/**
+	 * Every {@link ChangeEventConsumer} bean gets its own thread on the bus.
+	 */
+	@Bean
+	public ChangeEventBus changeEventBus(final EventBusProperties properties,
+			final ObjectProvider<ChangeEventConsumer> consumers, final MeterRegistry meterRegistry) {
+		return new ChangeEventBus(properties, consumers.orderedStream().collect(Collectors.toList()), meterRegistry);
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,44 @@
+package com.selimhorri.app.config.eventbus;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.event-bus")
+@Data
+public class EventBusProperties {
+
+	/**
+	 * Ring buffer slots, rounded up to a power of two.
+	 */
+	private int capacity = 8192;
+
+	/**
+	 * How long a publisher waits for the slowest consumer to free a slot before the event is dropped.
+	 */
+	private Duration publishTimeout = Duration.ofMillis(10);
+
+	/**
+	 * Most events a consumer handles before it reports progress, so publishers are not held up
+	 * by one long batch.
+	 */
+	private int maxBatchSize = 256;
+
+	/**
+	 * How long an idle consumer parks between checks, once it has spun briefly.
+	 */
+	private Duration idlePark = Duration.ofMillis(1);
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,32 @@
+package com.selimhorri.app.config.idempotency;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.idempotency")
+@Data
+public class IdempotencyProperties {
+
+	/**
+	 * How long a stored response is replayed for. After that the key is treated as unused, and
+	 * the cleanup task purges its row.
+	 */
+	private Duration ttl = Duration.ofHours(24);
+
+	private Duration cleanupInterval = Duration.ofMinutes(10);
+
+	/**
+	 * Entries kept in the in-memory front cache; the least recently used go first, and lookups
+	 * for them fall through to the table.
+	 */
+	private int cacheSize = 10_000;
+
+	/**
+	 * How long a duplicate waits for the first request with the same key before giving up with 409.
+	 */
+	private Duration waitTimeout = Duration.ofSeconds(30);
+
+}
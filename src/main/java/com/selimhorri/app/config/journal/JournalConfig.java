@@ -0,0 +1,49 @@
+package com.selimhorri.app.config.journal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.selimhorri.app.event.journal.OrderJournal;
+import com.selimhorri.app.event.journal.OrderJournalConsumer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(JournalProperties.class)
+@ConditionalOnProperty(prefix = "app.journal", name = "enabled", havingValue = "true")
+public class JournalConfig {
+
+	/**
+	 * Closed after the change event bus has stopped, so everything it delivered is on disk.
+	 */
+	@Bean(destroyMethod = "close")
+	public OrderJournal orderJournal(final JournalProperties properties) throws IOException {
+		return new OrderJournal(Path.of(properties.getDirectory()), (int) properties.getSegmentSize().toBytes());
+	}
+
+	@Bean
+	public OrderJournalConsumer orderJournalConsumer(final OrderJournal orderJournal,
+			final JournalProperties properties, final MeterRegistry meterRegistry) {
+		return new OrderJournalConsumer(orderJournal, properties, meterRegistry);
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,61 @@
+package com.selimhorri.app.config.journal;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.journal")
+@Data
+public class JournalProperties {
+
+	/**
+	 * Journal order changes to disk. Only the read model reads the journal, to start faster, so
+	 * it is meant to be on together with app.read-model.enabled.
+	 */
+	private boolean enabled = false;
+
+	private String directory = "data/journal";
+
+	/**
+	 * Size of each mapped segment file.
+	 */
+	private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+	/**
+	 * Force appended records to disk at the end of every bus batch, not only when a segment
+	 * is sealed and on shutdown.
+	 */
+	private boolean forceEachBatch = false;
+
+	private Compaction compaction = new Compaction();
+
+	@Data
+	public static class Compaction {
+
+		/**
+		 * Time between compactions. @Scheduled reads it too, so like every app.* interval behind a
+		 * @Scheduled task it must be written in ISO-8601, PT10M rather than 10m.
+		 */
+		private Duration interval = Duration.ofMinutes(10);
+
+		/**
+		 * Sealed segments there must be before they are compacted.
+		 */
+		private int minSegments = 4;
+
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
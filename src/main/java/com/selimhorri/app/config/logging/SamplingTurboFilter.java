@@ -0,0 +1,101 @@
+package com.selimhorri.app.config.logging;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Lets through one in N events per message template for the configured logger
+ * prefixes, e.g. {@code com.selimhorri.app.resource=10,com.selimhorri.app.service=10}.
+ * Counting per template keeps rare messages visible next to the hot ones; events
+ * above {@code maxLevel} (WARN and ERROR by default) are never sampled.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+	private static final int MAX_TEMPLATES = 1024;
+
+	private String loggers = "";
+	private Level maxLevel = Level.INFO;
+
+	private final Map<String, Integer> rates = new LinkedHashMap<>();
+	private final Map<String, Integer> rateByLogger = new ConcurrentHashMap<>();
+	private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+	public void setLoggers(final String loggers) {
+		this.loggers = loggers;
+	}
+
+	public void setMaxLevel(final String maxLevel) {
+		this.maxLevel = Level.toLevel(maxLevel, Level.INFO);
+	}
+
+	@Override
+	public void start() {
+		for (final var rule : this.loggers.split(",")) {
+			final var parts = rule.split("=");
+			if (parts.length != 2 || parts[0].isBlank())
+				continue;
+			try {
+				this.rates.put(parts[0].strip(), Integer.parseInt(parts[1].strip()));
+			}
+			catch (NumberFormatException e) {
+				addWarn("Ignoring sampling rule [" + rule + "]: rate is not a number");
+			}
+		}
+		super.start();
+	}
+
+	@Override
+	public FilterReply decide(final Marker marker, final Logger logger, final Level level, final String format,
+			final Object[] params, final Throwable t) {
+		if (format == null || this.rates.isEmpty() || level.toInt() > this.maxLevel.toInt()
+				|| !level.isGreaterOrEqual(logger.getEffectiveLevel()))
+			return FilterReply.NEUTRAL;
+
+		final int rate = this.rateByLogger.computeIfAbsent(logger.getName(), this::rateFor);
+		if (rate <= 1)
+			return FilterReply.NEUTRAL;
+
+		var counter = this.counters.get(format);
+		if (counter == null) {
+			if (this.counters.size() >= MAX_TEMPLATES)
+				return FilterReply.NEUTRAL;
+			counter = this.counters.computeIfAbsent(format, key -> new AtomicLong());
+		}
+		return counter.getAndIncrement() % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+	}
+
+	private int rateFor(final String loggerName) {
+		var rate = 1;
+		var longestMatch = -1;
+		for (final var entry : this.rates.entrySet()) {
+			final var prefix = entry.getKey();
+			if (prefix.length() > longestMatch && (loggerName.equals(prefix) || loggerName.startsWith(prefix + "."))) {
+				rate = entry.getValue();
+				longestMatch = prefix.length();
+			}
+		}
+		return rate;
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
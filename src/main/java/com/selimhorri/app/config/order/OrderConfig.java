@@ -0,0 +1,88 @@
+package com.selimhorri.app.config.order;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.selimhorri.app.cache.HotOrderCache;
+import com.selimhorri.app.domain.OrderIdentifierGenerator;
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.id.OrderIdGenerator;
+import com.selimhorri.app.shard.Shards;
+import com.selimhorri.app.statemachine.StateMachine;
+import com.selimhorri.app.statemachine.TransitionGuard;
+import com.selimhorri.app.summary.OrderStatistics;
+import com.selimhorri.app.summary.OrderSummaryEndpoint;
+import com.selimhorri.app.summary.OrderSummaryRecorder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@EnableConfigurationProperties(OrderProperties.class)
+public class OrderConfig {
+
+	/**
+	 * Order lifecycle; any {@code TransitionGuard<OrderStatus, Long>} bean is consulted, with the
+	 * order id as context, before every transition.
+	 */
+	@Bean
+	public StateMachine<OrderStatus, Long> orderStateMachine(
+			final ObjectProvider<TransitionGuard<OrderStatus, Long>> guards) {
+		final var builder = orderLifecycle();
+		guards.orderedStream().forEach(builder::guard);
+		return builder.build();
+	}
+
+	/**
+	 * Ids of new orders, carrying the shard the transaction creating them is bound to.
+	 */
+	@Bean
+	public OrderIdGenerator orderIdGenerator(final OrderProperties properties, final Shards shards) {
+		return new OrderIdGenerator(properties.getIds().getNode(), shards::bound);
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer orderIdGeneratorCustomizer(final OrderIdGenerator orderIdGenerator) {
+		return hibernateProperties -> hibernateProperties.put(OrderIdentifierGenerator.GENERATOR_SETTING, orderIdGenerator);
+	}
+
+	@Bean
+	public HotOrderCache hotOrderCache(final OrderProperties properties, final ObjectMapper objectMapper,
+			final MeterRegistry meterRegistry) {
+		return new HotOrderCache(properties.getHotCache(), objectMapper, meterRegistry);
+	}
+
+	@Bean
+	public OrderStatistics orderStatistics(final JdbcTemplate jdbcTemplate, final Shards shards,
+			final MeterRegistry meterRegistry) {
+		return new OrderStatistics(jdbcTemplate, shards, meterRegistry);
+	}
+
+	@Bean
+	public OrderSummaryEndpoint orderSummaryEndpoint(final OrderSummaryRecorder orderSummaryRecorder) {
+		return new OrderSummaryEndpoint(orderSummaryRecorder);
+	}
+
+	public static StateMachine.Builder<OrderStatus, Long> orderLifecycle() {
+		return StateMachine.<OrderStatus, Long>builder(OrderStatus.class)
+				.transition(OrderStatus.CREATED, OrderStatus.ORDERED)
+				.transition(OrderStatus.ORDERED, OrderStatus.IN_PAYMENT);
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,106 @@
+package com.selimhorri.app.config.order;
+
+import java.time.Duration;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Positive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.orders")
+@Validated
+@Data
+public class OrderProperties {
+
+	@Valid
+	private final BulkStatus bulkStatus = new BulkStatus();
+
+	private final Audit audit = new Audit();
+
+	private final HotCache hotCache = new HotCache();
+
+	private final DateRange dateRange = new DateRange();
+
+	private final Ids ids = new Ids();
+
+	@Data
+	public static class BulkStatus {
+
+		/**
+		 * Orders locked and updated per transaction.
+		 */
+		@Positive
+		private int chunkSize = 500;
+
+		@Positive
+		private int maxOrderIds = 10_000;
+
+	}
+
+	@Data
+	public static class Audit {
+
+		private boolean enabled = true;
+
+		/**
+		 * Most rows sent in one JDBC batch.
+		 */
+		private int batchSize = 200;
+
+	}
+
+	@Data
+	public static class DateRange {
+
+		/**
+		 * Longest span, in days with both ends included, a date-range query may cover.
+		 */
+		private int maxDays = 366;
+
+	}
+
+	@Data
+	public static class Ids {
+
+		/**
+		 * Node bits of the order ids this instance hands out, 0 to 63; every instance writing to
+		 * the same database needs its own.
+		 */
+		private int node = 0;
+
+	}
+
+	@Data
+	public static class HotCache {
+
+		private boolean enabled = true;
+
+		/**
+		 * Most orders whose serialized body is kept.
+		 */
+		private int capacity = 10_000;
+
+		/**
+		 * How long a body, or the marker an invalidation leaves, is kept before the order is read
+		 * from the database again.
+		 */
+		private Duration timeToLive = Duration.ofMinutes(5);
+
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,50 @@
+package com.selimhorri.app.config.outbox;
+
+import java.nio.file.Path;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.selimhorri.app.event.FileOrderEventSink;
+import com.selimhorri.app.event.InMemoryOrderEventSink;
+import com.selimhorri.app.event.OrderEventSink;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(OutboxProperties.class)
+public class OutboxConfig {
+
+	/**
+	 * Built-in sinks, only when one is chosen; a broker-backed {@link OrderEventSink} bean replaces
+	 * them.
+	 */
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(prefix = "app.outbox", name = "sink")
+	public OrderEventSink orderEventSink(final OutboxProperties properties) {
+		switch (properties.getSink()) {
+			case MEMORY:
+				return new InMemoryOrderEventSink(properties.getMemoryCapacity());
+			case FILE:
+			default:
+				return new FileOrderEventSink(Path.of(properties.getFile()));
+		}
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
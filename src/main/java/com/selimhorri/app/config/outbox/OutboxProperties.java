@@ -0,0 +1,69 @@
+package com.selimhorri.app.config.outbox;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.outbox")
+@Data
+public class OutboxProperties {
+
+	/**
+	 * When off, no events are written and the relay does not poll.
+	 */
+	private boolean enabled = true;
+
+	private Duration pollInterval = Duration.ofSeconds(1);
+
+	/**
+	 * Events claimed and handed to the sink at once.
+	 */
+	private int batchSize = 100;
+
+	/**
+	 * How long a claimed batch stays reserved for one relay on databases without SKIP LOCKED;
+	 * after that another instance may pick it up again.
+	 */
+	private Duration leaseDuration = Duration.ofSeconds(30);
+
+	/**
+	 * Published events are deleted once they are this old.
+	 */
+	private Duration retention = Duration.ofDays(7);
+
+	private Duration cleanupInterval = Duration.ofHours(1);
+
+	/**
+	 * Built-in sink, for development and tests; a broker-backed {@code OrderEventSink} bean is used
+	 * instead where there is one. With neither, events stay in the outbox.
+	 */
+	private Sink sink;
+
+	/**
+	 * JSON lines file the FILE sink appends to.
+	 */
+	private String file = "order-events.jsonl";
+
+	/**
+	 * Events the MEMORY sink keeps before dropping the oldest.
+	 */
+	private int memoryCapacity = 10_000;
+
+	public enum Sink {
+		FILE,
+		MEMORY
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,46 @@
+package com.selimhorri.app.config.pool;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class ConnectionBorrower implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	String pool;
+
+	String caller;
+
+	String thread;
+
+	String borrowedAt;
+
+	double elapsedMillis;
+
+	boolean leakSuspected;
+
+	/**
+	 * Where the connection was borrowed, only for one held past the leak threshold.
+	 */
+	@JsonInclude(Include.NON_NULL)
+	List<String> stack;
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,77 @@
+package com.selimhorri.app.config.pool;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@EnableConfigurationProperties(ConnectionPoolProperties.class)
+@ConditionalOnProperty(prefix = "app.connection-pool", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConnectionPoolConfig {
+
+	@Bean
+	public ConnectionPoolMonitor connectionPoolMonitor(final ConnectionPoolProperties properties,
+			final MeterRegistry meterRegistry) {
+		return new ConnectionPoolMonitor(properties, meterRegistry);
+	}
+
+	@Bean
+	public ConnectionPoolEndpoint connectionPoolEndpoint(final ConnectionPoolMonitor connectionPoolMonitor) {
+		return new ConnectionPoolEndpoint(connectionPoolMonitor);
+	}
+
+	/**
+	 * Monitors the spring.datasource pool; the shard and replica pools are not beans, their
+	 * configurations monitor them where they build them. Declared with its own type, else Spring
+	 * does not see it is ordered.
+	 */
+	@Bean
+	static MonitoringPostProcessor connectionPoolMonitorPostProcessor(
+			final ObjectProvider<ConnectionPoolMonitor> connectionPoolMonitor) {
+		return new MonitoringPostProcessor(connectionPoolMonitor);
+	}
+
+	// Ahead of the other DataSource wrappers, so it wraps the pool itself
+	static final class MonitoringPostProcessor implements BeanPostProcessor, Ordered {
+
+		private final ObjectProvider<ConnectionPoolMonitor> connectionPoolMonitor;
+
+		private MonitoringPostProcessor(final ObjectProvider<ConnectionPoolMonitor> connectionPoolMonitor) {
+			this.connectionPoolMonitor = connectionPoolMonitor;
+		}
+
+		@Override
+		public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+			if (bean instanceof HikariDataSource)
+				return this.connectionPoolMonitor.getObject().track((HikariDataSource) bean);
+			return bean;
+		}
+
+		@Override
+		public int getOrder() {
+			return Ordered.HIGHEST_PRECEDENCE;
+		}
+
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,34 @@
+package com.selimhorri.app.config.pool;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import lombok.RequiredArgsConstructor;
+
+@Endpoint(id = "connectionpool")
+@RequiredArgsConstructor
+public class ConnectionPoolEndpoint {
+
+	private final ConnectionPoolMonitor connectionPoolMonitor;
+
+	/**
+	 * @return the connections borrowed now, held longest first
+	 */
+	@ReadOperation
+	public List<ConnectionBorrower> borrowers() {
+		return this.connectionPoolMonitor.snapshot();
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,284 @@
+package com.selimhorri.app.config.pool;
+
+import java.lang.StackWalker.StackFrame;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps track of every connection borrowed through a {@link MonitoredDataSource} until it is
+ * returned.
+ * <p>
+ * Per pool it times how long borrowers wait for a connection, with percentiles, and per pool and
+ * calling method how long they hold it, as a histogram. The calling method is the first frame of
+ * the application below the pool, so the service method whose transaction took the connection
+ * rather than the repository it went on to call.
+ * <p>
+ * Every check interval, a connection held past the leak threshold is logged once, with the stack
+ * that borrowed it if stacks are captured, and a pool with nearly all its connections in use, or threads waiting for
+ * one, raises a saturation alarm naming its longest borrowers.
+ */
+@Slf4j
+public class ConnectionPoolMonitor {
+
+	private static final String APP_PACKAGE = "com.selimhorri.app.";
+	private static final String CGLIB_MARKER = "$$EnhancerBySpringCGLIB$$";
+	private static final Pattern LAMBDA = Pattern.compile("lambda\\$(.+)\\$\\d+");
+	private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+	private static final int ALARM_BORROWERS = 3;
+
+	private final ConnectionPoolProperties properties;
+	private final MeterRegistry meterRegistry;
+	private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+	private final Map<Long, Borrow> borrows = new ConcurrentHashMap<>();
+	private final AtomicLong borrowIds = new AtomicLong();
+
+	public ConnectionPoolMonitor(final ConnectionPoolProperties properties, final MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * @return the pool, reporting its connections here
+	 */
+	public DataSource track(final HikariDataSource dataSource) {
+		final var name = Objects.requireNonNullElse(dataSource.getPoolName(), "default");
+		return new MonitoredDataSource(dataSource, this.pools.computeIfAbsent(name, n -> new Pool(n, dataSource)), this);
+	}
+
+	/**
+	 * @return the id to report the connection's return with
+	 */
+	long borrowed(final Pool pool, final long waitNanos) {
+		pool.wait.record(waitNanos, TimeUnit.NANOSECONDS);
+		final long id = this.borrowIds.incrementAndGet();
+		this.borrows.put(id, new Borrow(pool, callingMethod(), Thread.currentThread().getName(),
+				this.properties.isCaptureStacks() ? new Throwable("Connection borrowed here") : null));
+		return id;
+	}
+
+	void failed(final Pool pool, final long waitNanos) {
+		pool.wait.record(waitNanos, TimeUnit.NANOSECONDS);
+		pool.failures.increment();
+	}
+
+	void returned(final long borrowId) {
+		final var borrow = this.borrows.remove(borrowId);
+		if (borrow == null)
+			return;
+		final long heldNanos = System.nanoTime() - borrow.startNanos;
+		borrow.pool.hold(borrow.caller).record(heldNanos, TimeUnit.NANOSECONDS);
+		if (borrow.leakSuspected)
+			log.info("Connection of pool {} suspected of leaking was returned by {} after {} ms", borrow.pool.name,
+					borrow.caller, TimeUnit.NANOSECONDS.toMillis(heldNanos));
+	}
+
+	@Scheduled(fixedDelayString = "${app.connection-pool.check-interval:PT5S}")
+	public void check() {
+		final long now = System.nanoTime();
+		final long leakThreshold = this.properties.getLeakThreshold().toNanos();
+		for (final var borrow : this.borrows.values()) {
+			if (borrow.leakSuspected || now - borrow.startNanos < leakThreshold)
+				continue;
+			borrow.leakSuspected = true;
+			borrow.pool.leaks.increment();
+			log.warn("Connection of pool {} held for {} ms by {} on thread {}, possible leak", borrow.pool.name,
+					TimeUnit.NANOSECONDS.toMillis(now - borrow.startNanos), borrow.caller, borrow.thread, borrow.stack);
+		}
+
+		for (final var pool : this.pools.values()) {
+			final var mxBean = pool.dataSource.getHikariPoolMXBean();
+			if (mxBean == null)
+				continue;
+			final int active = mxBean.getActiveConnections();
+			final int waiting = mxBean.getThreadsAwaitingConnection();
+			final int max = pool.dataSource.getMaximumPoolSize();
+			final boolean saturated = waiting > 0 || active >= max * this.properties.getSaturationThreshold();
+			if (saturated && !pool.saturated) {
+				pool.saturations.increment();
+				log.warn("Connection pool {} saturated: {} of {} connections in use, {} threads waiting; held longest by {}",
+						pool.name, active, max, waiting, this.longestBorrowers(pool, now));
+			}
+			else if (!saturated && pool.saturated) {
+				log.info("Connection pool {} no longer saturated: {} of {} connections in use", pool.name, active, max);
+			}
+			pool.saturated = saturated;
+		}
+	}
+
+	/**
+	 * @return the connections borrowed now, held longest first
+	 */
+	public List<ConnectionBorrower> snapshot() {
+		final long now = System.nanoTime();
+		return this.borrows.values().stream()
+				.sorted(Comparator.comparingLong(b -> b.startNanos))
+				.map(b -> ConnectionBorrower.builder()
+						.pool(b.pool.name)
+						.caller(b.caller)
+						.thread(b.thread)
+						.borrowedAt(b.borrowedAt.toString())
+						.elapsedMillis((now - b.startNanos) / 1_000_000.0)
+						.leakSuspected(b.leakSuspected)
+						.stack(b.leakSuspected && b.stack != null ? frames(b.stack) : null)
+						.build())
+				.collect(Collectors.toUnmodifiableList());
+	}
+
+	private String longestBorrowers(final Pool pool, final long now) {
+		return this.borrows.values().stream()
+				.filter(b -> b.pool == pool)
+				.sorted(Comparator.comparingLong(b -> b.startNanos))
+				.limit(ALARM_BORROWERS)
+				.map(b -> String.format("%s (%d ms)", b.caller, TimeUnit.NANOSECONDS.toMillis(now - b.startNanos)))
+				.collect(Collectors.joining(", "));
+	}
+
+	// The borrowing code, without the frames of the pool monitoring itself
+	private static List<String> frames(final Throwable stack) {
+		return Arrays.stream(stack.getStackTrace())
+				.dropWhile(f -> isMonitoring(f.getClassName()))
+				.map(StackTraceElement::toString)
+				.collect(Collectors.toUnmodifiableList());
+	}
+
+	private static boolean isMonitoring(final String className) {
+		final int nested = className.indexOf('$');
+		final var outer = nested < 0 ? className : className.substring(0, nested);
+		return outer.equals(ConnectionPoolMonitor.class.getName()) || outer.equals(MonitoredDataSource.class.getName());
+	}
+
+	static String callingMethod() {
+		return STACK_WALKER.walk(frames -> frames
+				.filter(f -> f.getClassName().startsWith(APP_PACKAGE)
+						&& !DataSource.class.isAssignableFrom(f.getDeclaringClass())
+						&& f.getDeclaringClass() != ConnectionPoolMonitor.class)
+				.findFirst()
+				.map(ConnectionPoolMonitor::describe)
+				.orElse("unknown"));
+	}
+
+	// A transactional proxy stands for the class it proxies, a lambda for the method declaring it
+	private static String describe(final StackFrame frame) {
+		var className = frame.getClassName();
+		final int proxy = className.indexOf(CGLIB_MARKER);
+		if (proxy >= 0)
+			className = className.substring(0, proxy);
+		final var lambda = LAMBDA.matcher(frame.getMethodName());
+		return className.substring(className.lastIndexOf('.') + 1) + "."
+				+ (lambda.matches() ? lambda.group(1) : frame.getMethodName());
+	}
+
+	final class Pool {
+
+		private final String name;
+		private final HikariDataSource dataSource;
+		private final Timer wait;
+		private final Counter failures;
+		private final Counter leaks;
+		private final Counter saturations;
+		private final Map<String, Timer> holds = new ConcurrentHashMap<>();
+
+		private volatile boolean saturated;
+
+		private Pool(final String name, final HikariDataSource dataSource) {
+			this.name = name;
+			this.dataSource = dataSource;
+			this.wait = Timer.builder("db.pool.connection.wait")
+					.description("Time a borrower waited for a connection")
+					.tag("pool", name)
+					.publishPercentiles(0.5, 0.95, 0.99)
+					.publishPercentileHistogram()
+					.register(meterRegistry);
+			this.failures = Counter.builder("db.pool.connection.failures")
+					.description("Borrowers that got no connection, mostly on timing out")
+					.tag("pool", name)
+					.register(meterRegistry);
+			this.leaks = Counter.builder("db.pool.connection.leaks")
+					.description("Connections held past the leak threshold")
+					.tag("pool", name)
+					.register(meterRegistry);
+			this.saturations = Counter.builder("db.pool.saturations")
+					.description("Times the pool became saturated")
+					.tag("pool", name)
+					.register(meterRegistry);
+			this.gauge("db.pool.connections.active", HikariPoolMXBean::getActiveConnections);
+			this.gauge("db.pool.connections.idle", HikariPoolMXBean::getIdleConnections);
+			this.gauge("db.pool.connections.pending", HikariPoolMXBean::getThreadsAwaitingConnection);
+			Gauge.builder("db.pool.connections.max", dataSource, HikariDataSource::getMaximumPoolSize)
+					.tag("pool", name)
+					.register(meterRegistry);
+		}
+
+		private void gauge(final String meter, final ToIntFunction<HikariPoolMXBean> value) {
+			Gauge.builder(meter, this.dataSource, d -> d.getHikariPoolMXBean() == null
+					? Double.NaN
+					: value.applyAsInt(d.getHikariPoolMXBean()))
+					.tag("pool", this.name)
+					.register(meterRegistry);
+		}
+
+		private Timer hold(final String caller) {
+			return this.holds.computeIfAbsent(caller, c -> Timer.builder("db.pool.connection.hold")
+					.description("Time a connection was held, by the method that borrowed it")
+					.tag("pool", this.name)
+					.tag("caller", c)
+					.publishPercentileHistogram()
+					.register(meterRegistry));
+		}
+
+	}
+
+	private static final class Borrow {
+
+		private final Pool pool;
+		private final String caller;
+		private final String thread;
+		private final Throwable stack;
+		private final long startNanos = System.nanoTime();
+		private final Instant borrowedAt = Instant.now();
+
+		private volatile boolean leakSuspected;
+
+		private Borrow(final Pool pool, final String caller, final String thread, final Throwable stack) {
+			this.pool = pool;
+			this.caller = caller;
+			this.thread = thread;
+			this.stack = stack;
+		}
+
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,57 @@
+package com.selimhorri.app.config.pool;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Monitoring of the connection pools; the pools themselves are sized under
+ * spring.datasource.hikari, per profile.
+ */
+@ConfigurationProperties(prefix = "app.connection-pool")
+@Data
+public class ConnectionPoolProperties {
+
+	/**
+	 * Tracks every borrowed connection: hold time per calling method, wait time, leaks and
+	 * saturation, and the connectionpool actuator endpoint listing the current borrowers.
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * A connection held longer than this is reported as a possible leak, once, with the stack
+	 * that borrowed it.
+	 */
+	private Duration leakThreshold = Duration.ofSeconds(30);
+
+	/**
+	 * Captures the stack of every borrow, to show where a leaked connection came from. Costs a
+	 * few microseconds per borrow, so it is off unless a profile turns it on; the calling method
+	 * is recorded either way.
+	 */
+	private boolean captureStacks = false;
+
+	/**
+	 * How often borrowers are checked for leaks and pools for saturation.
+	 */
+	private Duration checkInterval = Duration.ofSeconds(5);
+
+	/**
+	 * Share of a pool's connections in use from which it counts as saturated, as it also does
+	 * while a thread waits for a connection.
+	 */
+	private double saturationThreshold = 0.9;
+
+}
+
+
+
+
+
+
+
+
+
+
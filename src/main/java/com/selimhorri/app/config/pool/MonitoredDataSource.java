@@ -0,0 +1,104 @@
+package com.selimhorri.app.config.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Reports every connection of one pool to the {@link ConnectionPoolMonitor}: how long the
+ * borrower waited for it, and that it is held until closed. Made by
+ * {@link ConnectionPoolMonitor#track}. Extends {@link DelegatingDataSource}
+ * so Boot's pool metadata and health checks still unwrap to the real pool.
+ */
+public class MonitoredDataSource extends DelegatingDataSource {
+
+	private final ConnectionPoolMonitor.Pool pool;
+	private final ConnectionPoolMonitor monitor;
+
+	MonitoredDataSource(final HikariDataSource dataSource, final ConnectionPoolMonitor.Pool pool,
+			final ConnectionPoolMonitor monitor) {
+		super(dataSource);
+		this.pool = pool;
+		this.monitor = monitor;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return this.borrow(super::getConnection);
+	}
+
+	@Override
+	public Connection getConnection(final String username, final String password) throws SQLException {
+		return this.borrow(() -> super.getConnection(username, password));
+	}
+
+	private Connection borrow(final ConnectionSupplier supplier) throws SQLException {
+		final long start = System.nanoTime();
+		final Connection connection;
+		try {
+			connection = supplier.get();
+		}
+		catch (SQLException e) {
+			this.monitor.failed(this.pool, System.nanoTime() - start);
+			throw e;
+		}
+		return this.proxy(connection, this.monitor.borrowed(this.pool, System.nanoTime() - start));
+	}
+
+	private Connection proxy(final Connection connection, final long borrowId) {
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new ConnectionHandler(connection, borrowId));
+	}
+
+	@FunctionalInterface
+	private interface ConnectionSupplier {
+
+		Connection get() throws SQLException;
+
+	}
+
+	private final class ConnectionHandler implements InvocationHandler {
+
+		private final Connection target;
+		private final long borrowId;
+
+		private ConnectionHandler(final Connection target, final long borrowId) {
+			this.target = target;
+			this.borrowId = borrowId;
+		}
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+			try {
+				return method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+			finally {
+				// Returned to the pool, even when closing failed; a second close is ignored
+				if ("close".equals(method.getName()))
+					monitor.returned(this.borrowId);
+			}
+		}
+
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,49 @@
+package com.selimhorri.app.config.readmodel;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.selimhorri.app.event.journal.OrderJournal;
+import com.selimhorri.app.readmodel.OrderReadModel;
+import com.selimhorri.app.readmodel.OrderReadModelProjector;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@EnableConfigurationProperties(ReadModelProperties.class)
+public class ReadModelConfig {
+
+	/**
+	 * Always present; without a projector it never warms up and every query goes to the database.
+	 */
+	@Bean
+	public OrderReadModel orderReadModel(final MeterRegistry meterRegistry) {
+		return new OrderReadModel(meterRegistry);
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = "app.read-model", name = "enabled", havingValue = "true")
+	public OrderReadModelProjector orderReadModelProjector(final OrderReadModel orderReadModel,
+			final JdbcTemplate jdbcTemplate, final ObjectProvider<OrderJournal> orderJournal,
+			final ReadModelProperties properties, final MeterRegistry meterRegistry) {
+		return new OrderReadModelProjector(orderReadModel, jdbcTemplate, orderJournal.getIfAvailable(),
+				properties, meterRegistry);
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
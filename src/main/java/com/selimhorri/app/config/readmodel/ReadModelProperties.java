@@ -0,0 +1,38 @@
+package com.selimhorri.app.config.readmodel;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.read-model")
+@Data
+public class ReadModelProperties {
+
+	/**
+	 * Serve order queries from memory once loaded. The model only sees changes made through this
+	 * instance, so leave it off when several instances write to the same database.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Load from the order journal when it matches the database, instead of reading every
+	 * active order.
+	 */
+	private boolean bootstrapFromJournal = true;
+
+	/**
+	 * Rows fetched per round trip while loading from the database.
+	 */
+	private int fetchSize = 1000;
+
+}
+
+
+
+
+
+
+
+
+
+
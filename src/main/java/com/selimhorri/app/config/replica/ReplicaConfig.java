@@ -0,0 +1,111 @@
+package com.selimhorri.app.config.replica;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.selimhorri.app.config.pool.ConnectionPoolMonitor;
+import com.selimhorri.app.replica.ReadYourWritesFilter;
+import com.selimhorri.app.replica.ReplicaLagMonitor;
+import com.selimhorri.app.replica.ReplicaRoutingDataSource;
+import com.selimhorri.app.replica.Replicas;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(prefix = "app.replica", name = "enabled", havingValue = "true")
+@Slf4j
+public class ReplicaConfig {
+
+	@Bean
+	public Replicas replicas(final DataSourceProperties dataSourceProperties, final ReplicaProperties properties,
+			final Environment environment, final ObjectProvider<ConnectionPoolMonitor> connectionPoolMonitor) {
+		checkSupported(environment);
+		final var binder = Binder.get(environment);
+		final var monitor = connectionPoolMonitor.getIfAvailable();
+		final var primary = pool(dataSourceProperties.initializeDataSourceBuilder(), binder, "primary");
+		final var replica = pool(DataSourceBuilder.create()
+				.driverClassName(dataSourceProperties.determineDriverClassName())
+				.url(properties.getUrl())
+				.username(properties.getUsername())
+				.password(properties.getPassword()), binder, "replica");
+		replica.setReadOnly(true);
+		return monitor == null
+				? new Replicas(primary, replica, properties.getMaxLag())
+				: new Replicas(monitor.track(primary), monitor.track(replica), properties.getMaxLag());
+	}
+
+	/**
+	 * Replaces the spring.datasource pool with the primary and replica pools behind a router;
+	 * Flyway migrates the primary only, the replica gets the schema by replication.
+	 */
+	@Bean
+	@ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "false", matchIfMissing = true)
+	public DataSource dataSource(final Replicas replicas) {
+		log.info("Reading from a replica of the order database");
+		return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(replicas));
+	}
+
+	@Bean
+	public ReplicaLagMonitor replicaLagMonitor(final Replicas replicas, final MeterRegistry meterRegistry) {
+		return new ReplicaLagMonitor(replicas, meterRegistry);
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = "app.replica.read-your-writes", name = "enabled", havingValue = "true",
+			matchIfMissing = true)
+	public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(final ReplicaProperties properties) {
+		final var registration = new FilterRegistrationBean<>(
+				new ReadYourWritesFilter(properties.getReadYourWrites().getWindow()));
+		registration.addUrlPatterns("/api/*");
+		return registration;
+	}
+
+	private static void checkSupported(final Environment environment) {
+		final List<String> conflicts = new ArrayList<>();
+		if (environment.getProperty("spring.jpa.open-in-view", Boolean.class, true))
+			conflicts.add("spring.jpa.open-in-view must be false, a request would keep its first connection for writes");
+		if (environment.getProperty("app.sharding.enabled", Boolean.class, false))
+			conflicts.add("app.sharding.enabled must be false, a replica is set for spring.datasource only");
+		if (!conflicts.isEmpty())
+			throw new IllegalStateException("Replicas cannot start: " + String.join("; ", conflicts));
+	}
+
+	private static HikariDataSource pool(final DataSourceBuilder<?> builder, final Binder binder, final String name) {
+		final HikariDataSource dataSource = builder.type(HikariDataSource.class).build();
+		binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+		dataSource.setPoolName(name);
+		return dataSource;
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,65 @@
+package com.selimhorri.app.config.replica;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.replica")
+@Data
+public class ReplicaProperties {
+
+	/**
+	 * Serve read-only work from a replica of spring.datasource, see
+	 * {@link com.selimhorri.app.replica.Replicas}. Not together with sharding.
+	 */
+	private boolean enabled = false;
+
+	private String url;
+
+	private String username;
+
+	private String password;
+
+	/**
+	 * Replica lag above which reads go to the primary until the replica catches up.
+	 */
+	private Duration maxLag = Duration.ofSeconds(5);
+
+	/**
+	 * How often the primary gets a heartbeat and the replica's lag behind it is measured; lag is
+	 * known to about this much.
+	 */
+	private Duration lagCheckInterval = Duration.ofSeconds(1);
+
+	private final ReadYourWrites readYourWrites = new ReadYourWrites();
+
+	@Data
+	public static class ReadYourWrites {
+
+		/**
+		 * After a client's write, send its reads to the primary for a while, so it sees what it
+		 * wrote even when the replica is behind.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * How long a client's reads stay on the primary after its write. At least max-lag: a
+		 * replica further behind is not read anyway, so the client then finds its write.
+		 */
+		private Duration window = Duration.ofSeconds(5);
+
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,159 @@
+package com.selimhorri.app.config.shard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.selimhorri.app.config.pool.ConnectionPoolMonitor;
+import com.selimhorri.app.config.sql.DatabaseVendor;
+import com.selimhorri.app.shard.ShardRoutingDataSource;
+import com.selimhorri.app.shard.Shards;
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+@Slf4j
+public class ShardingConfig {
+
+	// Sample rows; on every shard they would take ids of shard 0
+	static final String SEED_LOCATION = "classpath:db/seed";
+
+	// Orders take generated ids carrying their shard, only carts count up from a range
+	private static final String[][] ID_COLUMNS = {{"carts", "cart_id"}};
+
+	/**
+	 * A single shard unless sharding is enabled, so services can always route through it.
+	 */
+	@Bean
+	public Shards shards(final ShardingProperties properties) {
+		if (!properties.isEnabled())
+			return Shards.single();
+		final var threads = new AtomicInteger();
+		return new Shards(properties.getShards().size() + 1, properties.getIdRange(), properties.getPageSize(),
+				Executors.newFixedThreadPool(properties.getScatterThreads(), task -> {
+					final var thread = new Thread(task, "shard-scatter-" + threads.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}));
+	}
+
+	/**
+	 * Replaces the spring.datasource pool with one pool per shard behind a router; Flyway migrates
+	 * shard 0 as before and the other shards here, without the sample rows.
+	 */
+	@Bean
+	@ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+	public DataSource dataSource(final DataSourceProperties dataSourceProperties, final ShardingProperties properties,
+			final Shards shards, final Environment environment,
+			final ObjectProvider<ConnectionPoolMonitor> connectionPoolMonitor) {
+		checkSupported(environment);
+		final var binder = Binder.get(environment);
+		final var monitor = connectionPoolMonitor.getIfAvailable();
+		final List<DataSource> dataSources = new ArrayList<>();
+		dataSources.add(pool(dataSourceProperties.initializeDataSourceBuilder(), binder, 0, monitor));
+		for (final var shard : properties.getShards()) {
+			dataSources.add(pool(DataSourceBuilder.create()
+					.driverClassName(dataSourceProperties.determineDriverClassName())
+					.url(shard.getUrl())
+					.username(shard.getUsername())
+					.password(shard.getPassword()), binder, dataSources.size(), monitor));
+		}
+
+		final var flyway = binder.bind("spring.flyway", FlywayProperties.class).orElseGet(FlywayProperties::new);
+		for (int shard = 1; shard < dataSources.size(); shard++) {
+			final var dataSource = dataSources.get(shard);
+			if (flyway.isEnabled())
+				migrate(dataSource, properties.getShards().get(shard - 1).getUrl(), flyway);
+			reserveIds(dataSource, shards.firstId(shard));
+		}
+		log.info("Orders sharded over {} databases", dataSources.size());
+		return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(dataSources));
+	}
+
+	private static void checkSupported(final Environment environment) {
+		final List<String> conflicts = new ArrayList<>();
+		if (environment.getProperty("spring.jpa.open-in-view", Boolean.class, true))
+			conflicts.add("spring.jpa.open-in-view must be false, a request would keep its first shard's connection");
+		if (environment.getProperty("app.entity-cache.enabled", Boolean.class, false)
+				&& environment.getProperty("app.entity-cache.query-cache", Boolean.class, true))
+			conflicts.add("app.entity-cache.query-cache must be false, the same query returns different rows per shard");
+		if (environment.getProperty("app.read-model.enabled", Boolean.class, false))
+			conflicts.add("app.read-model.enabled must be false, the read model loads from one database");
+		if (environment.getProperty("app.analytics.enabled", Boolean.class, false))
+			conflicts.add("app.analytics.enabled must be false, the column store loads from one database");
+		if (!conflicts.isEmpty())
+			throw new IllegalStateException("Sharding cannot start: " + String.join("; ", conflicts));
+	}
+
+	private static DataSource pool(final DataSourceBuilder<?> builder, final Binder binder, final int shard,
+			final ConnectionPoolMonitor monitor) {
+		final HikariDataSource dataSource = builder.type(HikariDataSource.class).build();
+		binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+		dataSource.setPoolName("shard-" + shard);
+		return monitor == null ? dataSource : monitor.track(dataSource);
+	}
+
+	private static void migrate(final DataSource dataSource, final String url, final FlywayProperties properties) {
+		final String vendor = DatabaseDriver.fromJdbcUrl(url).getId();
+		Flyway.configure()
+				.dataSource(dataSource)
+				.locations(properties.getLocations().stream()
+						.filter(location -> !SEED_LOCATION.equals(location))
+						.map(location -> location.replace("{vendor}", vendor))
+						.toArray(String[]::new))
+				.baselineOnMigrate(properties.isBaselineOnMigrate())
+				.load()
+				.migrate();
+	}
+
+	/**
+	 * Moves the cart id counter of a new shard to the start of its range. A shard already handing out
+	 * ids of its range is left alone.
+	 */
+	private static void reserveIds(final DataSource dataSource, final int firstId) {
+		final var jdbcTemplate = new JdbcTemplate(dataSource);
+		final var vendor = jdbcTemplate.execute((ConnectionCallback<DatabaseVendor>) DatabaseVendor::of);
+		for (final var column : ID_COLUMNS) {
+			final Integer maxId = jdbcTemplate.queryForObject(String.format("SELECT COALESCE(MAX(%s), 0) FROM %s",
+					column[1], column[0]), Integer.class);
+			if (maxId != null && maxId >= firstId)
+				continue;
+			jdbcTemplate.execute(vendor == DatabaseVendor.MYSQL
+					? String.format("ALTER TABLE %s AUTO_INCREMENT = %d", column[0], firstId)
+					: String.format("ALTER TABLE %s ALTER COLUMN %s RESTART WITH %d", column[0], column[1], firstId));
+		}
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
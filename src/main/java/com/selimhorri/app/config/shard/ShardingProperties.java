@@ -0,0 +1,66 @@
+package com.selimhorri.app.config.shard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.sharding")
+@Data
+public class ShardingProperties {
+
+	/**
+	 * Spread carts and their orders over spring.datasource, as shard 0, and the databases listed
+	 * in {@code shards}, see {@link com.selimhorri.app.shard.Shards}. Needs
+	 * spring.jpa.open-in-view and the query cache off, and the read model and analytics off, as
+	 * they only know one database.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Shards 1 to N-1, in order. Never reorder them or change their number once they hold
+	 * data: the shard of a cart or order is read off its id.
+	 */
+	private List<Shard> shards = new ArrayList<>();
+
+	/**
+	 * Cart and order ids each shard hands out; shard 0 keeps the ids it already has. A shard
+	 * running past its range would hand out ids of the next one, so size it for the life of the
+	 * data.
+	 */
+	private int idRange = 100_000_000;
+
+	/**
+	 * Rows read per shard per round trip by a listing across all shards.
+	 */
+	private int pageSize = 500;
+
+	/**
+	 * Threads querying the shards for listings across all of them.
+	 */
+	private int scatterThreads = 16;
+
+	@Data
+	public static class Shard {
+
+		private String url;
+
+		private String username;
+
+		private String password;
+
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
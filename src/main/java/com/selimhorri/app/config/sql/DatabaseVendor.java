@@ -0,0 +1,52 @@
+package com.selimhorri.app.config.sql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public enum DatabaseVendor {
+
+	H2,
+	MYSQL,
+	OTHER;
+
+	public static DatabaseVendor of(final Connection connection) throws SQLException {
+		final var productName = connection.getMetaData().getDatabaseProductName();
+		if ("H2".equalsIgnoreCase(productName))
+			return H2;
+		if ("MySQL".equalsIgnoreCase(productName))
+			return MYSQL;
+		return OTHER;
+	}
+
+	public static DatabaseVendor of(final DataSource dataSource) {
+		try (final var connection = dataSource.getConnection()) {
+			return of(connection);
+		}
+		catch (SQLException e) {
+			log.warn("Could not determine database vendor: {}", e.getMessage());
+			return OTHER;
+		}
+	}
+
+	public boolean supportsExplain() {
+		return this == H2 || this == MYSQL;
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,52 @@
+package com.selimhorri.app.config.sql;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "app.sql.slow-query", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryConfig {
+
+	@Bean
+	public SlowQueryRecorder slowQueryRecorder(final SqlStatementProperties properties) {
+		return new SlowQueryRecorder(properties.getSlowQuery());
+	}
+
+	@Bean
+	public SlowQueryEndpoint slowQueryEndpoint(final SlowQueryRecorder slowQueryRecorder) {
+		return new SlowQueryEndpoint(slowQueryRecorder);
+	}
+
+	@Bean
+	public static BeanPostProcessor slowQueryDataSourcePostProcessor(
+			final ObjectProvider<SlowQueryRecorder> slowQueryRecorder) {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+				if (bean instanceof DataSource && !(bean instanceof SlowQueryDataSource))
+					return new SlowQueryDataSource((DataSource) bean, slowQueryRecorder.getObject());
+				return bean;
+			}
+
+		};
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
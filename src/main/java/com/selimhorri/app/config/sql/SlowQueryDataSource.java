@@ -0,0 +1,149 @@
+package com.selimhorri.app.config.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Times every statement executed through the wrapped pool and hands the slow
+ * ones to the {@link SlowQueryRecorder}. Extends {@link DelegatingDataSource}
+ * so Boot's pool metadata and health checks still unwrap to the real pool.
+ */
+public class SlowQueryDataSource extends DelegatingDataSource {
+
+	private static final Set<String> EXECUTE_METHODS = Set.of(
+			"execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+	private final SlowQueryRecorder recorder;
+
+	public SlowQueryDataSource(final DataSource targetDataSource, final SlowQueryRecorder recorder) {
+		super(targetDataSource);
+		this.recorder = recorder;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return this.proxy(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(final String username, final String password) throws SQLException {
+		return this.proxy(super.getConnection(username, password));
+	}
+
+	private Connection proxy(final Connection connection) {
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new ConnectionHandler(connection));
+	}
+
+	private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		}
+		catch (InvocationTargetException e) {
+			throw e.getTargetException();
+		}
+	}
+
+	private final class ConnectionHandler implements InvocationHandler {
+
+		private final Connection target;
+
+		private ConnectionHandler(final Connection target) {
+			this.target = target;
+		}
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+			final var result = SlowQueryDataSource.invoke(this.target, method, args);
+			switch (method.getName()) {
+				case "prepareCall":
+					return statementProxy(CallableStatement.class, (Statement) result, (String) args[0]);
+				case "prepareStatement":
+					return statementProxy(PreparedStatement.class, (Statement) result, (String) args[0]);
+				case "createStatement":
+					return statementProxy(Statement.class, (Statement) result, null);
+				default:
+					return result;
+			}
+		}
+
+		private Object statementProxy(final Class<? extends Statement> type, final Statement statement,
+				final String sql) {
+			return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { type },
+					new StatementHandler(statement, sql));
+		}
+
+	}
+
+	private final class StatementHandler implements InvocationHandler {
+
+		private final Statement target;
+		private final String sql;
+		private final List<Object> parameters = new ArrayList<>();
+
+		private StatementHandler(final Statement target, final String sql) {
+			this.target = target;
+			this.sql = sql;
+		}
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+			final var name = method.getName();
+			if (EXECUTE_METHODS.contains(name)) {
+				final long start = System.nanoTime();
+				try {
+					return SlowQueryDataSource.invoke(this.target, method, args);
+				}
+				finally {
+					final long elapsed = System.nanoTime() - start;
+					if (recorder.isSlow(elapsed)) {
+						final var executed = args != null && args.length > 0 && args[0] instanceof String
+								? (String) args[0]
+								: this.sql;
+						if (executed != null)
+							recorder.record(executed, new ArrayList<>(this.parameters), elapsed, getTargetDataSource());
+					}
+				}
+			}
+			if (args != null && args.length >= 2 && args[0] instanceof Integer && name.startsWith("set"))
+				this.bind((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+			else if ("clearParameters".equals(name))
+				this.parameters.clear();
+			return SlowQueryDataSource.invoke(this.target, method, args);
+		}
+
+		private void bind(final int index, final Object value) {
+			while (this.parameters.size() < index)
+				this.parameters.add(null);
+			this.parameters.set(index - 1, value);
+		}
+
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,39 @@
+package com.selimhorri.app.config.sql;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import lombok.RequiredArgsConstructor;
+
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+
+	private final SlowQueryRecorder slowQueryRecorder;
+
+	@ReadOperation
+	public List<SlowQueryEntry> slowQueries() {
+		return this.slowQueryRecorder.snapshot();
+	}
+
+	@DeleteOperation
+	public void clear() {
+		this.slowQueryRecorder.clear();
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
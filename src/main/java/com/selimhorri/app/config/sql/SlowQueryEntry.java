@@ -0,0 +1,34 @@
+package com.selimhorri.app.config.sql;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder(toBuilder = true)
+public class SlowQueryEntry implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	String sql;
+
+	/**
+	 * Java type of each bind parameter in index order, never the values themselves.
+	 */
+	List<String> parameterShapes;
+
+	double durationMillis;
+
+	String caller;
+
+	String capturedAt;
+
+	@JsonInclude(Include.NON_NULL)
+	String plan;
+
+}
@@ -0,0 +1,173 @@
+package com.selimhorri.app.config.sql;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the most recent statements slower than the configured threshold in a
+ * fixed-size ring, so memory stays bounded no matter how many slow statements
+ * a busy instance sees. Fast statements only pay for one comparison.
+ */
+@Slf4j
+public class SlowQueryRecorder implements DisposableBean {
+
+	private static final String APP_PACKAGE = "com.selimhorri.app.";
+	private static final String CONFIG_PACKAGE = "com.selimhorri.app.config.";
+	private static final String PENDING_PLAN = "";
+
+	private final SqlStatementProperties.SlowQuery properties;
+	private final long thresholdNanos;
+	private final AtomicReferenceArray<SlowQueryEntry> ring;
+	private final AtomicLong cursor = new AtomicLong();
+	private final Map<String, String> plans = new ConcurrentHashMap<>();
+	private final ThreadPoolExecutor explainExecutor;
+
+	public SlowQueryRecorder(final SqlStatementProperties.SlowQuery properties) {
+		this.properties = properties;
+		this.thresholdNanos = properties.getThreshold().toNanos();
+		this.ring = new AtomicReferenceArray<>(properties.getCapacity());
+		this.explainExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(64),
+				runnable -> {
+					final var thread = new Thread(runnable, "slow-query-explain");
+					thread.setDaemon(true);
+					return thread;
+				},
+				new ThreadPoolExecutor.DiscardPolicy());
+	}
+
+	public boolean isSlow(final long elapsedNanos) {
+		return elapsedNanos >= this.thresholdNanos;
+	}
+
+	public void record(final String sql, final List<Object> parameters, final long elapsedNanos,
+			final DataSource explainDataSource) {
+		final var entry = SlowQueryEntry.builder()
+				.sql(sql)
+				.parameterShapes(parameters.stream()
+						.map(p -> p == null ? "null" : p.getClass().getSimpleName())
+						.collect(Collectors.toUnmodifiableList()))
+				.durationMillis(elapsedNanos / 1_000_000.0)
+				.caller(callingMethod())
+				.capturedAt(Instant.now().toString())
+				.build();
+		final int slot = (int) (this.cursor.getAndIncrement() % this.ring.length());
+		this.ring.set(slot, entry);
+
+		if (this.properties.isExplainEnabled() && isSelect(sql) && this.plans.size() < this.properties.getMaxPlans()
+				&& this.plans.putIfAbsent(sql, PENDING_PLAN) == null)
+			this.explainExecutor.execute(() -> this.explain(sql, parameters, explainDataSource));
+	}
+
+	public List<SlowQueryEntry> snapshot() {
+		final var entries = new ArrayList<SlowQueryEntry>(this.ring.length());
+		for (int i = 0; i < this.ring.length(); i++) {
+			final var entry = this.ring.get(i);
+			if (entry != null) {
+				final var plan = this.plans.get(entry.getSql());
+				entries.add(plan == null || plan.isEmpty() ? entry : entry.toBuilder().plan(plan).build());
+			}
+		}
+		entries.sort(Comparator.comparingDouble(SlowQueryEntry::getDurationMillis).reversed());
+		return entries;
+	}
+
+	public void clear() {
+		for (int i = 0; i < this.ring.length(); i++)
+			this.ring.set(i, null);
+		this.plans.clear();
+	}
+
+	@Override
+	public void destroy() {
+		this.explainExecutor.shutdownNow();
+	}
+
+	private void explain(final String sql, final List<Object> parameters, final DataSource dataSource) {
+		try (final var connection = dataSource.getConnection()) {
+			if (!DatabaseVendor.of(connection).supportsExplain()) {
+				this.plans.remove(sql);
+				return;
+			}
+			try (final var statement = connection.prepareStatement("EXPLAIN " + stripLeadingComments(sql))) {
+				for (int i = 0; i < parameters.size(); i++)
+					statement.setObject(i + 1, parameters.get(i));
+				try (final var resultSet = statement.executeQuery()) {
+					final var metaData = resultSet.getMetaData();
+					final var plan = new StringBuilder();
+					while (resultSet.next()) {
+						if (plan.length() > 0)
+							plan.append('\n');
+						for (int column = 1; column <= metaData.getColumnCount(); column++) {
+							if (metaData.getColumnCount() > 1)
+								plan.append(column > 1 ? ", " : "").append(metaData.getColumnLabel(column)).append('=');
+							plan.append(resultSet.getString(column));
+						}
+					}
+					this.plans.put(sql, plan.toString());
+				}
+			}
+		}
+		catch (SQLException e) {
+			log.debug("Could not capture plan for slow query: {}", e.getMessage());
+			this.plans.remove(sql);
+		}
+	}
+
+	private static boolean isSelect(final String sql) {
+		final var stripped = stripLeadingComments(sql);
+		return stripped.regionMatches(true, 0, "select", 0, 6);
+	}
+
+	// Hibernate prefixes statements with /* ... */ when use_sql_comments is on
+	static String stripLeadingComments(final String sql) {
+		var stripped = sql.strip();
+		while (stripped.startsWith("/*")) {
+			final int end = stripped.indexOf("*/");
+			if (end < 0)
+				break;
+			stripped = stripped.substring(end + 2).strip();
+		}
+		return stripped;
+	}
+
+	private static String callingMethod() {
+		return StackWalker.getInstance().walk(frames -> frames
+				.filter(f -> f.getClassName().startsWith(APP_PACKAGE)
+						&& !f.getClassName().startsWith(CONFIG_PACKAGE)
+						&& !f.getClassName().contains("$$"))
+				.findFirst()
+				.map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1) + "." + f.getMethodName())
+				.orElse("unknown"));
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,62 @@
+package com.selimhorri.app.config.sql;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-thread tally of the SQL statements issued and entity rows hydrated while
+ * an HTTP request is being served. Hibernate calls in from the request thread,
+ * so a thread-local is enough; nothing is recorded outside an open scope.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+public final class SqlRequestStatistics {
+
+	private static final ThreadLocal<SqlRequestStatistics> CURRENT = new ThreadLocal<>();
+
+	private int statements;
+	private int rows;
+
+	public static SqlRequestStatistics begin() {
+		final var statistics = new SqlRequestStatistics();
+		CURRENT.set(statistics);
+		return statistics;
+	}
+
+	public static SqlRequestStatistics current() {
+		return CURRENT.get();
+	}
+
+	public static void end() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * Also called for statements that bypass Hibernate, such as JDBC batches, so they count against the budget.
+	 */
+	public static void recordStatement() {
+		final var statistics = CURRENT.get();
+		if (statistics != null)
+			statistics.statements++;
+	}
+
+	static void recordRow() {
+		final var statistics = CURRENT.get();
+		if (statistics != null)
+			statistics.rows++;
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,31 @@
+package com.selimhorri.app.config.sql;
+
+import java.io.Serializable;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+
+public class SqlRowCountingInterceptor extends EmptyInterceptor {
+
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public boolean onLoad(final Object entity, final Serializable id, final Object[] state,
+			final String[] propertyNames, final Type[] types) {
+		SqlRequestStatistics.recordRow();
+		return false;
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
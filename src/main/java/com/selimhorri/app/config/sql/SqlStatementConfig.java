@@ -0,0 +1,47 @@
+package com.selimhorri.app.config.sql;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@EnableConfigurationProperties(SqlStatementProperties.class)
+public class SqlStatementConfig {
+
+	@Bean
+	public HibernatePropertiesCustomizer sqlStatementCountingCustomizer() {
+		return hibernateProperties -> {
+			hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementCountingInspector());
+			hibernateProperties.put(AvailableSettings.INTERCEPTOR, new SqlRowCountingInterceptor());
+		};
+	}
+
+	@Bean
+	public FilterRegistrationBean<SqlStatementCountingFilter> sqlStatementCountingFilter(
+			final SqlStatementProperties properties, final MeterRegistry meterRegistry) {
+		final var registration = new FilterRegistrationBean<>(
+				new SqlStatementCountingFilter(properties, meterRegistry));
+		registration.addUrlPatterns("/api/*");
+		registration.setOrder(Ordered.LOWEST_PRECEDENCE - 100);
+		return registration;
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,88 @@
+package com.selimhorri.app.config.sql;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.selimhorri.app.config.sql.SqlStatementProperties.BudgetMode;
+import com.selimhorri.app.exception.wrapper.SqlStatementBudgetExceededException;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RequiredArgsConstructor
+public class SqlStatementCountingFilter extends OncePerRequestFilter {
+
+	private final SqlStatementProperties properties;
+	private final MeterRegistry meterRegistry;
+
+	@Override
+	protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+			final FilterChain filterChain) throws ServletException, IOException {
+
+		final var statistics = SqlRequestStatistics.begin();
+		try {
+			filterChain.doFilter(request, response);
+		}
+		finally {
+			SqlRequestStatistics.end();
+		}
+
+		final var pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		if (pattern == null)
+			return;
+
+		final var endpoint = request.getMethod() + " " + pattern;
+		if (this.properties.isMetricsEnabled())
+			this.record(request.getMethod(), pattern.toString(), statistics);
+		this.checkBudget(endpoint, statistics);
+	}
+
+	private void record(final String method, final String uri, final SqlRequestStatistics statistics) {
+		DistributionSummary.builder("http.server.requests.sql.statements")
+				.tags("method", method, "uri", uri)
+				.publishPercentileHistogram()
+				.register(this.meterRegistry)
+				.record(statistics.getStatements());
+		DistributionSummary.builder("http.server.requests.sql.rows")
+				.tags("method", method, "uri", uri)
+				.publishPercentileHistogram()
+				.register(this.meterRegistry)
+				.record(statistics.getRows());
+	}
+
+	private void checkBudget(final String endpoint, final SqlRequestStatistics statistics) {
+		final var budget = this.properties.getBudget();
+		final int maxStatements = budget.maxStatementsFor(endpoint);
+		if (statistics.getStatements() <= maxStatements)
+			return;
+
+		final var msg = String.format("%s issued %d SQL statements (%d rows), budget is %d",
+				endpoint, statistics.getStatements(), statistics.getRows(), maxStatements);
+		if (budget.getMode() == BudgetMode.FAIL)
+			throw new SqlStatementBudgetExceededException(msg);
+		log.warn("SQL statement budget exceeded: {}", msg);
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
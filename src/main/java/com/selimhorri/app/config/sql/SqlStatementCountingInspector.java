@@ -0,0 +1,27 @@
+package com.selimhorri.app.config.sql;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+public class SqlStatementCountingInspector implements StatementInspector {
+
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public String inspect(final String sql) {
+		SqlRequestStatistics.recordStatement();
+		return sql;
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,53 @@
+package com.selimhorri.app.config.sql;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Body advice runs after the handler has returned but before the response is
+ * committed, so the counts are final and the headers can still be written.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(prefix = "app.sql", name = "expose-header", havingValue = "true")
+public class SqlStatementHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+	public static final String STATEMENT_COUNT_HEADER = "X-Sql-Statement-Count";
+	public static final String ROWS_FETCHED_HEADER = "X-Sql-Rows-Fetched";
+
+	@Override
+	public boolean supports(final MethodParameter returnType,
+			final Class<? extends HttpMessageConverter<?>> converterType) {
+		return true;
+	}
+
+	@Override
+	public Object beforeBodyWrite(final Object body, final MethodParameter returnType,
+			final MediaType selectedContentType, final Class<? extends HttpMessageConverter<?>> selectedConverterType,
+			final ServerHttpRequest request, final ServerHttpResponse response) {
+		final var statistics = SqlRequestStatistics.current();
+		if (statistics != null) {
+			response.getHeaders().set(STATEMENT_COUNT_HEADER, String.valueOf(statistics.getStatements()));
+			response.getHeaders().set(ROWS_FETCHED_HEADER, String.valueOf(statistics.getRows()));
+		}
+		return body;
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
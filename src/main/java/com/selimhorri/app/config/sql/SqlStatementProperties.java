@@ -0,0 +1,88 @@
+package com.selimhorri.app.config.sql;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@ConfigurationProperties(prefix = "app.sql")
+@Data
+public class SqlStatementProperties {
+
+	/**
+	 * Adds X-Sql-Statement-Count / X-Sql-Rows-Fetched to every API response.
+	 */
+	private boolean exposeHeader = false;
+
+	/**
+	 * Records per-endpoint statement and row distributions in Micrometer.
+	 */
+	private boolean metricsEnabled = false;
+
+	private final Budget budget = new Budget();
+
+	private final SlowQuery slowQuery = new SlowQuery();
+
+	@Data
+	public static class Budget {
+
+		private BudgetMode mode = BudgetMode.LOG;
+
+		private int defaultMaxStatements = 10;
+
+		/**
+		 * Keyed by "METHOD /path/pattern", e.g. "GET /api/orders/{orderId}".
+		 */
+		private Map<String, Integer> endpoints = new HashMap<>();
+
+		public int maxStatementsFor(final String endpoint) {
+			return this.endpoints.getOrDefault(endpoint, this.defaultMaxStatements);
+		}
+
+	}
+
+	@Data
+	public static class SlowQuery {
+
+		private boolean enabled = true;
+
+		private Duration threshold = Duration.ofMillis(200);
+
+		/**
+		 * Size of the ring buffer served by the slowqueries actuator endpoint.
+		 */
+		private int capacity = 50;
+
+		/**
+		 * Captures the EXPLAIN plan the first time a slow SELECT is seen (H2/MySQL only).
+		 */
+		private boolean explainEnabled = true;
+
+		/**
+		 * Distinct statements whose plan is remembered before new ones are skipped.
+		 */
+		private int maxPlans = 500;
+
+	}
+
+	public enum BudgetMode {
+		LOG,
+		FAIL
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,103 @@
+package com.selimhorri.app.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.Immutable;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonFormat.Shape;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import com.selimhorri.app.constant.AppConstant;
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.json.CentsSerializer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An inactive order moved out of {@code orders} by the archiver. Rows are written in JDBC batches
+ * and only ever read afterwards; the cart may since have been deleted, so there is no foreign key.
+ */
+@Entity
+@Immutable
+@Table(name = "orders_archive",
+		indexes = @Index(name = "idx_orders_archive_cart_id", columnList = "cart_id, order_id"))
+@JsonPropertyOrder({ "orderId", "cartId", "orderDate", "orderDesc", "orderFee", "status", "version", "createdAt",
+		"updatedAt", "archivedAt" })
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class ArchivedOrder implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@JsonSerialize(using = ToStringSerializer.class)
+	@Column(name = "order_id", nullable = false, updatable = false)
+	private Long orderId;
+
+	@Column(name = "cart_id", updatable = false)
+	private Integer cartId;
+
+	@JsonSerialize(using = LocalDateTimeSerializer.class)
+	@JsonFormat(pattern = AppConstant.LOCAL_DATE_TIME_FORMAT, shape = Shape.STRING)
+	@Column(name = "order_date", updatable = false)
+	private LocalDateTime orderDate;
+
+	@Column(name = "order_desc", updatable = false)
+	private String orderDesc;
+
+	@JsonProperty("orderFee")
+	@JsonSerialize(using = CentsSerializer.class)
+	@Convert(converter = CentsConverter.class)
+	@Column(name = "order_fee", columnDefinition = "decimal(19, 2)", updatable = false)
+	private Long orderFeeCents;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "status", nullable = false, updatable = false, length = 20)
+	private OrderStatus status;
+
+	@Column(name = "version", nullable = false, updatable = false)
+	private Long version;
+
+	@JsonSerialize(using = ToStringSerializer.class)
+	@Column(name = "created_at", updatable = false)
+	private Instant createdAt;
+
+	@JsonSerialize(using = ToStringSerializer.class)
+	@Column(name = "updated_at", updatable = false)
+	private Instant updatedAt;
+
+	@JsonSerialize(using = ToStringSerializer.class)
+	@Column(name = "archived_at", nullable = false, updatable = false)
+	private Instant archivedAt;
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -3,6 +3,7 @@ package com.selimhorri.app.domain;
 import java.io.Serializable;
 import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -12,6 +13,10 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
@@ -23,6 +28,8 @@ import lombok.NoArgsConstructor;
 
 @Entity
 @Table(name = "carts")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Cart.CACHE_REGION)
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode(callSuper = true, exclude = {"orders"})
@@ -32,6 +39,8 @@ public final class Cart extends AbstractMappedEntity implements Serializable {
 	
 	private static final long serialVersionUID = 1L;
 	
+	public static final String CACHE_REGION = "carts";
+	
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	@Column(name = "cart_id", unique = true, nullable = false, updatable = false)
@@ -39,6 +48,10 @@ public final class Cart extends AbstractMappedEntity implements Serializable {
 	
 	@Column(name = "user_id")
 	private Integer userId;
+
+	@Version
+	@Column(name = "version", nullable = false)
+	private Long version;
 	
 	@JsonIgnore
 	@OneToMany(mappedBy = "cart", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
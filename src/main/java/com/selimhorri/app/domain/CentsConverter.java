@@ -0,0 +1,26 @@
+package com.selimhorri.app.domain;
+
+import java.math.BigDecimal;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+import com.selimhorri.app.helper.CentsHelper;
+
+/**
+ * Maps a fee held as long cents to its DECIMAL(19, 2) column.
+ */
+@Converter
+public class CentsConverter implements AttributeConverter<Long, BigDecimal> {
+
+	@Override
+	public BigDecimal convertToDatabaseColumn(final Long cents) {
+		return CentsHelper.toDecimalOrNull(cents);
+	}
+
+	@Override
+	public Long convertToEntityAttribute(final BigDecimal amount) {
+		return CentsHelper.toCentsOrNull(amount);
+	}
+
+}
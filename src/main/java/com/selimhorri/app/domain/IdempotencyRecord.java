@@ -0,0 +1,80 @@
+package com.selimhorri.app.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "idempotency_keys")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class IdempotencyRecord implements Persistable<String>, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@Column(name = "idempotency_key", nullable = false, updatable = false)
+	private String idempotencyKey;
+
+	@Column(name = "request_hash", nullable = false, length = 64)
+	private String requestHash;
+
+	@Lob
+	@Column(name = "response_body", nullable = false)
+	private String responseBody;
+
+	@Column(name = "created_at", nullable = false)
+	private Instant createdAt;
+
+	@Column(name = "expires_at", nullable = false)
+	private Instant expiresAt;
+
+	// Keys are assigned by the client, so save() must persist instead of merging
+	@Transient
+	@Builder.Default
+	private boolean newRecord = true;
+
+	@Override
+	public String getId() {
+		return this.idempotencyKey;
+	}
+
+	@Override
+	public boolean isNew() {
+		return this.newRecord;
+	}
+
+	@PostLoad
+	@PostPersist
+	void markNotNew() {
+		this.newRecord = false;
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -4,27 +4,34 @@ import java.io.Serializable;
 import java.time.LocalDateTime;
 
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonFormat.Shape;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
 import com.selimhorri.app.constant.AppConstant;
 import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.json.CentsDeserializer;
+import com.selimhorri.app.dto.json.CentsSerializer;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -34,7 +41,7 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_order_date", columnList = "is_active, order_date"))
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString(exclude = "cart") // Exclude cart to prevent circular reference
@@ -45,10 +52,13 @@ public final class Order extends AbstractMappedEntity implements Serializable {
 	
 	private static final long serialVersionUID = 1L;
 	
+	// Handed out in the process, see OrderIdGenerator; a string in JSON, past the 2^53 of a JavaScript number
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(generator = "order-id")
+	@GenericGenerator(name = "order-id", strategy = "com.selimhorri.app.domain.OrderIdentifierGenerator")
+	@JsonSerialize(using = ToStringSerializer.class)
 	@Column(name = "order_id", unique = true, nullable = false, updatable = false)
-	private Integer orderId;
+	private Long orderId;
 	
 	@JsonSerialize(using = LocalDateTimeSerializer.class)
 	@JsonDeserialize(using = LocalDateTimeDeserializer.class)
@@ -60,8 +70,12 @@ public final class Order extends AbstractMappedEntity implements Serializable {
 	@Column(name = "order_desc")
 	private String orderDesc;
 	
-	@Column(name = "order_fee", columnDefinition = "decimal")
-	private Double orderFee;
+	@JsonProperty("orderFee")
+	@JsonSerialize(using = CentsSerializer.class)
+	@JsonDeserialize(using = CentsDeserializer.class)
+	@Convert(converter = CentsConverter.class)
+	@Column(name = "order_fee", columnDefinition = "decimal(19, 2)")
+	private Long orderFeeCents;
 	
 	@ManyToOne(fetch = FetchType.EAGER)
 	@JoinColumn(name = "cart_id")
@@ -75,6 +89,10 @@ public final class Order extends AbstractMappedEntity implements Serializable {
 	@Builder.Default
 	private OrderStatus status = OrderStatus.CREATED;
 
+	@Version
+	@Column(name = "version", nullable = false)
+	private Long version;
+
 }
 
 
@@ -0,0 +1,67 @@
+package com.selimhorri.app.domain;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.Immutable;
+
+import com.selimhorri.app.domain.enums.OrderStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Count and total fee of the active orders of one day in one status. Rows are only changed by
+ * additive upserts from {@code OrderSummaryRecorder}, in the transaction of the order write.
+ */
+@Entity
+@Immutable
+@IdClass(OrderDailySummary.Key.class)
+@Table(name = "order_daily_summary")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class OrderDailySummary implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@Column(name = "summary_date", nullable = false, updatable = false)
+	private LocalDate summaryDate;
+
+	@Id
+	@Enumerated(EnumType.STRING)
+	@Column(name = "status", nullable = false, updatable = false, length = 20)
+	private OrderStatus status;
+
+	@Column(name = "order_count", nullable = false, updatable = false)
+	private Long orderCount;
+
+	@Column(name = "total_fee", nullable = false, updatable = false, precision = 19, scale = 2)
+	private BigDecimal totalFee;
+
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Data
+	public static class Key implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private LocalDate summaryDate;
+		private OrderStatus status;
+
+	}
+
+}
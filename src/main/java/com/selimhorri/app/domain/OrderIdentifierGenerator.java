@@ -0,0 +1,40 @@
+package com.selimhorri.app.domain;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import com.selimhorri.app.id.OrderIdGenerator;
+
+/**
+ * Gives a new order its id from the {@link OrderIdGenerator} put in the Hibernate settings under
+ * {@link #GENERATOR_SETTING}, so persisting an order needs no statement until the flush.
+ */
+public class OrderIdentifierGenerator implements IdentifierGenerator, Configurable {
+
+	public static final String GENERATOR_SETTING = "app.orders.id-generator";
+
+	private OrderIdGenerator generator;
+
+	@Override
+	public void configure(final Type type, final Properties params, final ServiceRegistry serviceRegistry) {
+		final Object generator = serviceRegistry.getService(ConfigurationService.class)
+				.getSettings().get(GENERATOR_SETTING);
+		if (!(generator instanceof OrderIdGenerator))
+			throw new MappingException("No OrderIdGenerator in the Hibernate setting " + GENERATOR_SETTING);
+		this.generator = (OrderIdGenerator) generator;
+	}
+
+	@Override
+	public Serializable generate(final SharedSessionContractImplementor session, final Object object) {
+		return this.generator.next();
+	}
+
+}
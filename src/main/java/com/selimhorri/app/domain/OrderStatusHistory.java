@@ -0,0 +1,67 @@
+package com.selimhorri.app.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import com.selimhorri.app.domain.enums.OrderStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Append-only record of one order status transition. Rows are inserted in JDBC batches by
+ * the status auditor and never updated, so there is no foreign key to {@code orders}.
+ */
+@Entity
+@Table(name = "order_status_history",
+		indexes = @Index(name = "idx_order_status_history_order_id", columnList = "order_id, changed_at"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class OrderStatusHistory implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "history_id", nullable = false, updatable = false)
+	private Long historyId;
+
+	@Column(name = "order_id", nullable = false, updatable = false)
+	private Long orderId;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "from_status", nullable = false, updatable = false, length = 20)
+	private OrderStatus fromStatus;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "to_status", nullable = false, updatable = false, length = 20)
+	private OrderStatus toStatus;
+
+	@Column(name = "changed_at", nullable = false, updatable = false)
+	private Instant changedAt;
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,80 @@
+package com.selimhorri.app.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+import com.selimhorri.app.domain.enums.OrderEventType;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Order event waiting in the transactional outbox. Rows are inserted with the order change
+ * they describe and read back by the relay with plain JDBC; the mapping is here for the schema.
+ */
+@Entity
+@Table(name = "order_outbox",
+		indexes = @Index(name = "idx_order_outbox_pending", columnList = "published_at, event_id"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class OutboxEvent implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "event_id", nullable = false, updatable = false)
+	private Long eventId;
+
+	@Column(name = "aggregate_id", nullable = false, updatable = false)
+	private Long aggregateId;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "event_type", nullable = false, updatable = false, length = 40)
+	private OrderEventType eventType;
+
+	@Lob
+	@Column(name = "payload", nullable = false, updatable = false)
+	private String payload;
+
+	@Column(name = "created_at", nullable = false, updatable = false)
+	private Instant createdAt;
+
+	@Column(name = "published_at")
+	private Instant publishedAt;
+
+	@Column(name = "claim_token", length = 36)
+	private String claimToken;
+
+	@Column(name = "claimed_until")
+	private Instant claimedUntil;
+
+	@Column(name = "attempts", nullable = false)
+	private int attempts;
+
+}
+
+
+
+
+
+
+
+
+
+
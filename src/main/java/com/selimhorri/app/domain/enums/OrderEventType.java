@@ -0,0 +1,7 @@
+package com.selimhorri.app.domain.enums;
+
+public enum OrderEventType {
+    ORDER_CREATED,
+    ORDER_STATUS_CHANGED,
+    ORDER_DEACTIVATED
+}
@@ -0,0 +1,44 @@
+package com.selimhorri.app.dto;
+
+import java.io.Serializable;
+import java.util.Set;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+
+import com.selimhorri.app.domain.enums.OrderStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class BulkStatusUpdateDto implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@NotEmpty(message = "orderIds must not be empty")
+	// Numbers or strings, as OrderDto writes them
+	private Set<Long> orderIds;
+
+	@NotNull(message = "fromStatus must not be NULL")
+	private OrderStatus fromStatus;
+
+	@NotNull(message = "toStatus must not be NULL")
+	private OrderStatus toStatus;
+
+}
+
+
+
+
+
+
+
+
+
+
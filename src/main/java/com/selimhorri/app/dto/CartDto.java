@@ -22,6 +22,7 @@ public class CartDto implements Serializable {
 	
 	private Integer cartId;
 	private Integer userId;
+	private Long version;
 	
 	@JsonInclude(Include.NON_NULL)
 	private Set<OrderDto> orderDtos;
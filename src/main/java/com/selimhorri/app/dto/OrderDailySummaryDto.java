@@ -0,0 +1,44 @@
+package com.selimhorri.app.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonFormat.Shape;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
+import com.selimhorri.app.constant.AppConstant;
+import com.selimhorri.app.domain.enums.OrderStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class OrderDailySummaryDto implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	@JsonSerialize(using = LocalDateSerializer.class)
+	@JsonFormat(pattern = AppConstant.LOCAL_DATE_FORMAT, shape = Shape.STRING)
+	private LocalDate date;
+	private OrderStatus orderStatus;
+	private Long orderCount;
+	private BigDecimal totalFee;
+	
+}
+
+
+
+
+
+
+
+
+
+
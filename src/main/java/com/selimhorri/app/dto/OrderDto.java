@@ -9,19 +9,25 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonFormat.Shape;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
 import com.selimhorri.app.constant.AppConstant;
 import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.json.CentsDeserializer;
+import com.selimhorri.app.dto.json.CentsSerializer;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+// Keeps orderFee where it was before the field was renamed
+@JsonPropertyOrder({ "orderId", "orderDate", "orderDesc", "orderFee", "orderStatus", "version", "cart" })
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
@@ -30,7 +36,9 @@ public class OrderDto implements Serializable {
 	
 	private static final long serialVersionUID = 1L;
 	
-	private Integer orderId;
+	// A string: generated order ids are past the 2^53 a JavaScript number holds exactly
+	@JsonSerialize(using = ToStringSerializer.class)
+	private Long orderId;
 	
 	@JsonSerialize(using = LocalDateTimeSerializer.class)
 	@JsonDeserialize(using = LocalDateTimeDeserializer.class)
@@ -38,8 +46,15 @@ public class OrderDto implements Serializable {
 	@DateTimeFormat(pattern = AppConstant.LOCAL_DATE_TIME_FORMAT)
 	private LocalDateTime orderDate;
 	private String orderDesc;
-	private Double orderFee;
+	/**
+	 * In cents; {@code orderFee} in JSON, as the decimal amount.
+	 */
+	@JsonProperty("orderFee")
+	@JsonSerialize(using = CentsSerializer.class)
+	@JsonDeserialize(using = CentsDeserializer.class)
+	private Long orderFeeCents;
 	private OrderStatus orderStatus;
+	private Long version;
 	
 	@JsonProperty("cart")
 	@JsonInclude(Include.NON_NULL)
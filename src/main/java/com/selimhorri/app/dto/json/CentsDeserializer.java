@@ -0,0 +1,41 @@
+package com.selimhorri.app.dto.json;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.selimhorri.app.helper.CentsHelper;
+
+/**
+ * Reads a decimal amount, as a JSON number or string, into long cents without going through a
+ * double, rounding half up to the cent.
+ */
+public class CentsDeserializer extends StdDeserializer<Long> {
+
+	private static final long serialVersionUID = 1L;
+
+	public CentsDeserializer() {
+		super(Long.class);
+	}
+
+	@Override
+	public Long deserialize(final JsonParser parser, final DeserializationContext context) throws IOException {
+		try {
+			if (parser.hasToken(JsonToken.VALUE_NUMBER_INT) || parser.hasToken(JsonToken.VALUE_NUMBER_FLOAT))
+				return CentsHelper.toCents(parser.getDecimalValue());
+			if (parser.hasToken(JsonToken.VALUE_STRING))
+				return CentsHelper.toCents(new BigDecimal(parser.getText().trim()));
+		}
+		catch (NumberFormatException | ArithmeticException e) {
+			throw InvalidFormatException.from(parser, "Not an amount that fits a long number of cents", parser.getText(),
+					Long.class);
+		}
+		return (Long) context.handleUnexpectedToken(Long.class, parser);
+	}
+
+}
+
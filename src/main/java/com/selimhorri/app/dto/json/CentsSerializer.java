@@ -0,0 +1,34 @@
+package com.selimhorri.app.dto.json;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.selimhorri.app.helper.CentsHelper;
+
+/**
+ * Writes long cents as the decimal amount, the number clients got when fees were doubles. Below
+ * 2^53 cents the nearest double prints as exactly the amount, as it did then; past it the amount
+ * is written as a decimal so nothing is rounded away.
+ */
+public class CentsSerializer extends StdSerializer<Long> {
+
+	private static final long serialVersionUID = 1L;
+	private static final long EXACT_AS_DOUBLE = 1L << 53;
+
+	public CentsSerializer() {
+		super(Long.class);
+	}
+
+	@Override
+	public void serialize(final Long cents, final JsonGenerator generator, final SerializerProvider provider)
+			throws IOException {
+		if (Math.abs(cents) < EXACT_AS_DOUBLE)
+			generator.writeNumber(cents / 100.0);
+		else
+			generator.writeNumber(CentsHelper.toDecimal(cents));
+	}
+
+}
+
@@ -0,0 +1,67 @@
+package com.selimhorri.app.dto.response;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.selimhorri.app.domain.enums.OrderStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class BulkStatusUpdateResponse {
+
+	private int updated;
+
+	private List<Result> results;
+
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@Data
+	@Builder
+	public static class Result {
+
+		@JsonSerialize(using = ToStringSerializer.class)
+		private Long orderId;
+
+		private Outcome outcome;
+
+		/**
+		 * Status the order was left in; absent for orders that do not exist or are inactive.
+		 */
+		@JsonInclude(Include.NON_NULL)
+		private OrderStatus orderStatus;
+
+	}
+
+	public enum Outcome {
+		UPDATED,
+		NOT_FOUND,
+		CONFLICT,
+		/**
+		 * In the requested from-status, but a transition guard vetoed the move.
+		 */
+		REJECTED
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,54 @@
+package com.selimhorri.app.event;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import com.selimhorri.app.domain.OutboxEvent;
+
+/**
+ * Appends one line per event to a local file: {@code <eventId> <eventType> <payload>}.
+ * The batch is written and forced to disk before it is acknowledged.
+ */
+public class FileOrderEventSink implements OrderEventSink {
+
+	private final Path file;
+
+	public FileOrderEventSink(final Path file) {
+		this.file = file;
+	}
+
+	@Override
+	public synchronized void send(final List<OutboxEvent> events) throws IOException {
+		final var lines = new StringBuilder();
+		for (final var event : events) {
+			lines.append(event.getEventId())
+					.append(' ')
+					.append(event.getEventType())
+					.append(' ')
+					.append(event.getPayload())
+					.append('\n');
+		}
+		try (final var channel = FileChannel.open(this.file,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			final var buffer = StandardCharsets.UTF_8.encode(lines.toString());
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			channel.force(false);
+		}
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
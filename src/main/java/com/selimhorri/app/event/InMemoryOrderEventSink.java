@@ -0,0 +1,49 @@
+package com.selimhorri.app.event;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import com.selimhorri.app.domain.OutboxEvent;
+
+/**
+ * Keeps the most recent events in memory, for tests and local runs.
+ */
+public class InMemoryOrderEventSink implements OrderEventSink {
+
+	private final int capacity;
+	private final Deque<OutboxEvent> events = new ArrayDeque<>();
+
+	public InMemoryOrderEventSink(final int capacity) {
+		this.capacity = capacity;
+	}
+
+	@Override
+	public synchronized void send(final List<OutboxEvent> batch) {
+		for (final var event : batch) {
+			if (this.events.size() == this.capacity)
+				this.events.pollFirst();
+			this.events.addLast(event);
+		}
+	}
+
+	public synchronized List<OutboxEvent> snapshot() {
+		return new ArrayList<>(this.events);
+	}
+
+	public synchronized void clear() {
+		this.events.clear();
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,51 @@
+package com.selimhorri.app.event;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.selimhorri.app.domain.enums.OrderEventType;
+import com.selimhorri.app.domain.enums.OrderStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Payload of an order event as downstream services receive it. {@code version} is the order's
+ * version after the change, so consumers can discard events that arrive out of order.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class OrderEvent {
+
+	private OrderEventType eventType;
+
+	@JsonSerialize(using = ToStringSerializer.class)
+	private Long orderId;
+
+	private Integer cartId;
+
+	private OrderStatus orderStatus;
+
+	private OrderStatus previousStatus;
+
+	private Long version;
+
+	/**
+	 * Epoch milliseconds.
+	 */
+	private long occurredAt;
+
+}
+
+
+
+
+
+
+
+
+
+
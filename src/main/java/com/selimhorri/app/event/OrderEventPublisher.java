@@ -0,0 +1,77 @@
+package com.selimhorri.app.event;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.selimhorri.app.config.outbox.OutboxProperties;
+import com.selimhorri.app.config.sql.SqlRequestStatistics;
+
+/**
+ * Writes order events to the outbox in the caller's transaction, so an event exists if and only if
+ * the change it describes commits. Events are inserted as one JDBC batch per call.
+ */
+@Component
+public class OrderEventPublisher {
+
+	static final String INSERT_SQL = "INSERT INTO order_outbox (aggregate_id, event_type, payload, created_at, attempts) "
+			+ "VALUES (?, ?, ?, ?, 0)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final ObjectWriter payloadWriter;
+	private final OutboxProperties properties;
+
+	public OrderEventPublisher(final JdbcTemplate jdbcTemplate, final ObjectMapper objectMapper,
+			final OutboxProperties properties) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.payloadWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+		this.properties = properties;
+	}
+
+	public void publish(final OrderEvent event) {
+		this.publishAll(List.of(event));
+	}
+
+	public void publishAll(final List<OrderEvent> events) {
+		if (!this.properties.isEnabled() || events.isEmpty())
+			return;
+		if (!TransactionSynchronizationManager.isActualTransactionActive())
+			throw new IllegalStateException("Order events must be written in the transaction that changes the order");
+		final var createdAt = Timestamp.from(Instant.now());
+		this.jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), (ps, event) -> {
+			ps.setLong(1, event.getOrderId());
+			ps.setString(2, event.getEventType().name());
+			ps.setString(3, this.serialize(event));
+			ps.setTimestamp(4, createdAt);
+		});
+		SqlRequestStatistics.recordStatement();
+	}
+
+	private String serialize(final OrderEvent event) {
+		try {
+			return this.payloadWriter.writeValueAsString(event);
+		}
+		catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not serialize order event", e);
+		}
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
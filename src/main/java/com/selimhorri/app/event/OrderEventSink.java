@@ -0,0 +1,25 @@
+package com.selimhorri.app.event;
+
+import java.util.List;
+
+import com.selimhorri.app.domain.OutboxEvent;
+
+/**
+ * Where the outbox relay delivers order events. A batch counts as delivered only if this returns
+ * normally; on an exception the whole batch is offered again later, so delivery is at least once.
+ */
+public interface OrderEventSink {
+
+	void send(final List<OutboxEvent> events) throws Exception;
+
+}
+
+
+
+
+
+
+
+
+
+
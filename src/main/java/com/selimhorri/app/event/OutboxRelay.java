@@ -0,0 +1,255 @@
+package com.selimhorri.app.event;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.selimhorri.app.config.outbox.OutboxProperties;
+import com.selimhorri.app.config.sql.DatabaseVendor;
+import com.selimhorri.app.domain.OutboxEvent;
+import com.selimhorri.app.domain.enums.OrderEventType;
+import com.selimhorri.app.shard.Shards;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves events from the outbox to the {@link OrderEventSink} in batches, oldest first.
+ * <p>
+ * On MySQL 8 a batch is selected {@code FOR UPDATE SKIP LOCKED} and marked published in the same
+ * transaction, so several instances can relay side by side without waiting on each other. Elsewhere
+ * a batch is claimed with a conditional UPDATE that stamps a token and a lease; a relay that dies
+ * mid-batch leaves the lease to expire and the batch is picked up again.
+ * <p>
+ * Without a sink nothing is relayed and events wait in the outbox until one is configured.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class OutboxRelay {
+
+	private static final String SELECT_COLUMNS = "SELECT event_id, aggregate_id, event_type, payload, created_at, attempts "
+			+ "FROM order_outbox ";
+	private static final String LOCK_PENDING_SQL = SELECT_COLUMNS
+			+ "WHERE published_at IS NULL ORDER BY event_id LIMIT ? FOR UPDATE SKIP LOCKED";
+	private static final String MARK_PUBLISHED_SQL = "UPDATE order_outbox SET published_at = ? WHERE event_id = ?";
+	private static final String COUNT_ATTEMPT_SQL = "UPDATE order_outbox SET attempts = attempts + 1 WHERE event_id = ?";
+	// The derived table lets MySQL select from the table it updates
+	private static final String CLAIM_SQL = "UPDATE order_outbox SET claim_token = ?, claimed_until = ? "
+			+ "WHERE event_id IN (SELECT event_id FROM (SELECT event_id FROM order_outbox "
+			+ "WHERE published_at IS NULL AND (claimed_until IS NULL OR claimed_until < ?) "
+			+ "ORDER BY event_id LIMIT ?) pending) "
+			+ "AND published_at IS NULL AND (claimed_until IS NULL OR claimed_until < ?)";
+	private static final String SELECT_CLAIMED_SQL = SELECT_COLUMNS + "WHERE claim_token = ? ORDER BY event_id";
+	private static final String MARK_CLAIMED_PUBLISHED_SQL = "UPDATE order_outbox "
+			+ "SET published_at = ?, claim_token = NULL, claimed_until = NULL WHERE claim_token = ?";
+	private static final String RELEASE_CLAIM_SQL = "UPDATE order_outbox "
+			+ "SET attempts = attempts + 1, claim_token = NULL, claimed_until = NULL WHERE claim_token = ?";
+	private static final String PURGE_SQL = "DELETE FROM order_outbox WHERE published_at < ?";
+
+	private static final RowMapper<OutboxEvent> ROW_MAPPER = OutboxRelay::mapRow;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final OrderEventSink sink;
+	private final OutboxProperties properties;
+	private final Shards shards;
+	private final Timer deliveryLag;
+	private final DistributionSummary batchSize;
+	private final Counter published;
+	private final Counter failed;
+
+	private volatile Boolean skipLocked;
+
+	@Autowired
+	public OutboxRelay(final JdbcTemplate jdbcTemplate, final TransactionTemplate transactionTemplate,
+			final ObjectProvider<OrderEventSink> sink, final OutboxProperties properties, final Shards shards,
+			final MeterRegistry meterRegistry) {
+		this(jdbcTemplate, transactionTemplate, sink.getIfAvailable(), properties, shards, meterRegistry);
+	}
+
+	/**
+	 * @param sink null when none is configured
+	 */
+	OutboxRelay(final JdbcTemplate jdbcTemplate, final TransactionTemplate transactionTemplate,
+			final OrderEventSink sink, final OutboxProperties properties, final Shards shards,
+			final MeterRegistry meterRegistry) {
+		if (sink == null)
+			log.warn("No order event sink, order events stay in the outbox: set app.outbox.sink or define an "
+					+ "OrderEventSink bean");
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.sink = sink;
+		this.properties = properties;
+		this.shards = shards;
+		this.deliveryLag = Timer.builder("orders.outbox.delivery.lag")
+				.description("Time from an event being written to the outbox until the sink accepted it")
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+		this.batchSize = DistributionSummary.builder("orders.outbox.batch.size")
+				.description("Events handed to the sink per batch")
+				.register(meterRegistry);
+		this.published = meterRegistry.counter("orders.outbox.published");
+		this.failed = meterRegistry.counter("orders.outbox.failed");
+	}
+
+	@Scheduled(fixedDelayString = "${app.outbox.poll-interval:PT1S}")
+	public void poll() {
+		if (this.sink == null)
+			return;
+		// Every shard has an outbox of its own
+		this.shards.forEach(shard -> {
+			// Keep going while batches come back full, so a backlog drains without waiting a poll interval per batch
+			while (this.relayBatch() == this.properties.getBatchSize());
+		});
+	}
+
+	@Scheduled(fixedDelayString = "${app.outbox.cleanup-interval:PT1H}",
+			initialDelayString = "${app.outbox.cleanup-interval:PT1H}")
+	public void purgePublished() {
+		final var before = Timestamp.from(Instant.now().minus(this.properties.getRetention()));
+		this.shards.forEach(shard -> {
+			final int purged = this.jdbcTemplate.update(PURGE_SQL, before);
+			if (purged > 0)
+				log.info("Purged {} published order events", purged);
+		});
+	}
+
+	/**
+	 * @return number of events delivered
+	 */
+	int relayBatch() {
+		return this.supportsSkipLocked() ? this.relayLocked() : this.relayClaimed();
+	}
+
+	private int relayLocked() {
+		final List<OutboxEvent> batch = new ArrayList<>();
+		try {
+			this.transactionTemplate.executeWithoutResult(tx -> {
+				batch.addAll(this.jdbcTemplate.query(LOCK_PENDING_SQL, ROW_MAPPER, this.properties.getBatchSize()));
+				if (batch.isEmpty())
+					return;
+				this.deliver(batch);
+				final var publishedAt = Timestamp.from(Instant.now());
+				this.jdbcTemplate.batchUpdate(MARK_PUBLISHED_SQL, batch, batch.size(), (ps, event) -> {
+					ps.setTimestamp(1, publishedAt);
+					ps.setLong(2, event.getEventId());
+				});
+			});
+		}
+		catch (DeliveryFailedException e) {
+			this.jdbcTemplate.batchUpdate(COUNT_ATTEMPT_SQL, batch, batch.size(),
+					(ps, event) -> ps.setLong(1, event.getEventId()));
+			return 0;
+		}
+		this.recordDelivered(batch);
+		return batch.size();
+	}
+
+	private int relayClaimed() {
+		final var token = UUID.randomUUID().toString();
+		final var now = Instant.now();
+		final int claimed = this.jdbcTemplate.update(CLAIM_SQL, token,
+				Timestamp.from(now.plus(this.properties.getLeaseDuration())), Timestamp.from(now),
+				this.properties.getBatchSize(), Timestamp.from(now));
+		if (claimed == 0)
+			return 0;
+		final var batch = this.jdbcTemplate.query(SELECT_CLAIMED_SQL, ROW_MAPPER, token);
+		try {
+			this.deliver(batch);
+		}
+		catch (DeliveryFailedException e) {
+			this.jdbcTemplate.update(RELEASE_CLAIM_SQL, token);
+			return 0;
+		}
+		this.jdbcTemplate.update(MARK_CLAIMED_PUBLISHED_SQL, Timestamp.from(Instant.now()), token);
+		this.recordDelivered(batch);
+		return batch.size();
+	}
+
+	private void deliver(final List<OutboxEvent> batch) {
+		try {
+			this.sink.send(batch);
+		}
+		catch (Exception e) {
+			this.failed.increment(batch.size());
+			log.warn("Could not deliver {} order events starting at {}, will retry: {}",
+					batch.size(), batch.get(0).getEventId(), e.getMessage());
+			throw new DeliveryFailedException(e);
+		}
+	}
+
+	private void recordDelivered(final List<OutboxEvent> batch) {
+		if (batch.isEmpty())
+			return;
+		final var now = Instant.now();
+		for (final var event : batch)
+			this.deliveryLag.record(Duration.between(event.getCreatedAt(), now));
+		this.batchSize.record(batch.size());
+		this.published.increment(batch.size());
+	}
+
+	private boolean supportsSkipLocked() {
+		if (this.skipLocked == null) {
+			this.skipLocked = this.jdbcTemplate.execute((ConnectionCallback<Boolean>) OutboxRelay::supportsSkipLocked);
+			log.info("Outbox relay claims batches with {}", this.skipLocked ? "SKIP LOCKED" : "leased updates");
+		}
+		return this.skipLocked;
+	}
+
+	private static boolean supportsSkipLocked(final Connection connection) throws SQLException {
+		return DatabaseVendor.of(connection) == DatabaseVendor.MYSQL
+				&& connection.getMetaData().getDatabaseMajorVersion() >= 8;
+	}
+
+	private static OutboxEvent mapRow(final ResultSet rs, final int rowNum) throws SQLException {
+		return OutboxEvent.builder()
+				.eventId(rs.getLong("event_id"))
+				.aggregateId(rs.getLong("aggregate_id"))
+				.eventType(OrderEventType.valueOf(rs.getString("event_type")))
+				.payload(rs.getString("payload"))
+				.createdAt(rs.getTimestamp("created_at").toInstant())
+				.attempts(rs.getInt("attempts"))
+				.build();
+	}
+
+	private static final class DeliveryFailedException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		DeliveryFailedException(final Throwable cause) {
+			super(cause);
+		}
+
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
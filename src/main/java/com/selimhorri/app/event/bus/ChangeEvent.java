@@ -0,0 +1,65 @@
+package com.selimhorri.app.event.bus;
+
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.OrderDto;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Committed order or cart mutation, as seen by in-process consumers. Status fields are only set
+ * where they apply; {@code version} is the entity version after the change when it is known.
+ */
+@Value
+@Builder(toBuilder = true)
+public class ChangeEvent {
+
+	Type type;
+
+	Long entityId;
+
+	Integer cartId;
+
+	OrderStatus fromStatus;
+
+	OrderStatus toStatus;
+
+	Long version;
+
+	/**
+	 * Full order state after a single-order create, update or status change; null for bulk
+	 * transitions, deactivations and cart events.
+	 */
+	OrderDto order;
+
+	/**
+	 * Epoch milliseconds of the commit, set by {@link ChangeEventBus#publishAfterCommit}.
+	 */
+	long occurredAt;
+
+	public enum Type {
+		ORDER_CREATED,
+		ORDER_UPDATED,
+		ORDER_STATUS_CHANGED,
+		ORDER_DEACTIVATED,
+		CART_CREATED,
+		CART_UPDATED,
+		CART_DELETED;
+
+		public boolean isOrder() {
+			return this.name().startsWith("ORDER_");
+		}
+
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,293 @@
+package com.selimhorri.app.event.bus;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.selimhorri.app.config.eventbus.EventBusProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lock-free broadcast ring buffer for {@link ChangeEvent}s.
+ * <p>
+ * Publishers claim a sequence with a CAS on the cursor and mark the slot available with a release
+ * store, so request threads never take a lock. Each consumer owns a thread and a sequence, reads
+ * every slot up to the highest contiguous available one as a batch, then publishes its progress.
+ * A publisher that would overwrite a slot the slowest consumer has not read yet waits up to
+ * {@code publish-timeout} and then drops the event, so a stalled consumer never holds up a
+ * request; every consumer is then told it missed events, see
+ * {@link ChangeEventConsumer#onEventsMissed()}.
+ */
+@Slf4j
+public class ChangeEventBus implements SmartLifecycle {
+
+	private static final VarHandle AVAILABLE = MethodHandles.arrayElementVarHandle(int[].class);
+	private static final int SPINS_BEFORE_PARK = 100;
+
+	private final int capacity;
+	private final int mask;
+	private final int indexShift;
+	private final ChangeEvent[] entries;
+	private final int[] available;
+	private final AtomicLong cursor = new AtomicLong(-1);
+	private final List<Worker> workers = new ArrayList<>();
+	private final long publishTimeoutNanos;
+	private final int maxBatchSize;
+	private final long idleParkNanos;
+	private final Counter published;
+	private final Counter dropped;
+	private final Counter consumerErrors;
+
+	// Slowest consumer sequence seen by the last publisher that had to look; only ever behind the truth
+	private volatile long gatingSequenceCache = -1;
+	private volatile boolean running;
+
+	public ChangeEventBus(final EventBusProperties properties, final List<ChangeEventConsumer> consumers,
+			final MeterRegistry meterRegistry) {
+		this.capacity = Integer.highestOneBit(Math.max(2, properties.getCapacity() - 1)) << 1;
+		this.mask = this.capacity - 1;
+		this.indexShift = Integer.numberOfTrailingZeros(this.capacity);
+		this.entries = new ChangeEvent[this.capacity];
+		this.available = new int[this.capacity];
+		Arrays.fill(this.available, -1);
+		this.publishTimeoutNanos = properties.getPublishTimeout().toNanos();
+		this.maxBatchSize = Math.max(1, properties.getMaxBatchSize());
+		this.idleParkNanos = properties.getIdlePark().toNanos();
+		this.published = meterRegistry.counter("events.bus.published");
+		this.dropped = meterRegistry.counter("events.bus.dropped");
+		this.consumerErrors = meterRegistry.counter("events.bus.consumer.errors");
+		for (final var consumer : consumers) {
+			final var worker = new Worker(consumer);
+			this.workers.add(worker);
+			Gauge.builder("events.bus.consumer.lag", worker, w -> this.cursor.get() - w.sequence.get())
+					.description("Events published but not yet handled by the consumer")
+					.tag("consumer", consumer.name())
+					.register(meterRegistry);
+		}
+	}
+
+	/**
+	 * @return false when the event was dropped because the slowest consumer is a full ring behind
+	 */
+	public boolean publish(final ChangeEvent event) {
+		final long sequence = this.claim();
+		if (sequence < 0) {
+			this.dropped.increment();
+			this.workers.forEach(worker -> worker.missed.set(true));
+			log.warn("Change event bus is full, dropped {} for {}", event.getType(), event.getEntityId());
+			return false;
+		}
+		final int index = (int) sequence & this.mask;
+		this.entries[index] = event;
+		AVAILABLE.setRelease(this.available, index, this.flag(sequence));
+		this.published.increment();
+		return true;
+	}
+
+	/**
+	 * Publishes once the current transaction commits, or right away when there is none,
+	 * so consumers never see a change that was rolled back. The event's {@code occurredAt} is
+	 * set to the time of the commit.
+	 */
+	public void publishAfterCommit(final ChangeEvent event) {
+		this.publishAllAfterCommit(List.of(event));
+	}
+
+	public void publishAllAfterCommit(final List<ChangeEvent> events) {
+		if (events.isEmpty())
+			return;
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			this.publishCommitted(events);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				publishCommitted(events);
+			}
+		});
+	}
+
+	private void publishCommitted(final List<ChangeEvent> events) {
+		final long committedAt = System.currentTimeMillis();
+		for (final var event : events)
+			this.publish(event.toBuilder().occurredAt(committedAt).build());
+	}
+
+	private long claim() {
+		long deadline = 0;
+		while (true) {
+			final long current = this.cursor.get();
+			final long next = current + 1;
+			final long wrapPoint = next - this.capacity;
+			if (wrapPoint > this.gatingSequenceCache) {
+				final long gatingSequence = this.minimumConsumerSequence(current);
+				this.gatingSequenceCache = gatingSequence;
+				if (wrapPoint > gatingSequence) {
+					final long now = System.nanoTime();
+					if (deadline == 0)
+						deadline = now + this.publishTimeoutNanos;
+					else if (now - deadline >= 0)
+						return -1;
+					LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+					continue;
+				}
+			}
+			if (this.cursor.compareAndSet(current, next))
+				return next;
+		}
+	}
+
+	private long minimumConsumerSequence(final long defaultSequence) {
+		long minimum = defaultSequence;
+		for (final var worker : this.workers)
+			minimum = Math.min(minimum, worker.sequence.get());
+		return minimum;
+	}
+
+	/**
+	 * Highest sequence from {@code lowerBound} up to which every slot has been published.
+	 */
+	private long highestPublished(final long lowerBound, final long upperBound) {
+		for (long sequence = lowerBound; sequence <= upperBound; sequence++) {
+			if ((int) AVAILABLE.getAcquire(this.available, (int) sequence & this.mask) != this.flag(sequence))
+				return sequence - 1;
+		}
+		return upperBound;
+	}
+
+	// Which lap of the ring a sequence is on, so a slot published on an earlier lap is not taken as ready
+	private int flag(final long sequence) {
+		return (int) (sequence >>> this.indexShift);
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	@Override
+	public void start() {
+		this.running = true;
+		for (final var worker : this.workers) {
+			worker.thread = new Thread(worker, "change-event-" + worker.consumer.name());
+			worker.thread.setDaemon(true);
+			worker.thread.start();
+		}
+	}
+
+	/**
+	 * Consumers finish everything already published before their threads exit.
+	 */
+	@Override
+	public void stop() {
+		this.running = false;
+		for (final var worker : this.workers) {
+			if (worker.thread == null)
+				continue;
+			LockSupport.unpark(worker.thread);
+			try {
+				worker.thread.join(TimeUnit.SECONDS.toMillis(5));
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	// Started before and stopped after the web server and other default-phase beans that publish
+	@Override
+	public int getPhase() {
+		return 0;
+	}
+
+	private final class Worker implements Runnable {
+
+		private final ChangeEventConsumer consumer;
+		private final AtomicLong sequence = new AtomicLong(-1);
+		// Set by a publisher that dropped an event, cleared when the consumer is told
+		private final AtomicBoolean missed = new AtomicBoolean();
+		private Thread thread;
+
+		private Worker(final ChangeEventConsumer consumer) {
+			this.consumer = consumer;
+		}
+
+		@Override
+		public void run() {
+			long next = this.sequence.get() + 1;
+			int idle = 0;
+			while (true) {
+				if (this.missed.get() && this.missed.compareAndSet(true, false))
+					this.eventsMissed();
+				final long upperBound = Math.min(cursor.get(), next + maxBatchSize - 1);
+				final long highest = highestPublished(next, upperBound);
+				if (highest >= next) {
+					for (long sequence = next; sequence <= highest; sequence++) {
+						final var event = entries[(int) sequence & mask];
+						try {
+							this.consumer.onEvent(event, sequence == highest);
+						}
+						catch (RuntimeException e) {
+							consumerErrors.increment();
+							log.error("Change event consumer {} failed on {}", this.consumer.name(), event, e);
+						}
+					}
+					this.sequence.set(highest);
+					next = highest + 1;
+					idle = 0;
+				}
+				else if (!running && next > cursor.get()) {
+					return;
+				}
+				else if (idle++ < SPINS_BEFORE_PARK) {
+					Thread.onSpinWait();
+				}
+				else {
+					LockSupport.parkNanos(idleParkNanos);
+				}
+			}
+		}
+
+		private void eventsMissed() {
+			try {
+				this.consumer.onEventsMissed();
+			}
+			catch (RuntimeException e) {
+				consumerErrors.increment();
+				log.error("Change event consumer {} failed to handle missed events", this.consumer.name(), e);
+			}
+		}
+
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
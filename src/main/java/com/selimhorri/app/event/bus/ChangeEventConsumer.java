@@ -0,0 +1,33 @@
+package com.selimhorri.app.event.bus;
+
+/**
+ * In-process subscriber of the {@link ChangeEventBus}. Every consumer sees every event, in
+ * publication order, on a thread of its own; {@code endOfBatch} marks the last event currently
+ * available, which is the moment to flush anything buffered.
+ */
+public interface ChangeEventConsumer {
+
+	void onEvent(final ChangeEvent event, final boolean endOfBatch);
+
+	/**
+	 * Called on the consumer's thread once the bus has dropped one or more events, which every
+	 * consumer misses. A consumer holding state built from every event must rebuild it here.
+	 */
+	default void onEventsMissed() {
+	}
+
+	default String name() {
+		return this.getClass().getSimpleName();
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
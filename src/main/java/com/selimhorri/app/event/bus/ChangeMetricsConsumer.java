@@ -0,0 +1,41 @@
+package com.selimhorri.app.event.bus;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts committed order and cart mutations by type, as {@code entity.changes}.
+ */
+@Component
+public class ChangeMetricsConsumer implements ChangeEventConsumer {
+
+	private final Map<ChangeEvent.Type, Counter> counters = new EnumMap<>(ChangeEvent.Type.class);
+
+	public ChangeMetricsConsumer(final MeterRegistry meterRegistry) {
+		for (final var type : ChangeEvent.Type.values())
+			this.counters.put(type, Counter.builder("entity.changes")
+					.tag("type", type.name())
+					.register(meterRegistry));
+	}
+
+	@Override
+	public void onEvent(final ChangeEvent event, final boolean endOfBatch) {
+		this.counters.get(event.getType()).increment();
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,83 @@
+package com.selimhorri.app.event.bus;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.selimhorri.app.config.order.OrderProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Appends status transitions to {@code order_status_history}. Whatever the bus hands over in one
+ * batch goes out as one JDBC batch, so under load the inserts coalesce and when idle a transition
+ * is written as soon as it arrives.
+ * <p>
+ * Auditing is best effort: a failed batch is logged and counted, not retried.
+ */
+@Component
+@Slf4j
+public class OrderStatusAuditConsumer implements ChangeEventConsumer {
+
+	static final String INSERT_SQL = "INSERT INTO order_status_history (order_id, from_status, to_status, changed_at) "
+			+ "VALUES (?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final OrderProperties.Audit properties;
+	private final List<ChangeEvent> pending = new ArrayList<>();
+	private final Counter written;
+	private final Counter failed;
+
+	public OrderStatusAuditConsumer(final JdbcTemplate jdbcTemplate, final OrderProperties orderProperties,
+			final MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.properties = orderProperties.getAudit();
+		this.written = meterRegistry.counter("orders.status.audit.written");
+		this.failed = meterRegistry.counter("orders.status.audit.failed");
+	}
+
+	@Override
+	public void onEvent(final ChangeEvent event, final boolean endOfBatch) {
+		if (this.properties.isEnabled() && event.getType() == ChangeEvent.Type.ORDER_STATUS_CHANGED)
+			this.pending.add(event);
+		if (endOfBatch || this.pending.size() >= this.properties.getBatchSize())
+			this.flush();
+	}
+
+	private void flush() {
+		if (this.pending.isEmpty())
+			return;
+		try {
+			this.jdbcTemplate.batchUpdate(INSERT_SQL, this.pending, this.pending.size(), (ps, event) -> {
+				ps.setLong(1, event.getEntityId());
+				ps.setString(2, event.getFromStatus().name());
+				ps.setString(3, event.getToStatus().name());
+				ps.setTimestamp(4, new Timestamp(event.getOccurredAt()));
+			});
+			this.written.increment(this.pending.size());
+		}
+		catch (RuntimeException e) {
+			this.failed.increment(this.pending.size());
+			log.error("Could not write {} order status transitions", this.pending.size(), e);
+		}
+		finally {
+			this.pending.clear();
+		}
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
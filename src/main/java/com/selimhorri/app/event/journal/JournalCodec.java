@@ -0,0 +1,152 @@
+package com.selimhorri.app.event.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.helper.EpochMicrosHelper;
+
+/**
+ * Binary form of a {@link JournalRecord}:
+ *
+ * <pre>
+ * int    payload length (0 marks the end of a segment)
+ * int    CRC32C of the payload
+ * byte   type, with LONG_ORDER_ID set
+ * long   order id; an int in records written before LONG_ORDER_ID
+ * long   version
+ * byte   status ordinal, -1 for none
+ * -- UPSERT only --
+ * byte   presence flags for the nullable fields below
+ * int    cart id
+ * int    user id
+ * long   order date, epoch microseconds as if UTC
+ * long   order fee in cents; a double amount in records written before FEE_IN_CENTS
+ * short  description length, then that many UTF-8 bytes
+ * </pre>
+ *
+ * Enum ordinals are stored, so statuses and record types may only ever be appended to.
+ * Not thread-safe; each reader and the writer own one.
+ */
+final class JournalCodec {
+
+	static final int HEADER_SIZE = 8;
+	static final int MAX_RECORD_SIZE = HEADER_SIZE + 1 + 8 + 8 + 1 + 1 + 4 + 4 + 8 + 8 + 2 + 0xFFFF;
+
+	// Set in the type byte of every record written now, so older journals holding int order ids still replay
+	private static final int LONG_ORDER_ID = 1 << 6;
+	private static final int TYPE_MASK = LONG_ORDER_ID - 1;
+
+	private static final int HAS_CART = 1;
+	private static final int HAS_USER = 1 << 1;
+	private static final int HAS_DATE = 1 << 2;
+	private static final int HAS_FEE = 1 << 3;
+	private static final int HAS_DESC = 1 << 4;
+	// Set on every record written now, so older journals holding the fee as a double still replay
+	private static final int FEE_IN_CENTS = 1 << 5;
+
+	private static final JournalRecord.Type[] TYPES = JournalRecord.Type.values();
+	private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+	private final ByteBuffer scratch = ByteBuffer.allocate(MAX_RECORD_SIZE);
+	private final CRC32C crc = new CRC32C();
+
+	/**
+	 * @return the encoded record, valid until the next call
+	 */
+	ByteBuffer encode(final JournalRecord record) {
+		final var buffer = this.scratch.clear().position(HEADER_SIZE);
+		buffer.put((byte) (record.getType().ordinal() | LONG_ORDER_ID))
+				.putLong(record.getOrderId())
+				.putLong(record.getVersion())
+				.put(record.getStatus() == null ? -1 : (byte) record.getStatus().ordinal());
+		if (record.getType() == JournalRecord.Type.UPSERT) {
+			final byte[] desc = record.getOrderDesc() == null
+					? new byte[0]
+					: record.getOrderDesc().getBytes(StandardCharsets.UTF_8);
+			if (desc.length > 0xFFFF)
+				throw new IllegalArgumentException(String.format(
+						"Description of order %d is %d bytes, at most %d can be journaled",
+						record.getOrderId(), desc.length, 0xFFFF));
+			int flags = FEE_IN_CENTS;
+			flags |= record.getCartId() == null ? 0 : HAS_CART;
+			flags |= record.getUserId() == null ? 0 : HAS_USER;
+			flags |= record.getOrderDate() == null ? 0 : HAS_DATE;
+			flags |= record.getOrderFeeCents() == null ? 0 : HAS_FEE;
+			flags |= record.getOrderDesc() == null ? 0 : HAS_DESC;
+			buffer.put((byte) flags)
+					.putInt(record.getCartId() == null ? 0 : record.getCartId())
+					.putInt(record.getUserId() == null ? 0 : record.getUserId())
+					.putLong(record.getOrderDate() == null ? 0 : EpochMicrosHelper.toEpochMicros(record.getOrderDate()))
+					.putLong(record.getOrderFeeCents() == null ? 0 : record.getOrderFeeCents())
+					.putShort((short) desc.length)
+					.put(desc);
+		}
+		final int length = buffer.position() - HEADER_SIZE;
+		this.crc.reset();
+		this.crc.update(buffer.flip().position(HEADER_SIZE));
+		return buffer.putInt(0, length).putInt(4, (int) this.crc.getValue()).position(0);
+	}
+
+	/**
+	 * Reads the record at the buffer's position and moves past it.
+	 *
+	 * @return null, with the position unchanged, at the end marker or at a record that is cut
+	 *         short or fails its checksum, i.e. wherever a crash may have stopped the writer
+	 */
+	JournalRecord decode(final ByteBuffer source) {
+		final int start = source.position();
+		final int limit = source.limit();
+		if (limit - start < HEADER_SIZE)
+			return null;
+		final int length = source.getInt(start);
+		final int end = start + HEADER_SIZE + length;
+		if (length <= 0 || length > MAX_RECORD_SIZE - HEADER_SIZE || end > limit)
+			return null;
+		this.crc.reset();
+		this.crc.update(source.position(start + HEADER_SIZE).limit(end));
+		source.limit(limit).position(start + HEADER_SIZE);
+		if ((int) this.crc.getValue() != source.getInt(start + 4)) {
+			source.position(start);
+			return null;
+		}
+
+		final byte typeAndFlags = source.get();
+		final var type = TYPES[typeAndFlags & TYPE_MASK];
+		final var builder = JournalRecord.builder()
+				.type(type)
+				.orderId((typeAndFlags & LONG_ORDER_ID) != 0 ? source.getLong() : source.getInt())
+				.version(source.getLong());
+		final byte status = source.get();
+		builder.status(status < 0 ? null : STATUSES[status]);
+		if (type == JournalRecord.Type.UPSERT) {
+			final int flags = source.get();
+			final int cartId = source.getInt();
+			final int userId = source.getInt();
+			final long orderDate = source.getLong();
+			final long orderFee = source.getLong();
+			final byte[] desc = new byte[source.getShort() & 0xFFFF];
+			source.get(desc);
+			builder.cartId((flags & HAS_CART) == 0 ? null : cartId)
+					.userId((flags & HAS_USER) == 0 ? null : userId)
+					.orderDate((flags & HAS_DATE) == 0 ? null : EpochMicrosHelper.fromEpochMicros(orderDate))
+					.orderFeeCents((flags & HAS_FEE) == 0 ? null
+							: (flags & FEE_IN_CENTS) != 0 ? orderFee : Math.round(Double.longBitsToDouble(orderFee) * 100))
+					.orderDesc((flags & HAS_DESC) == 0 ? null : new String(desc, StandardCharsets.UTF_8));
+		}
+		source.position(end);
+		return builder.build();
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
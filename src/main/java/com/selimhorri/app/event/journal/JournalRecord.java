@@ -0,0 +1,145 @@
+package com.selimhorri.app.event.journal;
+
+import java.time.LocalDateTime;
+
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.CartDto;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.event.bus.ChangeEvent;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * One entry of the {@link OrderJournal}. An {@link Type#UPSERT} carries the whole order,
+ * a {@link Type#STATUS} only the new status and a {@link Type#DEACTIVATE} nothing but the id,
+ * so replaying them in order with {@link #apply(JournalRecord)} yields the latest state.
+ */
+@Value
+@Builder(toBuilder = true)
+public class JournalRecord {
+
+	public static final long UNKNOWN_VERSION = -1;
+
+	Type type;
+
+	long orderId;
+
+	/**
+	 * Order version after the change, or {@link #UNKNOWN_VERSION}.
+	 */
+	long version;
+
+	OrderStatus status;
+
+	// UPSERT only
+
+	Integer cartId;
+
+	Integer userId;
+
+	LocalDateTime orderDate;
+
+	Long orderFeeCents;
+
+	String orderDesc;
+
+	public enum Type {
+		UPSERT,
+		STATUS,
+		DEACTIVATE
+	}
+
+	/**
+	 * Folds a later record for the same order into this one. A record older than the state it is
+	 * applied to is ignored, so replaying a segment twice, or out of order after a compaction that
+	 * was interrupted, still ends at the latest state.
+	 */
+	public JournalRecord apply(final JournalRecord later) {
+		if (later.version != UNKNOWN_VERSION && this.version != UNKNOWN_VERSION && later.version < this.version)
+			return this;
+		switch (later.type) {
+			case STATUS:
+				return this.type == Type.DEACTIVATE
+						? this
+						: this.toBuilder().status(later.status).version(later.version).build();
+			case UPSERT:
+			case DEACTIVATE:
+			default:
+				return later;
+		}
+	}
+
+	public boolean isActive() {
+		return this.type != Type.DEACTIVATE;
+	}
+
+	public OrderDto toOrderDto() {
+		return OrderDto.builder()
+				.orderId(this.orderId)
+				.orderDate(this.orderDate)
+				.orderDesc(this.orderDesc)
+				.orderFeeCents(this.orderFeeCents)
+				.orderStatus(this.status)
+				.version(this.version == UNKNOWN_VERSION ? null : this.version)
+				.cartDto(this.cartId == null ? null : CartDto.builder()
+						.cartId(this.cartId)
+						.userId(this.userId)
+						.build())
+				.build();
+	}
+
+	/**
+	 * @return null for events the journal does not record
+	 */
+	public static JournalRecord of(final ChangeEvent event) {
+		final long version = event.getVersion() == null ? UNKNOWN_VERSION : event.getVersion();
+		switch (event.getType()) {
+			case ORDER_CREATED:
+			case ORDER_UPDATED:
+			case ORDER_STATUS_CHANGED:
+				if (event.getOrder() != null)
+					return upsert(event.getOrder());
+				return JournalRecord.builder()
+						.type(Type.STATUS)
+						.orderId(event.getEntityId())
+						.version(version)
+						.status(event.getToStatus())
+						.build();
+			case ORDER_DEACTIVATED:
+				return JournalRecord.builder()
+						.type(Type.DEACTIVATE)
+						.orderId(event.getEntityId())
+						.version(version)
+						.status(event.getFromStatus())
+						.build();
+			default:
+				return null;
+		}
+	}
+
+	public static JournalRecord upsert(final OrderDto order) {
+		return JournalRecord.builder()
+				.type(Type.UPSERT)
+				.orderId(order.getOrderId())
+				.version(order.getVersion() == null ? UNKNOWN_VERSION : order.getVersion())
+				.status(order.getOrderStatus())
+				.cartId(order.getCartDto() == null ? null : order.getCartDto().getCartId())
+				.userId(order.getCartDto() == null ? null : order.getCartDto().getUserId())
+				.orderDate(order.getOrderDate())
+				.orderFeeCents(order.getOrderFeeCents())
+				.orderDesc(order.getOrderDesc())
+				.build();
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
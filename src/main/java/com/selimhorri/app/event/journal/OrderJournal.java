@@ -0,0 +1,314 @@
+package com.selimhorri.app.event.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only journal of {@link JournalRecord}s in memory-mapped, fixed-size segment files.
+ * <p>
+ * Records go to the tail of the active segment; when one does not fit, the segment is forced to
+ * disk, sealed and a new one started. Segments are named after a sequence number, so replaying
+ * them in file-name order replays the journal in append order. On open, the active segment is
+ * scanned to its last record whose checksum holds and anything after it, e.g. the torn tail of a
+ * crash, is zeroed before appending resumes.
+ * <p>
+ * {@link #compact()} folds the sealed segments into the latest record per order. Deactivations
+ * are kept as tombstones, so that a crash halfway through the swap, which can leave old segments
+ * next to compacted ones, never brings a deactivated order back; {@link JournalRecord#apply}
+ * ignores the older duplicates.
+ */
+@Slf4j
+public class OrderJournal implements Closeable {
+
+	static final String SEGMENT_SUFFIX = ".seg";
+	private static final String COMPACTING_SUFFIX = ".compacting";
+
+	private final Path directory;
+	private final int segmentSize;
+	private final JournalCodec codec = new JournalCodec();
+	private final Object compactionLock = new Object();
+
+	// Guarded by this
+	private final List<Segment> sealed = new ArrayList<>();
+	private Segment active;
+	private long nextSegmentNumber;
+	private boolean closed;
+
+	public OrderJournal(final Path directory, final int segmentSize) throws IOException {
+		if (segmentSize < JournalCodec.MAX_RECORD_SIZE + JournalCodec.HEADER_SIZE)
+			throw new IllegalArgumentException(String.format(
+					"Journal segments must be at least %d bytes", JournalCodec.MAX_RECORD_SIZE + JournalCodec.HEADER_SIZE));
+		this.directory = Files.createDirectories(directory);
+		this.segmentSize = segmentSize;
+
+		try (Stream<Path> files = Files.list(directory)) {
+			for (final Path leftover : files.filter(p -> p.toString().endsWith(COMPACTING_SUFFIX))
+					.collect(Collectors.toList()))
+				Files.delete(leftover);
+		}
+		final List<Path> segments;
+		try (Stream<Path> files = Files.list(directory)) {
+			segments = files.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+					.sorted()
+					.collect(Collectors.toList());
+		}
+		if (segments.isEmpty()) {
+			this.active = this.createSegment(0);
+			this.nextSegmentNumber = 1;
+			return;
+		}
+		for (final Path path : segments.subList(0, segments.size() - 1))
+			this.sealed.add(new Segment(path, map(path, FileChannel.MapMode.READ_ONLY, 0)));
+		final Path last = segments.get(segments.size() - 1);
+		this.active = new Segment(last, map(last, FileChannel.MapMode.READ_WRITE, 0));
+		this.nextSegmentNumber = segmentNumber(last) + 1;
+		this.recover(this.active.buffer);
+	}
+
+	private void recover(final MappedByteBuffer buffer) {
+		final var reader = new JournalCodec();
+		buffer.position(0);
+		while (reader.decode(buffer) != null) {
+			// Skip to the end of the valid records
+		}
+		final int end = buffer.position();
+		if (end + JournalCodec.HEADER_SIZE <= buffer.capacity() && buffer.getInt(end) != 0) {
+			log.warn("Order journal segment {} has a torn record at offset {}, discarding the rest of it",
+					this.active.path, end);
+			for (int i = end; i < buffer.capacity(); i++)
+				buffer.put(i, (byte) 0);
+			buffer.force();
+		}
+	}
+
+	public synchronized void append(final JournalRecord record) {
+		if (this.closed)
+			throw new IllegalStateException("Order journal is closed");
+		final ByteBuffer encoded = this.codec.encode(record);
+		// Keep room for the zero length that marks the end of the segment
+		if (this.active.buffer.remaining() < encoded.remaining() + JournalCodec.HEADER_SIZE)
+			this.roll();
+		this.active.buffer.put(encoded);
+	}
+
+	private void roll() {
+		try {
+			this.active.buffer.force();
+			this.sealed.add(this.active);
+			this.active = this.createSegment(this.nextSegmentNumber++);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Could not start a new order journal segment", e);
+		}
+	}
+
+	/**
+	 * Writes appended records through to the storage device; without it they survive a crash of
+	 * the process, since the mapping belongs to the OS, but not of the machine.
+	 */
+	public synchronized void force() {
+		if (!this.closed)
+			this.active.buffer.force();
+	}
+
+	/**
+	 * Hands every record to {@code visitor} in append order, reading straight from the mapped
+	 * segments. Appends made meanwhile are not included.
+	 *
+	 * @return the number of records read
+	 */
+	public long replay(final Consumer<JournalRecord> visitor) {
+		final List<ByteBuffer> views = new ArrayList<>();
+		synchronized (this) {
+			this.sealed.forEach(segment -> views.add(segment.buffer.duplicate().clear()));
+			views.add(this.active.buffer.duplicate().flip());
+		}
+		final var reader = new JournalCodec();
+		long records = 0;
+		for (final ByteBuffer view : views) {
+			JournalRecord record;
+			while ((record = reader.decode(view)) != null) {
+				visitor.accept(record);
+				records++;
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * Rewrites the sealed segments so they hold only the latest record per order. The active
+	 * segment is left alone, so appends carry on meanwhile; they wait only for the final swap.
+	 *
+	 * @return how many segment files were dropped
+	 */
+	public int compact() throws IOException {
+		synchronized (this.compactionLock) {
+			final List<Segment> inputs;
+			synchronized (this) {
+				inputs = List.copyOf(this.sealed);
+			}
+			if (inputs.size() < 2)
+				return 0;
+
+			final Map<Long, JournalRecord> latest = new LinkedHashMap<>();
+			final var reader = new JournalCodec();
+			for (final Segment segment : inputs) {
+				final ByteBuffer view = segment.buffer.duplicate().clear();
+				JournalRecord record;
+				while ((record = reader.decode(view)) != null)
+					latest.merge(record.getOrderId(), record, JournalRecord::apply);
+			}
+
+			final List<Path> outputs = new ArrayList<>();
+			try {
+				if (!this.writeCompacted(latest.values(), inputs, outputs))
+					return 0;
+				synchronized (this) {
+					final List<Segment> compacted = new ArrayList<>(outputs.size());
+					for (int i = 0; i < outputs.size(); i++) {
+						final Path target = inputs.get(i).path;
+						Files.move(outputs.get(i), target, StandardCopyOption.ATOMIC_MOVE,
+								StandardCopyOption.REPLACE_EXISTING);
+						compacted.add(new Segment(target, map(target, FileChannel.MapMode.READ_ONLY, 0)));
+					}
+					for (final Segment dropped : inputs.subList(outputs.size(), inputs.size()))
+						Files.delete(dropped.path);
+					this.sealed.subList(0, inputs.size()).clear();
+					this.sealed.addAll(0, compacted);
+				}
+			}
+			finally {
+				for (final Path output : outputs)
+					Files.deleteIfExists(output);
+			}
+			log.info("Compacted {} order journal segments into {} holding {} orders",
+					inputs.size(), outputs.size(), latest.size());
+			return inputs.size() - outputs.size();
+		}
+	}
+
+	/**
+	 * Writes the folded records next to the segments they replace, at most one file per input
+	 * and each trimmed to the bytes used.
+	 *
+	 * @return false when they would need more files than the inputs
+	 */
+	private boolean writeCompacted(final Iterable<JournalRecord> records, final List<Segment> inputs,
+			final List<Path> outputs) throws IOException {
+		final var writer = new JournalCodec();
+		MappedByteBuffer buffer = null;
+		for (final JournalRecord record : records) {
+			final ByteBuffer encoded = writer.encode(record);
+			if (buffer == null || buffer.remaining() < encoded.remaining() + JournalCodec.HEADER_SIZE) {
+				if (buffer != null)
+					this.finishCompacted(buffer, outputs.get(outputs.size() - 1));
+				if (outputs.size() == inputs.size())
+					return false;
+				final Path output = Path.of(inputs.get(outputs.size()).path + COMPACTING_SUFFIX);
+				outputs.add(output);
+				buffer = map(output, FileChannel.MapMode.READ_WRITE, this.segmentSize);
+			}
+			buffer.put(encoded);
+		}
+		if (buffer != null)
+			this.finishCompacted(buffer, outputs.get(outputs.size() - 1));
+		return !outputs.isEmpty();
+	}
+
+	private void finishCompacted(final MappedByteBuffer buffer, final Path output) throws IOException {
+		buffer.force();
+		try (FileChannel channel = FileChannel.open(output, StandardOpenOption.WRITE)) {
+			channel.truncate(buffer.position());
+			channel.force(true);
+		}
+	}
+
+	public synchronized int segmentCount() {
+		return this.sealed.size() + 1;
+	}
+
+	/**
+	 * Bytes of records held, not counting the unused tail of the active segment.
+	 */
+	public synchronized long size() {
+		return this.sealed.stream().mapToLong(segment -> segment.buffer.capacity()).sum()
+				+ this.active.buffer.position();
+	}
+
+	public Path getDirectory() {
+		return this.directory;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (this.closed)
+			return;
+		this.closed = true;
+		this.active.buffer.force();
+	}
+
+	private Segment createSegment(final long number) throws IOException {
+		final Path path = this.directory.resolve(String.format("%020d%s", number, SEGMENT_SUFFIX));
+		return new Segment(path, map(path, FileChannel.MapMode.READ_WRITE, this.segmentSize));
+	}
+
+	/**
+	 * @param size bytes to map, growing the file as needed, or 0 for the file's current size
+	 */
+	private static MappedByteBuffer map(final Path path, final FileChannel.MapMode mode, final long size)
+			throws IOException {
+		final var options = mode == FileChannel.MapMode.READ_ONLY
+				? new StandardOpenOption[] { StandardOpenOption.READ }
+				: new StandardOpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE,
+						StandardOpenOption.CREATE };
+		// The mapping stays valid once the channel is closed
+		try (FileChannel channel = FileChannel.open(path, options)) {
+			return channel.map(mode, 0, size == 0 ? channel.size() : size);
+		}
+	}
+
+	private static long segmentNumber(final Path path) {
+		final String name = path.getFileName().toString();
+		return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+	}
+
+	private static final class Segment {
+
+		private final Path path;
+		private final MappedByteBuffer buffer;
+
+		private Segment(final Path path, final MappedByteBuffer buffer) {
+			this.path = path;
+			this.buffer = buffer;
+		}
+
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,86 @@
+package com.selimhorri.app.event.journal;
+
+import java.io.IOException;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.selimhorri.app.config.journal.JournalProperties;
+import com.selimhorri.app.event.bus.ChangeEvent;
+import com.selimhorri.app.event.bus.ChangeEventConsumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Appends every committed order change on the bus to the {@link OrderJournal} and compacts
+ * the journal in the background.
+ */
+@Slf4j
+public class OrderJournalConsumer implements ChangeEventConsumer {
+
+	private final OrderJournal journal;
+	private final JournalProperties properties;
+	private final Counter appended;
+	private final Counter failed;
+	private final Timer compaction;
+
+	public OrderJournalConsumer(final OrderJournal journal, final JournalProperties properties,
+			final MeterRegistry meterRegistry) {
+		this.journal = journal;
+		this.properties = properties;
+		this.appended = meterRegistry.counter("orders.journal.appended");
+		this.failed = meterRegistry.counter("orders.journal.failed");
+		this.compaction = meterRegistry.timer("orders.journal.compaction");
+		Gauge.builder("orders.journal.segments", journal, OrderJournal::segmentCount)
+				.register(meterRegistry);
+		Gauge.builder("orders.journal.size", journal, OrderJournal::size)
+				.baseUnit("bytes")
+				.register(meterRegistry);
+	}
+
+	@Override
+	public void onEvent(final ChangeEvent event, final boolean endOfBatch) {
+		final JournalRecord record = event.getType().isOrder() ? JournalRecord.of(event) : null;
+		if (record != null) {
+			try {
+				this.journal.append(record);
+				this.appended.increment();
+			}
+			catch (RuntimeException e) {
+				this.failed.increment();
+				log.error("Could not journal {} of order {}", event.getType(), event.getEntityId(), e);
+			}
+		}
+		if (endOfBatch && this.properties.isForceEachBatch())
+			this.journal.force();
+	}
+
+	@Scheduled(fixedDelayString = "${app.journal.compaction.interval:PT10M}",
+			initialDelayString = "${app.journal.compaction.interval:PT10M}")
+	public void compact() {
+		if (this.journal.segmentCount() - 1 < this.properties.getCompaction().getMinSegments())
+			return;
+		this.compaction.record(() -> {
+			try {
+				this.journal.compact();
+			}
+			catch (IOException | RuntimeException e) {
+				log.error("Order journal compaction failed", e);
+			}
+		});
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
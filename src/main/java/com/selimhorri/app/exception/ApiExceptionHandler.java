@@ -4,6 +4,7 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -14,7 +15,10 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import com.selimhorri.app.exception.payload.ExceptionMsg;
 import com.selimhorri.app.exception.wrapper.CartNotFoundException;
+import com.selimhorri.app.exception.wrapper.IdempotencyKeyConflictException;
 import com.selimhorri.app.exception.wrapper.OrderNotFoundException;
+import com.selimhorri.app.exception.wrapper.OrderStatusConflictException;
+import com.selimhorri.app.exception.wrapper.VersionMismatchException;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -78,9 +82,45 @@ public class ApiExceptionHandler {
 							.now(ZoneId.systemDefault()))
 					.build(), badRequest);
 	}
-	
-	
-	
+
+	@ExceptionHandler(value = {
+		IdempotencyKeyConflictException.class,
+		OrderStatusConflictException.class,
+		OptimisticLockingFailureException.class,
+	})
+	public <T extends RuntimeException> ResponseEntity<ExceptionMsg> handleConflictException(final T e) {
+
+		log.info("**ApiExceptionHandler controller, handle conflict exception*\n");
+		final var conflict = HttpStatus.CONFLICT;
+
+		return new ResponseEntity<>(
+				ExceptionMsg.builder()
+					.msg("#### " + e.getMessage() + "! ####")
+					.httpStatus(conflict)
+					.timestamp(ZonedDateTime
+							.now(ZoneId.systemDefault()))
+					.build(), conflict);
+	}
+
+	@ExceptionHandler(value = {
+		VersionMismatchException.class,
+	})
+	public <T extends RuntimeException> ResponseEntity<ExceptionMsg> handlePreconditionFailedException(final T e) {
+
+		log.info("**ApiExceptionHandler controller, handle precondition failed exception*\n");
+		final var preconditionFailed = HttpStatus.PRECONDITION_FAILED;
+
+		return new ResponseEntity<>(
+				ExceptionMsg.builder()
+					.msg("#### " + e.getMessage() + "! ####")
+					.httpStatus(preconditionFailed)
+					.timestamp(ZonedDateTime
+							.now(ZoneId.systemDefault()))
+					.build(), preconditionFailed);
+	}
+
+
+
 }
 
 
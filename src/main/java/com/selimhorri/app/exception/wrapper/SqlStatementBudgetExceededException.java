@@ -0,0 +1,36 @@
+package com.selimhorri.app.exception.wrapper;
+
+public class SqlStatementBudgetExceededException extends RuntimeException {
+	
+	private static final long serialVersionUID = 1L;
+	
+	public SqlStatementBudgetExceededException() {
+		super();
+	}
+	
+	public SqlStatementBudgetExceededException(String message, Throwable cause) {
+		super(message, cause);
+	}
+	
+	public SqlStatementBudgetExceededException(String message) {
+		super(message);
+	}
+	
+	public SqlStatementBudgetExceededException(Throwable cause) {
+		super(cause);
+	}
+	
+	
+	
+}
+
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,35 @@
+package com.selimhorri.app.exception.wrapper;
+
+public class VersionMismatchException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public VersionMismatchException() {
+		super();
+	}
+
+	public VersionMismatchException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public VersionMismatchException(String message) {
+		super(message);
+	}
+
+	public VersionMismatchException(Throwable cause) {
+		super(cause);
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
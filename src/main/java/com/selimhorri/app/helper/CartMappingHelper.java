@@ -10,6 +10,7 @@ public interface CartMappingHelper {
 		return CartDto.builder()
 				.cartId(cart.getCartId())
 				.userId(cart.getUserId())
+				.version(cart.getVersion())
 				.userDto(
 						UserDto.builder()
 							.userId(cart.getUserId())
@@ -21,6 +22,7 @@ public interface CartMappingHelper {
 		return Cart.builder()
 				.cartId(cartDto.getCartId())
 				.userId(cartDto.getUserId())
+				.version(cartDto.getVersion())
 				.build();
 	}
 	
@@ -0,0 +1,36 @@
+package com.selimhorri.app.helper;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Order fees are carried as a long number of cents, exact and unboxed where they are summed, and
+ * only become a {@link BigDecimal} at the database column and in JSON, both with two decimals.
+ */
+public interface CentsHelper {
+
+	public static final int SCALE = 2;
+
+	/**
+	 * Rounds half up to the cent, as the DECIMAL(19, 2) column does.
+	 *
+	 * @throws ArithmeticException when the amount does not fit a long number of cents
+	 */
+	public static long toCents(final BigDecimal amount) {
+		return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+	}
+
+	public static BigDecimal toDecimal(final long cents) {
+		return BigDecimal.valueOf(cents, SCALE);
+	}
+
+	public static Long toCentsOrNull(final BigDecimal amount) {
+		return amount == null ? null : toCents(amount);
+	}
+
+	public static BigDecimal toDecimalOrNull(final Long cents) {
+		return cents == null ? null : toDecimal(cents);
+	}
+
+}
+
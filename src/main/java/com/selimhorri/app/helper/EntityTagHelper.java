@@ -0,0 +1,36 @@
+package com.selimhorri.app.helper;
+
+import org.springframework.http.ResponseEntity;
+
+public interface EntityTagHelper {
+
+	/**
+	 * 200 response carrying the entity version as a strong ETag, e.g. {@code "3"}.
+	 */
+	public static ResponseEntity.BodyBuilder ok(final Long version) {
+		final var response = ResponseEntity.ok();
+		if (version != null)
+			response.eTag(String.valueOf(version));
+		return response;
+	}
+
+	/**
+	 * Version required by an If-Match header, or null when there is none or it is {@code *}.
+	 */
+	public static Long parseIfMatch(final String ifMatch) {
+		if (ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*"))
+			return null;
+		var tag = ifMatch.strip();
+		if (tag.startsWith("W/"))
+			tag = tag.substring(2);
+		if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\""))
+			tag = tag.substring(1, tag.length() - 1);
+		try {
+			return Long.parseLong(tag);
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException("If-Match must be an ETag previously returned by this service");
+		}
+	}
+
+}
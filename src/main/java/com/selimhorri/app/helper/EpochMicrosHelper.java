@@ -0,0 +1,31 @@
+package com.selimhorri.app.helper;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Packs a zoneless {@link LocalDateTime} into one long, at the microsecond precision the
+ * database keeps, for the compact binary and in-memory order records.
+ */
+public interface EpochMicrosHelper {
+
+	public static long toEpochMicros(final LocalDateTime dateTime) {
+		return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+	}
+
+	public static LocalDateTime fromEpochMicros(final long micros) {
+		return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+				(int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -15,8 +15,9 @@ public interface OrderMappingHelper {
                                 .orderId(order.getOrderId())
                                 .orderDate(order.getOrderDate())
                                 .orderDesc(order.getOrderDesc())
-                                .orderFee(order.getOrderFee())
+                                .orderFeeCents(order.getOrderFeeCents())
                                 .orderStatus(order.getStatus())
+                                .version(order.getVersion())
                                 .cartDto(
                                                 CartDto.builder()
                                                                 .cartId(order.getCart().getCartId())
@@ -30,7 +31,7 @@ public interface OrderMappingHelper {
                                 .orderId(orderDto.getOrderId())
                                 .orderDate(LocalDateTime.now())
                                 .orderDesc(orderDto.getOrderDesc())
-                                .orderFee(orderDto.getOrderFee())
+                                .orderFeeCents(orderDto.getOrderFeeCents())
                                 .status(
                                                 orderDto.getOrderStatus() != null
                                                                 ? orderDto.getOrderStatus()
@@ -47,7 +48,7 @@ public interface OrderMappingHelper {
                                 .orderId(orderDto.getOrderId())
                                 .orderDate(LocalDateTime.now())
                                 .orderDesc(orderDto.getOrderDesc())
-                                .orderFee(orderDto.getOrderFee())
+                                .orderFeeCents(orderDto.getOrderFeeCents())
                                 .isActive(true)
                                 .status(
                                                 orderDto.getOrderStatus() != null
@@ -66,8 +67,9 @@ public interface OrderMappingHelper {
                                 .orderId(orderDto.getOrderId())
                                 .orderDate(orderDto.getOrderDate())
                                 .orderDesc(orderDto.getOrderDesc())
-                                .orderFee(orderDto.getOrderFee())
+                                .orderFeeCents(orderDto.getOrderFeeCents())
                                 .cart(cart) // Preserve the existing cart
+                                .version(orderDto.getVersion())
                                 .build();
         }
 }
@@ -0,0 +1,128 @@
+package com.selimhorri.app.id;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out order ids in the process, without a round trip to the database: 64-bit, unique across
+ * instances with distinct nodes, and ordered by creation time.
+ * <p>
+ * An id is, from the high bits down, the sign bit (always 0), 41 bits of milliseconds since
+ * {@link #EPOCH}, 4 bits of the shard the order is stored on, 6 bits of node and 12 bits of
+ * sequence within the millisecond. That lasts until 2093 and gives each node 4096 ids per
+ * millisecond. The layout is part of the stored data: the shard of an order is read off its id,
+ * so none of the widths can change once ids are handed out.
+ * <p>
+ * Generation is lock-free. The last timestamp and sequence are one {@link AtomicLong}, advanced by
+ * compare-and-set: a new millisecond restarts the sequence, the same one increments it. When the
+ * sequence runs out, or the clock steps back, the increment carries into the timestamp, so ids
+ * run ahead of the clock instead of waiting for it and stay increasing on every node.
+ * <p>
+ * Ids up to {@link Integer#MAX_VALUE} are from before the generator, when orders took the
+ * database's identity; generated ones are all past it.
+ */
+public class OrderIdGenerator {
+
+	/**
+	 * 2024-01-01T00:00:00Z.
+	 */
+	public static final Instant EPOCH = Instant.ofEpochMilli(1_704_067_200_000L);
+
+	public static final int TIMESTAMP_BITS = 41;
+	public static final int SHARD_BITS = 4;
+	public static final int NODE_BITS = 6;
+	public static final int SEQUENCE_BITS = 12;
+
+	public static final int MAX_SHARDS = 1 << SHARD_BITS;
+	public static final int MAX_NODES = 1 << NODE_BITS;
+
+	private static final int NODE_SHIFT = SEQUENCE_BITS;
+	private static final int SHARD_SHIFT = NODE_SHIFT + NODE_BITS;
+	private static final int TIMESTAMP_SHIFT = SHARD_SHIFT + SHARD_BITS;
+	private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+	private static final long MAX_TIMESTAMP = (1L << TIMESTAMP_BITS) - 1;
+
+	private final int node;
+	private final IntSupplier shard;
+	private final LongSupplier clock;
+
+	// Last timestamp since EPOCH << SEQUENCE_BITS | last sequence
+	private final AtomicLong state = new AtomicLong();
+
+	/**
+	 * @param shard the shard the order being created goes to, asked for every id
+	 */
+	public OrderIdGenerator(final int node, final IntSupplier shard) {
+		this(node, shard, System::currentTimeMillis);
+	}
+
+	public OrderIdGenerator(final int node, final IntSupplier shard, final LongSupplier clock) {
+		if (node < 0 || node >= MAX_NODES)
+			throw new IllegalArgumentException(String.format("Order id node must be between 0 and %d, was %d",
+					MAX_NODES - 1, node));
+		this.node = node;
+		this.shard = shard;
+		this.clock = clock;
+	}
+
+	public long next() {
+		final int target = this.shard.getAsInt();
+		if (target < 0 || target >= MAX_SHARDS)
+			throw new IllegalStateException(String.format("Order ids hold shards 0 to %d, not %d", MAX_SHARDS - 1, target));
+		while (true) {
+			final long last = this.state.get();
+			final long now = this.clock.getAsLong() - EPOCH.toEpochMilli();
+			final long next = now > last >>> SEQUENCE_BITS ? now << SEQUENCE_BITS : last + 1;
+			if (this.state.compareAndSet(last, next))
+				return this.compose(next, target);
+		}
+	}
+
+	private long compose(final long timestampAndSequence, final int target) {
+		final long timestamp = timestampAndSequence >>> SEQUENCE_BITS;
+		if (timestamp > MAX_TIMESTAMP)
+			throw new IllegalStateException("Order id timestamp overflowed " + TIMESTAMP_BITS + " bits");
+		return timestamp << TIMESTAMP_SHIFT
+				| (long) target << SHARD_SHIFT
+				| (long) this.node << NODE_SHIFT
+				| timestampAndSequence & SEQUENCE_MASK;
+	}
+
+	/**
+	 * @return whether the id was handed out by the generator rather than the database identity
+	 */
+	public static boolean isGenerated(final long orderId) {
+		return orderId > Integer.MAX_VALUE;
+	}
+
+	/**
+	 * @return the shard the generated id was handed out for
+	 */
+	public static int shardOf(final long orderId) {
+		return (int) (orderId >>> SHARD_SHIFT) & (MAX_SHARDS - 1);
+	}
+
+	public static int nodeOf(final long orderId) {
+		return (int) (orderId >>> NODE_SHIFT) & (MAX_NODES - 1);
+	}
+
+	/**
+	 * @return when the generated id was handed out, to the millisecond
+	 */
+	public static Instant instantOf(final long orderId) {
+		return EPOCH.plusMillis(orderId >>> TIMESTAMP_SHIFT);
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
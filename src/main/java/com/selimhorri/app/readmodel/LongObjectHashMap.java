@@ -0,0 +1,150 @@
+package com.selimhorri.app.readmodel;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Open-addressing hash map from a primitive {@code long} to a non-null value, so lookups neither
+ * box the key nor chase an entry object. Linear probing over parallel key and value arrays kept at
+ * most half full; removal shifts the rest of the probe run back instead of leaving tombstones.
+ * <p>
+ * Not thread-safe.
+ */
+public class LongObjectHashMap<V> {
+
+	private static final int MIN_CAPACITY = 8;
+
+	private long[] keys;
+	private Object[] values;
+	private int mask;
+	private int size;
+
+	public LongObjectHashMap() {
+		this(MIN_CAPACITY / 2);
+	}
+
+	public LongObjectHashMap(final int expectedSize) {
+		this.allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1));
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(final long key) {
+		for (int slot = this.slot(key); this.values[slot] != null; slot = (slot + 1) & this.mask) {
+			if (this.keys[slot] == key)
+				return (V) this.values[slot];
+		}
+		return null;
+	}
+
+	/**
+	 * @return the value previously held for {@code key}, or null
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(final long key, final V value) {
+		if (value == null)
+			throw new IllegalArgumentException("LongObjectHashMap does not hold null values");
+		int slot = this.slot(key);
+		for (; this.values[slot] != null; slot = (slot + 1) & this.mask) {
+			if (this.keys[slot] == key) {
+				final V previous = (V) this.values[slot];
+				this.values[slot] = value;
+				return previous;
+			}
+		}
+		this.keys[slot] = key;
+		this.values[slot] = value;
+		if (++this.size > this.keys.length / 2)
+			this.rehash(this.keys.length << 1);
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V remove(final long key) {
+		int slot = this.slot(key);
+		for (; this.values[slot] != null; slot = (slot + 1) & this.mask) {
+			if (this.keys[slot] != key)
+				continue;
+			final V previous = (V) this.values[slot];
+			this.shiftBack(slot);
+			this.size--;
+			return previous;
+		}
+		return null;
+	}
+
+	// Moves later entries of the probe run into the freed slot wherever their home slot allows it
+	private void shiftBack(int free) {
+		for (int slot = (free + 1) & this.mask; this.values[slot] != null; slot = (slot + 1) & this.mask) {
+			final int home = this.slot(this.keys[slot]);
+			final boolean movable = free <= slot
+					? home <= free || home > slot
+					: home <= free && home > slot;
+			if (movable) {
+				this.keys[free] = this.keys[slot];
+				this.values[free] = this.values[slot];
+				free = slot;
+			}
+		}
+		this.values[free] = null;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEachValue(final Consumer<? super V> action) {
+		for (final Object value : this.values) {
+			if (value != null)
+				action.accept((V) value);
+		}
+	}
+
+	public void clear() {
+		Arrays.fill(this.values, null);
+		this.size = 0;
+	}
+
+	private void rehash(final int capacity) {
+		final long[] oldKeys = this.keys;
+		final Object[] oldValues = this.values;
+		this.allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] == null)
+				continue;
+			int slot = this.slot(oldKeys[i]);
+			while (this.values[slot] != null)
+				slot = (slot + 1) & this.mask;
+			this.keys[slot] = oldKeys[i];
+			this.values[slot] = oldValues[i];
+		}
+	}
+
+	private void allocate(final int capacity) {
+		this.keys = new long[capacity];
+		this.values = new Object[capacity];
+		this.mask = capacity - 1;
+	}
+
+	// Fibonacci hashing spreads sequential ids, which would otherwise fill one long probe run; the
+	// high half of the product, as generated order ids differ in their high bits only
+	private int slot(final long key) {
+		final long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash >>> 32) & this.mask;
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,274 @@
+package com.selimhorri.app.readmodel;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.event.journal.JournalRecord;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+
+/**
+ * In-memory copy of the active orders, kept up to date from committed order changes and indexed
+ * by cart and by status, that order queries are answered from once it is {@link #isWarm() warm}.
+ * <p>
+ * Changes are applied by version: one older than what the model holds is ignored, so the initial
+ * load and the live changes may arrive in any order. A whole order at the version held replaces it,
+ * since a change to its cart, such as a new user, leaves the order version as it was. Until the load is done, a status change for an
+ * order not loaded yet is kept as a partial record and a deactivation as a tombstone, and both
+ * are dropped by {@link #markWarm()}.
+ * <p>
+ * One writer, the projector, and any number of readers, which take the read lock only long enough
+ * to collect the immutable records.
+ */
+public class OrderReadModel {
+
+	private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final LongObjectHashMap<OrderRecord> orders = new LongObjectHashMap<>(1024);
+	private final LongObjectHashMap<LongObjectHashMap<OrderRecord>> byCart = new LongObjectHashMap<>(1024);
+	private final List<LongObjectHashMap<OrderRecord>> byStatus = new ArrayList<>(STATUSES.length);
+	private volatile boolean warm;
+	private volatile int activeOrders;
+
+	public OrderReadModel(final MeterRegistry meterRegistry) {
+		for (int i = 0; i < STATUSES.length; i++)
+			this.byStatus.add(new LongObjectHashMap<>(1024));
+		Gauge.builder("orders.read-model.size", this, model -> model.activeOrders)
+				.description("Active orders held by the read model")
+				.register(meterRegistry);
+		Gauge.builder("orders.read-model.warm", this, model -> model.warm ? 1 : 0)
+				.description("1 once queries are served from the read model")
+				.register(meterRegistry);
+	}
+
+	public boolean isWarm() {
+		return this.warm;
+	}
+
+	/**
+	 * @return null when the order is not active or not known to the model
+	 */
+	public OrderDto findById(final long orderId) {
+		final OrderRecord record;
+		this.lock.readLock().lock();
+		try {
+			record = this.orders.get(orderId);
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+		return record != null && record.isFull() ? record.toOrderDto() : null;
+	}
+
+	/**
+	 * Active orders by id, optionally only those of one cart and/or in one status.
+	 */
+	public List<OrderDto> findAll(final Integer cartId, final OrderStatus status) {
+		final List<OrderRecord> records = new ArrayList<>();
+		this.lock.readLock().lock();
+		try {
+			final LongObjectHashMap<OrderRecord> source = cartId != null
+					? this.byCart.get(cartId)
+					: status != null ? this.byStatus.get(status.ordinal()) : this.orders;
+			if (source != null)
+				source.forEachValue(record -> {
+					if (record.isFull() && (status == null || record.getStatus() == status))
+						records.add(record);
+				});
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+		records.sort(Comparator.comparingLong(OrderRecord::getOrderId));
+		return records.stream()
+				.map(OrderRecord::toOrderDto)
+				.collect(Collectors.toUnmodifiableList());
+	}
+
+	public void apply(final JournalRecord change) {
+		this.lock.writeLock().lock();
+		try {
+			final OrderRecord current = this.orders.get(change.getOrderId());
+			final OrderRecord next = this.merge(current, change);
+			if (next == current)
+				return;
+			if (current != null && current.isFull())
+				this.unindex(current);
+			if (next == null) {
+				this.orders.remove(change.getOrderId());
+				return;
+			}
+			this.orders.put(next.getOrderId(), next);
+			if (next.isFull())
+				this.index(next);
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	private OrderRecord merge(final OrderRecord current, final JournalRecord change) {
+		final boolean newer = current == null
+				|| change.getVersion() == JournalRecord.UNKNOWN_VERSION
+				|| current.getVersion() == JournalRecord.UNKNOWN_VERSION
+				|| change.getVersion() > current.getVersion();
+		switch (change.getType()) {
+			case UPSERT:
+				if (newer || (current.getKind() == OrderRecord.Kind.FULL && change.getVersion() == current.getVersion()))
+					return OrderRecord.of(change);
+				// A status change seen before the order was loaded is newer than the loaded state
+				return current.getKind() == OrderRecord.Kind.PARTIAL
+						? OrderRecord.of(change).withStatus(current.getStatus(), current.getVersion())
+						: current;
+			case STATUS:
+				if (!newer)
+					return current;
+				if (current == null)
+					return this.warm ? null : OrderRecord.partial(change.getOrderId(), change.getVersion(), change.getStatus());
+				return current.getKind() == OrderRecord.Kind.TOMBSTONE
+						? current
+						: current.withStatus(change.getStatus(), change.getVersion());
+			case DEACTIVATE:
+			default:
+				if (!newer)
+					return current;
+				return this.warm ? null : OrderRecord.tombstone(change.getOrderId(), change.getVersion());
+		}
+	}
+
+	private void index(final OrderRecord record) {
+		this.activeOrders++;
+		if (record.getStatus() != null)
+			this.byStatus.get(record.getStatus().ordinal()).put(record.getOrderId(), record);
+		if (record.getCartId() == OrderRecord.NO_ID)
+			return;
+		var cartOrders = this.byCart.get(record.getCartId());
+		if (cartOrders == null) {
+			cartOrders = new LongObjectHashMap<>();
+			this.byCart.put(record.getCartId(), cartOrders);
+		}
+		cartOrders.put(record.getOrderId(), record);
+	}
+
+	private void unindex(final OrderRecord record) {
+		this.activeOrders--;
+		if (record.getStatus() != null)
+			this.byStatus.get(record.getStatus().ordinal()).remove(record.getOrderId());
+		if (record.getCartId() == OrderRecord.NO_ID)
+			return;
+		final var cartOrders = this.byCart.get(record.getCartId());
+		if (cartOrders != null) {
+			cartOrders.remove(record.getOrderId());
+			if (cartOrders.isEmpty())
+				this.byCart.remove(record.getCartId());
+		}
+	}
+
+	/**
+	 * Ends the initial load: partial records and tombstones are dropped and queries may be
+	 * answered from the model from now on.
+	 */
+	public void markWarm() {
+		this.lock.writeLock().lock();
+		try {
+			final List<OrderRecord> incomplete = new ArrayList<>();
+			this.orders.forEachValue(record -> {
+				if (!record.isFull())
+					incomplete.add(record);
+			});
+			incomplete.forEach(record -> this.orders.remove(record.getOrderId()));
+			this.warm = true;
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Drops everything held and goes back to answering nothing until the next {@link #markWarm()}.
+	 */
+	public void reset() {
+		this.lock.writeLock().lock();
+		try {
+			this.warm = false;
+			this.orders.clear();
+			this.byCart.clear();
+			this.byStatus.forEach(LongObjectHashMap::clear);
+			this.activeOrders = 0;
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Ids of the active orders held, in no particular order.
+	 */
+	public long[] activeOrderIds() {
+		this.lock.readLock().lock();
+		try {
+			final long[] ids = new long[this.activeOrders];
+			final int[] next = { 0 };
+			this.orders.forEachValue(record -> {
+				if (record.isFull())
+					ids[next[0]++] = record.getOrderId();
+			});
+			return ids;
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Aggregates over the active orders held, to compare with the same over the database.
+	 */
+	public Fingerprint fingerprint() {
+		this.lock.readLock().lock();
+		try {
+			final long[] totals = { 0, 0, 0 };
+			this.orders.forEachValue(record -> {
+				if (!record.isFull())
+					return;
+				totals[0]++;
+				totals[1] += record.getVersion();
+				totals[2] = Math.max(totals[2], record.getOrderId());
+			});
+			return new Fingerprint(totals[0], totals[1], totals[2]);
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	@Value
+	public static class Fingerprint {
+
+		long orders;
+
+		long versionSum;
+
+		long maxOrderId;
+
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,215 @@
+package com.selimhorri.app.readmodel;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.selimhorri.app.config.readmodel.ReadModelProperties;
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.event.bus.ChangeEvent;
+import com.selimhorri.app.event.bus.ChangeEventConsumer;
+import com.selimhorri.app.event.journal.JournalRecord;
+import com.selimhorri.app.event.journal.OrderJournal;
+import com.selimhorri.app.helper.CentsHelper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Feeds the {@link OrderReadModel}: applies every committed order change from the bus and, once
+ * the application is ready, loads the current orders in the background and marks the model warm.
+ * <p>
+ * The load replays the order journal when there is one and its result matches the database on
+ * count, sum of versions and highest id, which takes one aggregate query instead of reading every
+ * order. Otherwise the active orders are read from the database and also appended to the journal,
+ * with deactivations for orders the journal had but the database no longer does, so the next
+ * start can use it.
+ * <p>
+ * When the bus drops events the model goes cold and is loaded again from the database; the
+ * journal missed the same events.
+ */
+@Slf4j
+public class OrderReadModelProjector implements ChangeEventConsumer {
+
+	static final String FINGERPRINT_SQL = "SELECT COUNT(*), COALESCE(SUM(version), 0), COALESCE(MAX(order_id), 0) "
+			+ "FROM orders WHERE is_active = TRUE";
+	static final String LOAD_SQL = "SELECT o.order_id, o.order_date, o.order_desc, o.order_fee, o.status, o.version, "
+			+ "o.cart_id, c.user_id FROM orders o LEFT JOIN carts c ON c.cart_id = o.cart_id WHERE o.is_active = TRUE";
+
+	private final OrderReadModel model;
+	private final JdbcTemplate jdbcTemplate;
+	private final OrderJournal journal;
+	private final ReadModelProperties properties;
+	private final MeterRegistry meterRegistry;
+	private final Timer lag;
+	private final AtomicBoolean loading = new AtomicBoolean();
+
+	// Set when a load is asked for, cleared by the loading thread as it starts one
+	private volatile boolean loadRequested;
+	private volatile boolean journalUsable = true;
+
+	/**
+	 * @param journal null when journaling is off
+	 */
+	public OrderReadModelProjector(final OrderReadModel model, final JdbcTemplate jdbcTemplate,
+			final OrderJournal journal, final ReadModelProperties properties, final MeterRegistry meterRegistry) {
+		this.model = model;
+		this.jdbcTemplate = jdbcTemplate;
+		this.journal = journal;
+		this.properties = properties;
+		this.meterRegistry = meterRegistry;
+		this.lag = Timer.builder("orders.read-model.lag")
+				.description("Time from a committed order change until queries see it")
+				.register(meterRegistry);
+	}
+
+	@Override
+	public void onEvent(final ChangeEvent event, final boolean endOfBatch) {
+		final JournalRecord change = event.getType().isOrder() ? JournalRecord.of(event) : null;
+		if (change == null)
+			return;
+		this.model.apply(change);
+		this.lag.record(Math.max(0, System.currentTimeMillis() - event.getOccurredAt()), TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void onEventsMissed() {
+		log.warn("Order read model missed change events, order queries go to the database until it is reloaded");
+		this.journalUsable = false;
+		this.model.reset();
+		this.loadInBackground();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		this.loadInBackground();
+	}
+
+	// One loading thread at a time; a load asked for while one runs is done after it
+	private void loadInBackground() {
+		this.loadRequested = true;
+		if (!this.loading.compareAndSet(false, true))
+			return;
+		final var thread = new Thread(() -> {
+			do {
+				while (this.loadRequested) {
+					this.loadRequested = false;
+					this.bootstrap();
+				}
+				this.loading.set(false);
+			} while (this.loadRequested && this.loading.compareAndSet(false, true));
+		}, "order-read-model-bootstrap");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Loads the model and marks it warm; on failure it stays cold and queries keep going to the
+	 * database. It also stays cold when events were missed during the load, for the next load.
+	 */
+	public void bootstrap() {
+		final long start = System.nanoTime();
+		try {
+			final String source = this.load();
+			if (this.loadRequested)
+				return;
+			this.model.markWarm();
+			final long elapsed = System.nanoTime() - start;
+			Timer.builder("orders.read-model.bootstrap")
+					.tag("source", source)
+					.register(this.meterRegistry)
+					.record(elapsed, TimeUnit.NANOSECONDS);
+			log.info("Order read model warm with {} orders from the {} in {} ms",
+					this.model.fingerprint().getOrders(), source, TimeUnit.NANOSECONDS.toMillis(elapsed));
+		}
+		catch (RuntimeException e) {
+			log.error("Could not load the order read model, order queries stay on the database", e);
+		}
+	}
+
+	private String load() {
+		if (this.journal != null && this.properties.isBootstrapFromJournal() && this.journalUsable) {
+			final long records = this.journal.replay(this.model::apply);
+			if (records > 0 && this.model.fingerprint().equals(this.databaseFingerprint()))
+				return "journal";
+			log.info("Order journal ({} records) does not match the database, loading orders from the database",
+					records);
+		}
+
+		// Taken before the query, so an order created meanwhile is not mistaken for a stale one
+		final long[] heldBefore = this.model.activeOrderIds();
+		// Sorted, so a loaded order marks its index in heldBefore
+		Arrays.sort(heldBefore);
+		// What the journal left may be newer than the database, e.g. after a restore; the database wins
+		this.model.reset();
+		final BitSet loaded = new BitSet();
+		this.jdbcTemplate.query(connection -> {
+			final var statement = connection.prepareStatement(LOAD_SQL);
+			statement.setFetchSize(this.properties.getFetchSize());
+			return statement;
+		}, (ResultSet rs) -> {
+			final JournalRecord order = this.toRecord(rs);
+			final int held = Arrays.binarySearch(heldBefore, order.getOrderId());
+			if (held >= 0)
+				loaded.set(held);
+			this.model.apply(order);
+			if (this.journal != null)
+				this.journal.append(order);
+		});
+		for (int held = loaded.nextClearBit(0); held < heldBefore.length; held = loaded.nextClearBit(held + 1)) {
+			final var deactivation = JournalRecord.builder()
+					.type(JournalRecord.Type.DEACTIVATE)
+					.orderId(heldBefore[held])
+					.version(JournalRecord.UNKNOWN_VERSION)
+					.build();
+			this.model.apply(deactivation);
+			if (this.journal != null)
+				this.journal.append(deactivation);
+		}
+		return "database";
+	}
+
+	private OrderReadModel.Fingerprint databaseFingerprint() {
+		return this.jdbcTemplate.queryForObject(FINGERPRINT_SQL, (rs, rowNum) -> new OrderReadModel.Fingerprint(
+				rs.getLong(1), rs.getLong(2), rs.getLong(3)));
+	}
+
+	private JournalRecord toRecord(final ResultSet rs) throws SQLException {
+		final Timestamp orderDate = rs.getTimestamp("order_date");
+		final int cartId = rs.getInt("cart_id");
+		final boolean noCart = rs.wasNull();
+		final int userId = rs.getInt("user_id");
+		final boolean noUser = rs.wasNull();
+		return JournalRecord.builder()
+				.type(JournalRecord.Type.UPSERT)
+				.orderId(rs.getLong("order_id"))
+				.version(rs.getLong("version"))
+				.status(OrderStatus.valueOf(rs.getString("status")))
+				.cartId(noCart ? null : cartId)
+				.userId(noUser ? null : userId)
+				.orderDate(orderDate == null ? null : orderDate.toLocalDateTime())
+				.orderFeeCents(CentsHelper.toCentsOrNull(rs.getBigDecimal("order_fee")))
+				.orderDesc(rs.getString("order_desc"))
+				.build();
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
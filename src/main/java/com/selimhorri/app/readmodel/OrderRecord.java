@@ -0,0 +1,133 @@
+package com.selimhorri.app.readmodel;
+
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.CartDto;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.event.journal.JournalRecord;
+import com.selimhorri.app.helper.EpochMicrosHelper;
+
+/**
+ * Immutable order as the {@link OrderReadModel} keeps it: primitives with sentinels instead of
+ * boxed fields and {@code LocalDateTime}, so an order costs one object besides its description.
+ * <p>
+ * While the model warms up it may also hold a {@link Kind#PARTIAL} record, a status change that
+ * arrived before the order itself was loaded, or a {@link Kind#TOMBSTONE} for a deactivation.
+ */
+public final class OrderRecord {
+
+	public static final int NO_ID = Integer.MIN_VALUE;
+	private static final long NO_DATE = Long.MIN_VALUE;
+	private static final long NO_FEE = Long.MIN_VALUE;
+	private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+	public enum Kind {
+		FULL,
+		PARTIAL,
+		TOMBSTONE
+	}
+
+	private final Kind kind;
+	private final long orderId;
+	private final long version;
+	private final byte status;
+	private final int cartId;
+	private final int userId;
+	private final long orderDateMicros;
+	private final long orderFeeCents;
+	private final String orderDesc;
+
+	private OrderRecord(final Kind kind, final long orderId, final long version, final OrderStatus status,
+			final int cartId, final int userId, final long orderDateMicros, final long orderFeeCents,
+			final String orderDesc) {
+		this.kind = kind;
+		this.orderId = orderId;
+		this.version = version;
+		this.status = status == null ? -1 : (byte) status.ordinal();
+		this.cartId = cartId;
+		this.userId = userId;
+		this.orderDateMicros = orderDateMicros;
+		this.orderFeeCents = orderFeeCents;
+		this.orderDesc = orderDesc;
+	}
+
+	/**
+	 * @param upsert a record of type {@link JournalRecord.Type#UPSERT}
+	 */
+	public static OrderRecord of(final JournalRecord upsert) {
+		return new OrderRecord(Kind.FULL, upsert.getOrderId(), upsert.getVersion(), upsert.getStatus(),
+				upsert.getCartId() == null ? NO_ID : upsert.getCartId(),
+				upsert.getUserId() == null ? NO_ID : upsert.getUserId(),
+				upsert.getOrderDate() == null ? NO_DATE : EpochMicrosHelper.toEpochMicros(upsert.getOrderDate()),
+				upsert.getOrderFeeCents() == null ? NO_FEE : upsert.getOrderFeeCents(),
+				upsert.getOrderDesc());
+	}
+
+	public static OrderRecord partial(final long orderId, final long version, final OrderStatus status) {
+		return new OrderRecord(Kind.PARTIAL, orderId, version, status, NO_ID, NO_ID, NO_DATE, NO_FEE, null);
+	}
+
+	public static OrderRecord tombstone(final long orderId, final long version) {
+		return new OrderRecord(Kind.TOMBSTONE, orderId, version, null, NO_ID, NO_ID, NO_DATE, NO_FEE, null);
+	}
+
+	public OrderRecord withStatus(final OrderStatus status, final long version) {
+		return new OrderRecord(this.kind, this.orderId, version, status, this.cartId, this.userId,
+				this.orderDateMicros, this.orderFeeCents, this.orderDesc);
+	}
+
+	public OrderDto toOrderDto() {
+		return OrderDto.builder()
+				.orderId(this.orderId)
+				.orderDate(this.orderDateMicros == NO_DATE ? null : EpochMicrosHelper.fromEpochMicros(this.orderDateMicros))
+				.orderDesc(this.orderDesc)
+				.orderFeeCents(this.orderFeeCents == NO_FEE ? null : this.orderFeeCents)
+				.orderStatus(this.getStatus())
+				.version(this.version == JournalRecord.UNKNOWN_VERSION ? null : this.version)
+				.cartDto(this.cartId == NO_ID ? null : CartDto.builder()
+						.cartId(this.cartId)
+						.userId(this.userId == NO_ID ? null : this.userId)
+						.build())
+				.build();
+	}
+
+	public Kind getKind() {
+		return this.kind;
+	}
+
+	public boolean isFull() {
+		return this.kind == Kind.FULL;
+	}
+
+	public long getOrderId() {
+		return this.orderId;
+	}
+
+	public long getVersion() {
+		return this.version;
+	}
+
+	public OrderStatus getStatus() {
+		return this.status < 0 ? null : STATUSES[this.status];
+	}
+
+	public int getCartId() {
+		return this.cartId;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("OrderRecord(%s, orderId=%d, version=%d, status=%s)",
+				this.kind, this.orderId, this.version, this.getStatus());
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
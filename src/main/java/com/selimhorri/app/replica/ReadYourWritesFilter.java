@@ -0,0 +1,95 @@
+package com.selimhorri.app.replica;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Keeps a client's reads on the primary for a while after its write, so it reads what it wrote
+ * while the replica catches up.
+ * <p>
+ * A write request hands the client a cookie saying until when; requests bringing it back before
+ * then read from the primary. The client carries it, so it holds on whichever instance serves
+ * the next request.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+	public static final String COOKIE_NAME = "read-primary-until";
+
+	private final Duration window;
+
+	public ReadYourWritesFilter(final Duration window) {
+		this.window = window;
+	}
+
+	@Override
+	protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+			final FilterChain filterChain) throws ServletException, IOException {
+
+		if (!isRead(request)) {
+			// Before the chain, once the body is written the cookie could no longer be set
+			response.addCookie(this.cookie(request));
+			filterChain.doFilter(request, response);
+			return;
+		}
+		if (!this.wroteRecently(request)) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		Replicas.stickToPrimary();
+		try {
+			filterChain.doFilter(request, response);
+		}
+		finally {
+			Replicas.release();
+		}
+	}
+
+	private Cookie cookie(final HttpServletRequest request) {
+		final var cookie = new Cookie(COOKIE_NAME, String.valueOf(System.currentTimeMillis() + this.window.toMillis()));
+		cookie.setPath(request.getContextPath().isEmpty() ? "/" : request.getContextPath());
+		cookie.setMaxAge((int) Math.max(1, (this.window.toMillis() + 999) / 1000));
+		cookie.setHttpOnly(true);
+		return cookie;
+	}
+
+	private boolean wroteRecently(final HttpServletRequest request) {
+		if (request.getCookies() == null)
+			return false;
+		for (final var cookie : request.getCookies()) {
+			if (!COOKIE_NAME.equals(cookie.getName()))
+				continue;
+			try {
+				return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+			}
+			catch (NumberFormatException e) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isRead(final HttpServletRequest request) {
+		final var method = HttpMethod.resolve(request.getMethod());
+		return method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS;
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,83 @@
+package com.selimhorri.app.replica;
+
+import java.time.Duration;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Measures how far the replica is behind the primary, from a heartbeat row replication carries
+ * over like any other.
+ * <p>
+ * Every check reads the heartbeat on both sides, the replica's lag being how much older its
+ * copy is, then beats on the primary. Lag is thus known to about a check interval, and keeps
+ * growing while replication is stopped. A replica that cannot be read has no lag known, and is
+ * not read from until it can be again.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+	static final String READ_HEARTBEAT_SQL = "SELECT beat_millis FROM replica_heartbeat WHERE heartbeat_id = 1";
+	static final String HEARTBEAT_SQL = "UPDATE replica_heartbeat SET beat_millis = ? WHERE heartbeat_id = 1";
+
+	private final Replicas replicas;
+	private final JdbcTemplate primary;
+	private final JdbcTemplate replica;
+
+	public ReplicaLagMonitor(final Replicas replicas, final MeterRegistry meterRegistry) {
+		this.replicas = replicas;
+		this.primary = new JdbcTemplate(replicas.getPrimary());
+		this.replica = new JdbcTemplate(replicas.getReplica());
+		Gauge.builder("db.replica.lag", replicas, r -> r.getLag() == null ? Double.NaN : r.getLag().toMillis() / 1000.0)
+				.description("How far the replica was behind the primary when last measured")
+				.baseUnit("seconds")
+				.register(meterRegistry);
+		Gauge.builder("db.replica.usable", replicas, r -> r.isReplicaUsable() ? 1 : 0)
+				.description("Whether read-only work is served by the replica")
+				.register(meterRegistry);
+	}
+
+	@Scheduled(fixedDelayString = "${app.replica.lag-check-interval:PT1S}")
+	public void check() {
+		final boolean wasUsable = this.replicas.isReplicaUsable();
+		Duration lag = null;
+		try {
+			final long primaryBeat = this.primary.queryForObject(READ_HEARTBEAT_SQL, Long.class);
+			final long replicaBeat = this.replica.queryForObject(READ_HEARTBEAT_SQL, Long.class);
+			lag = Duration.ofMillis(Math.max(0, primaryBeat - replicaBeat));
+		}
+		catch (DataAccessException e) {
+			if (wasUsable)
+				log.warn("Could not measure the replica lag: {}", e.getMessage());
+		}
+		try {
+			this.primary.update(HEARTBEAT_SQL, System.currentTimeMillis());
+		}
+		catch (DataAccessException e) {
+			log.warn("Could not write the replica heartbeat: {}", e.getMessage());
+		}
+
+		this.replicas.lagMeasured(lag);
+		final boolean usable = this.replicas.isReplicaUsable();
+		if (wasUsable && !usable)
+			log.warn("Reading from the primary, the replica lags {}", lag == null ? "an unknown time" : lag);
+		else if (!wasUsable && usable)
+			log.info("Reading from the replica again, it lags {}", lag);
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,42 @@
+package com.selimhorri.app.replica;
+
+import java.util.Map;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections of the replica when {@link Replicas} sends the current work there, of the
+ * primary otherwise. Wrap it in a {@code LazyConnectionDataSourceProxy}, so that a transaction
+ * takes its connection at its first statement, once it is known to be read-only.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+	private static final String PRIMARY = "primary";
+	private static final String REPLICA = "replica";
+
+	private final Replicas replicas;
+
+	public ReplicaRoutingDataSource(final Replicas replicas) {
+		this.replicas = replicas;
+		this.setTargetDataSources(Map.of(PRIMARY, replicas.getPrimary(), REPLICA, replicas.getReplica()));
+		this.setDefaultTargetDataSource(replicas.getPrimary());
+		this.setLenientFallback(false);
+		this.afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return this.replicas.readsFromReplica() ? REPLICA : PRIMARY;
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
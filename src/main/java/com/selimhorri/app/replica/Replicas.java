@@ -0,0 +1,89 @@
+package com.selimhorri.app.replica;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Where work goes when spring.datasource has a read replica.
+ * <p>
+ * Work the transaction manager runs read-only, a {@code @Transactional(readOnly = true)} method
+ * with or without a transaction of its own, reads from the replica; everything else goes to the
+ * primary. Reads stay on the primary while the replica lags more than allowed or its lag is not
+ * known, which {@link ReplicaLagMonitor} keeps track of, and for the requests
+ * {@link ReadYourWritesFilter} keeps there after a client's write.
+ * <p>
+ * The choice is made when a connection is taken, which {@link ReplicaRoutingDataSource} defers
+ * to the first statement, after the transaction has been marked read-only.
+ */
+public class Replicas {
+
+	private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+	private final DataSource primary;
+	private final DataSource replica;
+	private final Duration maxLag;
+
+	// Null until the first measurement, and while the replica cannot be reached
+	private volatile Duration lag;
+
+	public Replicas(final DataSource primary, final DataSource replica, final Duration maxLag) {
+		this.primary = primary;
+		this.replica = replica;
+		this.maxLag = maxLag;
+	}
+
+	static void stickToPrimary() {
+		PRIMARY_ONLY.set(Boolean.TRUE);
+	}
+
+	static void release() {
+		PRIMARY_ONLY.remove();
+	}
+
+	public DataSource getPrimary() {
+		return this.primary;
+	}
+
+	public DataSource getReplica() {
+		return this.replica;
+	}
+
+	/**
+	 * @return whether a connection taken now should be one of the replica
+	 */
+	public boolean readsFromReplica() {
+		return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+				&& PRIMARY_ONLY.get() == null
+				&& this.isReplicaUsable();
+	}
+
+	public boolean isReplicaUsable() {
+		final var current = this.lag;
+		return current != null && current.compareTo(this.maxLag) <= 0;
+	}
+
+	/**
+	 * @return how far the replica was behind the primary when last measured, null when unknown
+	 */
+	public Duration getLag() {
+		return this.lag;
+	}
+
+	void lagMeasured(final Duration lag) {
+		this.lag = lag;
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
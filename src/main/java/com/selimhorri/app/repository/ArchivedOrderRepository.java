@@ -0,0 +1,20 @@
+package com.selimhorri.app.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.selimhorri.app.domain.ArchivedOrder;
+
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    // Keyset page: the orders after afterOrderId, optionally of one cart; a null cartId does not filter
+    @Query("SELECT a FROM ArchivedOrder a WHERE a.orderId > :afterOrderId "
+            + "AND (:cartId IS NULL OR a.cartId = :cartId) ORDER BY a.orderId")
+    List<ArchivedOrder> findPage(@Param("cartId") Integer cartId, @Param("afterOrderId") long afterOrderId,
+            Pageable pageable);
+
+}
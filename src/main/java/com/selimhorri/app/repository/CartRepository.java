@@ -1,11 +1,21 @@
 package com.selimhorri.app.repository;
 
+import java.util.List;
+
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.selimhorri.app.domain.Cart;
 
 public interface CartRepository extends JpaRepository<Cart, Integer> {
 	
+	// Served from the query cache when it is enabled; any write to carts drops the cached result
+	@Override
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	List<Cart> findAll();
+	
 	
 	
 }
@@ -0,0 +1,22 @@
+package com.selimhorri.app.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.selimhorri.app.domain.IdempotencyRecord;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+	@Modifying
+	@Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+	int deleteExpired(@Param("now") final Instant now);
+
+	@Modifying
+	@Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :idempotencyKey AND r.expiresAt < :now")
+	int deleteExpiredById(@Param("idempotencyKey") final String idempotencyKey, @Param("now") final Instant now);
+
+}
@@ -0,0 +1,23 @@
+package com.selimhorri.app.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.selimhorri.app.domain.OrderDailySummary;
+import com.selimhorri.app.domain.enums.OrderStatus;
+
+public interface OrderDailySummaryRepository extends JpaRepository<OrderDailySummary, OrderDailySummary.Key> {
+
+    // Days in [from, to], both included, optionally of one status; a null status does not filter.
+    // Days or statuses whose orders have all gone are kept at zero by the upserts and left out here
+    @Query("SELECT s FROM OrderDailySummary s WHERE s.summaryDate >= :from AND s.summaryDate <= :to "
+            + "AND (:status IS NULL OR s.status = :status) AND s.orderCount <> 0 "
+            + "ORDER BY s.summaryDate, s.status")
+    List<OrderDailySummary> findRange(@Param("from") LocalDate from, @Param("to") LocalDate to,
+            @Param("status") OrderStatus status);
+
+}
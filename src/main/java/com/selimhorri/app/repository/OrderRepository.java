@@ -1,17 +1,70 @@
 package com.selimhorri.app.repository;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.selimhorri.app.domain.Order;
+import com.selimhorri.app.domain.enums.OrderStatus;
 
-public interface OrderRepository extends JpaRepository<Order, Integer> {
+public interface OrderRepository extends JpaRepository<Order, Long> {
 
+    // Fetch the EAGER cart in the same statement instead of one select per cart
+    @EntityGraph(attributePaths = "cart")
     List<Order> findAllByIsActiveTrue();
 
     // Método para encontrar una orden por ID solo si está activa
-    Optional<Order> findByOrderIdAndIsActiveTrue(Integer orderId);
+    @EntityGraph(attributePaths = "cart")
+    Optional<Order> findByOrderIdAndIsActiveTrue(Long orderId);
+
+    // Active orders of one cart and/or in one status; a null argument does not filter
+    @EntityGraph(attributePaths = "cart")
+    @Query("SELECT o FROM Order o WHERE o.isActive = true "
+            + "AND (:cartId IS NULL OR o.cart.cartId = :cartId) AND (:status IS NULL OR o.status = :status)")
+    List<Order> findAllActive(@Param("cartId") Integer cartId, @Param("status") OrderStatus status);
+
+    // Keyset page of the same: the active orders after afterOrderId, for a listing across shards
+    @EntityGraph(attributePaths = "cart")
+    @Query("SELECT o FROM Order o WHERE o.isActive = true AND o.orderId > :afterOrderId "
+            + "AND (:status IS NULL OR o.status = :status) ORDER BY o.orderId")
+    List<Order> findActivePage(@Param("status") OrderStatus status, @Param("afterOrderId") long afterOrderId,
+            Pageable pageable);
+
+    // Active orders dated in [from, to), optionally in one status; walks idx_orders_order_date,
+    // and on MySQL only the monthly partitions the range touches
+    @EntityGraph(attributePaths = "cart")
+    @Query("SELECT o FROM Order o WHERE o.isActive = true AND o.orderDate >= :from AND o.orderDate < :to "
+            + "AND (:status IS NULL OR o.status = :status) ORDER BY o.orderDate, o.orderId")
+    List<Order> findAllActiveByOrderDate(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+            @Param("status") OrderStatus status);
+
+    // Compare-and-set: moves the order only if it is still active and still in the expected status,
+    // returns 0 when a concurrent update got there first
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :to, o.updatedAt = :now, o.version = o.version + 1 "
+            + "WHERE o.orderId = :orderId AND o.status = :from AND o.isActive = true")
+    int transitionStatus(@Param("orderId") Long orderId, @Param("from") OrderStatus from,
+            @Param("to") OrderStatus to, @Param("now") Instant now);
+
+    // Locks the active orders of a bulk status chunk so the classification and the update see the same state;
+    // rows are [order_id, status, version, order_date, order_fee]
+    @Query(value = "SELECT order_id, status, version, order_date, order_fee FROM orders WHERE order_id IN (:orderIds) AND is_active = TRUE "
+            + "ORDER BY order_id FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockActiveStatuses(@Param("orderIds") Collection<Long> orderIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :to, o.updatedAt = :now, o.version = o.version + 1 "
+            + "WHERE o.orderId IN :orderIds AND o.status = :from AND o.isActive = true")
+    int transitionStatuses(@Param("orderIds") Collection<Long> orderIds, @Param("from") OrderStatus from,
+            @Param("to") OrderStatus to, @Param("now") Instant now);
 
 }
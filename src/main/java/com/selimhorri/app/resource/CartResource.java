@@ -4,6 +4,7 @@ import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,12 +12,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.selimhorri.app.dto.CartDto;
 import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
+import com.selimhorri.app.helper.EntityTagHelper;
 import com.selimhorri.app.service.CartService;
+import com.selimhorri.app.service.IdempotencyService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +32,7 @@ import lombok.extern.slf4j.Slf4j;
 public class CartResource {
 	
 	private final CartService cartService;
+	private final IdempotencyService idempotencyService;
 	
 	@GetMapping
 	public ResponseEntity<DtoCollectionResponse<CartDto>> findAll() {
@@ -41,25 +46,38 @@ public class CartResource {
 			@NotBlank(message = "Input must not be blank") 
 			@Valid final String cartId) {
 		log.info("*** CartDto, resource; fetch cart by id *");
-		return ResponseEntity.ok(this.cartService.findById(Integer.parseInt(cartId)));
+		final var cartDto = this.cartService.findById(Integer.parseInt(cartId));
+		return EntityTagHelper.ok(cartDto.getVersion()).body(cartDto);
 	}
 	
 	@PostMapping
 	public ResponseEntity<CartDto> save(
-			@RequestBody 
-			@NotNull(message = "Input must not be NULL!") 
+			@RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false)
+			final String idempotencyKey,
+			@RequestBody
+			@NotNull(message = "Input must not be NULL!")
 			@Valid final CartDto cartDto) {
 		log.info("*** CartDto, resource; save cart *");
-		return ResponseEntity.ok(this.cartService.save(cartDto));
+		final var outcome = this.idempotencyService.execute(idempotencyKey, "POST /api/carts", cartDto,
+				CartDto.class, () -> this.cartService.save(cartDto));
+		final var response = EntityTagHelper.ok(outcome.getBody().getVersion());
+		if (outcome.isReplayed())
+			response.header(IdempotencyService.REPLAYED_HEADER, "true");
+		return response.body(outcome.getBody());
 	}
 	
 	@PutMapping
 	public ResponseEntity<CartDto> update(
-			@RequestBody 
-			@NotNull(message = "Input must not be NULL") 
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch,
+			@RequestBody
+			@NotNull(message = "Input must not be NULL")
 			@Valid final CartDto cartDto) {
 		log.info("*** CartDto, resource; update cart *");
-		return ResponseEntity.ok(this.cartService.update(cartDto));
+		final var expectedVersion = EntityTagHelper.parseIfMatch(ifMatch);
+		if (expectedVersion != null)
+			cartDto.setVersion(expectedVersion);
+		final var updatedCartDto = this.cartService.update(cartDto);
+		return EntityTagHelper.ok(updatedCartDto.getVersion()).body(updatedCartDto);
 	}
 	
 	@PutMapping("/{cartId}")
@@ -67,11 +85,16 @@ public class CartResource {
 			@PathVariable("cartId")
 			@NotBlank(message = "Input must not be blank")
 			@Valid final String cartId,
-			@RequestBody 
-			@NotNull(message = "Input must not be NULL") 
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch,
+			@RequestBody
+			@NotNull(message = "Input must not be NULL")
 			@Valid final CartDto cartDto) {
 		log.info("*** CartDto, resource; update cart with cartId *");
-		return ResponseEntity.ok(this.cartService.update(Integer.parseInt(cartId), cartDto));
+		final var expectedVersion = EntityTagHelper.parseIfMatch(ifMatch);
+		if (expectedVersion != null)
+			cartDto.setVersion(expectedVersion);
+		final var updatedCartDto = this.cartService.update(Integer.parseInt(cartId), cartDto);
+		return EntityTagHelper.ok(updatedCartDto.getVersion()).body(updatedCartDto);
 	}
 	
 	@DeleteMapping("/{cartId}")
@@ -1,9 +1,15 @@
 package com.selimhorri.app.resource;
 
+import java.time.LocalDate;
+
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,11 +18,20 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.selimhorri.app.cache.HotOrderCache;
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.BulkStatusUpdateDto;
+import com.selimhorri.app.dto.OrderDailySummaryDto;
 import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.response.BulkStatusUpdateResponse;
 import com.selimhorri.app.dto.response.collection.DtoCollectionResponse;
+import com.selimhorri.app.helper.EntityTagHelper;
+import com.selimhorri.app.service.IdempotencyService;
 import com.selimhorri.app.service.OrderService;
 
 import lombok.RequiredArgsConstructor;
@@ -29,46 +44,102 @@ import lombok.extern.slf4j.Slf4j;
 public class OrderResource {
 
 	private final OrderService orderService;
+	private final IdempotencyService idempotencyService;
+	private final HotOrderCache hotOrderCache;
 
+	/**
+	 * {@code from} and {@code to} are ISO dates, both included, and select by order date; they
+	 * go together and cannot be combined with {@code cartId}.
+	 */
 	@GetMapping
-	public ResponseEntity<DtoCollectionResponse<OrderDto>> findAll() {
+	public ResponseEntity<DtoCollectionResponse<OrderDto>> findAll(
+			@RequestParam(value = "cartId", required = false) final Integer cartId,
+			@RequestParam(value = "status", required = false) final OrderStatus status,
+			@RequestParam(value = "from", required = false) @DateTimeFormat(iso = ISO.DATE) final LocalDate from,
+			@RequestParam(value = "to", required = false) @DateTimeFormat(iso = ISO.DATE) final LocalDate to) {
 		log.info("*** OrderDto List, controller; fetch all orders *");
-		return ResponseEntity.ok(new DtoCollectionResponse<>(this.orderService.findAll()));
+		if (from != null || to != null) {
+			if (cartId != null)
+				throw new IllegalArgumentException("An order date range cannot be combined with cartId");
+			return ResponseEntity.ok(new DtoCollectionResponse<>(this.orderService.findAllByOrderDate(from, to, status)));
+		}
+		if (cartId == null && status == null)
+			return ResponseEntity.ok(new DtoCollectionResponse<>(this.orderService.findAll()));
+		return ResponseEntity.ok(new DtoCollectionResponse<>(this.orderService.findAll(cartId, status)));
+	}
+
+	/**
+	 * Count and total fee of the active orders per day and status, for dashboards; {@code from}
+	 * and {@code to} are ISO dates, both included.
+	 */
+	@GetMapping("/summary")
+	public ResponseEntity<DtoCollectionResponse<OrderDailySummaryDto>> findDailySummaries(
+			@RequestParam("from") @DateTimeFormat(iso = ISO.DATE) final LocalDate from,
+			@RequestParam("to") @DateTimeFormat(iso = ISO.DATE) final LocalDate to,
+			@RequestParam(value = "status", required = false) final OrderStatus status) {
+		log.info("*** OrderDailySummaryDto List, controller; fetch order summaries by day *");
+		return ResponseEntity.ok(new DtoCollectionResponse<>(this.orderService.findDailySummaries(from, to, status)));
 	}
 
+	// Written as the cached JSON bytes, so a hit skips the service and Jackson
 	@GetMapping("/{orderId}")
-	public ResponseEntity<OrderDto> findById(
+	public ResponseEntity<byte[]> findById(
 			@PathVariable("orderId") @NotBlank(message = "Input must not be blank") @Valid final String orderId) {
 		log.info("*** OrderDto, resource; fetch order by id *");
-		return ResponseEntity.ok(this.orderService.findById(Integer.parseInt(orderId)));
+		final long id = Long.parseLong(orderId);
+		var order = this.hotOrderCache.get(id);
+		if (order == null)
+			order = this.hotOrderCache.put(this.orderService.findById(id));
+		return EntityTagHelper.ok(order.getVersion())
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(order.getJson());
 	}
 
 	@PostMapping
 	public ResponseEntity<OrderDto> save(
+			@RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) final String idempotencyKey,
 			@RequestBody @NotNull(message = "Input must not be NULL") @Valid final OrderDto orderDto) {
 		log.info("*** OrderDto, resource; save order *");
-		return ResponseEntity.ok(this.orderService.save(orderDto));
+		final var outcome = this.idempotencyService.execute(idempotencyKey, "POST /api/orders", orderDto,
+				OrderDto.class, () -> this.orderService.save(orderDto));
+		final var response = EntityTagHelper.ok(outcome.getBody().getVersion());
+		if (outcome.isReplayed())
+			response.header(IdempotencyService.REPLAYED_HEADER, "true");
+		return response.body(outcome.getBody());
 	}
 
 	@PatchMapping("/{orderId}/status")
 	public ResponseEntity<OrderDto> updateStatus(
-			@PathVariable("orderId") @NotBlank(message = "Input must not be blank") @Valid final int orderId) {
+			@PathVariable("orderId") @NotBlank(message = "Input must not be blank") @Valid final long orderId) {
 		log.info("*** OrderDto, resource; update order *");
-		return ResponseEntity.ok(this.orderService.updateStatus(orderId));
+		final var orderDto = this.orderService.updateStatus(orderId);
+		return EntityTagHelper.ok(orderDto.getVersion()).body(orderDto);
+	}
+
+	@PatchMapping("/status")
+	public ResponseEntity<BulkStatusUpdateResponse> updateStatuses(
+			@RequestBody @NotNull(message = "Input must not be NULL") @Valid final BulkStatusUpdateDto bulkStatusUpdateDto) {
+		log.info("*** BulkStatusUpdateResponse, resource; update status of many orders *");
+		return ResponseEntity.ok(this.orderService.updateStatuses(bulkStatusUpdateDto));
 	}
 
 	@PutMapping("/{orderId}")
 	public ResponseEntity<OrderDto> update(
 			@PathVariable("orderId") @NotBlank(message = "Input must not be blank") @Valid final String orderId,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch,
 			@RequestBody @NotNull(message = "Input must not be NULL") @Valid final OrderDto orderDto) {
 		log.info("*** OrderDto, resource; update order with orderId *");
-		return ResponseEntity.ok(this.orderService.update(Integer.parseInt(orderId), orderDto));
+		final var expectedVersion = EntityTagHelper.parseIfMatch(ifMatch);
+		if (expectedVersion != null)
+			orderDto.setVersion(expectedVersion);
+		final var updatedOrderDto = this.orderService.update(Long.parseLong(orderId), orderDto);
+		return EntityTagHelper.ok(updatedOrderDto.getVersion()).body(updatedOrderDto);
 	}
 
 	@DeleteMapping("/{orderId}")
 	public ResponseEntity<Boolean> deleteById(@PathVariable("orderId") final String orderId) {
 		log.info("*** Boolean, resource; delete order by id *");
-		this.orderService.deleteById(Integer.parseInt(orderId));
+		this.orderService.deleteById(Long.parseLong(orderId));
 		return ResponseEntity.ok(true);
 	}
 
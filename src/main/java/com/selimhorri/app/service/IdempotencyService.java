@@ -0,0 +1,28 @@
+package com.selimhorri.app.service;
+
+import java.util.function.Supplier;
+
+import lombok.Value;
+
+public interface IdempotencyService {
+
+	String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+	String REPLAYED_HEADER = "Idempotent-Replayed";
+
+	/**
+	 * Runs {@code action} once per key. Repeats of a completed request get the stored
+	 * response back, repeats of one still running wait for it, and a key reused with a
+	 * different request is rejected. A null key simply runs the action.
+	 */
+	<T> Outcome<T> execute(final String idempotencyKey, final String scope, final Object request,
+			final Class<T> responseType, final Supplier<T> action);
+
+	void purgeExpired();
+
+	@Value(staticConstructor = "of")
+	class Outcome<T> {
+		T body;
+		boolean replayed;
+	}
+
+}
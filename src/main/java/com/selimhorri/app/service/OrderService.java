@@ -1,16 +1,25 @@
 package com.selimhorri.app.service;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.BulkStatusUpdateDto;
+import com.selimhorri.app.dto.OrderDailySummaryDto;
 import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.response.BulkStatusUpdateResponse;
 
 public interface OrderService {
 	
 	List<OrderDto> findAll();
-	OrderDto findById(final Integer orderId);
+	List<OrderDto> findAll(final Integer cartId, final OrderStatus status);
+	List<OrderDto> findAllByOrderDate(final LocalDate from, final LocalDate to, final OrderStatus status);
+	List<OrderDailySummaryDto> findDailySummaries(final LocalDate from, final LocalDate to, final OrderStatus status);
+	OrderDto findById(final Long orderId);
 	OrderDto save(final OrderDto orderDto);
-	OrderDto updateStatus(final int orderId);
-	OrderDto update(final Integer orderId, final OrderDto orderDto);
-	void deleteById(final Integer orderId);
+	OrderDto updateStatus(final long orderId);
+	BulkStatusUpdateResponse updateStatuses(final BulkStatusUpdateDto bulkStatusUpdateDto);
+	OrderDto update(final Long orderId, final OrderDto orderDto);
+	void deleteById(final Long orderId);
 	
 }
@@ -1,20 +1,29 @@
 package com.selimhorri.app.service.impl;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
-import javax.transaction.Transactional;
-
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
 
+import com.selimhorri.app.cache.HotOrderCache;
 import com.selimhorri.app.constant.AppConstant;
+import com.selimhorri.app.domain.Order;
 import com.selimhorri.app.dto.CartDto;
 import com.selimhorri.app.dto.UserDto;
+import com.selimhorri.app.event.bus.ChangeEvent;
+import com.selimhorri.app.event.bus.ChangeEventBus;
 import com.selimhorri.app.exception.wrapper.CartNotFoundException;
+import com.selimhorri.app.exception.wrapper.VersionMismatchException;
 import com.selimhorri.app.helper.CartMappingHelper;
+import com.selimhorri.app.helper.OrderMappingHelper;
 import com.selimhorri.app.repository.CartRepository;
+import com.selimhorri.app.repository.OrderRepository;
 import com.selimhorri.app.service.CartService;
+import com.selimhorri.app.shard.Shards;
+import com.selimhorri.app.summary.OrderSummaryRecorder;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,13 +35,20 @@ import lombok.extern.slf4j.Slf4j;
 public class CartServiceImpl implements CartService {
 	
 	private final CartRepository cartRepository;
+	private final OrderRepository orderRepository;
 	private final RestTemplate restTemplate;
+	private final ChangeEventBus changeEventBus;
+	private final HotOrderCache hotOrderCache;
+	private final OrderSummaryRecorder orderSummaryRecorder;
+	private final Shards shards;
 	
 	@Override
+	@Transactional(readOnly = true)
 	public List<CartDto> findAll() {
 		log.info("*** CartDto List, service; fetch all carts *");
-		return this.cartRepository.findAll()
+		return this.shards.scatter(shard -> this.cartRepository.findAll())
 				.stream()
+					.flatMap(List::stream)
 					.map(CartMappingHelper::map)
 					.map(c -> {
 						c.setUserDto(this.restTemplate.getForObject(AppConstant.DiscoveredDomainsApi
@@ -44,8 +60,10 @@ public class CartServiceImpl implements CartService {
 	}
 	
 	@Override
+	@Transactional(readOnly = true)
 	public CartDto findById(final Integer cartId) {
 		log.info("*** CartDto, service; fetch cart by id *");
+		this.shards.bind(this.shards.ofId(cartId));
 		return this.cartRepository.findById(cartId)
 				.map(CartMappingHelper::map)
 				.map(c -> {
@@ -78,28 +96,112 @@ public class CartServiceImpl implements CartService {
 	@Override
 	public CartDto save(final CartDto cartDto) {
 		log.info("*** CartDto, service; save cart *");
-		return CartMappingHelper.map(this.cartRepository
-				.save(CartMappingHelper.map(cartDto)));
+		this.shards.bind(this.shards.forUser(cartDto.getUserId()));
+		return this.published(ChangeEvent.Type.CART_CREATED, CartMappingHelper.map(this.cartRepository
+				.save(CartMappingHelper.map(cartDto))));
 	}
 	
 	@Override
 	public CartDto update(final CartDto cartDto) {
 		log.info("*** CartDto, service; update cart *");
-		return CartMappingHelper.map(this.cartRepository
-				.save(CartMappingHelper.map(cartDto)));
+		final var cart = CartMappingHelper.map(cartDto);
+		// Without an id this saves a new cart
+		this.shards.bind(cart.getCartId() == null
+				? this.shards.forUser(cart.getUserId())
+				: this.shards.ofId(cart.getCartId()));
+		final var existing = cart.getCartId() == null ? null : this.cartRepository.findById(cart.getCartId()).orElse(null);
+		if (existing != null) {
+			// No version from the caller: update whatever is current, as before versioning
+			if (cart.getVersion() == null)
+				cart.setVersion(existing.getVersion());
+			else if (!cart.getVersion().equals(existing.getVersion()))
+				throw new VersionMismatchException(String.format("Cart with id: %d is at version %d, not %d",
+						cart.getCartId(), existing.getVersion(), cart.getVersion()));
+		}
+		// Read before the save, which merges the new state into existing
+		final Integer previousUserId = existing == null ? null : existing.getUserId();
+		final var savedCart = this.cartRepository.saveAndFlush(cart);
+		if (existing != null && !Objects.equals(previousUserId, savedCart.getUserId())) {
+			final List<Order> orders = this.orderRepository.findAllActive(savedCart.getCartId(), null);
+			// Their cached bodies carry the old user; the order versions stay as they are
+			orders.forEach(order -> this.hotOrderCache.invalidate(order.getOrderId(),
+					order.getVersion() == null ? 0 : order.getVersion()));
+			this.publishOrdersUpdated(orders);
+		}
+		return this.published(ChangeEvent.Type.CART_UPDATED, CartMappingHelper.map(savedCart));
 	}
 	
 	@Override
 	public CartDto update(final Integer cartId, final CartDto cartDto) {
 		log.info("*** CartDto, service; update cart with cartId *");
-		return CartMappingHelper.map(this.cartRepository
-				.save(CartMappingHelper.map(this.findById(cartId))));
+		this.shards.bind(this.shards.ofId(cartId));
+		final var existing = this.findById(cartId);
+		if (cartDto.getVersion() != null && !cartDto.getVersion().equals(existing.getVersion()))
+			throw new VersionMismatchException(String.format("Cart with id: %d is at version %d, not %d",
+					cartId, existing.getVersion(), cartDto.getVersion()));
+		return this.published(ChangeEvent.Type.CART_UPDATED, CartMappingHelper.map(this.cartRepository
+				.saveAndFlush(CartMappingHelper.map(existing))));
 	}
 	
 	@Override
 	public void deleteById(final Integer cartId) {
 		log.info("*** Void, service; delete cart by id *");
+		this.shards.bind(this.shards.ofId(cartId));
+		// Read before the delete, which cascades to the orders
+		final List<Order> orders = this.orderRepository.findAllActive(cartId, null);
 		this.cartRepository.deleteById(cartId);
+		this.orderSummaryRecorder.recordAll(orders.stream()
+				.map(order -> OrderSummaryRecorder.Change.removed(
+						order.getOrderDate(), order.getStatus(), order.getOrderFeeCents()))
+				.collect(Collectors.toList()));
+		orders.forEach(order -> this.hotOrderCache.invalidate(order.getOrderId(),
+				order.getVersion() == null ? 0 : order.getVersion() + 1));
+		this.publishOrdersDeleted(orders);
+		this.changeEventBus.publishAfterCommit(ChangeEvent.builder()
+				.type(ChangeEvent.Type.CART_DELETED)
+				.entityId(cartId.longValue())
+				.cartId(cartId)
+				.build());
+	}
+	
+	// A new user changes every order of the cart, but not through the order write paths, so the
+	// consumers that keep order state (read model, journal, analytics) hear of it here
+	private void publishOrdersUpdated(final List<Order> orders) {
+		this.changeEventBus.publishAllAfterCommit(orders.stream()
+				.map(order -> ChangeEvent.builder()
+						.type(ChangeEvent.Type.ORDER_UPDATED)
+						.entityId(order.getOrderId())
+						.cartId(order.getCart().getCartId())
+						.toStatus(order.getStatus())
+						// Unchanged; the user is on the cart, not the order
+						.version(order.getVersion())
+						.order(OrderMappingHelper.map(order))
+						.build())
+				.collect(Collectors.toList()));
+	}
+	
+	// The same for the orders the cart delete cascades to
+	private void publishOrdersDeleted(final List<Order> orders) {
+		this.changeEventBus.publishAllAfterCommit(orders.stream()
+				.map(order -> ChangeEvent.builder()
+						.type(ChangeEvent.Type.ORDER_DEACTIVATED)
+						.entityId(order.getOrderId())
+						.cartId(order.getCart().getCartId())
+						.fromStatus(order.getStatus())
+						// Past the last version, so it wins over a load that read the order before the delete
+						.version(order.getVersion() == null ? null : order.getVersion() + 1)
+						.build())
+				.collect(Collectors.toList()));
+	}
+	
+	private CartDto published(final ChangeEvent.Type type, final CartDto cartDto) {
+		this.changeEventBus.publishAfterCommit(ChangeEvent.builder()
+				.type(type)
+				.entityId(cartDto.getCartId().longValue())
+				.cartId(cartDto.getCartId())
+				.version(cartDto.getVersion())
+				.build());
+		return cartDto;
 	}
 	
 	
@@ -0,0 +1,277 @@
+package com.selimhorri.app.service.impl;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.selimhorri.app.config.idempotency.IdempotencyProperties;
+import com.selimhorri.app.domain.IdempotencyRecord;
+import com.selimhorri.app.exception.wrapper.IdempotencyKeyConflictException;
+import com.selimhorri.app.repository.IdempotencyRecordRepository;
+import com.selimhorri.app.service.IdempotencyService;
+import com.selimhorri.app.shard.Shards;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+	private static final int MAX_KEY_LENGTH = 255;
+
+	private final IdempotencyRecordRepository idempotencyRecordRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final ObjectMapper objectMapper;
+	private final IdempotencyProperties properties;
+	private final Shards shards;
+
+	// Least recently used entries go first once cache-size is reached
+	private final Map<String, StoredResponse> cache = Collections.synchronizedMap(
+			new LinkedHashMap<String, StoredResponse>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(final Map.Entry<String, StoredResponse> eldest) {
+					return this.size() > properties.getCacheSize();
+				}
+
+			});
+	private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+	@Override
+	public <T> Outcome<T> execute(final String idempotencyKey, final String scope, final Object request,
+			final Class<T> responseType, final Supplier<T> action) {
+		if (idempotencyKey == null)
+			return Outcome.of(action.get(), false);
+		if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH)
+			throw new IllegalArgumentException(String.format("%s must be between 1 and %d characters",
+					IDEMPOTENCY_KEY_HEADER, MAX_KEY_LENGTH));
+
+		final var requestHash = this.hash(scope, request);
+		while (true) {
+			final var stored = this.find(idempotencyKey);
+			if (stored != null && !stored.isExpired(Instant.now()))
+				return this.replay(idempotencyKey, stored, requestHash, responseType);
+
+			final var pending = new CompletableFuture<Void>();
+			final var running = this.inFlight.putIfAbsent(idempotencyKey, pending);
+			if (running != null) {
+				// Same key already executing on this instance: wait for it, then replay or retry
+				this.await(idempotencyKey, running);
+				continue;
+			}
+			try {
+				// A previous holder caches its response after commit, before it releases the key,
+				// so one that finished between find() and putIfAbsent() is visible here
+				final var storedMeanwhile = this.cache.get(idempotencyKey);
+				if (storedMeanwhile != null && !storedMeanwhile.isExpired(Instant.now()))
+					return this.replay(idempotencyKey, storedMeanwhile, requestHash, responseType);
+				return Outcome.of(this.executeOnce(idempotencyKey, requestHash, stored != null, action), false);
+			}
+			catch (DataIntegrityViolationException e) {
+				// Another instance committed the same key first; otherwise the violation came from the action
+				return this.findRecord(idempotencyKey)
+						.filter(r -> !r.getExpiresAt().isBefore(Instant.now()))
+						.map(r -> this.replay(idempotencyKey, StoredResponse.of(r), requestHash, responseType))
+						.orElseThrow(() -> e);
+			}
+			finally {
+				this.inFlight.remove(idempotencyKey, pending);
+				pending.complete(null);
+			}
+		}
+	}
+
+	@Override
+	@Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval:PT10M}",
+			initialDelayString = "${app.idempotency.cleanup-interval:PT10M}")
+	public void purgeExpired() {
+		final var now = Instant.now();
+		synchronized (this.cache) {
+			this.cache.values().removeIf(s -> s.isExpired(now));
+		}
+		this.shards.forEach(shard -> {
+			final Integer purged = this.transactionTemplate.execute(tx -> this.idempotencyRecordRepository.deleteExpired(now));
+			if (purged != null && purged > 0)
+				log.info("Purged {} expired idempotency keys", purged);
+		});
+	}
+
+	private <T> T executeOnce(final String idempotencyKey, final String requestHash, final boolean replacesExpired,
+			final Supplier<T> action) {
+		return this.transactionTemplate.execute(status -> {
+			final T body = action.get();
+			final var now = Instant.now();
+			// An expired key is free again, but its row holds the primary key until the purge reaches it
+			if (replacesExpired)
+				this.idempotencyRecordRepository.deleteExpiredById(idempotencyKey, now);
+			// Inserted in the same transaction as the action, so a rollback never leaves a key
+			// without its order, and the primary key stops a second instance from committing both
+			final var record = this.idempotencyRecordRepository.saveAndFlush(IdempotencyRecord.builder()
+					.idempotencyKey(idempotencyKey)
+					.requestHash(requestHash)
+					.responseBody(this.write(body))
+					.createdAt(now)
+					.expiresAt(now.plus(this.properties.getTtl()))
+					.build());
+			this.cacheAfterCommit(idempotencyKey, StoredResponse.of(record));
+			return body;
+		});
+	}
+
+	/**
+	 * @return null if the key was never used; an expired response if the key is free again but
+	 * its row has not been purged yet
+	 */
+	private StoredResponse find(final String idempotencyKey) {
+		final var now = Instant.now();
+		final var cached = this.cache.get(idempotencyKey);
+		if (cached != null && !cached.isExpired(now))
+			return cached;
+		if (cached != null)
+			this.cache.remove(idempotencyKey, cached);
+		return this.findRecord(idempotencyKey)
+				.map(StoredResponse::of)
+				.map(s -> {
+					if (!s.isExpired(now))
+						this.cache(idempotencyKey, s);
+					return s;
+				})
+				.orElse(null);
+	}
+
+	// A key is stored in the transaction of its action, so on whichever shard the action wrote to.
+	// An expired row may linger on another shard, so the latest expiry wins.
+	private Optional<IdempotencyRecord> findRecord(final String idempotencyKey) {
+		return this.shards.scatter(shard -> this.idempotencyRecordRepository.findById(idempotencyKey))
+				.stream()
+				.flatMap(Optional::stream)
+				.max(Comparator.comparing(IdempotencyRecord::getExpiresAt));
+	}
+
+	private <T> Outcome<T> replay(final String idempotencyKey, final StoredResponse stored,
+			final String requestHash, final Class<T> responseType) {
+		if (!stored.getRequestHash().equals(requestHash))
+			throw new IdempotencyKeyConflictException(String.format(
+					"%s %s was already used for a different request", IDEMPOTENCY_KEY_HEADER, idempotencyKey));
+		log.info("*** Replaying stored response, service; idempotency key {} *", idempotencyKey);
+		return Outcome.of(this.read(stored.getBody(), responseType), true);
+	}
+
+	private void await(final String idempotencyKey, final CompletableFuture<Void> running) {
+		try {
+			running.get(this.properties.getWaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+		}
+		catch (TimeoutException | ExecutionException e) {
+			throw new IdempotencyKeyConflictException(String.format(
+					"Request with %s %s is still being processed", IDEMPOTENCY_KEY_HEADER, idempotencyKey), e);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IdempotencyKeyConflictException(String.format(
+					"Request with %s %s is still being processed", IDEMPOTENCY_KEY_HEADER, idempotencyKey), e);
+		}
+	}
+
+	private void cacheAfterCommit(final String idempotencyKey, final StoredResponse stored) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			this.cache(idempotencyKey, stored);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				cache(idempotencyKey, stored);
+			}
+		});
+	}
+
+	private void cache(final String idempotencyKey, final StoredResponse stored) {
+		this.cache.put(idempotencyKey, stored);
+	}
+
+	private String hash(final String scope, final Object request) {
+		try {
+			final var digest = MessageDigest.getInstance("SHA-256")
+					.digest((scope + "\n" + this.write(request)).getBytes(StandardCharsets.UTF_8));
+			return String.format("%064x", new BigInteger(1, digest));
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private String write(final Object value) {
+		try {
+			return this.objectMapper.writeValueAsString(value);
+		}
+		catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not serialize idempotent response", e);
+		}
+	}
+
+	private <T> T read(final String json, final Class<T> type) {
+		try {
+			return this.objectMapper.readValue(json, type);
+		}
+		catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not read stored idempotent response", e);
+		}
+	}
+
+	@Value
+	private static class StoredResponse {
+
+		String requestHash;
+		String body;
+		Instant expiresAt;
+
+		static StoredResponse of(final IdempotencyRecord record) {
+			return new StoredResponse(record.getRequestHash(), record.getResponseBody(), record.getExpiresAt());
+		}
+
+		boolean isExpired(final Instant now) {
+			return this.expiresAt.isBefore(now);
+		}
+
+	}
+
+
+
+}
+
+
+
+
+
+
+
+
+
+
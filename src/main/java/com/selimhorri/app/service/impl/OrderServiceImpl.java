@@ -1,24 +1,58 @@
 package com.selimhorri.app.service.impl;
 
+import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import javax.transaction.Transactional;
-
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.selimhorri.app.cache.HotOrderCache;
+import com.selimhorri.app.config.order.OrderProperties;
 import com.selimhorri.app.domain.Cart;
 import com.selimhorri.app.domain.Order;
+import com.selimhorri.app.domain.enums.OrderEventType;
 import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.BulkStatusUpdateDto;
+import com.selimhorri.app.dto.OrderDailySummaryDto;
 import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.response.BulkStatusUpdateResponse;
+import com.selimhorri.app.event.OrderEvent;
+import com.selimhorri.app.event.OrderEventPublisher;
+import com.selimhorri.app.event.bus.ChangeEvent;
+import com.selimhorri.app.event.bus.ChangeEventBus;
 import com.selimhorri.app.exception.wrapper.CartNotFoundException;
 import com.selimhorri.app.exception.wrapper.OrderNotFoundException;
+import com.selimhorri.app.exception.wrapper.OrderStatusConflictException;
+import com.selimhorri.app.exception.wrapper.VersionMismatchException;
+import com.selimhorri.app.helper.CentsHelper;
 import com.selimhorri.app.helper.OrderMappingHelper;
+import com.selimhorri.app.readmodel.OrderReadModel;
 import com.selimhorri.app.repository.CartRepository;
+import com.selimhorri.app.repository.OrderDailySummaryRepository;
 import com.selimhorri.app.repository.OrderRepository;
 import com.selimhorri.app.service.OrderService;
+import com.selimhorri.app.shard.Shards;
+import com.selimhorri.app.statemachine.StateMachine;
+import com.selimhorri.app.summary.OrderStatistics;
+import com.selimhorri.app.summary.OrderSummaryRecorder;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,12 +63,36 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
+        private static final Comparator<Order> ORDER_DATE_ORDER = Comparator.comparing(Order::getOrderDate)
+                        .thenComparing(Order::getOrderId);
+        private static final Comparator<OrderDailySummaryDto> SUMMARY_ORDER = Comparator
+                        .comparing(OrderDailySummaryDto::getDate)
+                        .thenComparing(summary -> summary.getOrderStatus().name());
+
         private final OrderRepository orderRepository;
         private final CartRepository cartRepository;
+        private final TransactionTemplate transactionTemplate;
+        private final OrderProperties orderProperties;
+        private final StateMachine<OrderStatus, Long> orderStateMachine;
+        private final OrderEventPublisher orderEventPublisher;
+        private final ChangeEventBus changeEventBus;
+        private final OrderReadModel orderReadModel;
+        private final HotOrderCache hotOrderCache;
+        private final OrderSummaryRecorder orderSummaryRecorder;
+        private final OrderDailySummaryRepository orderDailySummaryRepository;
+        private final OrderStatistics orderStatistics;
+        private final Shards shards;
 
+        // Reads run without a transaction of their own: one served by the read model never touches the database.
+        // Read-only, so a replica serves them when there is one
         @Override
+        @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
         public List<OrderDto> findAll() {
                 log.info("*** OrderDto List, service; fetch all active orders *");
+                if (this.orderReadModel.isWarm())
+                        return this.orderReadModel.findAll(null, null);
+                if (this.shards.isSharded())
+                        return this.findAllAcrossShards(null);
                 return this.orderRepository.findAllByIsActiveTrue()
                                 .stream()
                                 .map(OrderMappingHelper::map)
@@ -43,9 +101,98 @@ public class OrderServiceImpl implements OrderService {
         }
 
         @Override
-        public OrderDto findById(final Integer orderId) {
+        @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+        public List<OrderDto> findAll(final Integer cartId, final OrderStatus status) {
+                log.info("*** OrderDto List, service; fetch active orders by cart and status *");
+                if (this.orderReadModel.isWarm())
+                        return this.orderReadModel.findAll(cartId, status);
+                if (cartId == null && this.shards.isSharded())
+                        return this.findAllAcrossShards(status);
+                // The orders of a cart live on the cart's shard
+                return this.shards.on(cartId == null ? 0 : this.shards.ofId(cartId),
+                                () -> this.orderRepository.findAllActive(cartId, status))
+                                .stream()
+                                .map(OrderMappingHelper::map)
+                                .distinct()
+                                .collect(Collectors.toUnmodifiableList());
+        }
+
+        // Scatter-gather: each shard is read in keyset pages by order id and the shards merged in id order
+        private List<OrderDto> findAllAcrossShards(final OrderStatus status) {
+                return this.shards.scanAll((after, limit) -> this.orderRepository.findActivePage(status, after,
+                                PageRequest.of(0, limit)), Order::getOrderId)
+                                .stream()
+                                .map(OrderMappingHelper::map)
+                                .distinct()
+                                .collect(Collectors.toUnmodifiableList());
+        }
+
+        // Always from the database: the read model has no date index, the orders table does
+        @Override
+        @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+        public List<OrderDto> findAllByOrderDate(final LocalDate from, final LocalDate to, final OrderStatus status) {
+                log.info("*** OrderDto List, service; fetch active orders by order date *");
+                this.validateDateRange(from, to);
+                return Shards.merge(this.shards.scatter(shard -> this.orderRepository.findAllActiveByOrderDate(
+                                from.atStartOfDay(), to.plusDays(1).atStartOfDay(), status)), ORDER_DATE_ORDER)
+                                .stream()
+                                .map(OrderMappingHelper::map)
+                                .collect(Collectors.toUnmodifiableList());
+        }
+
+        // One row per day and status, kept current by every write, instead of aggregating the orders
+        @Override
+        @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+        public List<OrderDailySummaryDto> findDailySummaries(final LocalDate from, final LocalDate to,
+                        final OrderStatus status) {
+                log.info("*** OrderDailySummaryDto List, service; fetch order summaries by day *");
+                this.validateDateRange(from, to);
+                final List<List<OrderDailySummaryDto>> shardSummaries = this.shards.scatter(shard -> this.orderDailySummaryRepository
+                                .findRange(from, to, status)
+                                .stream()
+                                .map(summary -> OrderDailySummaryDto.builder()
+                                                .date(summary.getSummaryDate())
+                                                .orderStatus(summary.getStatus())
+                                                .orderCount(summary.getOrderCount())
+                                                .totalFee(summary.getTotalFee())
+                                                .build())
+                                .collect(Collectors.toUnmodifiableList()));
+                return shardSummaries.size() == 1 ? shardSummaries.get(0) : sumByDayAndStatus(shardSummaries);
+        }
+
+        private static List<OrderDailySummaryDto> sumByDayAndStatus(final List<List<OrderDailySummaryDto>> shardSummaries) {
+                final Map<OrderDailySummaryDto, OrderDailySummaryDto> sums = new TreeMap<>(SUMMARY_ORDER);
+                shardSummaries.forEach(summaries -> summaries.forEach(summary -> sums.merge(summary, summary,
+                                (a, b) -> OrderDailySummaryDto.builder()
+                                                .date(a.getDate())
+                                                .orderStatus(a.getOrderStatus())
+                                                .orderCount(a.getOrderCount() + b.getOrderCount())
+                                                .totalFee(a.getTotalFee().add(b.getTotalFee()))
+                                                .build())));
+                return List.copyOf(sums.values());
+        }
+
+        private void validateDateRange(final LocalDate from, final LocalDate to) {
+                if (from == null || to == null)
+                        throw new IllegalArgumentException("Both from and to are required for an order date range");
+                if (to.isBefore(from))
+                        throw new IllegalArgumentException(String.format("Order date range ends (%s) before it starts (%s)", to, from));
+                final int maxDays = this.orderProperties.getDateRange().getMaxDays();
+                if (ChronoUnit.DAYS.between(from, to) >= maxDays)
+                        throw new IllegalArgumentException(String.format("Order date range may span at most %d days", maxDays));
+        }
+
+        @Override
+        @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+        public OrderDto findById(final Long orderId) {
                 log.info("*** OrderDto, service; fetch active order by id *");
-                return this.orderRepository.findByOrderIdAndIsActiveTrue(orderId)
+                if (this.orderReadModel.isWarm()) {
+                        final OrderDto orderDto = this.orderReadModel.findById(orderId);
+                        // A miss may be an order created an instant ago, so it is checked in the database
+                        if (orderDto != null)
+                                return orderDto;
+                }
+                return this.shards.on(this.shards.ofOrder(orderId), () -> this.orderRepository.findByOrderIdAndIsActiveTrue(orderId))
                                 .map(OrderMappingHelper::map)
                                 .orElseThrow(() -> new OrderNotFoundException(
                                                 String.format("Order with id: %d not found", orderId)));
@@ -61,6 +208,8 @@ public class OrderServiceImpl implements OrderService {
                         log.error("Order must be associated with a cart");
                         throw new IllegalArgumentException("Order must be associated with a cart");
                 }
+                // The order goes to its cart's shard, and its generated id carries that shard
+                this.shards.bind(this.shards.ofId(orderDto.getCartDto().getCartId()));
 
                 // Check if cart exists and get the full Cart entity
                 Cart cart = cartRepository.findById(orderDto.getCartDto().getCartId())
@@ -76,7 +225,7 @@ public class OrderServiceImpl implements OrderService {
                                 .orderId(null)
                                 .orderDate(LocalDateTime.now())
                                 .orderDesc(orderDto.getOrderDesc())
-                                .orderFee(orderDto.getOrderFee())
+                                .orderFeeCents(orderDto.getOrderFeeCents())
                                 .isActive(true)
                                 .status(OrderStatus.CREATED)
                                 .cart(cart)  // Use the loaded Cart entity
@@ -87,43 +236,68 @@ public class OrderServiceImpl implements OrderService {
                         newOrder.setCreatedAt(Instant.now());
                 }
                 
-                return OrderMappingHelper.map(this.orderRepository.save(newOrder));
+                final Order savedOrder = this.orderRepository.save(newOrder);
+                this.orderSummaryRecorder.record(OrderSummaryRecorder.Change.added(
+                                savedOrder.getOrderDate(), savedOrder.getStatus(), savedOrder.getOrderFeeCents()));
+                this.orderStatistics.createdAfterCommit();
+                this.publish(OrderEvent.builder()
+                                .eventType(OrderEventType.ORDER_CREATED)
+                                .orderId(savedOrder.getOrderId())
+                                .cartId(cart.getCartId())
+                                .orderStatus(savedOrder.getStatus())
+                                .version(savedOrder.getVersion())
+                                .occurredAt(newOrder.getCreatedAt().toEpochMilli())
+                                .build(), OrderMappingHelper.map(savedOrder));
+                return OrderMappingHelper.map(savedOrder);
         }
 
         @Override
-        public OrderDto updateStatus(final int orderId) {
+        public OrderDto updateStatus(final long orderId) {
                 log.info("*** OrderDto, service; update order status *");
                 try {
+                        this.shards.bind(this.shards.ofOrder(orderId));
                         Order existingOrder = this.orderRepository
                                         .findByOrderIdAndIsActiveTrue(orderId)
                                         .orElseThrow(() -> new OrderNotFoundException(
                                                         "Order not found with ID: " + orderId));
 
-                        // Actualizar al siguiente estado según la secuencia (Java 8+ compatible)
-                        OrderStatus newStatus;
-                        switch (existingOrder.getStatus()) {
-                                case CREATED:
-                                        newStatus = OrderStatus.ORDERED;
-                                        break;
-                                case ORDERED:
-                                        newStatus = OrderStatus.IN_PAYMENT;
-                                        break;
-                                case IN_PAYMENT:
-                                        throw new IllegalStateException(
-                                                        "Order with ID " + orderId
-                                                                        + " is already PAID and cannot be updated further");
-                                default:
-                                        throw new IllegalStateException(
-                                                        "Unknown order status: " + existingOrder.getStatus());
+                        OrderStatus newStatus = this.orderStateMachine.next(existingOrder.getStatus());
+                        if (newStatus == null) {
+                                throw new IllegalStateException(
+                                                "Order with ID " + orderId
+                                                                + " is already PAID and cannot be updated further");
                         }
+                        this.orderStateMachine.validate(existingOrder.getStatus(), newStatus, orderId);
 
-                        existingOrder.setStatus(newStatus);
-                        Order updatedOrder = this.orderRepository.save(existingOrder);
+                        // Conditional UPDATE on the status read above instead of saving the whole row:
+                        // of two concurrent PATCHes from the same status only one matches
+                        final Instant now = Instant.now();
+                        int updated = this.orderRepository.transitionStatus(
+                                        orderId, existingOrder.getStatus(), newStatus, now);
+                        if (updated == 0) {
+                                throw new OrderStatusConflictException(String.format(
+                                                "Order with id: %d is no longer %s", orderId, existingOrder.getStatus()));
+                        }
+                        this.hotOrderCache.invalidate(orderId, existingOrder.getVersion() + 1);
+                        this.orderSummaryRecorder.recordAll(List.of(
+                                        OrderSummaryRecorder.Change.removed(existingOrder.getOrderDate(), existingOrder.getStatus(),
+                                                        existingOrder.getOrderFeeCents()),
+                                        OrderSummaryRecorder.Change.added(existingOrder.getOrderDate(), newStatus,
+                                                        existingOrder.getOrderFeeCents())));
+                        this.publish(OrderEvent.builder()
+                                        .eventType(OrderEventType.ORDER_STATUS_CHANGED)
+                                        .orderId(orderId)
+                                        .cartId(existingOrder.getCart() == null ? null : existingOrder.getCart().getCartId())
+                                        .orderStatus(newStatus)
+                                        .previousStatus(existingOrder.getStatus())
+                                        .version(existingOrder.getVersion() + 1)
+                                        .occurredAt(now.toEpochMilli())
+                                        .build(), snapshot(existingOrder, newStatus, existingOrder.getVersion() + 1));
 
                         log.info("Order status updated successfully from {} to {}",
                                         existingOrder.getStatus(), newStatus);
 
-                        return OrderMappingHelper.map(updatedOrder);
+                        return snapshot(existingOrder, newStatus, existingOrder.getVersion() + 1);
 
                 } catch (Exception e) {
                         log.error("Error during order status update: ", e);
@@ -131,23 +305,172 @@ public class OrderServiceImpl implements OrderService {
                 }
         }
 
+        // Not one transaction for the whole request: each chunk commits on its own
         @Override
-        public OrderDto update(final Integer orderId, final OrderDto orderDto) {
+        @Transactional(propagation = Propagation.SUPPORTS)
+        public BulkStatusUpdateResponse updateStatuses(final BulkStatusUpdateDto bulkStatusUpdateDto) {
+                log.info("*** BulkStatusUpdateResponse, service; update status of many orders *");
+                final OrderStatus from = bulkStatusUpdateDto.getFromStatus();
+                final OrderStatus to = bulkStatusUpdateDto.getToStatus();
+                if (from == null || to == null || !this.orderStateMachine.canTransition(from, to)) {
+                        throw new IllegalArgumentException(
+                                        String.format("Orders cannot be moved from %s to %s", from, to));
+                }
+                final var bulkStatus = this.orderProperties.getBulkStatus();
+                if (bulkStatusUpdateDto.getOrderIds().size() > bulkStatus.getMaxOrderIds()) {
+                        throw new IllegalArgumentException(String.format(
+                                        "At most %d orders can be updated at once", bulkStatus.getMaxOrderIds()));
+                }
+
+                // Sorted by shard, so the ids of a shard are next to each other and a chunk stays on one,
+                // then by id, so that concurrent bulk requests lock rows in the same order
+                final List<Long> orderIds = bulkStatusUpdateDto.getOrderIds().stream()
+                                .filter(Objects::nonNull)
+                                .sorted(Comparator.comparingInt((Long id) -> this.shards.ofOrder(id))
+                                                .thenComparing(Comparator.naturalOrder()))
+                                .collect(Collectors.toList());
+                final List<BulkStatusUpdateResponse.Result> results = new ArrayList<>(orderIds.size());
+                int start = 0;
+                while (start < orderIds.size()) {
+                        final int shard = this.shards.ofOrder(orderIds.get(start));
+                        int end = start + 1;
+                        while (end < orderIds.size() && end - start < bulkStatus.getChunkSize()
+                                        && this.shards.ofOrder(orderIds.get(end)) == shard)
+                                end++;
+                        final var chunk = orderIds.subList(start, end);
+                        results.addAll(this.shards.on(shard,
+                                        () -> this.transactionTemplate.execute(tx -> this.updateStatusChunk(chunk, from, to))));
+                        start = end;
+                }
+
+                final int updated = (int) results.stream()
+                                .filter(r -> r.getOutcome() == BulkStatusUpdateResponse.Outcome.UPDATED)
+                                .count();
+                log.info("Moved {} of {} orders from {} to {}", updated, orderIds.size(), from, to);
+                return BulkStatusUpdateResponse.builder()
+                                .updated(updated)
+                                .results(results)
+                                .build();
+        }
+
+        private List<BulkStatusUpdateResponse.Result> updateStatusChunk(final List<Long> orderIds,
+                        final OrderStatus from, final OrderStatus to) {
+                final Map<Long, OrderStatus> currentStatuses = new HashMap<>();
+                final Map<Long, Long> currentVersions = new HashMap<>();
+                final Map<Long, LocalDateTime> orderDates = new HashMap<>();
+                final Map<Long, Long> orderFees = new HashMap<>();
+                for (Object[] row : this.orderRepository.lockActiveStatuses(orderIds)) {
+                        final Long orderId = ((Number) row[0]).longValue();
+                        currentStatuses.put(orderId, OrderStatus.valueOf(row[1].toString()));
+                        currentVersions.put(orderId, ((Number) row[2]).longValue());
+                        orderDates.put(orderId, row[3] == null ? null : ((Timestamp) row[3]).toLocalDateTime());
+                        orderFees.put(orderId, row[4] == null ? null : CentsHelper.toCents((BigDecimal) row[4]));
+                }
+
+                final List<Long> eligible = orderIds.stream()
+                                .filter(id -> currentStatuses.get(id) == from
+                                                && this.orderStateMachine.permits(from, to, id))
+                                .collect(Collectors.toList());
+                if (!eligible.isEmpty()) {
+                        final Instant now = Instant.now();
+                        int updated = this.orderRepository.transitionStatuses(eligible, from, to, now);
+                        // The rows are locked, so anything else means the chunk must not commit
+                        if (updated != eligible.size()) {
+                                throw new OrderStatusConflictException(String.format(
+                                                "Expected to move %d orders from %s but moved %d", eligible.size(), from, updated));
+                        }
+                        eligible.forEach(id -> this.hotOrderCache.invalidate(id, currentVersions.get(id) + 1));
+                        this.orderSummaryRecorder.recordAll(eligible.stream()
+                                        .flatMap(id -> Stream.of(
+                                                        OrderSummaryRecorder.Change.removed(orderDates.get(id), from, orderFees.get(id)),
+                                                        OrderSummaryRecorder.Change.added(orderDates.get(id), to, orderFees.get(id))))
+                                        .collect(Collectors.toList()));
+                        final List<OrderEvent> events = eligible.stream()
+                                        .map(id -> OrderEvent.builder()
+                                                        .eventType(OrderEventType.ORDER_STATUS_CHANGED)
+                                                        .orderId(id)
+                                                        .orderStatus(to)
+                                                        .previousStatus(from)
+                                                        .version(currentVersions.get(id) + 1)
+                                                        .occurredAt(now.toEpochMilli())
+                                                        .build())
+                                        .collect(Collectors.toList());
+                        this.orderEventPublisher.publishAll(events);
+                        this.changeEventBus.publishAllAfterCommit(events.stream()
+                                        .map(event -> changeOf(event, null))
+                                        .collect(Collectors.toList()));
+                }
+
+                final Set<Long> moved = new HashSet<>(eligible);
+                return orderIds.stream()
+                                .map(id -> {
+                                        final OrderStatus current = currentStatuses.get(id);
+                                        if (current == null) {
+                                                return BulkStatusUpdateResponse.Result.builder()
+                                                                .orderId(id)
+                                                                .outcome(BulkStatusUpdateResponse.Outcome.NOT_FOUND)
+                                                                .build();
+                                        }
+                                        if (moved.contains(id)) {
+                                                return BulkStatusUpdateResponse.Result.builder()
+                                                                .orderId(id)
+                                                                .outcome(BulkStatusUpdateResponse.Outcome.UPDATED)
+                                                                .orderStatus(to)
+                                                                .build();
+                                        }
+                                        return BulkStatusUpdateResponse.Result.builder()
+                                                        .orderId(id)
+                                                        .outcome(current == from
+                                                                        ? BulkStatusUpdateResponse.Outcome.REJECTED
+                                                                        : BulkStatusUpdateResponse.Outcome.CONFLICT)
+                                                        .orderStatus(current)
+                                                        .build();
+                                })
+                                .collect(Collectors.toList());
+        }
+
+        @Override
+        public OrderDto update(final Long orderId, final OrderDto orderDto) {
                 log.info("*** OrderDto, service; update order with orderId *");
                 orderDto.setOrderStatus(null);
+                this.shards.bind(this.shards.ofOrder(orderId));
                 // Get existing order to preserve cart association
                 Order existingOrder = this.orderRepository.findByOrderIdAndIsActiveTrue(orderId)
                                 .orElseThrow(() -> new OrderNotFoundException("Order not found with ID: " + orderId));
+                // Optimistic locking: the caller's version (If-Match or body) must still be current;
+                // without one the update applies to whatever version was just read
+                if (orderDto.getVersion() != null && !orderDto.getVersion().equals(existingOrder.getVersion())) {
+                        throw new VersionMismatchException(String.format(
+                                        "Order with id: %d is at version %d, not %d",
+                                        orderId, existingOrder.getVersion(), orderDto.getVersion()));
+                }
+                orderDto.setVersion(existingOrder.getVersion());
                 orderDto.setOrderId(orderId);
+                // Read before the save, which merges the new state into existingOrder
+                final Long previousFee = existingOrder.getOrderFeeCents();
                 // Map the updates but preserve the cart from existing order
                 orderDto.setOrderStatus(existingOrder.getStatus());
                 Order updatedOrder = OrderMappingHelper.mapForUpdate(orderDto, existingOrder.getCart());
                 updatedOrder.setOrderDate(existingOrder.getOrderDate());
-                return OrderMappingHelper.map(this.orderRepository.save(updatedOrder));
+                // Flushed here so a concurrent writer surfaces as a conflict and the response carries the new version
+                final Order savedOrder = this.orderRepository.saveAndFlush(updatedOrder);
+                this.hotOrderCache.invalidate(orderId, savedOrder.getVersion() == null ? 0 : savedOrder.getVersion());
+                this.orderSummaryRecorder.record(OrderSummaryRecorder.Change.feeChanged(
+                                savedOrder.getOrderDate(), savedOrder.getStatus(), previousFee, savedOrder.getOrderFeeCents()));
+                this.changeEventBus.publishAfterCommit(ChangeEvent.builder()
+                                .type(ChangeEvent.Type.ORDER_UPDATED)
+                                .entityId(orderId)
+                                .cartId(existingOrder.getCart() == null ? null : existingOrder.getCart().getCartId())
+                                .toStatus(savedOrder.getStatus())
+                                .version(savedOrder.getVersion())
+                                .order(OrderMappingHelper.map(savedOrder))
+                                .build());
+                return OrderMappingHelper.map(savedOrder);
         }
 
         @Override
-        public void deleteById(final Integer orderId) {
+        public void deleteById(final Long orderId) {
+                this.shards.bind(this.shards.ofOrder(orderId));
                 Order order = orderRepository.findByOrderIdAndIsActiveTrue(orderId)
                                 .orElseThrow(() -> new OrderNotFoundException("Order not found with id: " + orderId));
 
@@ -158,7 +481,49 @@ public class OrderServiceImpl implements OrderService {
                 }
 
                 order.setActive(false);
+                // The archiver goes by how long the order has been inactive
+                order.setUpdatedAt(Instant.now());
                 orderRepository.save(order);
+                this.orderSummaryRecorder.record(OrderSummaryRecorder.Change.removed(
+                                order.getOrderDate(), order.getStatus(), order.getOrderFeeCents()));
+                this.hotOrderCache.invalidate(orderId, order.getVersion() == null ? 0 : order.getVersion() + 1);
+                this.publish(OrderEvent.builder()
+                                .eventType(OrderEventType.ORDER_DEACTIVATED)
+                                .orderId(orderId)
+                                .cartId(order.getCart() == null ? null : order.getCart().getCartId())
+                                .orderStatus(order.getStatus())
+                                // Bumped when the deactivation is flushed at commit
+                                .version(order.getVersion() == null ? null : order.getVersion() + 1)
+                                .occurredAt(System.currentTimeMillis())
+                                .build(), null);
                 log.info("Order with id {} has been deactivated", orderId);
         }
+
+        // The outbox event goes to other services, its bus counterpart to the consumers in this instance
+        private void publish(final OrderEvent event, final OrderDto order) {
+                this.orderEventPublisher.publish(event);
+                this.changeEventBus.publishAfterCommit(changeOf(event, order));
+        }
+
+        private static ChangeEvent changeOf(final OrderEvent event, final OrderDto order) {
+                // A deactivated order leaves its status, it does not move to another one
+                final boolean deactivated = event.getEventType() == OrderEventType.ORDER_DEACTIVATED;
+                return ChangeEvent.builder()
+                                .type(ChangeEvent.Type.valueOf(event.getEventType().name()))
+                                .entityId(event.getOrderId())
+                                .cartId(event.getCartId())
+                                .fromStatus(deactivated ? event.getOrderStatus() : event.getPreviousStatus())
+                                .toStatus(deactivated ? null : event.getOrderStatus())
+                                .version(event.getVersion())
+                                .order(order)
+                                .build();
+        }
+
+        // The status update bypasses the entity, so the loaded order is patched in its mapped copy
+        private static OrderDto snapshot(final Order order, final OrderStatus status, final Long version) {
+                final OrderDto orderDto = OrderMappingHelper.map(order);
+                orderDto.setOrderStatus(status);
+                orderDto.setVersion(version);
+                return orderDto;
+        }
 }
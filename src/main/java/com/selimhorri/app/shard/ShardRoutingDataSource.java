@@ -0,0 +1,44 @@
+package com.selimhorri.app.shard;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections of the shard {@link Shards} has set for the current thread, of shard 0
+ * when none is set. Wrap it in a {@code LazyConnectionDataSourceProxy}, so that a transaction
+ * takes its connection at its first statement, after the service has picked the shard.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+	public ShardRoutingDataSource(final List<DataSource> shards) {
+		final Map<Object, Object> targets = new HashMap<>();
+		for (int shard = 0; shard < shards.size(); shard++)
+			targets.put(shard, shards.get(shard));
+		this.setTargetDataSources(targets);
+		this.setDefaultTargetDataSource(shards.get(0));
+		// An unknown shard is a bug, not something to quietly serve from shard 0
+		this.setLenientFallback(false);
+		this.afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return Shards.current();
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
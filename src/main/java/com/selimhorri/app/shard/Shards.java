@@ -0,0 +1,309 @@
+package com.selimhorri.app.shard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.selimhorri.app.id.OrderIdGenerator;
+
+/**
+ * Where carts and orders live when they are spread over several databases, and how work gets to
+ * them.
+ * <p>
+ * Every shard hands out cart ids from its own range of {@code idRange} ids, shard 0 from 1,
+ * shard 1 from {@code idRange + 1} and so on, so the shard of a cart is read off its id. A new
+ * cart is placed by the hash of its user, and an order lives on the shard of its cart, which its
+ * generated id carries (see {@link OrderIdGenerator}); orders from before the generator have ids
+ * from the same ranges as carts.
+ * <p>
+ * The shard is a thread-local that {@link ShardRoutingDataSource} reads when a connection is
+ * taken. Inside a transaction the service binds it with {@link #bind(int)} before the first
+ * statement; outside one, {@link #on(int, Supplier)} runs work on a shard and {@link #scatter}
+ * runs it on all of them at once.
+ * <p>
+ * Not sharded, there is one shard and every method runs the work as it is, on the calling thread.
+ */
+public class Shards implements AutoCloseable {
+
+	private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+	private final int count;
+	private final int idRange;
+	private final int pageSize;
+	private final ExecutorService scatterExecutor;
+
+	public Shards(final int count, final int idRange, final int pageSize, final ExecutorService scatterExecutor) {
+		if ((long) count * idRange > Integer.MAX_VALUE)
+			throw new IllegalArgumentException(String.format("%d shards of %d ids do not fit in an int id", count, idRange));
+		if (count > OrderIdGenerator.MAX_SHARDS)
+			throw new IllegalArgumentException(String.format("Order ids hold at most %d shards, not %d",
+					OrderIdGenerator.MAX_SHARDS, count));
+		this.count = count;
+		this.idRange = idRange;
+		this.pageSize = pageSize;
+		this.scatterExecutor = scatterExecutor;
+	}
+
+	public static Shards single() {
+		return new Shards(1, Integer.MAX_VALUE, Integer.MAX_VALUE, null);
+	}
+
+	static Integer current() {
+		return CURRENT.get();
+	}
+
+	public boolean isSharded() {
+		return this.count > 1;
+	}
+
+	public int getCount() {
+		return this.count;
+	}
+
+	/**
+	 * @return the shard the current transaction is bound to, 0 when none is
+	 */
+	public int bound() {
+		final Integer bound = CURRENT.get();
+		return bound == null ? 0 : bound;
+	}
+
+	/**
+	 * @return the shard holding the cart with this id; an id of no shard's range goes to the first
+	 *         or last shard, which will not find it
+	 */
+	public int ofId(final int id) {
+		return Math.max(0, Math.min(this.count - 1, (id - 1) / this.idRange));
+	}
+
+	/**
+	 * @return the shard holding the order with this id, from its shard bits or, for an order from
+	 *         before generated ids, its range
+	 */
+	public int ofOrder(final long orderId) {
+		if (!OrderIdGenerator.isGenerated(orderId))
+			return this.ofId((int) orderId);
+		return Math.min(this.count - 1, OrderIdGenerator.shardOf(orderId));
+	}
+
+	/**
+	 * @return the shard a new cart of this user goes to
+	 */
+	public int forUser(final Integer userId) {
+		return Math.floorMod(Objects.hashCode(userId), this.count);
+	}
+
+	/**
+	 * First cart id the shard hands out; the ones before belong to the shards before it.
+	 */
+	public int firstId(final int shard) {
+		return shard * this.idRange + 1;
+	}
+
+	/**
+	 * Routes the current transaction to a shard, before its first statement. A transaction stays
+	 * on one shard: binding it to another one fails.
+	 */
+	public void bind(final int shard) {
+		if (!this.isSharded())
+			return;
+		final Integer bound = CURRENT.get();
+		if (bound != null) {
+			if (bound != shard)
+				throw new IllegalStateException(String.format("Work on shard %d cannot join a transaction on shard %d",
+						shard, bound));
+			return;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive())
+			throw new IllegalStateException("Only a transaction is bound to a shard, run other work with on()");
+		CURRENT.set(shard);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(final int status) {
+				CURRENT.remove();
+			}
+		});
+	}
+
+	/**
+	 * Runs work, outside a transaction or in one already on that shard, against one shard.
+	 */
+	public <T> T on(final int shard, final Supplier<T> work) {
+		if (!this.isSharded())
+			return work.get();
+		final Integer previous = CURRENT.get();
+		if (previous != null && previous != shard && TransactionSynchronizationManager.isActualTransactionActive())
+			throw new IllegalStateException(String.format("Work on shard %d cannot join a transaction on shard %d",
+					shard, previous));
+		CURRENT.set(shard);
+		try {
+			return work.get();
+		}
+		finally {
+			if (previous == null)
+				CURRENT.remove();
+			else
+				CURRENT.set(previous);
+		}
+	}
+
+	/**
+	 * Runs work on each shard in turn, on the calling thread; for background jobs.
+	 */
+	public void forEach(final IntConsumer work) {
+		for (int shard = 0; shard < this.count; shard++) {
+			final int target = shard;
+			this.on(target, () -> {
+				work.accept(target);
+				return null;
+			});
+		}
+	}
+
+	/**
+	 * Runs work on all shards at once, each outside any transaction of the caller.
+	 *
+	 * @return what each shard returned, by shard
+	 */
+	public <T> List<T> scatter(final IntFunction<T> work) {
+		if (!this.isSharded())
+			return List.of(work.apply(0));
+		final List<Future<T>> futures = new ArrayList<>(this.count);
+		for (int shard = 0; shard < this.count; shard++) {
+			final int target = shard;
+			futures.add(this.scatterExecutor.submit(() -> this.on(target, () -> work.apply(target))));
+		}
+		final List<T> results = new ArrayList<>(this.count);
+		try {
+			for (final var future : futures)
+				results.add(future.get());
+		}
+		catch (InterruptedException e) {
+			futures.forEach(future -> future.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the shards", e);
+		}
+		catch (ExecutionException e) {
+			futures.forEach(future -> future.cancel(true));
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+		return results;
+	}
+
+	/**
+	 * Reads every row of a query from all shards at once, each shard walked in keyset pages along
+	 * the long key the query is ordered by, and merges them in key order.
+	 */
+	public <T> List<T> scanAll(final KeysetQuery<T> query, final ToLongFunction<T> key) {
+		if (!this.isSharded())
+			return query.page(0, Integer.MAX_VALUE);
+		return merge(this.scatter(shard -> {
+			final List<T> rows = new ArrayList<>();
+			long after = 0;
+			while (true) {
+				final List<T> page = query.page(after, this.pageSize);
+				rows.addAll(page);
+				if (page.size() < this.pageSize)
+					return rows;
+				after = key.applyAsLong(page.get(page.size() - 1));
+			}
+		}), Comparator.comparingLong(key));
+	}
+
+	/**
+	 * One page of a query ordered by a long key, across all shards: the first {@code limit} rows
+	 * after {@code after}. Pass the key of its last row to get the next page.
+	 */
+	public <T> List<T> page(final KeysetQuery<T> query, final long after, final int limit,
+			final ToLongFunction<T> key) {
+		if (!this.isSharded())
+			return query.page(after, limit);
+		final List<T> merged = merge(this.scatter(shard -> query.page(after, limit)), Comparator.comparingLong(key));
+		return merged.size() <= limit ? merged : List.copyOf(merged.subList(0, limit));
+	}
+
+	/**
+	 * Merges lists that are each sorted into one sorted list.
+	 */
+	public static <T> List<T> merge(final List<List<T>> sorted, final Comparator<? super T> order) {
+		if (sorted.size() == 1)
+			return sorted.get(0);
+		final PriorityQueue<Cursor<T>> heads = new PriorityQueue<>(sorted.size(),
+				(a, b) -> order.compare(a.head(), b.head()));
+		int size = 0;
+		for (final var rows : sorted) {
+			size += rows.size();
+			if (!rows.isEmpty())
+				heads.add(new Cursor<>(rows));
+		}
+		final List<T> merged = new ArrayList<>(size);
+		while (!heads.isEmpty()) {
+			final var cursor = heads.poll();
+			merged.add(cursor.head());
+			if (cursor.advance())
+				heads.add(cursor);
+		}
+		return merged;
+	}
+
+	@Override
+	public void close() {
+		if (this.scatterExecutor != null)
+			this.scatterExecutor.shutdownNow();
+	}
+
+	/**
+	 * A query read in keyset pages: up to {@code limit} rows whose key is greater than
+	 * {@code after}, in key order.
+	 */
+	@FunctionalInterface
+	public interface KeysetQuery<T> {
+
+		List<T> page(long after, int limit);
+
+	}
+
+	private static final class Cursor<T> {
+
+		private final List<T> rows;
+		private int position;
+
+		private Cursor(final List<T> rows) {
+			this.rows = rows;
+		}
+
+		private T head() {
+			return this.rows.get(this.position);
+		}
+
+		private boolean advance() {
+			return ++this.position < this.rows.size();
+		}
+
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,153 @@
+package com.selimhorri.app.statemachine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable transition table over an enum of states.
+ * <p>
+ * Everything is resolved into {@link EnumMap}s when the machine is built, so a lookup is an
+ * array index by ordinal. The first transition declared out of a state is its {@link #next(Enum) next}
+ * state, which lets a linear lifecycle be advanced without the caller naming the target.
+ *
+ * @param <S> state enum
+ * @param <C> context handed to the guards
+ */
+public class StateMachine<S extends Enum<S>, C> {
+
+	private final Map<S, S> next;
+	private final Map<S, Set<S>> targets;
+	private final Map<S, Map<S, List<TransitionGuard<S, C>>>> guards;
+
+	private StateMachine(final Builder<S, C> builder) {
+		this.next = new EnumMap<>(builder.next);
+		this.targets = new EnumMap<>(builder.type);
+		builder.targets.forEach((from, to) -> this.targets.put(from, Collections.unmodifiableSet(EnumSet.copyOf(to))));
+		this.guards = new EnumMap<>(builder.type);
+		builder.guards.forEach((from, byTarget) -> {
+			final Map<S, List<TransitionGuard<S, C>>> copy = new EnumMap<>(builder.type);
+			byTarget.forEach((to, list) -> copy.put(to, List.copyOf(list)));
+			this.guards.put(from, copy);
+		});
+	}
+
+	public static <S extends Enum<S>, C> Builder<S, C> builder(final Class<S> type) {
+		return new Builder<>(type);
+	}
+
+	/**
+	 * Default successor of {@code from}, or null when it is terminal.
+	 */
+	public S next(final S from) {
+		return this.next.get(from);
+	}
+
+	public boolean isTerminal(final S state) {
+		return !this.next.containsKey(state);
+	}
+
+	public Set<S> targets(final S from) {
+		return this.targets.getOrDefault(from, Set.of());
+	}
+
+	/**
+	 * Whether the table declares {@code from -> to}; guards are not consulted.
+	 */
+	public boolean canTransition(final S from, final S to) {
+		return this.targets(from).contains(to);
+	}
+
+	/**
+	 * Whether {@code from -> to} is declared and every guard on it allows it for {@code context}.
+	 */
+	public boolean permits(final S from, final S to, final C context) {
+		if (!this.canTransition(from, to))
+			return false;
+		final var byTarget = this.guards.get(from);
+		if (byTarget == null)
+			return true;
+		for (final var guard : byTarget.getOrDefault(to, List.of())) {
+			if (!guard.allows(from, to, context))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @throws IllegalStateException when the transition is not declared or a guard rejects it
+	 */
+	public void validate(final S from, final S to, final C context) {
+		if (!this.canTransition(from, to))
+			throw new IllegalStateException(String.format("Transition from %s to %s is not allowed", from, to));
+		if (!this.permits(from, to, context))
+			throw new IllegalStateException(String.format("Transition from %s to %s was rejected for %s",
+					from, to, context));
+	}
+
+	public static final class Builder<S extends Enum<S>, C> {
+
+		private final Class<S> type;
+		private final Map<S, S> next;
+		private final Map<S, Set<S>> targets;
+		private final Map<S, Map<S, List<TransitionGuard<S, C>>>> guards;
+		private final List<TransitionGuard<S, C>> globalGuards = new ArrayList<>();
+
+		private Builder(final Class<S> type) {
+			this.type = Objects.requireNonNull(type);
+			this.next = new EnumMap<>(type);
+			this.targets = new EnumMap<>(type);
+			this.guards = new EnumMap<>(type);
+		}
+
+		public Builder<S, C> transition(final S from, final S to) {
+			this.next.putIfAbsent(from, to);
+			this.targets.computeIfAbsent(from, s -> EnumSet.noneOf(this.type)).add(to);
+			return this;
+		}
+
+		public Builder<S, C> guard(final S from, final S to, final TransitionGuard<S, C> guard) {
+			if (!this.targets.getOrDefault(from, Set.of()).contains(to))
+				throw new IllegalArgumentException(String.format(
+						"Cannot guard undeclared transition from %s to %s", from, to));
+			this.guards.computeIfAbsent(from, s -> new EnumMap<>(this.type))
+					.computeIfAbsent(to, s -> new ArrayList<>())
+					.add(Objects.requireNonNull(guard));
+			return this;
+		}
+
+		/**
+		 * Guard consulted on every transition, whenever it is declared.
+		 */
+		public Builder<S, C> guard(final TransitionGuard<S, C> guard) {
+			this.globalGuards.add(Objects.requireNonNull(guard));
+			return this;
+		}
+
+		public StateMachine<S, C> build() {
+			if (!this.globalGuards.isEmpty()) {
+				this.targets.forEach((from, to) -> to.forEach(target -> this.globalGuards
+						.forEach(guard -> this.guard(from, target, guard))));
+				this.globalGuards.clear();
+			}
+			return new StateMachine<>(this);
+		}
+
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,24 @@
+package com.selimhorri.app.statemachine;
+
+/**
+ * Veto hook consulted before a declared transition is taken.
+ *
+ * @param <S> state enum
+ * @param <C> whatever the caller passes to identify the subject, e.g. an order id
+ */
+@FunctionalInterface
+public interface TransitionGuard<S extends Enum<S>, C> {
+
+	boolean allows(S from, S to, C context);
+
+}
+
+
+
+
+
+
+
+
+
+
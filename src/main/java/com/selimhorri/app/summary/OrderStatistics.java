@@ -0,0 +1,159 @@
+package com.selimhorri.app.summary;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.helper.CentsHelper;
+import com.selimhorri.app.shard.Shards;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Live count and total fee of the active orders per status, and the number of orders created, as
+ * {@code orders.active}, {@code orders.active.fee} and {@code orders.created}. A scrape reads a few
+ * {@link LongAdder}s instead of counting the orders table.
+ * <p>
+ * Seeded by one aggregate query on start, before the web server takes requests, then moved by the
+ * changes {@link OrderSummaryRecorder} writes, once their transaction commits. Fees are kept in
+ * cents, so the sums stay exact.
+ */
+@Slf4j
+public class OrderStatistics implements SmartLifecycle {
+
+	static final String SEED_SQL = "SELECT status, COUNT(*), COALESCE(SUM(order_fee), 0) FROM orders "
+			+ "WHERE is_active = TRUE GROUP BY status";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final Shards shards;
+	private final Map<OrderStatus, LongAdder> activeOrders = new EnumMap<>(OrderStatus.class);
+	private final Map<OrderStatus, LongAdder> activeFeeCents = new EnumMap<>(OrderStatus.class);
+	private final LongAdder created = new LongAdder();
+
+	private volatile boolean running;
+
+	public OrderStatistics(final JdbcTemplate jdbcTemplate, final Shards shards, final MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.shards = shards;
+		for (final var status : OrderStatus.values()) {
+			final var orders = new LongAdder();
+			final var feeCents = new LongAdder();
+			this.activeOrders.put(status, orders);
+			this.activeFeeCents.put(status, feeCents);
+			Gauge.builder("orders.active", orders, LongAdder::sum)
+					.description("Active orders")
+					.tag("status", status.name())
+					.register(meterRegistry);
+			Gauge.builder("orders.active.fee", feeCents, cents -> cents.sum() / 100.0)
+					.description("Total fee of the active orders")
+					.tag("status", status.name())
+					.register(meterRegistry);
+		}
+		FunctionCounter.builder("orders.created", this.created, LongAdder::sum)
+				.description("Orders created since start")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Applies the changes once the current transaction commits, or right away when there is none.
+	 */
+	public void applyAfterCommit(final List<OrderSummaryRecorder.Change> changes) {
+		this.afterCommit(() -> changes.forEach(this::apply));
+	}
+
+	public void createdAfterCommit() {
+		this.afterCommit(this.created::increment);
+	}
+
+	private void apply(final OrderSummaryRecorder.Change change) {
+		this.activeOrders.get(change.getStatus()).add(change.getOrderCount());
+		this.activeFeeCents.get(change.getStatus()).add(change.getTotalFeeCents());
+	}
+
+	private void afterCommit(final Runnable update) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			update.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				update.run();
+			}
+		});
+	}
+
+	/**
+	 * Replaces the counts and fees with what the orders tables of all shards hold now.
+	 */
+	public void seed() {
+		this.activeOrders.values().forEach(LongAdder::reset);
+		this.activeFeeCents.values().forEach(LongAdder::reset);
+		this.shards.forEach(shard -> this.jdbcTemplate.query(SEED_SQL, (RowCallbackHandler) (ResultSet rs) -> {
+			final var status = OrderStatus.valueOf(rs.getString(1));
+			this.activeOrders.get(status).add(rs.getLong(2));
+			this.activeFeeCents.get(status).add(CentsHelper.toCents(rs.getBigDecimal(3)));
+		}));
+		log.info("Order statistics seeded with {} active orders", this.activeOrders.values().stream()
+				.mapToLong(LongAdder::sum)
+				.sum());
+	}
+
+	public long getActiveOrders(final OrderStatus status) {
+		return this.activeOrders.get(status).sum();
+	}
+
+	public BigDecimal getActiveFee(final OrderStatus status) {
+		return CentsHelper.toDecimal(this.activeFeeCents.get(status).sum());
+	}
+
+	public long getCreated() {
+		return this.created.sum();
+	}
+
+	@Override
+	public void start() {
+		this.seed();
+		this.running = true;
+	}
+
+	@Override
+	public void stop() {
+		this.running = false;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	// Seeded before the web server starts taking the requests that move the counts
+	@Override
+	public int getPhase() {
+		return 0;
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,25 @@
+package com.selimhorri.app.summary;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Lets operators backfill {@code order_daily_summary}, e.g. after orders were changed in the
+ * database directly: {@code POST /actuator/ordersummary}.
+ */
+@Endpoint(id = "ordersummary")
+@RequiredArgsConstructor
+public class OrderSummaryEndpoint {
+
+	private final OrderSummaryRecorder orderSummaryRecorder;
+
+	@WriteOperation
+	public Map<String, Integer> rebuild() {
+		return Map.of("rows", this.orderSummaryRecorder.rebuild());
+	}
+
+}
@@ -0,0 +1,200 @@
+package com.selimhorri.app.summary;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.selimhorri.app.config.sql.DatabaseVendor;
+import com.selimhorri.app.config.sql.SqlRequestStatistics;
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.helper.CentsHelper;
+import com.selimhorri.app.shard.Shards;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps {@code order_daily_summary} in step with the active orders by adding the difference each
+ * write makes to its day and status, in the transaction of the write, so a dashboard reads one row
+ * per day and status instead of aggregating the orders.
+ * <p>
+ * Orders without an order date belong to no day and are left out.
+ * <p>
+ * The changes of one call are folded per row and applied as one JDBC batch, in key order, so that
+ * concurrent writers lock summary rows in the same order. They are also handed to the in-memory
+ * {@link OrderStatistics}, which apply them on commit.
+ */
+@Component
+@Slf4j
+public class OrderSummaryRecorder {
+
+	static final String MYSQL_UPSERT_SQL = "INSERT INTO order_daily_summary (summary_date, status, order_count, total_fee) "
+			+ "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+			+ "order_count = order_count + VALUES(order_count), total_fee = total_fee + VALUES(total_fee)";
+	// Standard MERGE, also understood by H2
+	static final String MERGE_UPSERT_SQL = "MERGE INTO order_daily_summary s "
+			+ "USING (SELECT CAST(? AS DATE) summary_date, CAST(? AS VARCHAR(20)) status, "
+			+ "CAST(? AS BIGINT) order_count, CAST(? AS DECIMAL(19, 2)) total_fee) d "
+			+ "ON s.summary_date = d.summary_date AND s.status = d.status "
+			+ "WHEN MATCHED THEN UPDATE SET s.order_count = s.order_count + d.order_count, "
+			+ "s.total_fee = s.total_fee + d.total_fee "
+			+ "WHEN NOT MATCHED THEN INSERT (summary_date, status, order_count, total_fee) "
+			+ "VALUES (d.summary_date, d.status, d.order_count, d.total_fee)";
+	private static final String CLEAR_SQL = "DELETE FROM order_daily_summary";
+	private static final String REBUILD_SQL = "INSERT INTO order_daily_summary (summary_date, status, order_count, total_fee) "
+			+ "SELECT CAST(order_date AS DATE), status, COUNT(*), COALESCE(SUM(order_fee), 0) "
+			+ "FROM orders WHERE is_active = TRUE AND order_date IS NOT NULL GROUP BY CAST(order_date AS DATE), status";
+
+	private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::getDate)
+			.thenComparing(Key::getStatus);
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final OrderStatistics orderStatistics;
+	private final Shards shards;
+
+	private volatile String upsertSql;
+
+	public OrderSummaryRecorder(final JdbcTemplate jdbcTemplate, final TransactionTemplate transactionTemplate,
+			final OrderStatistics orderStatistics, final Shards shards) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.orderStatistics = orderStatistics;
+		this.shards = shards;
+	}
+
+	public void record(final Change change) {
+		this.recordAll(List.of(change));
+	}
+
+	public void recordAll(final List<Change> changes) {
+		if (changes.isEmpty())
+			return;
+		if (!TransactionSynchronizationManager.isActualTransactionActive())
+			throw new IllegalStateException("Order summary changes must be written in the transaction that changes the order");
+		this.orderStatistics.applyAfterCommit(changes);
+		final Map<Key, Change> folded = new TreeMap<>(KEY_ORDER);
+		for (final var change : changes) {
+			if (change.getDate() != null)
+				folded.merge(change.key(), change, Change::plus);
+		}
+		final List<Change> rows = new ArrayList<>(folded.size());
+		folded.values().stream()
+				.filter(change -> change.getOrderCount() != 0 || change.getTotalFeeCents() != 0)
+				.forEach(rows::add);
+		if (rows.isEmpty())
+			return;
+		this.jdbcTemplate.batchUpdate(this.upsertSql(), rows, rows.size(), (ps, row) -> {
+			ps.setDate(1, Date.valueOf(row.getDate()));
+			ps.setString(2, row.getStatus().name());
+			ps.setLong(3, row.getOrderCount());
+			ps.setBigDecimal(4, CentsHelper.toDecimal(row.getTotalFeeCents()));
+		});
+		SqlRequestStatistics.recordStatement();
+	}
+
+	/**
+	 * Recomputes the whole table from the active orders, shard by shard, for a backfill or after
+	 * a bulk change made outside the service. It reads every order, so run it off-peak; a write
+	 * racing it may deadlock with it, in which case one of them is rolled back and can be retried.
+	 *
+	 * @return the number of summary rows written
+	 */
+	public int rebuild() {
+		final int[] rows = {0};
+		this.shards.forEach(shard -> rows[0] += this.transactionTemplate.execute(tx -> {
+			this.jdbcTemplate.update(CLEAR_SQL);
+			return this.jdbcTemplate.update(REBUILD_SQL);
+		}));
+		log.info("Rebuilt the order daily summary, {} rows", rows[0]);
+		return rows[0];
+	}
+
+	private String upsertSql() {
+		if (this.upsertSql == null)
+			this.upsertSql = this.jdbcTemplate.execute((ConnectionCallback<DatabaseVendor>) DatabaseVendor::of)
+					== DatabaseVendor.MYSQL ? MYSQL_UPSERT_SQL : MERGE_UPSERT_SQL;
+		return this.upsertSql;
+	}
+
+	/**
+	 * What a write adds to the summary row of a day and status; negative to take an order away.
+	 */
+	@Value
+	public static class Change {
+
+		LocalDate date;
+
+		OrderStatus status;
+
+		long orderCount;
+
+		long totalFeeCents;
+
+		public static Change added(final LocalDateTime orderDate, final OrderStatus status, final Long orderFeeCents) {
+			return new Change(day(orderDate), status, 1, cents(orderFeeCents));
+		}
+
+		public static Change removed(final LocalDateTime orderDate, final OrderStatus status, final Long orderFeeCents) {
+			return new Change(day(orderDate), status, -1, -cents(orderFeeCents));
+		}
+
+		/**
+		 * The fee of an order that stays in its day and status went from {@code oldFeeCents} to
+		 * {@code newFeeCents}.
+		 */
+		public static Change feeChanged(final LocalDateTime orderDate, final OrderStatus status, final Long oldFeeCents,
+				final Long newFeeCents) {
+			return new Change(day(orderDate), status, 0, cents(newFeeCents) - cents(oldFeeCents));
+		}
+
+		private static LocalDate day(final LocalDateTime orderDate) {
+			return orderDate == null ? null : orderDate.toLocalDate();
+		}
+
+		private Key key() {
+			return new Key(this.date, this.status);
+		}
+
+		private Change plus(final Change other) {
+			return new Change(this.date, this.status, this.orderCount + other.orderCount,
+					Math.addExact(this.totalFeeCents, other.totalFeeCents));
+		}
+
+		private static long cents(final Long orderFeeCents) {
+			return orderFeeCents == null ? 0 : orderFeeCents;
+		}
+
+	}
+
+	@Value
+	private static class Key {
+
+		LocalDate date;
+
+		OrderStatus status;
+
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
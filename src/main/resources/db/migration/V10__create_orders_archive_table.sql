@@ -0,0 +1,17 @@
+CREATE TABLE orders_archive (
+  order_id INT NOT NULL PRIMARY KEY,
+  cart_id INT,
+  order_date TIMESTAMP NULL,
+  order_desc VARCHAR(255),
+  order_fee DECIMAL(7, 2),
+  status VARCHAR(20) NOT NULL,
+  version BIGINT NOT NULL,
+  created_at TIMESTAMP NULL,
+  updated_at TIMESTAMP NULL,
+  archived_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_orders_archive_cart_id ON orders_archive (cart_id, order_id);
+
+-- Lets the archiver walk the inactive orders in id order without scanning the active ones
+CREATE INDEX idx_orders_is_active_order_id ON orders (is_active, order_id);
@@ -0,0 +1,2 @@
+-- Date-range queries for reporting; is_active leads since they only ever read active orders
+CREATE INDEX idx_orders_order_date ON orders (is_active, order_date);
@@ -0,0 +1,14 @@
+CREATE TABLE order_daily_summary (
+  summary_date DATE NOT NULL,
+  status VARCHAR(20) NOT NULL,
+  order_count BIGINT NOT NULL,
+  total_fee DECIMAL(19, 2) NOT NULL,
+  PRIMARY KEY (summary_date, status)
+);
+
+-- Backfill from the active orders; from here on every write keeps it current
+INSERT INTO order_daily_summary (summary_date, status, order_count, total_fee)
+SELECT CAST(order_date AS DATE), status, COUNT(*), COALESCE(SUM(order_fee), 0)
+FROM orders
+WHERE is_active = TRUE AND order_date IS NOT NULL
+GROUP BY CAST(order_date AS DATE), status;
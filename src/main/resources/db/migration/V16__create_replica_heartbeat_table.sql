@@ -0,0 +1,7 @@
+-- Written on the primary and read on a replica to measure its lag, see ReplicaLagMonitor
+CREATE TABLE replica_heartbeat (
+  heartbeat_id INT NOT NULL PRIMARY KEY,
+  beat_millis BIGINT NOT NULL
+);
+
+INSERT INTO replica_heartbeat (heartbeat_id, beat_millis) VALUES (1, 0);
@@ -0,0 +1,4 @@
+
+ALTER TABLE orders ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE carts ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,9 @@
+CREATE TABLE order_status_history (
+  history_id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  order_id INT NOT NULL,
+  from_status VARCHAR(20) NOT NULL,
+  to_status VARCHAR(20) NOT NULL,
+  changed_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_order_status_history_order_id ON order_status_history (order_id, changed_at);
@@ -0,0 +1,13 @@
+CREATE TABLE order_outbox (
+  event_id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  aggregate_id INT NOT NULL,
+  event_type VARCHAR(40) NOT NULL,
+  payload CLOB NOT NULL,
+  created_at TIMESTAMP NOT NULL,
+  published_at TIMESTAMP NULL,
+  claim_token VARCHAR(36) NULL,
+  claimed_until TIMESTAMP NULL,
+  attempts INT NOT NULL DEFAULT 0
+);
+
+CREATE INDEX idx_order_outbox_pending ON order_outbox (published_at, event_id);
@@ -0,0 +1,43 @@
+package com.selimhorri.app.analytics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("LongIntHashMap Unit Tests")
+class LongIntHashMapTest {
+
+	@Test
+	@DisplayName("Should behave like a HashMap through random puts, removes and resizes")
+	void testRandomOperations_ShouldMatchHashMap() {
+		// Arrange
+		final var random = new Random(42);
+		final var map = new LongIntHashMap(4);
+		final Map<Integer, Integer> expected = new HashMap<>();
+
+		// Act & Assert
+		for (int i = 0; i < 200_000; i++) {
+			// A narrow key range keeps probe runs long and collisions frequent
+			final int key = random.nextInt(5_000) - 100;
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.getOrDefault(key, LongIntHashMap.MISSING), map.remove(key));
+				expected.remove(key);
+			}
+			else {
+				expected.put(key, i);
+				map.put(key, i);
+			}
+		}
+		assertEquals(expected.size(), map.size());
+		for (int key = -100; key < 4_900; key++)
+			assertEquals(expected.getOrDefault(key, LongIntHashMap.MISSING), map.get(key), "key " + key);
+		assertThrows(IllegalArgumentException.class, () -> map.put(1, -1));
+	}
+
+}
+
@@ -0,0 +1,181 @@
+package com.selimhorri.app.analytics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.selimhorri.app.config.analytics.AnalyticsProperties;
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.event.bus.ChangeEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("OrderColumnStore Unit Tests")
+class OrderColumnStoreTest {
+
+	private static final LocalDateTime DAY = LocalDateTime.of(2024, 5, 1, 0, 0);
+
+	private JdbcTemplate jdbcTemplate;
+	private AnalyticsProperties properties;
+
+	@BeforeEach
+	void setUp() {
+		final var dataSource = new DriverManagerDataSource("jdbc:h2:mem:order_column_store_test;DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("DROP TABLE IF EXISTS orders");
+		jdbcTemplate.execute("CREATE TABLE orders (order_id INT PRIMARY KEY, order_date TIMESTAMP, "
+				+ "order_fee DECIMAL(7, 2), status VARCHAR(20) NOT NULL, version BIGINT NOT NULL, is_active BOOLEAN NOT NULL)");
+		jdbcTemplate.update("INSERT INTO orders VALUES (1, TIMESTAMP '2024-05-01 10:30:00', 12.50, 'CREATED', 0, TRUE)");
+		jdbcTemplate.update("INSERT INTO orders VALUES (2, TIMESTAMP '2024-05-02 08:00:00', 40.00, 'ORDERED', 3, TRUE)");
+		jdbcTemplate.update("INSERT INTO orders VALUES (3, NULL, NULL, 'CREATED', 0, TRUE)");
+		jdbcTemplate.update("INSERT INTO orders VALUES (4, TIMESTAMP '2024-05-01 09:00:00', 99.00, 'CREATED', 1, FALSE)");
+		properties = new AnalyticsProperties();
+	}
+
+	private static ChangeEvent upserted(final long orderId, final long version, final OrderStatus status, final long feeCents,
+			final LocalDateTime orderDate) {
+		return ChangeEvent.builder()
+				.type(ChangeEvent.Type.ORDER_UPDATED)
+				.entityId(orderId)
+				.version(version)
+				.order(OrderDto.builder()
+						.orderId(orderId)
+						.orderStatus(status)
+						.orderFeeCents(feeCents)
+						.orderDate(orderDate)
+						.build())
+				.occurredAt(System.currentTimeMillis())
+				.build();
+	}
+
+	@Test
+	@DisplayName("Should load the active orders, replay the changes held back meanwhile and answer the aggregates")
+	void testBootstrap_ShouldLoadActiveOrdersAndReplayPendingChanges() {
+		// Arrange
+		final var store = new OrderColumnStore(jdbcTemplate, properties, new SimpleMeterRegistry());
+		// Arrives during the load: older than the loaded version of order 2, newer for order 1
+		store.onEvent(upserted(2, 2, OrderStatus.CREATED, 100, DAY), true);
+		store.onEvent(upserted(1, 1, OrderStatus.ORDERED, 2_000, DAY.plusHours(12)), true);
+		assertEquals(0, store.size());
+
+		// Act
+		store.bootstrap();
+		store.onEvent(ChangeEvent.builder()
+				.type(ChangeEvent.Type.ORDER_STATUS_CHANGED)
+				.entityId(2L)
+				.fromStatus(OrderStatus.ORDERED)
+				.toStatus(OrderStatus.IN_PAYMENT)
+				.version(4L)
+				.occurredAt(System.currentTimeMillis())
+				.build(), true);
+		store.onEvent(ChangeEvent.builder()
+				.type(ChangeEvent.Type.ORDER_DEACTIVATED)
+				.entityId(3L)
+				.occurredAt(System.currentTimeMillis())
+				.build(), true);
+		store.onEvent(upserted(5, 0, OrderStatus.CREATED, 725, DAY.plusDays(1)), true);
+
+		// Assert
+		assertTrue(store.isWarm());
+		assertEquals(3, store.size());
+		assertArrayEquals(new long[] { 1, 1, 1 }, store.countByStatus());
+		assertArrayEquals(new long[] { 1, 0, 1, 1 }, store.feeHistogram(null, 1000, 4));
+		assertArrayEquals(new long[] { 2000, 4725 }, store.feeByPeriod(null, DAY, DAY.plusDays(2), Duration.ofDays(1)));
+		assertArrayEquals(new long[] { 0, 725 }, store.feeByPeriod(OrderStatus.CREATED, DAY, DAY.plusDays(2),
+				Duration.ofDays(1)));
+		final var top = store.topByFee(null, 2);
+		assertEquals(2, top.size());
+		assertEquals(2, top.orderId(0));
+		assertEquals(4000, top.fee(0));
+		assertEquals(1, top.orderId(1));
+		assertThrows(IllegalArgumentException.class, () -> store.topByFee(null, 0));
+	}
+
+	@Test
+	@DisplayName("Should drop the changes held back when a load fails and ignore changes until it loads")
+	void testBootstrap_WhenLoadFails_ShouldStopHoldingBackChanges() {
+		// Arrange
+		final var store = new OrderColumnStore(jdbcTemplate, properties, new SimpleMeterRegistry());
+		store.onEvent(upserted(1, 1, OrderStatus.ORDERED, 2_000, DAY), true);
+		jdbcTemplate.execute("ALTER TABLE orders RENAME TO orders_away");
+
+		// Act
+		final boolean failedLoad = store.bootstrap();
+		store.onEvent(upserted(2, 4, OrderStatus.IN_PAYMENT, 4_000, DAY), true);
+		final int sizeWhileCold = store.size();
+		jdbcTemplate.execute("ALTER TABLE orders_away RENAME TO orders");
+		final boolean retriedLoad = store.bootstrap();
+
+		// Assert
+		assertFalse(failedLoad);
+		assertEquals(0, sizeWhileCold);
+		assertTrue(retriedLoad);
+		assertTrue(store.isWarm());
+		// As in the database: neither change was held back for the next load
+		assertArrayEquals(new long[] { 2, 1, 0 }, store.countByStatus());
+	}
+
+	@Test
+	@DisplayName("Should give the same answers when the scan is split across the fork-join pool")
+	void testQueries_AboveParallelThreshold_ShouldMatchSequentialScan() {
+		// Arrange
+		jdbcTemplate.update("DELETE FROM orders");
+		final var random = new Random(42);
+		final OrderStatus[] statuses = OrderStatus.values();
+		jdbcTemplate.batchUpdate("INSERT INTO orders VALUES (?, ?, ?, ?, 0, TRUE)",
+				new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+				ps.setInt(1, i + 1);
+				ps.setObject(2, DAY.plusMinutes(random.nextInt(60 * 24 * 30)));
+				ps.setBigDecimal(3, BigDecimal.valueOf(random.nextInt(100_000), 2));
+				ps.setString(4, statuses[random.nextInt(statuses.length)].name());
+			}
+
+			@Override
+			public int getBatchSize() {
+				return 5000;
+			}
+		});
+		final var sequential = new OrderColumnStore(jdbcTemplate, properties, new SimpleMeterRegistry());
+		final var parallelProperties = new AnalyticsProperties();
+		parallelProperties.setParallelThreshold(64);
+		final var parallel = new OrderColumnStore(jdbcTemplate, parallelProperties, new SimpleMeterRegistry());
+
+		// Act
+		sequential.bootstrap();
+		parallel.bootstrap();
+
+		// Assert
+		assertArrayEquals(sequential.countByStatus(), parallel.countByStatus());
+		assertArrayEquals(sequential.feeHistogram(OrderStatus.ORDERED, 5000, 20),
+				parallel.feeHistogram(OrderStatus.ORDERED, 5000, 20));
+		assertArrayEquals(sequential.feeByPeriod(null, DAY, DAY.plusDays(30), Duration.ofHours(6)),
+				parallel.feeByPeriod(null, DAY, DAY.plusDays(30), Duration.ofHours(6)));
+		final var sequentialTop = sequential.topByFee(null, 50);
+		final var parallelTop = parallel.topByFee(null, 50);
+		for (int rank = 0; rank < 50; rank++) {
+			assertEquals(sequentialTop.orderId(rank), parallelTop.orderId(rank));
+			if (rank > 0)
+				assertTrue(parallelTop.fee(rank - 1) >= parallelTop.fee(rank));
+		}
+		final long highest = jdbcTemplate.queryForObject("SELECT MAX(order_fee) * 100 FROM orders", BigDecimal.class)
+				.longValue();
+		assertEquals(highest, parallelTop.fee(0));
+	}
+
+}
+
@@ -0,0 +1,152 @@
+package com.selimhorri.app.archive;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.selimhorri.app.config.archive.ArchiveProperties;
+import com.selimhorri.app.shard.Shards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("OrderArchiver Unit Tests")
+class OrderArchiverTest {
+
+	private static final Instant CUTOFF = Instant.parse("2024-06-01T00:00:00Z");
+
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate transactionTemplate;
+	private ArchiveProperties properties;
+	private SimpleMeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() {
+		final var dataSource = new DriverManagerDataSource("jdbc:h2:mem:order_archiver_test;DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		jdbcTemplate.execute("DROP TABLE IF EXISTS orders");
+		jdbcTemplate.execute("DROP TABLE IF EXISTS orders_archive");
+		jdbcTemplate.execute("CREATE TABLE orders (order_id INT PRIMARY KEY, cart_id INT, order_date TIMESTAMP, "
+				+ "order_desc VARCHAR(255), order_fee DECIMAL, status VARCHAR(20) NOT NULL, version BIGINT NOT NULL, "
+				+ "is_active BOOLEAN NOT NULL, created_at TIMESTAMP, updated_at TIMESTAMP)");
+		jdbcTemplate.execute("CREATE TABLE orders_archive (order_id INT PRIMARY KEY, cart_id INT, order_date TIMESTAMP, "
+				+ "order_desc VARCHAR(255), order_fee DECIMAL, status VARCHAR(20) NOT NULL, version BIGINT NOT NULL, "
+				+ "created_at TIMESTAMP, updated_at TIMESTAMP, archived_at TIMESTAMP NOT NULL)");
+		properties = new ArchiveProperties();
+		properties.setMaxRowsPerSecond(0);
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	private void insertOrder(final int orderId, final boolean active, final String updatedAt, final String orderDate) {
+		jdbcTemplate.update("INSERT INTO orders VALUES (?, 10, ?, ?, 12.5, 'CREATED', 2, ?, NULL, ?)", orderId,
+				orderDate == null ? null : Timestamp.valueOf(orderDate), "Order " + orderId, active,
+				updatedAt == null ? null : Timestamp.valueOf(updatedAt));
+	}
+
+	@Test
+	@DisplayName("Should move only orders inactive since before the cutoff, chunk by chunk")
+	void testArchive_ShouldMoveEligibleOrdersInChunks() {
+		// Arrange
+		properties.setChunkSize(2);
+		for (int id = 1; id <= 5; id++)
+			insertOrder(id, false, "2024-01-0" + id + " 10:00:00", "2023-12-01 10:00:00");
+		// Deactivated before updated_at was stamped, so it goes by its order date
+		insertOrder(6, false, null, "2024-01-01 10:00:00");
+		insertOrder(7, true, "2024-01-01 10:00:00", "2023-12-01 10:00:00");
+		insertOrder(8, false, "2024-07-01 10:00:00", "2023-12-01 10:00:00");
+		insertOrder(9, false, null, "2024-07-01 10:00:00");
+		final var archiver = new OrderArchiver(jdbcTemplate, transactionTemplate, properties, Shards.single(),
+				meterRegistry);
+
+		// Act
+		final long archived = archiver.archive(CUTOFF);
+
+		// Assert
+		assertEquals(6, archived);
+		assertEquals(List.of(7, 8, 9), jdbcTemplate.queryForList("SELECT order_id FROM orders ORDER BY order_id", Integer.class));
+		assertEquals(List.of(1, 2, 3, 4, 5, 6),
+				jdbcTemplate.queryForList("SELECT order_id FROM orders_archive ORDER BY order_id", Integer.class));
+		assertEquals("Order 3", jdbcTemplate.queryForObject("SELECT order_desc FROM orders_archive WHERE order_id = 3", String.class));
+		assertEquals(6.0, meterRegistry.get("orders.archive.archived").counter().count());
+		// Three full chunks and the empty one that ends the pass
+		assertEquals(4, meterRegistry.get("orders.archive.chunk").timer().count());
+		assertEquals(6.0, meterRegistry.get("orders.archive.cursor").gauge().value());
+		assertEquals(0.0, meterRegistry.get("orders.archive.backlog").gauge().value());
+		assertEquals(0, archiver.archive(CUTOFF));
+	}
+
+	@Test
+	@DisplayName("Should hold the archiving rate under the configured rows per second")
+	void testArchive_WithRateLimit_ShouldThrottle() {
+		// Arrange
+		properties.setChunkSize(1);
+		properties.setMaxRowsPerSecond(20);
+		for (int id = 1; id <= 5; id++)
+			insertOrder(id, false, "2024-01-01 10:00:00", null);
+		final var archiver = new OrderArchiver(jdbcTemplate, transactionTemplate, properties, Shards.single(),
+				meterRegistry);
+
+		// Act
+		final long started = System.nanoTime();
+		final long archived = archiver.archive(CUTOFF);
+		final var elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+		// Assert
+		assertEquals(5, archived);
+		assertTrue(elapsed.toMillis() >= 240, "took " + elapsed);
+	}
+
+	@Test
+	@DisplayName("Should run the scheduled pass off the calling thread and skip a pass while one runs")
+	void testArchive_Scheduled_ShouldNotBlockCaller() throws Exception {
+		// Arrange
+		properties.setChunkSize(1);
+		properties.setMaxRowsPerSecond(2);
+		properties.setOlderThan(Duration.ZERO);
+		for (int id = 1; id <= 5; id++)
+			insertOrder(id, false, "2024-01-01 10:00:00", null);
+		final var archiver = new OrderArchiver(jdbcTemplate, transactionTemplate, properties, Shards.single(),
+				meterRegistry);
+
+		try {
+			// Act
+			final long started = System.nanoTime();
+			final boolean first = archiver.archive();
+			final var elapsed = Duration.ofNanos(System.nanoTime() - started);
+			final boolean second = archiver.archive();
+
+			// Assert
+			assertTrue(first);
+			assertTrue(elapsed.toMillis() < 1000, "took " + elapsed);
+			assertFalse(second);
+			for (int i = 0; i < 100 && meterRegistry.get("orders.archive.archived").counter().count() == 0; i++)
+				Thread.sleep(20);
+			assertTrue(meterRegistry.get("orders.archive.archived").counter().count() > 0);
+		}
+		finally {
+			archiver.destroy();
+		}
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,170 @@
+package com.selimhorri.app.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import com.selimhorri.app.analytics.OrderColumnStore;
+import com.selimhorri.app.config.analytics.AnalyticsProperties;
+import com.selimhorri.app.domain.enums.OrderStatus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The aggregates of {@link OrderColumnStore} against the same questions asked of an in-memory H2
+ * orders table of {@code orders} rows: count per status, fee histogram, top orders by fee and
+ * fees per day over a month. {@code parallelThreshold} above {@code orders} keeps the store scan
+ * on the calling thread.
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -Xmx4g -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.selimhorri.app.benchmark.OrderAnalyticsBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderAnalyticsBenchmark {
+
+	private static final OrderStatus[] STATUSES = OrderStatus.values();
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+	private static final int DAYS = 365;
+
+	private static final String COUNT_BY_STATUS_SQL = "SELECT status, COUNT(*) FROM orders WHERE is_active = TRUE "
+			+ "GROUP BY status";
+	private static final String FEE_HISTOGRAM_SQL = "SELECT bucket, COUNT(*) FROM (SELECT "
+			+ "LEAST(CAST(FLOOR(order_fee / 50) AS INT), 19) bucket FROM orders WHERE is_active = TRUE) GROUP BY bucket";
+	private static final String TOP_BY_FEE_SQL = "SELECT order_id, order_fee FROM orders WHERE is_active = TRUE "
+			+ "ORDER BY order_fee DESC, order_id LIMIT 10";
+	private static final String FEE_BY_DAY_SQL = "SELECT CAST(order_date AS DATE), SUM(order_fee) FROM orders "
+			+ "WHERE is_active = TRUE AND order_date >= ? AND order_date < ? GROUP BY CAST(order_date AS DATE)";
+
+	@Param({ "100000", "1000000" })
+	public int orders;
+
+	@Param({ "65536" })
+	public int parallelThreshold;
+
+	private SingleConnectionDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+	private OrderColumnStore store;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		// H2 would otherwise answer a repeated query on an unchanged table from its last result
+		this.dataSource = new SingleConnectionDataSource("jdbc:h2:mem:order_analytics_benchmark;OPTIMIZE_REUSE_RESULTS=FALSE", "sa", "", true);
+		this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+		this.jdbcTemplate.execute("CREATE TABLE orders (order_id INT PRIMARY KEY, order_date TIMESTAMP, "
+				+ "order_fee DECIMAL(7, 2), status VARCHAR(20) NOT NULL, version BIGINT NOT NULL, is_active BOOLEAN NOT NULL)");
+		this.jdbcTemplate.execute("CREATE INDEX idx_orders_order_date ON orders (is_active, order_date)");
+		final var random = new Random(42);
+		for (int from = 0; from < this.orders; from += 10_000) {
+			final int first = from;
+			final int count = Math.min(10_000, this.orders - from);
+			this.jdbcTemplate.batchUpdate("INSERT INTO orders VALUES (?, ?, ?, ?, 0, TRUE)",
+					new BatchPreparedStatementSetter() {
+						@Override
+						public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+							ps.setInt(1, first + i + 1);
+							ps.setTimestamp(2, Timestamp.valueOf(START.plusMinutes(random.nextInt(DAYS * 24 * 60))));
+							ps.setBigDecimal(3, BigDecimal.valueOf(random.nextInt(100_000), 2));
+							ps.setString(4, STATUSES[random.nextInt(STATUSES.length)].name());
+						}
+
+						@Override
+						public int getBatchSize() {
+							return count;
+						}
+					});
+		}
+		final var properties = new AnalyticsProperties();
+		properties.setParallelThreshold(this.parallelThreshold);
+		this.store = new OrderColumnStore(this.jdbcTemplate, properties, new SimpleMeterRegistry());
+		this.store.bootstrap();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.dataSource.destroy();
+	}
+
+	@Benchmark
+	public long[] storeCountByStatus() {
+		return this.store.countByStatus();
+	}
+
+	@Benchmark
+	public List<Map<String, Object>> sqlCountByStatus() {
+		return this.jdbcTemplate.queryForList(COUNT_BY_STATUS_SQL);
+	}
+
+	@Benchmark
+	public long[] storeFeeHistogram() {
+		return this.store.feeHistogram(null, 5_000, 20);
+	}
+
+	@Benchmark
+	public List<Map<String, Object>> sqlFeeHistogram() {
+		return this.jdbcTemplate.queryForList(FEE_HISTOGRAM_SQL);
+	}
+
+	@Benchmark
+	public OrderColumnStore.TopOrders storeTopByFee() {
+		return this.store.topByFee(null, 10);
+	}
+
+	@Benchmark
+	public List<Map<String, Object>> sqlTopByFee() {
+		return this.jdbcTemplate.queryForList(TOP_BY_FEE_SQL);
+	}
+
+	@Benchmark
+	public long[] storeFeeByDay() {
+		return this.store.feeByPeriod(null, START, START.plusDays(30), Duration.ofDays(1));
+	}
+
+	@Benchmark
+	public List<Map<String, Object>> sqlFeeByDay() {
+		return this.jdbcTemplate.queryForList(FEE_BY_DAY_SQL, Timestamp.valueOf(START),
+				Timestamp.valueOf(START.plusDays(30)));
+	}
+
+	public static void main(final String[] args) throws Exception {
+		new Runner(new OptionsBuilder()
+				.include(OrderAnalyticsBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+
+}
+
@@ -0,0 +1,138 @@
+package com.selimhorri.app.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.event.journal.JournalRecord;
+import com.selimhorri.app.event.journal.OrderJournal;
+
+/**
+ * Time to replay a journal of {@code events} records, one full UPSERT per order followed by
+ * status changes, either just decoding every record or folding them into the latest state per
+ * order as a read model rebuild does. The journal is written once per trial under target/,
+ * about 45 bytes per event.
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -Xmx4g -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.selimhorri.app.benchmark.OrderJournalReplayBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderJournalReplayBenchmark {
+
+	private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+	@Param({ "10000000" })
+	public int events;
+
+	/**
+	 * Records per order, so the journal holds {@code events / eventsPerOrder} orders.
+	 */
+	@Param({ "10" })
+	public int eventsPerOrder;
+
+	private Path directory;
+	private OrderJournal journal;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		this.directory = Files.createDirectories(Path.of("target", "benchmark"))
+				.resolve("journal-" + System.nanoTime());
+		this.journal = new OrderJournal(this.directory, 64 * 1024 * 1024);
+		final int orders = Math.max(1, this.events / this.eventsPerOrder);
+		final var orderDate = LocalDateTime.now();
+		for (int i = 0; i < this.events; i++) {
+			final int orderId = i % orders + 1;
+			final int version = i / orders;
+			this.journal.append(version == 0
+					? JournalRecord.builder()
+							.type(JournalRecord.Type.UPSERT)
+							.orderId(orderId)
+							.version(version)
+							.status(OrderStatus.CREATED)
+							.cartId(orderId % 1000)
+							.userId(orderId % 100)
+							.orderDate(orderDate)
+							.orderFeeCents(4999L)
+							.orderDesc("benchmark order")
+							.build()
+					: JournalRecord.builder()
+							.type(JournalRecord.Type.STATUS)
+							.orderId(orderId)
+							.version(version)
+							.status(STATUSES[version % STATUSES.length])
+							.build());
+		}
+		this.journal.force();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		this.journal.close();
+		try (Stream<Path> files = Files.walk(this.directory)) {
+			for (final Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+				Files.delete(path);
+		}
+	}
+
+	@Benchmark
+	public long replay(final Blackhole blackhole) {
+		return this.journal.replay(blackhole::consume);
+	}
+
+	@Benchmark
+	public Map<Long, JournalRecord> rebuild() {
+		final Map<Long, JournalRecord> latest = new HashMap<>(this.events / this.eventsPerOrder * 2);
+		this.journal.replay(record -> latest.merge(record.getOrderId(), record, JournalRecord::apply));
+		return latest;
+	}
+
+	public static void main(final String[] args) throws Exception {
+		new Runner(new OptionsBuilder()
+				.include(OrderJournalReplayBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,155 @@
+package com.selimhorri.app.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.selimhorri.app.OrderServiceApplication;
+import com.selimhorri.app.config.logging.SamplingTurboFilter;
+import com.selimhorri.app.domain.Cart;
+import com.selimhorri.app.domain.Order;
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.repository.CartRepository;
+import com.selimhorri.app.repository.OrderRepository;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+
+/**
+ * Throughput of GET /api/orders/{orderId} with the file logging used in prod,
+ * written synchronously versus through the async appender plus the 1-in-10
+ * sampling configured in application-prod.yml.
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.selimhorri.app.benchmark.OrderResourceLoggingBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class OrderResourceLoggingBenchmark {
+
+	private static final String SAMPLED_LOGGERS = "com.selimhorri.app.resource=10,com.selimhorri.app.service=10";
+
+	@Param({ "SYNC", "ASYNC_SAMPLED" })
+	public String logging;
+
+	private ConfigurableApplicationContext context;
+	private MockMvc mockMvc;
+	private String path;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.context = new SpringApplicationBuilder(OrderServiceApplication.class)
+				.run("--spring.profiles.active=test",
+						"--server.port=0",
+						"--spring.jpa.show-sql=false",
+						"--app.sql.expose-header=false",
+						"--app.sql.budget.mode=LOG",
+						"--app.sql.slow-query.enabled=false");
+
+		final var cart = this.context.getBean(CartRepository.class).save(Cart.builder().userId(1).build());
+		final var order = this.context.getBean(OrderRepository.class).save(Order.builder()
+				.orderDesc("benchmark")
+				.orderFeeCents(500_000L)
+				.isActive(true)
+				.status(OrderStatus.CREATED)
+				.cart(cart)
+				.build());
+		this.path = "/api/orders/" + order.getOrderId();
+		this.mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) this.context).build();
+
+		this.configureLogging("ASYNC_SAMPLED".equals(this.logging));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.context.close();
+	}
+
+	@Benchmark
+	public MvcResult findById() throws Exception {
+		return this.mockMvc.perform(get(this.path)).andReturn();
+	}
+
+	private void configureLogging(final boolean asyncSampled) {
+		final var loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+		final var root = loggerContext.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+		root.detachAndStopAllAppenders();
+		loggerContext.resetTurboFilterList();
+
+		final var encoder = new PatternLayoutEncoder();
+		encoder.setContext(loggerContext);
+		encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} %5p ${PID:- } --- [%t] %-40.40logger{39} : %m%n");
+		encoder.start();
+
+		final var file = new FileAppender<ILoggingEvent>();
+		file.setContext(loggerContext);
+		file.setName("FILE");
+		file.setFile("target/benchmark/order-service-" + this.logging.toLowerCase() + ".log");
+		file.setAppend(false);
+		file.setEncoder(encoder);
+		file.start();
+
+		Appender<ILoggingEvent> appender = file;
+		if (asyncSampled) {
+			final var sampling = new SamplingTurboFilter();
+			sampling.setContext(loggerContext);
+			sampling.setLoggers(SAMPLED_LOGGERS);
+			sampling.start();
+			loggerContext.addTurboFilter(sampling);
+
+			final var async = new AsyncAppender();
+			async.setContext(loggerContext);
+			async.setName("ASYNC_FILE");
+			async.setQueueSize(8192);
+			async.setNeverBlock(true);
+			async.addAppender(file);
+			async.start();
+			appender = async;
+		}
+		root.addAppender(appender);
+	}
+
+	public static void main(final String[] args) throws Exception {
+		new Runner(new OptionsBuilder()
+				.include(OrderResourceLoggingBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+
+}
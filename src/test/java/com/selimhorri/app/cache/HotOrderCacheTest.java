@@ -0,0 +1,127 @@
+package com.selimhorri.app.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.selimhorri.app.config.order.OrderProperties;
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.OrderDto;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("HotOrderCache Unit Tests")
+class HotOrderCacheTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private SimpleMeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	@Test
+	@DisplayName("Should serve the serialized order and refuse a body older than an invalidation")
+	void testPutAndInvalidate_ShouldNeverServeStaleVersion() throws Exception {
+		// Arrange
+		final var cache = cache(1_000);
+
+		// Act & Assert
+		assertNull(cache.get(7));
+		cache.put(order(7, 0L, OrderStatus.CREATED));
+		final var hit = cache.get(7);
+		assertNotNull(hit);
+		assertEquals(0L, hit.getVersion());
+		assertEquals("CREATED", objectMapper.readValue(hit.getJson(), OrderDto.class).getOrderStatus().name());
+
+		cache.invalidate(7, 1L);
+		assertNull(cache.get(7));
+		// A read that raced the change comes back with the old version
+		final var stale = cache.put(order(7, 0L, OrderStatus.CREATED));
+		assertNotNull(stale.getJson());
+		assertNull(cache.get(7));
+
+		cache.put(order(7, 1L, OrderStatus.ORDERED));
+		assertEquals(1L, cache.get(7).getVersion());
+		assertEquals(3.0, meterRegistry.get("cache.gets").tag("result", "miss").counter().count());
+	}
+
+	@Test
+	@DisplayName("Should stay within capacity and keep an order that keeps being read")
+	void testPut_WhenFull_ShouldEvictUnreferencedOrders() {
+		// Arrange
+		final var cache = cache(160);
+		final int hot = 123_456;
+		cache.put(order(hot, 0L, OrderStatus.CREATED));
+
+		// Act
+		for (int id = 1; id <= 10_000; id++) {
+			cache.put(order(id, 0L, OrderStatus.CREATED));
+			assertNotNull(cache.get(hot), "evicted after " + id);
+		}
+
+		// Assert
+		assertTrue(cache.size() <= 160, "size " + cache.size());
+		assertTrue(meterRegistry.get("cache.evictions").counter().count() > 9_000);
+	}
+
+	@Test
+	@DisplayName("Should drop bodies and invalidation markers once their time to live has passed")
+	void testGet_AfterTimeToLive_ShouldExpireBodiesAndMarkers() throws Exception {
+		// Arrange
+		final var cache = cache(1_000, Duration.ofMillis(200));
+		cache.put(order(7, 0L, OrderStatus.CREATED));
+		// Left by a change that then rolled back, so version 5 never commits
+		cache.invalidate(8, 5L);
+		cache.put(order(8, 4L, OrderStatus.CREATED));
+		assertNotNull(cache.get(7));
+		assertNull(cache.get(8));
+
+		// Act
+		Thread.sleep(300);
+
+		// Assert
+		assertNull(cache.get(7));
+		cache.put(order(8, 4L, OrderStatus.CREATED));
+		assertEquals(4L, cache.get(8).getVersion());
+		assertEquals(1, cache.size());
+	}
+
+	private HotOrderCache cache(final int capacity) {
+		return cache(capacity, Duration.ofMinutes(5));
+	}
+
+	private HotOrderCache cache(final int capacity, final Duration timeToLive) {
+		final var properties = new OrderProperties.HotCache();
+		properties.setCapacity(capacity);
+		properties.setTimeToLive(timeToLive);
+		return new HotOrderCache(properties, objectMapper, meterRegistry);
+	}
+
+	private static OrderDto order(final long orderId, final Long version, final OrderStatus status) {
+		return OrderDto.builder()
+				.orderId(orderId)
+				.orderDesc("Order " + orderId)
+				.orderFeeCents(1000L)
+				.orderStatus(status)
+				.version(version)
+				.build();
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,109 @@
+package com.selimhorri.app.config.concurrency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("ConcurrencyLimitFilter Unit Tests")
+class ConcurrencyLimitFilterTest {
+
+	private ConcurrencyLimitProperties properties;
+	private SimpleMeterRegistry meterRegistry;
+	private ConcurrencyLimitFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		properties = new ConcurrencyLimitProperties();
+		properties.getWrite().setInitialLimit(2);
+		properties.getWrite().setMinLimit(1);
+		meterRegistry = new SimpleMeterRegistry();
+		filter = new ConcurrencyLimitFilter(properties, meterRegistry);
+	}
+
+	@Test
+	@DisplayName("Should shed writes above the limit with 503 and Retry-After")
+	void testDoFilter_WhenWriteLimitReached_ShouldReturn503() throws Exception {
+		// Arrange
+		final var writes = filter.limiterFor(false);
+		assertTrue(writes.tryAcquire());
+		assertTrue(writes.tryAcquire());
+		final var response = new MockHttpServletResponse();
+		final var chain = new MockFilterChain();
+
+		// Act
+		filter.doFilter(new MockHttpServletRequest("POST", "/api/orders"), response, chain);
+
+		// Assert
+		assertEquals(503, response.getStatus());
+		assertEquals("1", response.getHeader("Retry-After"));
+		assertNull(chain.getRequest());
+		assertEquals(1.0, meterRegistry.get("http.server.concurrency.rejected").tag("kind", "write").counter().count());
+	}
+
+	@Test
+	@DisplayName("Should keep serving reads while writes are saturated")
+	void testDoFilter_WhenWriteLimitReached_ShouldStillServeReads() throws Exception {
+		// Arrange
+		final var writes = filter.limiterFor(false);
+		while (writes.tryAcquire())
+			;
+		final var response = new MockHttpServletResponse();
+		final var chain = new MockFilterChain();
+
+		// Act
+		filter.doFilter(new MockHttpServletRequest("GET", "/api/orders"), response, chain);
+
+		// Assert
+		assertEquals(200, response.getStatus());
+		assertNotNull(chain.getRequest());
+		assertEquals(0, filter.limiterFor(true).getInFlight());
+		assertEquals(50.0, meterRegistry.get("http.server.concurrency.limit").tag("kind", "read").gauge().value());
+	}
+
+	@Test
+	@DisplayName("Should lower the limit when latency rises and raise it again once it recovers")
+	void testLimiter_WhenLatencyRises_ShouldAdaptLimit() {
+		// Arrange
+		final var limiter = new AdaptiveConcurrencyLimiter(new ConcurrencyLimitProperties.Limit(50, 10, 400));
+		for (int i = 0; i < 200; i++)
+			limiter.onSample(TimeUnit.MILLISECONDS.toNanos(5), limiter.getLimit(), false);
+		final int healthyLimit = limiter.getLimit();
+
+		// Act
+		for (int i = 0; i < 50; i++)
+			limiter.onSample(TimeUnit.MILLISECONDS.toNanos(100), limiter.getLimit(), false);
+		final int degradedLimit = limiter.getLimit();
+		for (int i = 0; i < 200; i++)
+			limiter.onSample(TimeUnit.MILLISECONDS.toNanos(5), limiter.getLimit(), false);
+
+		// Assert
+		assertTrue(healthyLimit > 50, "limit should grow while latency is stable: " + healthyLimit);
+		assertTrue(degradedLimit < healthyLimit / 2, "limit should shrink under slow responses: " + degradedLimit);
+		assertTrue(degradedLimit >= 10);
+		assertTrue(limiter.getLimit() > degradedLimit, "limit should recover: " + limiter.getLimit());
+	}
+
+	@Test
+	@DisplayName("Should halve the estimate on failed requests")
+	void testLimiter_WhenRequestsFail_ShouldBackOff() {
+		// Arrange
+		final var limiter = new AdaptiveConcurrencyLimiter(new ConcurrencyLimitProperties.Limit(100, 10, 400));
+
+		// Act
+		for (int i = 0; i < 30; i++)
+			limiter.onSample(TimeUnit.MILLISECONDS.toNanos(5), 1, true);
+
+		// Assert
+		assertTrue(limiter.getLimit() < 50, "limit should back off: " + limiter.getLimit());
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.selimhorri.app.config.entitycache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.selimhorri.app.domain.Cart;
+import com.selimhorri.app.dto.CartDto;
+import com.selimhorri.app.repository.CartRepository;
+import com.selimhorri.app.service.CartService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Commits for real, so it gets a database of its own
+@SpringBootTest(properties = {
+		"app.entity-cache.enabled=true",
+		"spring.datasource.url=jdbc:h2:mem:entity_cache_test;DB_CLOSE_DELAY=-1" })
+@ActiveProfiles("test")
+@DisplayName("Entity Cache Integration Tests")
+class EntityCacheIntegrationTest {
+
+	@Autowired
+	private CartRepository cartRepository;
+
+	@Autowired
+	private CartService cartService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private Statistics statistics;
+	private Cart cart;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		cart = cartRepository.save(Cart.builder().userId(1).build());
+		// Rows inserted with an identity id are cached on their first load, not on insert
+		findUserId();
+		statistics.clear();
+	}
+
+	@Test
+	@DisplayName("Should serve a cart from the cache and see updates and deletes made through the service")
+	void testFindById_ShouldHitCacheAndFollowChanges() {
+		// Act & Assert
+		assertEquals(1, findUserId());
+		assertEquals(0, statistics.getPrepareStatementCount());
+		assertEquals(1, statistics.getDomainDataRegionStatistics(Cart.CACHE_REGION).getHitCount());
+
+		cartService.update(CartDto.builder().cartId(cart.getCartId()).userId(2).version(cart.getVersion()).build());
+		assertEquals(2, findUserId());
+
+		cartService.deleteById(cart.getCartId());
+		assertNull(transactionTemplate.execute(status -> cartRepository.findById(cart.getCartId()).orElse(null)));
+
+		assertTrue(meterRegistry.get("hibernate.second.level.cache.requests")
+				.tags("region", Cart.CACHE_REGION, "result", "hit")
+				.functionCounter().count() >= 1);
+	}
+
+	@Test
+	@DisplayName("Should serve findAll from the query cache until a cart is written")
+	void testFindAll_ShouldHitQueryCacheUntilCartsChange() {
+		// Act & Assert
+		final int before = transactionTemplate.execute(status -> cartRepository.findAll().size());
+		final int again = transactionTemplate.execute(status -> cartRepository.findAll().size());
+		assertEquals(before, again);
+		assertEquals(1, statistics.getQueryCacheHitCount());
+
+		cartRepository.save(Cart.builder().userId(3).build());
+		final int after = transactionTemplate.execute(status -> cartRepository.findAll().size());
+		assertEquals(before + 1, after);
+		assertEquals(1, statistics.getQueryCacheHitCount());
+	}
+
+	private Integer findUserId() {
+		return transactionTemplate.execute(status -> cartRepository.findById(cart.getCartId()).orElseThrow().getUserId());
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
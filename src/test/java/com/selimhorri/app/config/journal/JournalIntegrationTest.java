@@ -0,0 +1,104 @@
+package com.selimhorri.app.config.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.unit.DataSize;
+
+import com.selimhorri.app.dto.CartDto;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.event.journal.OrderJournal;
+import com.selimhorri.app.service.CartService;
+import com.selimhorri.app.service.OrderService;
+
+// The test profile leaves the journal off; commits for real, so it gets a database of its own
+@SpringBootTest(properties = {
+		"app.journal.enabled=true",
+		"app.journal.segment-size=1MB",
+		"app.journal.force-each-batch=true",
+		"app.journal.compaction.min-segments=2",
+		"spring.datasource.url=jdbc:h2:mem:journal_test;DB_CLOSE_DELAY=-1" })
+@ActiveProfiles("test")
+@DisplayName("Journal Integration Tests")
+class JournalIntegrationTest {
+
+	@TempDir
+	static Path directory;
+
+	@DynamicPropertySource
+	static void journalDirectory(final DynamicPropertyRegistry registry) {
+		registry.add("app.journal.directory", directory::toString);
+	}
+
+	@Autowired
+	private JournalProperties properties;
+
+	@Autowired
+	private OrderJournal orderJournal;
+
+	@Autowired
+	private CartService cartService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Test
+	@DisplayName("Should bind app.journal and open the journal in the configured directory")
+	void testJournalConfig_ShouldBindProperties() {
+		// Assert
+		assertTrue(properties.isEnabled());
+		assertEquals(directory.toString(), properties.getDirectory());
+		assertEquals(DataSize.ofMegabytes(1), properties.getSegmentSize());
+		assertTrue(properties.isForceEachBatch());
+		assertEquals(2, properties.getCompaction().getMinSegments());
+		assertEquals(directory, orderJournal.getDirectory());
+	}
+
+	@Test
+	@DisplayName("Should journal a committed order")
+	void testSaveOrder_ShouldAppendToJournal() throws Exception {
+		// Arrange
+		final var cart = cartService.save(CartDto.builder().userId(1).build());
+
+		// Act
+		final var order = orderService.save(OrderDto.builder()
+				.orderDesc("Journaled")
+				.orderFeeCents(1000L)
+				.cartDto(CartDto.builder().cartId(cart.getCartId()).build())
+				.build());
+
+		// Assert
+		// The journal follows the bus on its own thread
+		for (int i = 0; i < 250 && !this.journaledOrderIds().contains(order.getOrderId()); i++)
+			Thread.sleep(20);
+		assertTrue(this.journaledOrderIds().contains(order.getOrderId()));
+	}
+
+	private List<Long> journaledOrderIds() {
+		final List<Long> orderIds = new ArrayList<>();
+		orderJournal.replay(record -> orderIds.add(record.getOrderId()));
+		return orderIds;
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
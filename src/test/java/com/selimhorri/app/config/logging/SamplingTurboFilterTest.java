@@ -0,0 +1,75 @@
+package com.selimhorri.app.config.logging;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+
+@DisplayName("SamplingTurboFilter Unit Tests")
+class SamplingTurboFilterTest {
+
+	private LoggerContext loggerContext;
+	private SamplingTurboFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		loggerContext = new LoggerContext();
+		loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+		filter = new SamplingTurboFilter();
+		filter.setContext(loggerContext);
+		filter.setLoggers("com.selimhorri.app.resource=4, com.selimhorri.app.resource.CartResource=2");
+		filter.start();
+	}
+
+	private int accepted(final Logger logger, final Level level, final String format, final int calls) {
+		int accepted = 0;
+		for (int i = 0; i < calls; i++)
+			if (filter.decide(null, logger, level, format, null, null) == FilterReply.NEUTRAL)
+				accepted++;
+		return accepted;
+	}
+
+	@Test
+	@DisplayName("Should let through one in N events of the same template")
+	void testDecide_ForSampledLogger_ShouldAcceptOneInRate() {
+		final var logger = loggerContext.getLogger("com.selimhorri.app.resource.OrderResource");
+
+		assertEquals(25, accepted(logger, Level.INFO, "*** OrderDto, resource; fetch order by id *", 100));
+	}
+
+	@Test
+	@DisplayName("Should count each message template independently")
+	void testDecide_WithDifferentTemplates_ShouldSampleEachIndependently() {
+		final var logger = loggerContext.getLogger("com.selimhorri.app.resource.OrderResource");
+
+		assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.INFO, "first", null, null));
+		assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.INFO, "second", null, null));
+		assertEquals(FilterReply.DENY, filter.decide(null, logger, Level.INFO, "first", null, null));
+	}
+
+	@Test
+	@DisplayName("Should use the most specific logger rule")
+	void testDecide_WithNestedRules_ShouldUseLongestPrefix() {
+		final var logger = loggerContext.getLogger("com.selimhorri.app.resource.CartResource");
+
+		assertEquals(50, accepted(logger, Level.INFO, "*** CartDto, resource; fetch cart by id *", 100));
+	}
+
+	@Test
+	@DisplayName("Should never sample warnings, errors or unconfigured loggers")
+	void testDecide_ForWarningsAndOtherLoggers_ShouldNotSample() {
+		final var sampled = loggerContext.getLogger("com.selimhorri.app.resource.OrderResource");
+		final var other = loggerContext.getLogger("com.selimhorri.app.service.impl.OrderServiceImpl");
+
+		assertEquals(10, accepted(sampled, Level.WARN, "warn", 10));
+		assertEquals(10, accepted(sampled, Level.ERROR, "error", 10));
+		assertEquals(10, accepted(other, Level.INFO, "info", 10));
+	}
+
+}
@@ -0,0 +1,120 @@
+package com.selimhorri.app.config.pool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("ConnectionPoolMonitor Unit Tests")
+class ConnectionPoolMonitorTest {
+
+	private ConnectionPoolProperties properties;
+	private SimpleMeterRegistry meterRegistry;
+	private HikariDataSource pool;
+
+	@BeforeEach
+	void setUp() {
+		properties = new ConnectionPoolProperties();
+		meterRegistry = new SimpleMeterRegistry();
+		pool = new HikariDataSource();
+		pool.setJdbcUrl("jdbc:h2:mem:connection_pool_test;DB_CLOSE_DELAY=-1");
+		pool.setUsername("sa");
+		pool.setPoolName("test");
+		pool.setMaximumPoolSize(2);
+	}
+
+	@AfterEach
+	void tearDown() {
+		pool.close();
+	}
+
+	@Test
+	@DisplayName("Should list a borrower by its calling method and time its wait and hold")
+	void testBorrow_ShouldListBorrowerAndRecordTimers() throws Exception {
+		// Arrange
+		final var monitor = new ConnectionPoolMonitor(properties, meterRegistry);
+		final var dataSource = monitor.track(pool);
+
+		// Act
+		try (final var connection = dataSource.getConnection()) {
+			connection.createStatement().execute("SELECT 1");
+			final var borrowers = monitor.snapshot();
+
+			// Assert
+			assertEquals(1, borrowers.size());
+			assertEquals("test", borrowers.get(0).getPool());
+			assertEquals("ConnectionPoolMonitorTest.testBorrow_ShouldListBorrowerAndRecordTimers",
+					borrowers.get(0).getCaller());
+			assertFalse(borrowers.get(0).isLeakSuspected());
+			assertNull(borrowers.get(0).getStack());
+		}
+		assertTrue(monitor.snapshot().isEmpty());
+		assertEquals(1, meterRegistry.get("db.pool.connection.wait").tag("pool", "test").timer().count());
+		assertEquals(1, meterRegistry.get("db.pool.connection.hold")
+				.tag("caller", "ConnectionPoolMonitorTest.testBorrow_ShouldListBorrowerAndRecordTimers")
+				.timer().count());
+		assertEquals(0.0, meterRegistry.get("db.pool.connections.active").gauge().value());
+	}
+
+	@Test
+	@DisplayName("Should report a connection held past the threshold once, with the stack that borrowed it")
+	void testCheck_HeldPastThreshold_ShouldReportLeakOnce() throws Exception {
+		// Arrange
+		properties.setLeakThreshold(Duration.ZERO);
+		properties.setCaptureStacks(true);
+		final var monitor = new ConnectionPoolMonitor(properties, meterRegistry);
+		final var dataSource = monitor.track(pool);
+
+		try (final var connection = dataSource.getConnection()) {
+			// Act
+			monitor.check();
+			monitor.check();
+
+			// Assert
+			final var borrower = monitor.snapshot().get(0);
+			assertTrue(borrower.isLeakSuspected());
+			assertTrue(borrower.getStack().get(0).contains("testCheck_HeldPastThreshold_ShouldReportLeakOnce"),
+					borrower.getStack().get(0));
+			assertEquals(1.0, meterRegistry.get("db.pool.connection.leaks").counter().count());
+		}
+	}
+
+	@Test
+	@DisplayName("Should count a saturation once while the pool stays saturated")
+	void testCheck_AllConnectionsInUse_ShouldCountSaturation() throws Exception {
+		// Arrange
+		final var monitor = new ConnectionPoolMonitor(properties, meterRegistry);
+		final var dataSource = monitor.track(pool);
+
+		try (final var first = dataSource.getConnection(); final var second = dataSource.getConnection()) {
+			// Act
+			monitor.check();
+			monitor.check();
+
+			// Assert
+			assertEquals(2, monitor.snapshot().size());
+			assertEquals(1.0, meterRegistry.get("db.pool.saturations").counter().count());
+		}
+		monitor.check();
+		assertEquals(1.0, meterRegistry.get("db.pool.saturations").counter().count());
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,84 @@
+package com.selimhorri.app.config.sql;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+@DisplayName("SlowQueryRecorder Unit Tests")
+class SlowQueryRecorderTest {
+
+	private SqlStatementProperties.SlowQuery properties;
+
+	@BeforeEach
+	void setUp() {
+		properties = new SqlStatementProperties.SlowQuery();
+		properties.setThreshold(Duration.ZERO);
+		properties.setCapacity(3);
+	}
+
+	@Test
+	@DisplayName("Should record statement with bind shapes and capture the EXPLAIN plan once")
+	void testRecord_ThroughDataSource_ShouldCaptureShapesAndPlan() throws Exception {
+		// Arrange
+		final var recorder = new SlowQueryRecorder(properties);
+		final var dataSource = new SlowQueryDataSource(
+				new DriverManagerDataSource("jdbc:h2:mem:slow_query_test;DB_CLOSE_DELAY=-1", "sa", ""), recorder);
+		try (final var connection = dataSource.getConnection()) {
+			connection.createStatement().execute("CREATE TABLE IF NOT EXISTS probes (id INT PRIMARY KEY, name VARCHAR(20))");
+			recorder.clear();
+
+			// Act
+			try (final var statement = connection.prepareStatement(
+					"/* probe lookup */ SELECT name FROM probes WHERE id = ? AND name = ?")) {
+				statement.setInt(1, 1);
+				statement.setString(2, "a");
+				statement.executeQuery().close();
+			}
+		}
+
+		// Assert
+		List<SlowQueryEntry> entries = recorder.snapshot();
+		assertEquals(1, entries.size());
+		assertEquals(List.of("Integer", "String"), entries.get(0).getParameterShapes());
+		for (int i = 0; i < 50 && entries.get(0).getPlan() == null; i++) {
+			Thread.sleep(20);
+			entries = recorder.snapshot();
+		}
+		assertNotNull(entries.get(0).getPlan());
+		assertTrue(entries.get(0).getPlan().toUpperCase().contains("PROBES"));
+		recorder.destroy();
+	}
+
+	@Test
+	@DisplayName("Should keep only the most recent entries, ordered slowest first")
+	void testRecord_BeyondCapacity_ShouldOverwriteOldestAndSortByDuration() {
+		// Arrange
+		properties.setExplainEnabled(false);
+		final var recorder = new SlowQueryRecorder(properties);
+
+		// Act
+		for (int i = 1; i <= 5; i++)
+			recorder.record("UPDATE t SET c = " + i, List.of(), i * 1_000_000L, null);
+
+		// Assert
+		final var entries = recorder.snapshot();
+		assertEquals(3, entries.size());
+		assertEquals("UPDATE t SET c = 5", entries.get(0).getSql());
+		assertEquals(5.0, entries.get(0).getDurationMillis());
+		assertEquals("UPDATE t SET c = 3", entries.get(2).getSql());
+		recorder.destroy();
+	}
+
+	@Test
+	@DisplayName("Should strip leading Hibernate comments before detecting the statement type")
+	void testStripLeadingComments_ShouldRemoveHibernateComments() {
+		assertEquals("select 1", SlowQueryRecorder.stripLeadingComments(" /* a */ /* b */ select 1"));
+	}
+
+}
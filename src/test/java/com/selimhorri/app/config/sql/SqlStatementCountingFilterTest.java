@@ -0,0 +1,93 @@
+package com.selimhorri.app.config.sql;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.servlet.FilterChain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.selimhorri.app.config.sql.SqlStatementProperties.BudgetMode;
+import com.selimhorri.app.exception.wrapper.SqlStatementBudgetExceededException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("SqlStatementCountingFilter Unit Tests")
+class SqlStatementCountingFilterTest {
+
+	private SqlStatementProperties properties;
+	private SimpleMeterRegistry meterRegistry;
+	private SqlStatementCountingFilter filter;
+	private MockHttpServletRequest request;
+
+	@BeforeEach
+	void setUp() {
+		properties = new SqlStatementProperties();
+		properties.getBudget().getEndpoints().put("GET /api/orders/{orderId}", 1);
+		meterRegistry = new SimpleMeterRegistry();
+		filter = new SqlStatementCountingFilter(properties, meterRegistry);
+
+		request = new MockHttpServletRequest("GET", "/api/orders/1");
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/orders/{orderId}");
+	}
+
+	private FilterChain issuing(final int statements) {
+		final var inspector = new SqlStatementCountingInspector();
+		return (req, res) -> {
+			for (int i = 0; i < statements; i++)
+				inspector.inspect("select 1");
+		};
+	}
+
+	@Test
+	@DisplayName("Should pass when statements stay within the endpoint budget")
+	void testDoFilter_WithinBudget_ShouldPass() {
+		// Arrange
+		properties.getBudget().setMode(BudgetMode.FAIL);
+
+		// Act & Assert
+		assertDoesNotThrow(() -> filter.doFilter(request, new MockHttpServletResponse(), issuing(1)));
+		assertNull(SqlRequestStatistics.current());
+	}
+
+	@Test
+	@DisplayName("Should throw when statements exceed the endpoint budget in FAIL mode")
+	void testDoFilter_OverBudget_InFailMode_ShouldThrow() {
+		// Arrange
+		properties.getBudget().setMode(BudgetMode.FAIL);
+
+		// Act & Assert
+		assertThrows(SqlStatementBudgetExceededException.class,
+				() -> filter.doFilter(request, new MockHttpServletResponse(), issuing(3)));
+		assertNull(SqlRequestStatistics.current());
+	}
+
+	@Test
+	@DisplayName("Should only log when statements exceed the endpoint budget in LOG mode")
+	void testDoFilter_OverBudget_InLogMode_ShouldNotThrow() {
+		// Act & Assert
+		assertDoesNotThrow(() -> filter.doFilter(request, new MockHttpServletResponse(), issuing(3)));
+	}
+
+	@Test
+	@DisplayName("Should record statement distribution per endpoint when metrics are enabled")
+	void testDoFilter_WithMetricsEnabled_ShouldRecordDistribution() throws Exception {
+		// Arrange
+		properties.setMetricsEnabled(true);
+
+		// Act
+		filter.doFilter(request, new MockHttpServletResponse(), issuing(1));
+
+		// Assert
+		final var summary = meterRegistry.get("http.server.requests.sql.statements")
+				.tag("uri", "/api/orders/{orderId}")
+				.summary();
+		assertEquals(1, summary.count());
+		assertEquals(1.0, summary.totalAmount());
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.selimhorri.app.event;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.selimhorri.app.config.outbox.OutboxProperties;
+import com.selimhorri.app.domain.OutboxEvent;
+import com.selimhorri.app.domain.enums.OrderEventType;
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.shard.Shards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("OutboxRelay Unit Tests")
+class OutboxRelayTest {
+
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate transactionTemplate;
+	private OutboxProperties properties;
+	private SimpleMeterRegistry meterRegistry;
+	private OrderEventPublisher publisher;
+
+	@BeforeEach
+	void setUp() {
+		final var dataSource = new DriverManagerDataSource("jdbc:h2:mem:outbox_relay_test;DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		jdbcTemplate.execute("DROP TABLE IF EXISTS order_outbox");
+		jdbcTemplate.execute("CREATE TABLE order_outbox (event_id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+				+ "aggregate_id INT NOT NULL, event_type VARCHAR(40) NOT NULL, payload CLOB NOT NULL, "
+				+ "created_at TIMESTAMP NOT NULL, published_at TIMESTAMP NULL, claim_token VARCHAR(36) NULL, "
+				+ "claimed_until TIMESTAMP NULL, attempts INT NOT NULL DEFAULT 0)");
+		properties = new OutboxProperties();
+		properties.setBatchSize(2);
+		meterRegistry = new SimpleMeterRegistry();
+		publisher = new OrderEventPublisher(jdbcTemplate, new ObjectMapper(), properties);
+	}
+
+	private void publishStatusChanges(final int count) {
+		transactionTemplate.executeWithoutResult(tx -> {
+			for (long orderId = 1; orderId <= count; orderId++) {
+				publisher.publish(OrderEvent.builder()
+						.eventType(OrderEventType.ORDER_STATUS_CHANGED)
+						.orderId(orderId)
+						.orderStatus(OrderStatus.ORDERED)
+						.previousStatus(OrderStatus.CREATED)
+						.version(1L)
+						.occurredAt(Instant.now().toEpochMilli())
+						.build());
+			}
+		});
+	}
+
+	@Test
+	@DisplayName("Should deliver pending events oldest first in batches and mark them published")
+	void testPoll_ShouldDeliverAllPendingEventsInBatches() {
+		// Arrange
+		publishStatusChanges(5);
+		final var sink = new InMemoryOrderEventSink(100);
+		final var relay = new OutboxRelay(jdbcTemplate, transactionTemplate, sink, properties, Shards.single(),
+				meterRegistry);
+
+		// Act
+		relay.poll();
+
+		// Assert
+		final List<OutboxEvent> delivered = sink.snapshot();
+		assertEquals(List.of(1L, 2L, 3L, 4L, 5L), delivered.stream()
+				.map(OutboxEvent::getAggregateId)
+				.collect(Collectors.toList()));
+		assertTrue(delivered.get(0).getPayload().contains("\"previousStatus\":\"CREATED\""));
+		assertEquals(0, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM order_outbox WHERE published_at IS NULL", Integer.class));
+		assertEquals(3, meterRegistry.summary("orders.outbox.batch.size").count());
+		assertEquals(5, meterRegistry.timer("orders.outbox.delivery.lag").count());
+		assertEquals(0, relay.relayBatch());
+	}
+
+	@Test
+	@DisplayName("Should release the claim and count an attempt when the sink fails, then deliver on retry")
+	void testRelayBatch_WhenSinkFails_ShouldRetryLater() {
+		// Arrange
+		publishStatusChanges(1);
+		final var sink = new InMemoryOrderEventSink(100);
+		final boolean[] fail = { true };
+		final var relay = new OutboxRelay(jdbcTemplate, transactionTemplate, events -> {
+			if (fail[0])
+				throw new IllegalStateException("broker down");
+			sink.send(events);
+		}, properties, Shards.single(), meterRegistry);
+
+		// Act
+		final int firstAttempt = relay.relayBatch();
+		fail[0] = false;
+		final int secondAttempt = relay.relayBatch();
+
+		// Assert
+		assertEquals(0, firstAttempt);
+		assertEquals(1, secondAttempt);
+		assertEquals(1, sink.snapshot().size());
+		assertEquals(1, sink.snapshot().get(0).getAttempts());
+		assertEquals(1.0, meterRegistry.counter("orders.outbox.failed").count());
+	}
+
+	@Test
+	@DisplayName("Should refuse to write an event outside a transaction")
+	void testPublish_OutsideTransaction_ShouldThrowIllegalState() {
+		// Act & Assert
+		assertThrows(IllegalStateException.class, () -> publisher.publish(OrderEvent.builder()
+				.eventType(OrderEventType.ORDER_CREATED)
+				.orderId(1L)
+				.build()));
+	}
+
+}
@@ -0,0 +1,204 @@
+package com.selimhorri.app.event.bus;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.selimhorri.app.config.eventbus.EventBusProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("ChangeEventBus Unit Tests")
+class ChangeEventBusTest {
+
+	private EventBusProperties properties;
+	private SimpleMeterRegistry meterRegistry;
+	private ChangeEventBus bus;
+
+	@BeforeEach
+	void setUp() {
+		properties = new EventBusProperties();
+		properties.setCapacity(64);
+		properties.setMaxBatchSize(16);
+		properties.setPublishTimeout(Duration.ofSeconds(5));
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (bus != null)
+			bus.stop();
+	}
+
+	private static ChangeEvent event(final int producer, final int number) {
+		return ChangeEvent.builder()
+				.type(ChangeEvent.Type.ORDER_UPDATED)
+				.entityId((long) producer)
+				.version((long) number)
+				.build();
+	}
+
+	@Test
+	@DisplayName("Should deliver every event to every consumer, keeping each producer's order, across many ring laps")
+	void testPublish_ManyProducers_ShouldBroadcastAllEventsInOrder() throws Exception {
+		// Arrange
+		final int producers = 4;
+		final int perProducer = 5_000;
+		final var fast = new RecordingConsumer("fast");
+		final var slow = new RecordingConsumer("slow") {
+			@Override
+			public void onEvent(final ChangeEvent event, final boolean endOfBatch) {
+				if (event.getVersion() % 1000 == 0)
+					Thread.yield();
+				super.onEvent(event, endOfBatch);
+			}
+		};
+		bus = new ChangeEventBus(properties, List.of(fast, slow), meterRegistry);
+		bus.start();
+		final var start = new CountDownLatch(1);
+		final List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			final int producer = p;
+			final var thread = new Thread(() -> {
+				try {
+					start.await();
+				}
+				catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < perProducer; i++)
+					assertTrue(bus.publish(event(producer, i)));
+			});
+			thread.start();
+			threads.add(thread);
+		}
+
+		// Act
+		start.countDown();
+		for (final var thread : threads)
+			thread.join(TimeUnit.SECONDS.toMillis(30));
+		bus.stop();
+
+		// Assert
+		for (final var consumer : List.of(fast, slow)) {
+			assertEquals(producers * perProducer, consumer.events.size(), consumer.name());
+			final long[] last = new long[producers];
+			Arrays.fill(last, -1);
+			for (final var event : consumer.events) {
+				assertEquals(last[event.getEntityId().intValue()] + 1, event.getVersion());
+				last[event.getEntityId().intValue()] = event.getVersion();
+			}
+			assertTrue(consumer.endOfBatchCount > 0);
+		}
+		assertEquals(0.0, meterRegistry.counter("events.bus.dropped").count());
+		assertEquals(0.0, meterRegistry.get("events.bus.consumer.lag").tag("consumer", "slow").gauge().value());
+	}
+
+	@Test
+	@DisplayName("Should drop and count events once a stalled consumer is a full ring behind, and tell consumers")
+	void testPublish_WhenConsumerStalled_ShouldDropAfterTimeout() throws Exception {
+		// Arrange
+		properties.setCapacity(4);
+		properties.setPublishTimeout(Duration.ofMillis(20));
+		final var release = new CountDownLatch(1);
+		final var stalled = new RecordingConsumer("stalled") {
+			@Override
+			public void onEvent(final ChangeEvent event, final boolean endOfBatch) {
+				try {
+					release.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.onEvent(event, endOfBatch);
+			}
+		};
+		bus = new ChangeEventBus(properties, List.of(stalled), meterRegistry);
+		bus.start();
+
+		// Act
+		int accepted = 0;
+		for (int i = 0; i < 10; i++) {
+			if (bus.publish(event(0, i)))
+				accepted++;
+		}
+		release.countDown();
+		bus.stop();
+
+		// Assert
+		assertEquals(bus.getCapacity(), accepted);
+		assertEquals(10.0 - accepted, meterRegistry.counter("events.bus.dropped").count());
+		assertEquals(accepted, stalled.events.size());
+		assertEquals(1, stalled.missedCount);
+	}
+
+	@Test
+	@DisplayName("Should hold events back until the transaction commits and stamp them with the commit time")
+	void testPublishAfterCommit_InsideTransaction_ShouldPublishOnCommit() {
+		// Arrange
+		final var consumer = new RecordingConsumer("recording");
+		bus = new ChangeEventBus(properties, List.of(consumer), meterRegistry);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			// Act
+			bus.publishAfterCommit(event(0, 0));
+			final double beforeCommit = meterRegistry.counter("events.bus.published").count();
+			final long committedAfter = System.currentTimeMillis();
+			TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+
+			// Assert
+			assertEquals(0.0, beforeCommit);
+			assertEquals(1.0, meterRegistry.counter("events.bus.published").count());
+			bus.start();
+			bus.stop();
+			assertTrue(consumer.events.get(0).getOccurredAt() >= committedAfter);
+		}
+		finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	private static class RecordingConsumer implements ChangeEventConsumer {
+
+		private final String name;
+		final List<ChangeEvent> events = Collections.synchronizedList(new ArrayList<>());
+		volatile int endOfBatchCount;
+		volatile int missedCount;
+
+		RecordingConsumer(final String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void onEvent(final ChangeEvent event, final boolean endOfBatch) {
+			this.events.add(event);
+			if (endOfBatch)
+				this.endOfBatchCount++;
+		}
+
+		@Override
+		public void onEventsMissed() {
+			this.missedCount++;
+		}
+
+		@Override
+		public String name() {
+			return this.name;
+		}
+
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.selimhorri.app.event.bus;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.selimhorri.app.config.order.OrderProperties;
+import com.selimhorri.app.domain.enums.OrderStatus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("OrderStatusAuditConsumer Unit Tests")
+class OrderStatusAuditConsumerTest {
+
+	private JdbcTemplate jdbcTemplate;
+	private OrderProperties orderProperties;
+	private SimpleMeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() {
+		final var dataSource = new DriverManagerDataSource("jdbc:h2:mem:order_status_audit_test;DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("DROP TABLE IF EXISTS order_status_history");
+		jdbcTemplate.execute("CREATE TABLE order_status_history (history_id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+				+ "order_id INT NOT NULL, from_status VARCHAR(20) NOT NULL, to_status VARCHAR(20) NOT NULL, "
+				+ "changed_at TIMESTAMP NOT NULL)");
+		orderProperties = new OrderProperties();
+		orderProperties.getAudit().setBatchSize(2);
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	private static ChangeEvent statusChanged(final long orderId) {
+		return ChangeEvent.builder()
+				.type(ChangeEvent.Type.ORDER_STATUS_CHANGED)
+				.entityId(orderId)
+				.fromStatus(OrderStatus.CREATED)
+				.toStatus(OrderStatus.ORDERED)
+				.occurredAt(System.currentTimeMillis())
+				.build();
+	}
+
+	private int historyRows() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_status_history", Integer.class);
+	}
+
+	@Test
+	@DisplayName("Should write status transitions at the end of each bus batch or when batch-size is reached")
+	void testOnEvent_ShouldWriteTransitionsPerBatch() {
+		// Arrange
+		final var consumer = new OrderStatusAuditConsumer(jdbcTemplate, orderProperties, meterRegistry);
+
+		// Act & Assert
+		consumer.onEvent(statusChanged(1), false);
+		assertEquals(0, historyRows());
+		consumer.onEvent(statusChanged(2), false);
+		assertEquals(2, historyRows());
+		consumer.onEvent(ChangeEvent.builder().type(ChangeEvent.Type.CART_CREATED).entityId(9L).build(), false);
+		consumer.onEvent(statusChanged(3), true);
+		assertEquals(3, historyRows());
+		assertEquals(List.of(1, 2, 3), jdbcTemplate.queryForList(
+				"SELECT order_id FROM order_status_history ORDER BY history_id", Integer.class));
+		assertEquals(3.0, meterRegistry.counter("orders.status.audit.written").count());
+	}
+
+	@Test
+	@DisplayName("Should count a failed batch and carry on with the next one")
+	void testOnEvent_WhenInsertFails_ShouldCountAndContinue() {
+		// Arrange
+		final var consumer = new OrderStatusAuditConsumer(jdbcTemplate, orderProperties, meterRegistry);
+		jdbcTemplate.execute("ALTER TABLE order_status_history RENAME TO order_status_history_moved");
+
+		// Act
+		consumer.onEvent(statusChanged(1), true);
+		jdbcTemplate.execute("ALTER TABLE order_status_history_moved RENAME TO order_status_history");
+		consumer.onEvent(statusChanged(2), true);
+
+		// Assert
+		assertEquals(1.0, meterRegistry.counter("orders.status.audit.failed").count());
+		assertEquals(List.of(2), jdbcTemplate.queryForList("SELECT order_id FROM order_status_history", Integer.class));
+	}
+
+}
@@ -0,0 +1,217 @@
+package com.selimhorri.app.event.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.selimhorri.app.domain.enums.OrderStatus;
+
+@DisplayName("OrderJournal Unit Tests")
+class OrderJournalTest {
+
+	// Smallest size allowed, so a few thousand records roll several segments
+	private static final int SEGMENT_SIZE = JournalCodec.MAX_RECORD_SIZE + JournalCodec.HEADER_SIZE;
+
+	@TempDir
+	Path directory;
+
+	private static JournalRecord upsert(final long orderId, final long version) {
+		return JournalRecord.builder()
+				.type(JournalRecord.Type.UPSERT)
+				.orderId(orderId)
+				.version(version)
+				.status(OrderStatus.CREATED)
+				.cartId((int) orderId % 7)
+				.userId(42)
+				.orderDate(LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123_456_000))
+				.orderFeeCents(9950L)
+				.orderDesc("Order número " + orderId)
+				.build();
+	}
+
+	private static JournalRecord status(final long orderId, final long version, final OrderStatus status) {
+		return JournalRecord.builder()
+				.type(JournalRecord.Type.STATUS)
+				.orderId(orderId)
+				.version(version)
+				.status(status)
+				.build();
+	}
+
+	private static List<JournalRecord> replay(final OrderJournal journal) {
+		final List<JournalRecord> records = new ArrayList<>();
+		journal.replay(records::add);
+		return records;
+	}
+
+	private static Map<Long, JournalRecord> latest(final OrderJournal journal) {
+		final Map<Long, JournalRecord> latest = new HashMap<>();
+		journal.replay(record -> latest.merge(record.getOrderId(), record, JournalRecord::apply));
+		return latest;
+	}
+
+	private List<Path> segmentFiles() throws IOException {
+		try (Stream<Path> files = Files.list(this.directory)) {
+			return files.filter(p -> p.toString().endsWith(OrderJournal.SEGMENT_SUFFIX))
+					.sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	@Test
+	@DisplayName("Should replay appended records in order, also after the journal is reopened")
+	void testReplay_ShouldReturnAppendedRecordsInOrder() throws IOException {
+		// Arrange
+		final var records = List.of(
+				upsert(1, 0),
+				JournalRecord.builder().type(JournalRecord.Type.UPSERT).orderId(2).version(0).build(),
+				status(1, 1, OrderStatus.ORDERED),
+				JournalRecord.builder().type(JournalRecord.Type.DEACTIVATE).orderId(2).version(1)
+						.status(OrderStatus.CREATED).build());
+
+		// Act
+		try (var journal = new OrderJournal(this.directory, SEGMENT_SIZE)) {
+			records.forEach(journal::append);
+			assertEquals(records, replay(journal));
+		}
+
+		// Assert
+		try (var reopened = new OrderJournal(this.directory, SEGMENT_SIZE)) {
+			assertEquals(records, replay(reopened));
+			final var latest = latest(reopened);
+			assertEquals(OrderStatus.ORDERED, latest.get(1L).getStatus());
+			assertEquals("Order número 1", latest.get(1L).getOrderDesc());
+			assertEquals(1L, latest.get(1L).getVersion());
+			assertFalse(latest.get(2L).isActive());
+		}
+	}
+
+	@Test
+	@DisplayName("Should stop at a torn record on reopen and keep appending after the last good one")
+	void testOpen_ShouldDiscardTornTail() throws IOException {
+		// Arrange
+		try (var journal = new OrderJournal(this.directory, SEGMENT_SIZE)) {
+			journal.append(upsert(1, 0));
+			journal.append(upsert(2, 0));
+			journal.append(upsert(3, 0));
+		}
+		final int recordSize = new JournalCodec().encode(upsert(1, 0)).remaining();
+		// Flip a payload byte of the third record, as if the crash hit while it was written
+		try (var channel = FileChannel.open(this.segmentFiles().get(0), StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { (byte) 0xFF }), 2L * recordSize + JournalCodec.HEADER_SIZE + 3);
+		}
+
+		// Act & Assert
+		try (var reopened = new OrderJournal(this.directory, SEGMENT_SIZE)) {
+			assertEquals(List.of(upsert(1, 0), upsert(2, 0)), replay(reopened));
+			reopened.append(upsert(4, 0));
+			assertEquals(List.of(upsert(1, 0), upsert(2, 0), upsert(4, 0)), replay(reopened));
+		}
+	}
+
+	@Test
+	@DisplayName("Should still read the fee of records written when fees were journaled as doubles")
+	void testDecode_LegacyDoubleFee_ShouldReadItAsCents() {
+		// Arrange: today's encoding turned into the old one, flag cleared and 99.50 as a double
+		final var codec = new JournalCodec();
+		final ByteBuffer encoded = codec.encode(upsert(1, 0));
+		final ByteBuffer legacy = ByteBuffer.allocate(encoded.remaining()).put(encoded).flip();
+		final int flags = JournalCodec.HEADER_SIZE + 1 + 8 + 8 + 1;
+		legacy.put(flags, (byte) (legacy.get(flags) & ~(1 << 5)));
+		legacy.putDouble(flags + 1 + 4 + 4 + 8, 99.50);
+		final var crc = new CRC32C();
+		crc.update(legacy.duplicate().position(JournalCodec.HEADER_SIZE));
+		legacy.putInt(4, (int) crc.getValue());
+
+		// Act
+		final JournalRecord decoded = codec.decode(legacy);
+
+		// Assert
+		assertEquals(upsert(1, 0), decoded);
+		assertEquals(9950L, decoded.getOrderFeeCents());
+	}
+
+	@Test
+	@DisplayName("Should still read the order id of records written when order ids were ints")
+	void testDecode_LegacyIntOrderId_ShouldReadIt() {
+		// Arrange: today's encoding turned into the old one, type flag cleared and the id an int
+		final var codec = new JournalCodec();
+		final ByteBuffer encoded = codec.encode(status(7, 3, OrderStatus.ORDERED));
+		final int type = JournalCodec.HEADER_SIZE;
+		final ByteBuffer legacy = ByteBuffer.allocate(encoded.remaining() - 4);
+		legacy.putInt(encoded.getInt(0) - 4).putInt(0)
+				.put((byte) (encoded.get(type) & ~(1 << 6)))
+				.putInt((int) encoded.getLong(type + 1))
+				.put(encoded.position(type + 1 + 8))
+				.flip();
+		final var crc = new CRC32C();
+		crc.update(legacy.duplicate().position(JournalCodec.HEADER_SIZE));
+		legacy.putInt(4, (int) crc.getValue());
+
+		// Act
+		final JournalRecord decoded = codec.decode(legacy);
+
+		// Assert
+		assertEquals(status(7, 3, OrderStatus.ORDERED), decoded);
+		assertFalse(legacy.hasRemaining());
+	}
+
+	@Test
+	@DisplayName("Should roll segments and compact the sealed ones to the latest record per order")
+	void testCompact_ShouldKeepLatestStatePerOrder() throws IOException {
+		try (var journal = new OrderJournal(this.directory, SEGMENT_SIZE)) {
+			// Arrange
+			for (int version = 0; version < 1000; version++) {
+				for (int orderId = 1; orderId <= 10; orderId++)
+					journal.append(version % 2 == 0 ? upsert(orderId, version) : status(orderId, version, OrderStatus.ORDERED));
+			}
+			journal.append(JournalRecord.builder().type(JournalRecord.Type.DEACTIVATE).orderId(5).version(1000).build());
+			final int segmentsBefore = journal.segmentCount();
+			final var latestBefore = latest(journal);
+			assertTrue(segmentsBefore > 2, "expected the records to span several segments");
+
+			// Act
+			final int dropped = journal.compact();
+
+			// Assert
+			assertEquals(segmentsBefore - 2, dropped);
+			assertEquals(2, journal.segmentCount());
+			assertEquals(2, this.segmentFiles().size());
+			assertEquals(latestBefore, latest(journal));
+			assertFalse(latest(journal).get(5L).isActive());
+		}
+		try (var reopened = new OrderJournal(this.directory, SEGMENT_SIZE)) {
+			assertEquals(10, latest(reopened).size());
+			assertEquals(999L, latest(reopened).get(1L).getVersion());
+			assertEquals(OrderStatus.ORDERED, latest(reopened).get(1L).getStatus());
+		}
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -29,20 +29,20 @@ class OrderMappingHelperTest {
 				.build();
 
 		testOrder = Order.builder()
-				.orderId(1)
+				.orderId(1L)
 				.orderDate(LocalDateTime.now())
 				.orderDesc("Test order")
-				.orderFee(5000.0)
+				.orderFeeCents(500_000L)
 				.isActive(true)
 				.status(OrderStatus.CREATED)
 				.cart(testCart)
 				.build();
 
 		testOrderDto = OrderDto.builder()
-				.orderId(1)
+				.orderId(1L)
 				.orderDate(LocalDateTime.now())
 				.orderDesc("Test order")
-				.orderFee(5000.0)
+				.orderFeeCents(500_000L)
 				.orderStatus(OrderStatus.CREATED)
 				.cartDto(CartDto.builder().cartId(1).build())
 				.build();
@@ -59,7 +59,7 @@ class OrderMappingHelperTest {
 		assertEquals(testOrder.getOrderId(), result.getOrderId());
 		assertEquals(testOrder.getOrderDate(), result.getOrderDate());
 		assertEquals(testOrder.getOrderDesc(), result.getOrderDesc());
-		assertEquals(testOrder.getOrderFee(), result.getOrderFee());
+		assertEquals(testOrder.getOrderFeeCents(), result.getOrderFeeCents());
 		assertEquals(testOrder.getStatus(), result.getOrderStatus());
 		assertNotNull(result.getCartDto());
 		assertEquals(testOrder.getCart().getCartId(), result.getCartDto().getCartId());
@@ -75,7 +75,7 @@ class OrderMappingHelperTest {
 		assertNotNull(result);
 		assertEquals(testOrderDto.getOrderId(), result.getOrderId());
 		assertEquals(testOrderDto.getOrderDesc(), result.getOrderDesc());
-		assertEquals(testOrderDto.getOrderFee(), result.getOrderFee());
+		assertEquals(testOrderDto.getOrderFeeCents(), result.getOrderFeeCents());
 		assertNotNull(result.getOrderDate());
 		assertNotNull(result.getCart());
 		assertEquals(testOrderDto.getCartDto().getCartId(), result.getCart().getCartId());
@@ -87,7 +87,7 @@ class OrderMappingHelperTest {
 		// Arrange
 		OrderDto orderDtoWithoutStatus = OrderDto.builder()
 				.orderDesc("Order without status")
-				.orderFee(3000.0)
+				.orderFeeCents(300_000L)
 				.orderStatus(null)
 				.cartDto(CartDto.builder().cartId(1).build())
 				.build();
@@ -106,7 +106,7 @@ class OrderMappingHelperTest {
 		// Arrange
 		OrderDto newOrderDto = OrderDto.builder()
 				.orderDesc("New order")
-				.orderFee(3000.0)
+				.orderFeeCents(300_000L)
 				.cartDto(CartDto.builder().cartId(1).build())
 				.build();
 
@@ -127,10 +127,10 @@ class OrderMappingHelperTest {
 	void testMapForUpdate_ShouldPreserveCart() {
 		// Arrange
 		OrderDto updatedOrderDto = OrderDto.builder()
-				.orderId(1)
+				.orderId(1L)
 				.orderDate(LocalDateTime.now())
 				.orderDesc("Updated order")
-				.orderFee(6000.0)
+				.orderFeeCents(600_000L)
 				.build();
 
 		Cart existingCart = Cart.builder()
@@ -145,7 +145,7 @@ class OrderMappingHelperTest {
 		assertNotNull(result);
 		assertEquals(updatedOrderDto.getOrderId(), result.getOrderId());
 		assertEquals(updatedOrderDto.getOrderDesc(), result.getOrderDesc());
-		assertEquals(updatedOrderDto.getOrderFee(), result.getOrderFee());
+		assertEquals(updatedOrderDto.getOrderFeeCents(), result.getOrderFeeCents());
 		assertEquals(updatedOrderDto.getOrderDate(), result.getOrderDate());
 		assertNotNull(result.getCart());
 		assertEquals(existingCart.getCartId(), result.getCart().getCartId());
@@ -157,10 +157,10 @@ class OrderMappingHelperTest {
 	void testMap_WithNullValues_ShouldHandleGracefully() {
 		// Arrange
 		Order orderWithNulls = Order.builder()
-				.orderId(1)
+				.orderId(1L)
 				.orderDate(LocalDateTime.now())
 				.orderDesc(null)
-				.orderFee(null)
+				.orderFeeCents(null)
 				.status(OrderStatus.CREATED)
 				.cart(testCart)
 				.build();
@@ -172,7 +172,7 @@ class OrderMappingHelperTest {
 		assertNotNull(result);
 		assertEquals(1, result.getOrderId());
 		assertNull(result.getOrderDesc());
-		assertNull(result.getOrderFee());
+		assertNull(result.getOrderFeeCents());
 	}
 }
 
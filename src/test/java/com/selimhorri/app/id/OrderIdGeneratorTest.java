@@ -0,0 +1,109 @@
+package com.selimhorri.app.id;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("OrderIdGenerator Unit Tests")
+class OrderIdGeneratorTest {
+
+	private static final long NOW = OrderIdGenerator.EPOCH.toEpochMilli() + 86_400_000L;
+
+	@Test
+	@DisplayName("Should hand out unique ids, increasing on every thread, under contention")
+	void testNext_Concurrently_ShouldBeUniqueAndIncreasing() throws Exception {
+		// Arrange
+		final int threads = 8;
+		final int perThread = 100_000;
+		final var generator = new OrderIdGenerator(5, () -> 3);
+		final Set<Long> seen = ConcurrentHashMap.newKeySet(threads * perThread);
+		final var start = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final List<Future<Boolean>> increasing = new ArrayList<>();
+
+		// Act
+		try {
+			for (int t = 0; t < threads; t++)
+				increasing.add(executor.submit(() -> {
+					start.await();
+					boolean ordered = true;
+					long last = 0;
+					for (int i = 0; i < perThread; i++) {
+						final long id = generator.next();
+						ordered &= id > last;
+						last = id;
+						seen.add(id);
+					}
+					return ordered;
+				}));
+			start.countDown();
+
+			// Assert
+			for (final Future<Boolean> future : increasing)
+				assertTrue(future.get(30, TimeUnit.SECONDS));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertEquals(threads * perThread, seen.size());
+		assertTrue(seen.stream().allMatch(id -> OrderIdGenerator.isGenerated(id)
+				&& OrderIdGenerator.shardOf(id) == 3 && OrderIdGenerator.nodeOf(id) == 5));
+	}
+
+	@Test
+	@DisplayName("Should carry into the next millisecond when the sequence runs out or the clock steps back")
+	void testNext_WithExhaustedSequenceOrClockStepBack_ShouldStayIncreasing() {
+		// Arrange
+		final var clock = new AtomicLong(NOW);
+		final var generator = new OrderIdGenerator(0, () -> 0, clock::get);
+
+		// Act
+		long last = 0;
+		for (int i = 0; i < (1 << OrderIdGenerator.SEQUENCE_BITS) + 10; i++) {
+			final long id = generator.next();
+			assertTrue(id > last);
+			last = id;
+		}
+		clock.set(NOW - 1_000);
+		final long afterStepBack = generator.next();
+		clock.set(NOW + 5);
+		final long afterCatchUp = generator.next();
+
+		// Assert
+		assertEquals(NOW + 1, OrderIdGenerator.instantOf(last).toEpochMilli());
+		assertTrue(afterStepBack > last);
+		assertEquals(NOW + 5, OrderIdGenerator.instantOf(afterCatchUp).toEpochMilli());
+		assertTrue(afterCatchUp > afterStepBack);
+	}
+
+	@Test
+	@DisplayName("Should encode the shard, node and time of an id and reject what does not fit")
+	void testNext_ShouldDecodeAndValidate() {
+		// Arrange
+		final var generator = new OrderIdGenerator(63, () -> 15, () -> NOW);
+
+		// Act
+		final long id = generator.next();
+
+		// Assert
+		assertEquals(15, OrderIdGenerator.shardOf(id));
+		assertEquals(63, OrderIdGenerator.nodeOf(id));
+		assertEquals(NOW, OrderIdGenerator.instantOf(id).toEpochMilli());
+		assertFalse(OrderIdGenerator.isGenerated(Integer.MAX_VALUE));
+		assertThrows(IllegalArgumentException.class, () -> new OrderIdGenerator(64, () -> 0));
+		assertThrows(IllegalStateException.class, () -> new OrderIdGenerator(0, () -> 16).next());
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.selimhorri.app.readmodel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("LongObjectHashMap Unit Tests")
+class LongObjectHashMapTest {
+
+	@Test
+	@DisplayName("Should behave like a HashMap through random puts, removes and resizes")
+	void testRandomOperations_ShouldMatchHashMap() {
+		// Arrange
+		final var random = new Random(42);
+		final var map = new LongObjectHashMap<String>();
+		final Map<Integer, String> expected = new HashMap<>();
+
+		// Act & Assert
+		for (int i = 0; i < 200_000; i++) {
+			// A narrow key range keeps probe runs long and collisions frequent
+			final int key = random.nextInt(5_000) - 100;
+			if (random.nextInt(3) == 0)
+				assertEquals(expected.remove(key), map.remove(key));
+			else
+				assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+		}
+		assertEquals(expected.size(), map.size());
+		for (int key = -100; key < 4_900; key++)
+			assertEquals(expected.get(key), map.get(key), "key " + key);
+		final int[] visited = { 0 };
+		map.forEachValue(value -> visited[0]++);
+		assertEquals(expected.size(), visited[0]);
+	}
+
+	@Test
+	@DisplayName("Should hold order ids that differ only in their timestamp bits")
+	void testPut_ShouldHoldGeneratedOrderIds() {
+		// Arrange, one id per millisecond from one node and shard, sequence 0
+		final var map = new LongObjectHashMap<Long>();
+		final long first = 700_000_000_000L << 22 | 3L << 12;
+
+		// Act
+		for (long i = 0; i < 50_000; i++)
+			map.put(first + (i << 22), i);
+
+		// Assert
+		assertEquals(50_000, map.size());
+		for (long i = 0; i < 50_000; i++)
+			assertEquals(i, map.get(first + (i << 22)));
+		assertNull(map.get(first + 1));
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
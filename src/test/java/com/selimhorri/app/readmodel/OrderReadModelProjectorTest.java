@@ -0,0 +1,183 @@
+package com.selimhorri.app.readmodel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.selimhorri.app.config.readmodel.ReadModelProperties;
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.event.bus.ChangeEvent;
+import com.selimhorri.app.event.journal.JournalRecord;
+import com.selimhorri.app.event.journal.OrderJournal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("OrderReadModelProjector Unit Tests")
+class OrderReadModelProjectorTest {
+
+	@TempDir
+	Path journalDirectory;
+
+	private JdbcTemplate jdbcTemplate;
+	private ReadModelProperties properties;
+
+	@BeforeEach
+	void setUp() {
+		final var dataSource = new DriverManagerDataSource("jdbc:h2:mem:order_read_model_test;DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("DROP TABLE IF EXISTS orders");
+		jdbcTemplate.execute("DROP TABLE IF EXISTS carts");
+		jdbcTemplate.execute("CREATE TABLE carts (cart_id INT PRIMARY KEY, user_id INT)");
+		jdbcTemplate.execute("CREATE TABLE orders (order_id INT PRIMARY KEY, order_date TIMESTAMP, order_desc VARCHAR(255), "
+				+ "order_fee DECIMAL, status VARCHAR(20) NOT NULL, version BIGINT NOT NULL, cart_id INT, "
+				+ "is_active BOOLEAN NOT NULL)");
+		jdbcTemplate.update("INSERT INTO carts VALUES (10, 7)");
+		jdbcTemplate.update("INSERT INTO orders VALUES (1, TIMESTAMP '2024-05-01 10:30:15.123456', 'First', 12.5, "
+				+ "'CREATED', 0, 10, TRUE)");
+		jdbcTemplate.update("INSERT INTO orders VALUES (2, NULL, NULL, NULL, 'ORDERED', 3, NULL, TRUE)");
+		jdbcTemplate.update("INSERT INTO orders VALUES (3, NULL, 'Deleted', 1.0, 'CREATED', 1, 10, FALSE)");
+		properties = new ReadModelProperties();
+	}
+
+	private static List<Long> ids(final List<OrderDto> orders) {
+		return orders.stream().map(OrderDto::getOrderId).collect(Collectors.toList());
+	}
+
+	private static boolean bootstrappedFrom(final SimpleMeterRegistry registry, final String source) {
+		return registry.find("orders.read-model.bootstrap").tag("source", source).timer() != null;
+	}
+
+	@Test
+	@DisplayName("Should load the active orders from the database and then follow committed changes")
+	void testBootstrap_WithoutJournal_ShouldLoadFromDatabase() {
+		// Arrange
+		final var registry = new SimpleMeterRegistry();
+		final var model = new OrderReadModel(registry);
+		final var projector = new OrderReadModelProjector(model, jdbcTemplate, null, properties, registry);
+
+		// Act
+		projector.bootstrap();
+		projector.onEvent(ChangeEvent.builder()
+				.type(ChangeEvent.Type.ORDER_STATUS_CHANGED)
+				.entityId(1L)
+				.fromStatus(OrderStatus.CREATED)
+				.toStatus(OrderStatus.ORDERED)
+				.version(1L)
+				.occurredAt(System.currentTimeMillis())
+				.build(), true);
+
+		// Assert
+		assertTrue(model.isWarm());
+		assertTrue(bootstrappedFrom(registry, "database"));
+		assertEquals(List.of(1L, 2L), ids(model.findAll(null, null)));
+		final var first = model.findById(1);
+		assertEquals("First", first.getOrderDesc());
+		assertEquals(1_250L, first.getOrderFeeCents());
+		assertEquals(123_456_000, first.getOrderDate().getNano());
+		assertEquals(7, first.getCartDto().getUserId());
+		assertEquals(OrderStatus.ORDERED, first.getOrderStatus());
+		assertNull(model.findById(2).getCartDto());
+		assertEquals(1, registry.timer("orders.read-model.lag").count());
+	}
+
+	@Test
+	@DisplayName("Should go cold when events were missed and load again from the database")
+	void testOnEventsMissed_ShouldReloadFromDatabase() throws InterruptedException {
+		// Arrange
+		final var registry = new SimpleMeterRegistry();
+		final var model = new OrderReadModel(registry);
+		final var projector = new OrderReadModelProjector(model, jdbcTemplate, null, properties, registry);
+		projector.bootstrap();
+		// Committed, but its event was dropped by the bus
+		jdbcTemplate.update("INSERT INTO orders VALUES (4, NULL, 'Missed', 2.0, 'CREATED', 0, 10, TRUE)");
+
+		// Act
+		projector.onEventsMissed();
+		final boolean coldRightAway = !model.isWarm();
+		for (int i = 0; i < 100 && !model.isWarm(); i++)
+			Thread.sleep(20);
+
+		// Assert
+		assertTrue(coldRightAway);
+		assertTrue(model.isWarm());
+		assertEquals(List.of(1L, 2L, 4L), ids(model.findAll(null, null)));
+		assertEquals("Missed", model.findById(4).getOrderDesc());
+	}
+
+	@Test
+	@DisplayName("Should seed the journal from the database and replay it on the next start while it matches")
+	void testBootstrap_WithJournal_ShouldReplayItWhileItMatchesDatabase() throws IOException {
+		try (var journal = new OrderJournal(journalDirectory, 1 << 20)) {
+			// Act: empty journal, so the database is read and the journal seeded
+			final var firstRegistry = new SimpleMeterRegistry();
+			new OrderReadModelProjector(new OrderReadModel(firstRegistry), jdbcTemplate, journal, properties,
+					firstRegistry).bootstrap();
+
+			final var secondRegistry = new SimpleMeterRegistry();
+			final var secondModel = new OrderReadModel(secondRegistry);
+			new OrderReadModelProjector(secondModel, jdbcTemplate, journal, properties, secondRegistry).bootstrap();
+
+			// An order only the journal knows, e.g. archived while this instance was down
+			journal.append(JournalRecord.builder().type(JournalRecord.Type.UPSERT).orderId(99).version(0)
+					.status(OrderStatus.CREATED).build());
+			final var thirdRegistry = new SimpleMeterRegistry();
+			final var thirdModel = new OrderReadModel(thirdRegistry);
+			new OrderReadModelProjector(thirdModel, jdbcTemplate, journal, properties, thirdRegistry).bootstrap();
+
+			final var fourthRegistry = new SimpleMeterRegistry();
+			new OrderReadModelProjector(new OrderReadModel(fourthRegistry), jdbcTemplate, journal, properties,
+					fourthRegistry).bootstrap();
+
+			// Assert
+			assertTrue(bootstrappedFrom(firstRegistry, "database"));
+			assertTrue(bootstrappedFrom(secondRegistry, "journal"));
+			assertEquals(List.of(1L, 2L), ids(secondModel.findAll(null, null)));
+			assertEquals("First", secondModel.findById(1).getOrderDesc());
+			assertTrue(bootstrappedFrom(thirdRegistry, "database"));
+			assertNull(thirdModel.findById(99));
+			assertTrue(bootstrappedFrom(fourthRegistry, "journal"));
+		}
+	}
+
+	@Test
+	@DisplayName("Should take the database over a journal that is ahead of it, e.g. after a restore")
+	void testBootstrap_WithJournalAheadOfDatabase_ShouldServeDatabaseState() throws IOException {
+		try (var journal = new OrderJournal(journalDirectory, 1 << 20)) {
+			// Arrange
+			journal.append(JournalRecord.builder().type(JournalRecord.Type.STATUS).orderId(1).version(5)
+					.status(OrderStatus.IN_PAYMENT).build());
+			final var registry = new SimpleMeterRegistry();
+			final var model = new OrderReadModel(registry);
+
+			// Act
+			new OrderReadModelProjector(model, jdbcTemplate, journal, properties, registry).bootstrap();
+
+			// Assert
+			assertTrue(bootstrappedFrom(registry, "database"));
+			assertEquals(OrderStatus.CREATED, model.findById(1).getOrderStatus());
+			assertEquals(0L, model.findById(1).getVersion());
+		}
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,122 @@
+package com.selimhorri.app.readmodel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.event.journal.JournalRecord;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("OrderReadModel Unit Tests")
+class OrderReadModelTest {
+
+	private OrderReadModel model;
+
+	@BeforeEach
+	void setUp() {
+		model = new OrderReadModel(new SimpleMeterRegistry());
+	}
+
+	private static JournalRecord upsert(final long orderId, final int cartId, final long version, final OrderStatus status) {
+		return JournalRecord.builder()
+				.type(JournalRecord.Type.UPSERT)
+				.orderId(orderId)
+				.version(version)
+				.status(status)
+				.cartId(cartId)
+				.userId(7)
+				.orderDate(LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123_456_000))
+				.orderFeeCents(1_000L * orderId)
+				.orderDesc("Order " + orderId)
+				.build();
+	}
+
+	private static JournalRecord status(final long orderId, final long version, final OrderStatus status) {
+		return JournalRecord.builder().type(JournalRecord.Type.STATUS).orderId(orderId).version(version).status(status).build();
+	}
+
+	private static JournalRecord deactivate(final long orderId, final long version) {
+		return JournalRecord.builder().type(JournalRecord.Type.DEACTIVATE).orderId(orderId).version(version).build();
+	}
+
+	private static List<Long> ids(final List<OrderDto> orders) {
+		return orders.stream().map(OrderDto::getOrderId).collect(Collectors.toList());
+	}
+
+	@Test
+	@DisplayName("Should answer by id, by cart and by status and keep the indexes in step with changes")
+	void testQueries_ShouldFollowChanges() {
+		// Arrange
+		model.apply(upsert(1, 10, 0, OrderStatus.CREATED));
+		model.apply(upsert(2, 10, 0, OrderStatus.CREATED));
+		model.apply(upsert(3, 20, 0, OrderStatus.CREATED));
+		model.markWarm();
+
+		// Act
+		model.apply(status(2, 1, OrderStatus.ORDERED));
+		model.apply(deactivate(3, 1));
+
+		// Assert
+		final var order = model.findById(1);
+		assertEquals("Order 1", order.getOrderDesc());
+		assertEquals(1_000L, order.getOrderFeeCents());
+		assertEquals(LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123_456_000), order.getOrderDate());
+		assertEquals(10, order.getCartDto().getCartId());
+		assertEquals(7, order.getCartDto().getUserId());
+		assertEquals(0L, order.getVersion());
+		assertNull(model.findById(3));
+		assertEquals(List.of(1L, 2L), ids(model.findAll(null, null)));
+		assertEquals(List.of(1L, 2L), ids(model.findAll(10, null)));
+		assertEquals(List.of(2L), ids(model.findAll(10, OrderStatus.ORDERED)));
+		assertEquals(List.of(1L), ids(model.findAll(null, OrderStatus.CREATED)));
+		assertEquals(List.of(), ids(model.findAll(20, null)));
+		assertEquals(new OrderReadModel.Fingerprint(2, 1, 2), model.fingerprint());
+	}
+
+	@Test
+	@DisplayName("Should end at the latest state whichever order the load and live changes arrive in")
+	void testApply_DuringWarmUp_ShouldKeepNewestState() {
+		// Act: live changes seen before the load read the orders, then the older loaded state
+		model.apply(status(1, 1, OrderStatus.ORDERED));
+		model.apply(deactivate(2, 1));
+		model.apply(upsert(1, 10, 0, OrderStatus.CREATED));
+		model.apply(upsert(2, 10, 0, OrderStatus.CREATED));
+		model.apply(upsert(3, 10, 2, OrderStatus.IN_PAYMENT));
+		model.apply(upsert(3, 10, 1, OrderStatus.ORDERED));
+		// A status change for an order the load never finds
+		model.apply(status(4, 3, OrderStatus.ORDERED));
+		model.markWarm();
+
+		// Assert
+		assertTrue(model.isWarm());
+		assertEquals(OrderStatus.ORDERED, model.findById(1).getOrderStatus());
+		assertEquals(1L, model.findById(1).getVersion());
+		assertEquals("Order 1", model.findById(1).getOrderDesc());
+		assertNull(model.findById(2));
+		assertEquals(OrderStatus.IN_PAYMENT, model.findById(3).getOrderStatus());
+		assertNull(model.findById(4));
+		assertEquals(List.of(1L, 3L), ids(model.findAll(10, null)));
+		assertArrayEquals(new long[] { 1, 3 }, Arrays.stream(model.activeOrderIds()).sorted().toArray());
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
@@ -0,0 +1,163 @@
+package com.selimhorri.app.resource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.CartDto;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.readmodel.OrderReadModel;
+import com.selimhorri.app.summary.OrderStatistics;
+
+/**
+ * Cart changes that reach its orders through the cascade or the join, with the read model on.
+ * Nothing here is rolled back: the bus only hears of committed changes.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:cart_cascade;DB_CLOSE_DELAY=-1",
+		"app.read-model.enabled=true" })
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Cart cascade Integration Tests")
+class CartCascadeIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private OrderReadModel orderReadModel;
+
+	@Autowired
+	private OrderStatistics orderStatistics;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	@DisplayName("DELETE /api/carts/{cartId} - Should drop the orders the delete cascades to from the listing and the cache")
+	void testDeleteCart_ShouldDropItsOrdersFromListing() throws Exception {
+		// Arrange
+		final int cartId = this.createCart(1);
+		final long orderId = this.createOrder(cartId);
+		final long otherOrderId = this.createOrder(this.createCart(2));
+		this.awaitListed(orderId, true);
+		// Puts the body in the hot order cache
+		mockMvc.perform(get("/api/orders/" + orderId))
+				.andExpect(status().isOk());
+		final long activeBefore = orderStatistics.getActiveOrders(OrderStatus.CREATED);
+		final long summarizedBefore = this.summarizedOrders();
+
+		// Act
+		mockMvc.perform(delete("/api/carts/" + cartId))
+				.andExpect(status().isOk());
+
+		// Assert
+		this.awaitListed(orderId, false);
+		assertTrue(orderReadModel.isWarm());
+		assertFalse(this.listedOrderIds().contains(orderId));
+		assertTrue(this.listedOrderIds().contains(otherOrderId));
+		mockMvc.perform(get("/api/orders/" + orderId))
+				.andExpect(status().isNotFound());
+		assertEquals(activeBefore - 1, orderStatistics.getActiveOrders(OrderStatus.CREATED));
+		assertEquals(summarizedBefore - 1, this.summarizedOrders());
+	}
+
+	@Test
+	@DisplayName("PUT /api/carts - Should list the cart's orders with the cart's new user")
+	void testUpdateCartUser_ShouldListOrdersWithNewUser() throws Exception {
+		// Arrange
+		final int cartId = this.createCart(3);
+		final long orderId = this.createOrder(cartId);
+		this.awaitListed(orderId, true);
+
+		// Act
+		mockMvc.perform(put("/api/carts")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(CartDto.builder().cartId(cartId).userId(4).build())))
+				.andExpect(status().isOk());
+
+		// Assert
+		for (int i = 0; i < 250 && !Integer.valueOf(4).equals(this.userOf(orderId)); i++)
+			Thread.sleep(20);
+		assertEquals(4, this.userOf(orderId));
+	}
+
+	private int createCart(final int userId) throws Exception {
+		final String body = mockMvc.perform(post("/api/carts")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(CartDto.builder().userId(userId).build())))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readValue(body, CartDto.class).getCartId();
+	}
+
+	private long createOrder(final int cartId) throws Exception {
+		final String body = mockMvc.perform(post("/api/orders")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"orderDesc\":\"Cascaded\",\"orderFee\":\"10.00\",\"cart\":{\"cartId\":" + cartId + "}}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readValue(body, OrderDto.class).getOrderId();
+	}
+
+	// The read model follows the bus on its own thread, and warms up after the context starts
+	private void awaitListed(final long orderId, final boolean listed) throws Exception {
+		for (int i = 0; i < 250 && !(orderReadModel.isWarm() && this.listedOrderIds().contains(orderId) == listed); i++)
+			Thread.sleep(20);
+	}
+
+	private List<Long> listedOrderIds() throws Exception {
+		final List<Long> ids = new ArrayList<>();
+		objectMapper.readTree(mockMvc.perform(get("/api/orders"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString())
+				.get("collection")
+				.forEach(order -> ids.add(order.get("orderId").asLong()));
+		return ids;
+	}
+
+	private long summarizedOrders() {
+		return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(order_count), 0) FROM order_daily_summary", Long.class);
+	}
+
+	private Integer userOf(final long orderId) throws Exception {
+		final var order = objectMapper.readTree(mockMvc.perform(get("/api/orders"))
+				.andReturn().getResponse().getContentAsString())
+				.get("collection")
+				.findParents("orderId")
+				.stream()
+				.filter(o -> o.get("orderId").asLong() == orderId)
+				.findFirst()
+				.orElseThrow();
+		return order.path("cart").path("userId").isNumber() ? order.path("cart").path("userId").asInt() : null;
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
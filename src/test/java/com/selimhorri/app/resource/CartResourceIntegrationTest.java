@@ -5,6 +5,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import javax.persistence.EntityManager;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -19,10 +21,12 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.selimhorri.app.config.sql.SqlStatementHeaderAdvice;
 import com.selimhorri.app.domain.Cart;
 import com.selimhorri.app.dto.CartDto;
 import com.selimhorri.app.dto.UserDto;
 import com.selimhorri.app.repository.CartRepository;
+import com.selimhorri.app.service.IdempotencyService;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -40,6 +44,9 @@ class CartResourceIntegrationTest {
 	@Autowired
 	private CartRepository cartRepository;
 
+	@Autowired
+	private EntityManager entityManager;
+
 	@MockBean
 	private RestTemplate restTemplate;
 
@@ -56,6 +63,8 @@ class CartResourceIntegrationTest {
 				.userId(1)
 				.build();
 		testCart = cartRepository.save(testCart);
+		entityManager.flush();
+		entityManager.clear();
 
 		// Mock user service response
 		testUserDto = UserDto.builder()
@@ -87,7 +96,8 @@ class CartResourceIntegrationTest {
 				.andDo(print())
 				.andExpect(status().isOk())
 				.andExpect(jsonPath("$.cartId").value(testCart.getCartId()))
-				.andExpect(jsonPath("$.userId").value(1));
+				.andExpect(jsonPath("$.userId").value(1))
+				.andExpect(header().string(SqlStatementHeaderAdvice.STATEMENT_COUNT_HEADER, "1"));
 	}
 
 	@Test
@@ -118,6 +128,27 @@ class CartResourceIntegrationTest {
 				.andExpect(jsonPath("$.userId").value(2));
 	}
 
+	@Test
+	@DisplayName("POST /api/carts - Should replay the stored response for a repeated Idempotency-Key")
+	void testSave_WithRepeatedIdempotencyKey_ShouldCreateCartOnce() throws Exception {
+		// Arrange
+		CartDto newCartDto = CartDto.builder()
+				.userId(7)
+				.build();
+		long cartsBefore = cartRepository.count();
+
+		// Act & Assert
+		for (int attempt = 0; attempt < 2; attempt++)
+			mockMvc.perform(post("/api/carts")
+					.header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "cart-retry-1")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(objectMapper.writeValueAsString(newCartDto)))
+					.andDo(print())
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.userId").value(7));
+		assertEquals(cartsBefore + 1, cartRepository.count());
+	}
+
 	@Test
 	@DisplayName("POST /api/carts - Should return 400 when request body is null")
 	void testSave_WhenRequestBodyIsNull_ShouldReturn400() throws Exception {
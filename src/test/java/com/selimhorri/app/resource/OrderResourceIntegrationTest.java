@@ -5,7 +5,12 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,18 +19,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.selimhorri.app.archive.OrderArchiver;
+import com.selimhorri.app.cache.HotOrderCache;
+import com.selimhorri.app.config.sql.SqlStatementHeaderAdvice;
 import com.selimhorri.app.domain.Cart;
 import com.selimhorri.app.domain.Order;
 import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.BulkStatusUpdateDto;
 import com.selimhorri.app.dto.CartDto;
 import com.selimhorri.app.dto.OrderDto;
 import com.selimhorri.app.repository.CartRepository;
 import com.selimhorri.app.repository.OrderRepository;
+import com.selimhorri.app.service.IdempotencyService;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -46,12 +58,25 @@ class OrderResourceIntegrationTest {
 	@Autowired
 	private CartRepository cartRepository;
 
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private HotOrderCache hotOrderCache;
+
+	@Autowired
+	private OrderArchiver orderArchiver;
+
 	private Cart testCart;
 	private Order testOrder;
 
 	@BeforeEach
 	void setUp() {
-		// Clean database
+		// Clean database, and the cached bodies of orders the rollback took away
+		hotOrderCache.clear();
 		orderRepository.deleteAll();
 		cartRepository.deleteAll();
 
@@ -64,12 +89,18 @@ class OrderResourceIntegrationTest {
 		// Create test order
 		testOrder = Order.builder()
 				.orderDesc("Test order")
-				.orderFee(5000.0)
+				.orderDate(LocalDateTime.now())
+				.orderFeeCents(500_000L)
 				.isActive(true)
 				.status(OrderStatus.CREATED)
 				.cart(testCart)
 				.build();
 		testOrder = orderRepository.save(testOrder);
+
+		// Start every request with an empty persistence context, as in production,
+		// so the SQL statement budget sees every lazy/eager load
+		entityManager.flush();
+		entityManager.clear();
 	}
 
 	@Test
@@ -85,6 +116,130 @@ class OrderResourceIntegrationTest {
 				.andExpect(jsonPath("$.collection[0].orderDesc").value("Test order"));
 	}
 
+	@Test
+	@DisplayName("GET /api/orders - Should load orders of many carts in a single statement")
+	void testFindAll_WithManyCarts_ShouldNotIssueOneSelectPerCart() throws Exception {
+		// Arrange
+		for (int i = 2; i <= 5; i++) {
+			Cart cart = cartRepository.save(Cart.builder().userId(i).build());
+			orderRepository.save(Order.builder()
+					.orderDesc("Order " + i)
+					.orderFeeCents(100_000L * i)
+					.isActive(true)
+					.status(OrderStatus.CREATED)
+					.cart(cart)
+					.build());
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		// Act & Assert
+		mockMvc.perform(get("/api/orders")
+				.contentType(MediaType.APPLICATION_JSON))
+				.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.collection.length()").value(5))
+				.andExpect(header().string(SqlStatementHeaderAdvice.STATEMENT_COUNT_HEADER, "1"))
+				.andExpect(header().string(SqlStatementHeaderAdvice.ROWS_FETCHED_HEADER, "10"));
+	}
+
+	@Test
+	@DisplayName("GET /api/orders?cartId&status - Should return only the matching active orders")
+	void testFindAll_WithCartAndStatusFilters_ShouldReturnMatchingOrders() throws Exception {
+		// Arrange
+		Cart otherCart = cartRepository.save(Cart.builder().userId(2).build());
+		orderRepository.save(Order.builder()
+				.orderDesc("Other cart")
+				.orderFeeCents(100_000L)
+				.isActive(true)
+				.status(OrderStatus.ORDERED)
+				.cart(otherCart)
+				.build());
+		orderRepository.save(Order.builder()
+				.orderDesc("Ordered")
+				.orderFeeCents(200_000L)
+				.isActive(true)
+				.status(OrderStatus.ORDERED)
+				.cart(testCart)
+				.build());
+		entityManager.flush();
+		entityManager.clear();
+
+		// Act & Assert
+		mockMvc.perform(get("/api/orders").param("cartId", String.valueOf(testCart.getCartId())))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.collection.length()").value(2))
+				.andExpect(header().string(SqlStatementHeaderAdvice.STATEMENT_COUNT_HEADER, "1"));
+		mockMvc.perform(get("/api/orders")
+				.param("cartId", String.valueOf(testCart.getCartId()))
+				.param("status", "ORDERED"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.collection.length()").value(1))
+				.andExpect(jsonPath("$.collection[0].orderDesc").value("Ordered"));
+		mockMvc.perform(get("/api/orders").param("status", "ORDERED"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.collection.length()").value(2));
+	}
+
+	@Test
+	@DisplayName("GET /api/orders?from&to&status - Should return active orders dated in the range")
+	void testFindAll_WithOrderDateRange_ShouldReturnOrdersInRange() throws Exception {
+		// Arrange
+		orderRepository.save(Order.builder()
+				.orderDesc("Before")
+				.orderDate(LocalDateTime.of(2025, 2, 28, 23, 59))
+				.orderFeeCents(100_000L)
+				.isActive(true)
+				.status(OrderStatus.CREATED)
+				.cart(testCart)
+				.build());
+		orderRepository.save(Order.builder()
+				.orderDesc("First day")
+				.orderDate(LocalDateTime.of(2025, 3, 1, 0, 0))
+				.orderFeeCents(200_000L)
+				.isActive(true)
+				.status(OrderStatus.CREATED)
+				.cart(testCart)
+				.build());
+		orderRepository.save(Order.builder()
+				.orderDesc("Last day")
+				.orderDate(LocalDateTime.of(2025, 3, 31, 23, 59))
+				.orderFeeCents(300_000L)
+				.isActive(true)
+				.status(OrderStatus.ORDERED)
+				.cart(testCart)
+				.build());
+		orderRepository.save(Order.builder()
+				.orderDesc("Deactivated")
+				.orderDate(LocalDateTime.of(2025, 3, 15, 12, 0))
+				.orderFeeCents(400_000L)
+				.isActive(false)
+				.status(OrderStatus.CREATED)
+				.cart(testCart)
+				.build());
+		entityManager.flush();
+		entityManager.clear();
+
+		// Act & Assert
+		mockMvc.perform(get("/api/orders").param("from", "2025-03-01").param("to", "2025-03-31"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.collection.length()").value(2))
+				.andExpect(jsonPath("$.collection[0].orderDesc").value("First day"))
+				.andExpect(jsonPath("$.collection[1].orderDesc").value("Last day"))
+				.andExpect(header().string(SqlStatementHeaderAdvice.STATEMENT_COUNT_HEADER, "1"));
+		mockMvc.perform(get("/api/orders")
+				.param("from", "2025-03-01")
+				.param("to", "2025-03-31")
+				.param("status", "ORDERED"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.collection.length()").value(1))
+				.andExpect(jsonPath("$.collection[0].orderDesc").value("Last day"));
+		mockMvc.perform(get("/api/orders").param("from", "2025-03-31").param("to", "2025-03-01"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/orders").param("from", "2025-03-01"))
+				.andExpect(status().isBadRequest());
+	}
+
 	@Test
 	@DisplayName("GET /api/orders/{orderId} - Should return order by id")
 	void testFindById_ShouldReturnOrder() throws Exception {
@@ -93,9 +248,37 @@ class OrderResourceIntegrationTest {
 				.contentType(MediaType.APPLICATION_JSON))
 				.andDo(print())
 				.andExpect(status().isOk())
-				.andExpect(jsonPath("$.orderId").value(testOrder.getOrderId()))
+				.andExpect(jsonPath("$.orderId").value(String.valueOf(testOrder.getOrderId())))
 				.andExpect(jsonPath("$.orderDesc").value("Test order"))
-				.andExpect(jsonPath("$.orderFee").value(5000.0));
+				.andExpect(jsonPath("$.orderFee").value(5000.0))
+				.andExpect(header().string("ETag", "\"0\""))
+				.andExpect(header().string(SqlStatementHeaderAdvice.STATEMENT_COUNT_HEADER, "1"));
+	}
+
+	@Test
+	@DisplayName("GET /api/orders/{orderId} - Should serve a repeated read from the hot cache until the order changes")
+	void testFindById_WhenRepeated_ShouldServeFromCacheUntilChanged() throws Exception {
+		// Arrange
+		final String first = mockMvc.perform(get("/api/orders/" + testOrder.getOrderId()))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		// Act & Assert
+		mockMvc.perform(get("/api/orders/" + testOrder.getOrderId()))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+				.andExpect(content().string(first))
+				.andExpect(header().string("ETag", "\"0\""))
+				.andExpect(header().string(SqlStatementHeaderAdvice.STATEMENT_COUNT_HEADER, "0"));
+
+		mockMvc.perform(patch("/api/orders/" + testOrder.getOrderId() + "/status"))
+				.andExpect(status().isOk());
+		entityManager.clear();
+
+		mockMvc.perform(get("/api/orders/" + testOrder.getOrderId()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.orderStatus").value("ORDERED"))
+				.andExpect(header().string("ETag", "\"1\""));
 	}
 
 	@Test
@@ -114,7 +297,7 @@ class OrderResourceIntegrationTest {
 		// Arrange
 		OrderDto newOrderDto = OrderDto.builder()
 				.orderDesc("New order")
-				.orderFee(3000.0)
+				.orderFeeCents(300_000L)
 				.cartDto(CartDto.builder().cartId(testCart.getCartId()).build())
 				.build();
 
@@ -130,13 +313,147 @@ class OrderResourceIntegrationTest {
 				.andExpect(jsonPath("$.orderStatus").value("CREATED"));
 	}
 
+	@Test
+	@DisplayName("POST /api/orders - Should keep fees exact, past the old 99,999.99 limit, and in the same JSON shape")
+	void testSave_WithLargeAndFractionalFees_ShouldKeepThemExact() throws Exception {
+		// Arrange
+		final String cart = "\"cart\":{\"cartId\":" + testCart.getCartId() + "}";
+
+		// Act & Assert
+		final String body = mockMvc.perform(post("/api/orders")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"orderDesc\":\"Large\",\"orderFee\":123456789.01," + cart + "}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.orderFee").value(123456789.01))
+				.andReturn().getResponse().getContentAsString();
+		final long orderId = objectMapper.readValue(body, OrderDto.class).getOrderId();
+		assertEquals(12_345_678_901L, objectMapper.readValue(body, OrderDto.class).getOrderFeeCents());
+		for (int i = 0; i < 3; i++) {
+			mockMvc.perform(post("/api/orders")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("{\"orderDesc\":\"Small\",\"orderFee\":\"0.1\"," + cart + "}"))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.orderFee").value(0.1));
+		}
+		mockMvc.perform(post("/api/orders")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"orderDesc\":\"Broken\",\"orderFee\":\"ten\"," + cart + "}"))
+				.andExpect(status().isBadRequest());
+		entityManager.flush();
+		entityManager.clear();
+
+		final String today = LocalDateTime.now().toLocalDate().toString();
+		mockMvc.perform(get("/api/orders/" + orderId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.orderFee").value(123456789.01));
+		// 0.1 three times as doubles would be 0.30000000000000004
+		mockMvc.perform(get("/api/orders/summary").param("from", today).param("to", today))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.collection[0].totalFee").value(123456789.31));
+	}
+
+	@Test
+	@DisplayName("POST then PATCH /api/orders - Should write one outbox event per change in the same transaction")
+	void testSaveAndUpdateStatus_ShouldWriteOutboxEvents() throws Exception {
+		// Arrange
+		OrderDto newOrderDto = OrderDto.builder()
+				.orderDesc("New order")
+				.orderFeeCents(300_000L)
+				.cartDto(CartDto.builder().cartId(testCart.getCartId()).build())
+				.build();
+
+		// Act
+		MvcResult result = mockMvc.perform(post("/api/orders")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(newOrderDto)))
+				.andExpect(status().isOk())
+				.andReturn();
+		long orderId = objectMapper.readValue(result.getResponse().getContentAsString(), OrderDto.class).getOrderId();
+		// The insert of a generated id waits for the flush, which the commit of a real request does
+		entityManager.flush();
+		mockMvc.perform(patch("/api/orders/" + orderId + "/status"))
+				.andExpect(status().isOk());
+
+		// Assert
+		assertEquals(List.of("ORDER_CREATED", "ORDER_STATUS_CHANGED"), jdbcTemplate.queryForList(
+				"SELECT event_type FROM order_outbox WHERE aggregate_id = ? ORDER BY event_id", String.class, orderId));
+		assertTrue(jdbcTemplate.queryForObject(
+				"SELECT payload FROM order_outbox WHERE aggregate_id = ? AND event_type = 'ORDER_STATUS_CHANGED'",
+				String.class, orderId).contains("\"version\":1"));
+	}
+
+	@Test
+	@DisplayName("POST /api/orders - Should replay the stored response for a repeated Idempotency-Key")
+	void testSave_WithRepeatedIdempotencyKey_ShouldCreateOrderOnce() throws Exception {
+		// Arrange
+		OrderDto newOrderDto = OrderDto.builder()
+				.orderDesc("Retried order")
+				.orderFeeCents(300_000L)
+				.cartDto(CartDto.builder().cartId(testCart.getCartId()).build())
+				.build();
+		long ordersBefore = orderRepository.count();
+
+		// Act
+		MvcResult first = mockMvc.perform(post("/api/orders")
+				.header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "order-retry-1")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(newOrderDto)))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(IdempotencyService.REPLAYED_HEADER))
+				.andReturn();
+		MvcResult retry = mockMvc.perform(post("/api/orders")
+				.header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "order-retry-1")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(newOrderDto)))
+				.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true"))
+				.andReturn();
+
+		// Assert
+		OrderDto created = objectMapper.readValue(first.getResponse().getContentAsString(), OrderDto.class);
+		OrderDto replayed = objectMapper.readValue(retry.getResponse().getContentAsString(), OrderDto.class);
+		assertEquals(created.getOrderId(), replayed.getOrderId());
+		assertEquals(created.getOrderDate(), replayed.getOrderDate());
+		assertEquals(ordersBefore + 1, orderRepository.count());
+	}
+
+	@Test
+	@DisplayName("POST /api/orders - Should return 409 when an Idempotency-Key is reused for a different order")
+	void testSave_WithIdempotencyKeyReusedForDifferentBody_ShouldReturn409() throws Exception {
+		// Arrange
+		OrderDto firstOrderDto = OrderDto.builder()
+				.orderDesc("First order")
+				.orderFeeCents(300_000L)
+				.cartDto(CartDto.builder().cartId(testCart.getCartId()).build())
+				.build();
+		OrderDto otherOrderDto = OrderDto.builder()
+				.orderDesc("Other order")
+				.orderFeeCents(900_000L)
+				.cartDto(CartDto.builder().cartId(testCart.getCartId()).build())
+				.build();
+		mockMvc.perform(post("/api/orders")
+				.header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "order-retry-2")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(firstOrderDto)))
+				.andExpect(status().isOk());
+
+		// Act & Assert
+		mockMvc.perform(post("/api/orders")
+				.header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "order-retry-2")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(otherOrderDto)))
+				.andDo(print())
+				.andExpect(status().isConflict());
+	}
+
 	@Test
 	@DisplayName("POST /api/orders - Should return 400 when cart is null")
 	void testSave_WhenCartIsNull_ShouldReturn400() throws Exception {
 		// Arrange
 		OrderDto orderDtoWithoutCart = OrderDto.builder()
 				.orderDesc("Order without cart")
-				.orderFee(3000.0)
+				.orderFeeCents(300_000L)
 				.cartDto(null)
 				.build();
 
@@ -154,7 +471,7 @@ class OrderResourceIntegrationTest {
 		// Arrange
 		OrderDto orderDto = OrderDto.builder()
 				.orderDesc("Order")
-				.orderFee(3000.0)
+				.orderFeeCents(300_000L)
 				.cartDto(CartDto.builder().cartId(999).build())
 				.build();
 
@@ -175,6 +492,9 @@ class OrderResourceIntegrationTest {
 				.andDo(print())
 				.andExpect(status().isOk())
 				.andExpect(jsonPath("$.orderStatus").value("ORDERED"));
+
+		entityManager.clear();
+		assertEquals(OrderStatus.ORDERED, orderRepository.findById(testOrder.getOrderId()).orElseThrow().getStatus());
 	}
 
 	@Test
@@ -183,6 +503,8 @@ class OrderResourceIntegrationTest {
 		// Arrange - Update order to ORDERED first
 		testOrder.setStatus(OrderStatus.ORDERED);
 		testOrder = orderRepository.save(testOrder);
+		entityManager.flush();
+		entityManager.clear();
 
 		// Act & Assert
 		mockMvc.perform(patch("/api/orders/" + testOrder.getOrderId() + "/status")
@@ -198,6 +520,8 @@ class OrderResourceIntegrationTest {
 		// Arrange - Update order to IN_PAYMENT
 		testOrder.setStatus(OrderStatus.IN_PAYMENT);
 		testOrder = orderRepository.save(testOrder);
+		entityManager.flush();
+		entityManager.clear();
 
 		// Act & Assert - IllegalStateException should return 400
 		mockMvc.perform(patch("/api/orders/" + testOrder.getOrderId() + "/status")
@@ -206,13 +530,72 @@ class OrderResourceIntegrationTest {
 				.andExpect(status().isBadRequest());
 	}
 
+	@Test
+	@DisplayName("PATCH /api/orders/status - Should move eligible orders and report the rest")
+	void testUpdateStatuses_ShouldMoveEligibleOrdersAndReportOthers() throws Exception {
+		// Arrange
+		testOrder.setStatus(OrderStatus.ORDERED);
+		testOrder = orderRepository.save(testOrder);
+		Order createdOrder = orderRepository.save(Order.builder()
+				.orderDesc("Not ordered yet")
+				.orderFeeCents(10_000L)
+				.isActive(true)
+				.status(OrderStatus.CREATED)
+				.cart(testCart)
+				.build());
+		entityManager.flush();
+		entityManager.clear();
+		BulkStatusUpdateDto request = BulkStatusUpdateDto.builder()
+				.orderIds(Set.of(testOrder.getOrderId(), createdOrder.getOrderId(), Long.MAX_VALUE))
+				.fromStatus(OrderStatus.ORDERED)
+				.toStatus(OrderStatus.IN_PAYMENT)
+				.build();
+
+		// Act & Assert
+		mockMvc.perform(patch("/api/orders/status")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(request)))
+				.andDo(print())
+				.andExpect(status().isOk())
+				// Lock, update, outbox batch and summary upserts
+				.andExpect(header().string(SqlStatementHeaderAdvice.STATEMENT_COUNT_HEADER, "4"))
+				.andExpect(jsonPath("$.updated").value(1))
+				.andExpect(jsonPath("$.results[0].orderId").value(String.valueOf(testOrder.getOrderId())))
+				.andExpect(jsonPath("$.results[0].outcome").value("UPDATED"))
+				.andExpect(jsonPath("$.results[1].outcome").value("CONFLICT"))
+				.andExpect(jsonPath("$.results[1].orderStatus").value("CREATED"))
+				.andExpect(jsonPath("$.results[2].outcome").value("NOT_FOUND"));
+
+		entityManager.clear();
+		assertEquals(OrderStatus.IN_PAYMENT, orderRepository.findById(testOrder.getOrderId()).orElseThrow().getStatus());
+		assertEquals(OrderStatus.CREATED, orderRepository.findById(createdOrder.getOrderId()).orElseThrow().getStatus());
+	}
+
+	@Test
+	@DisplayName("PATCH /api/orders/status - Should return 400 for a transition outside the status sequence")
+	void testUpdateStatuses_WithInvalidTransition_ShouldReturn400() throws Exception {
+		// Arrange
+		BulkStatusUpdateDto request = BulkStatusUpdateDto.builder()
+				.orderIds(Set.of(testOrder.getOrderId()))
+				.fromStatus(OrderStatus.IN_PAYMENT)
+				.toStatus(OrderStatus.CREATED)
+				.build();
+
+		// Act & Assert
+		mockMvc.perform(patch("/api/orders/status")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(request)))
+				.andDo(print())
+				.andExpect(status().isBadRequest());
+	}
+
 	@Test
 	@DisplayName("PUT /api/orders/{orderId} - Should update order")
 	void testUpdate_ShouldUpdateOrder() throws Exception {
 		// Arrange
 		OrderDto updatedOrderDto = OrderDto.builder()
 				.orderDesc("Updated order description")
-				.orderFee(6000.0)
+				.orderFeeCents(600_000L)
 				.build();
 
 		// Act & Assert
@@ -221,11 +604,55 @@ class OrderResourceIntegrationTest {
 				.content(objectMapper.writeValueAsString(updatedOrderDto)))
 				.andDo(print())
 				.andExpect(status().isOk())
-				.andExpect(jsonPath("$.orderId").value(testOrder.getOrderId()))
+				.andExpect(jsonPath("$.orderId").value(String.valueOf(testOrder.getOrderId())))
 				.andExpect(jsonPath("$.orderDesc").value("Updated order description"))
 				.andExpect(jsonPath("$.orderFee").value(6000.0));
 	}
 
+	@Test
+	@DisplayName("PUT /api/orders/{orderId} - Should update and bump the ETag when If-Match is current")
+	void testUpdate_WithCurrentIfMatch_ShouldUpdateAndReturnNewETag() throws Exception {
+		// Arrange
+		OrderDto updatedOrderDto = OrderDto.builder()
+				.orderDesc("Updated order description")
+				.orderFeeCents(600_000L)
+				.build();
+
+		// Act & Assert
+		mockMvc.perform(put("/api/orders/" + testOrder.getOrderId())
+				.header("If-Match", "\"0\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(updatedOrderDto)))
+				.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"1\""))
+				.andExpect(jsonPath("$.version").value(1));
+	}
+
+	@Test
+	@DisplayName("PUT /api/orders/{orderId} - Should return 412 when If-Match is stale")
+	void testUpdate_WithStaleIfMatch_ShouldReturn412() throws Exception {
+		// Arrange
+		orderRepository.transitionStatus(testOrder.getOrderId(), OrderStatus.CREATED, OrderStatus.ORDERED,
+				Instant.now());
+		OrderDto updatedOrderDto = OrderDto.builder()
+				.orderDesc("Lost update")
+				.orderFeeCents(600_000L)
+				.build();
+
+		// Act & Assert
+		mockMvc.perform(put("/api/orders/" + testOrder.getOrderId())
+				.header("If-Match", "\"0\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(updatedOrderDto)))
+				.andDo(print())
+				.andExpect(status().isPreconditionFailed());
+
+		entityManager.clear();
+		assertEquals("Test order",
+				orderRepository.findById(testOrder.getOrderId()).orElseThrow().getOrderDesc());
+	}
+
 	@Test
 	@DisplayName("DELETE /api/orders/{orderId} - Should delete order (soft delete)")
 	void testDeleteById_ShouldDeactivateOrder() throws Exception {
@@ -242,12 +669,131 @@ class OrderResourceIntegrationTest {
 				.noneMatch(o -> o.getOrderId().equals(testOrder.getOrderId())));
 	}
 
+	@Test
+	@DisplayName("GET /actuator/archivedorders - Should serve a deleted order once the archiver moved it")
+	void testArchivedOrders_AfterDeleteAndArchive_ShouldServeArchivedOrder() throws Exception {
+		// Arrange
+		mockMvc.perform(delete("/api/orders/" + testOrder.getOrderId()))
+				.andExpect(status().isOk());
+		entityManager.flush();
+		entityManager.clear();
+
+		// Act
+		final long archived = orderArchiver.archive(Instant.now().plusSeconds(1));
+
+		// Assert
+		assertEquals(1, archived);
+		assertTrue(orderRepository.findById(testOrder.getOrderId()).isEmpty());
+		mockMvc.perform(get("/actuator/archivedorders/" + testOrder.getOrderId()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.orderDesc").value("Test order"))
+				.andExpect(jsonPath("$.cartId").value(testCart.getCartId()))
+				.andExpect(jsonPath("$.archivedAt").exists());
+		mockMvc.perform(get("/actuator/archivedorders").param("cartId", String.valueOf(testCart.getCartId())))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1));
+		mockMvc.perform(get("/actuator/archivedorders").param("after", String.valueOf(testOrder.getOrderId())))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(0));
+		mockMvc.perform(get("/actuator/archivedorders/999"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	@DisplayName("GET /api/orders/summary - Should reflect every write in the per-day summary")
+	void testFindDailySummaries_AfterWrites_ShouldCountOrdersPerDayAndStatus() throws Exception {
+		// Arrange
+		final String today = LocalDateTime.now().toLocalDate().toString();
+		final long[] orderIds = new long[3];
+		for (int i = 0; i < orderIds.length; i++) {
+			OrderDto newOrderDto = OrderDto.builder()
+					.orderDesc("Summarized " + i)
+					.orderFeeCents(10_025L * (i + 1))
+					.cartDto(CartDto.builder().cartId(testCart.getCartId()).build())
+					.build();
+			final String body = mockMvc.perform(post("/api/orders")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(objectMapper.writeValueAsString(newOrderDto)))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString();
+			orderIds[i] = objectMapper.readValue(body, OrderDto.class).getOrderId();
+		}
+		entityManager.flush();
+		mockMvc.perform(patch("/api/orders/" + orderIds[0] + "/status"))
+				.andExpect(status().isOk());
+		mockMvc.perform(put("/api/orders/" + orderIds[1])
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(OrderDto.builder()
+						.orderDesc("Summarized 1")
+						.orderFeeCents(100_000L)
+						.build())))
+				.andExpect(status().isOk());
+		mockMvc.perform(delete("/api/orders/" + orderIds[2]))
+				.andExpect(status().isOk());
+		entityManager.flush();
+		entityManager.clear();
+
+		// Act & Assert
+		mockMvc.perform(get("/api/orders/summary").param("from", today).param("to", today))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.collection.length()").value(2))
+				.andExpect(jsonPath("$.collection[0].orderStatus").value("CREATED"))
+				.andExpect(jsonPath("$.collection[0].orderCount").value(1))
+				.andExpect(jsonPath("$.collection[0].totalFee").value(1000.0))
+				.andExpect(jsonPath("$.collection[1].orderStatus").value("ORDERED"))
+				.andExpect(jsonPath("$.collection[1].orderCount").value(1))
+				.andExpect(jsonPath("$.collection[1].totalFee").value(100.25))
+				.andExpect(header().string(SqlStatementHeaderAdvice.STATEMENT_COUNT_HEADER, "1"));
+		mockMvc.perform(get("/api/orders/summary").param("from", today).param("to", today).param("status", "ORDERED"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.collection.length()").value(1));
+		mockMvc.perform(get("/api/orders/summary").param("from", today))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	@DisplayName("POST /actuator/ordersummary - Should rebuild the summary from the active orders")
+	void testOrderSummaryRebuild_ShouldCountOrdersWrittenAroundTheService() throws Exception {
+		// Arrange - orders saved through the repository never reached the summary
+		final LocalDateTime orderDate = LocalDateTime.of(2025, 3, 1, 10, 0);
+		for (int i = 1; i <= 2; i++) {
+			orderRepository.save(Order.builder()
+					.orderDesc("Imported " + i)
+					.orderDate(orderDate)
+					.orderFeeCents(1_050L * i)
+					.isActive(true)
+					.status(OrderStatus.ORDERED)
+					.cart(testCart)
+					.build());
+		}
+		entityManager.flush();
+		entityManager.clear();
+		mockMvc.perform(get("/api/orders/summary").param("from", "2025-03-01").param("to", "2025-03-01"))
+				.andExpect(jsonPath("$.collection.length()").value(0));
+
+		// Act
+		mockMvc.perform(post("/actuator/ordersummary"))
+				.andExpect(status().isOk())
+				// Today's test order and the imported day
+				.andExpect(jsonPath("$.rows").value(2));
+
+		// Assert
+		mockMvc.perform(get("/api/orders/summary").param("from", "2025-03-01").param("to", "2025-03-01"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.collection.length()").value(1))
+				.andExpect(jsonPath("$.collection[0].date").value("01-03-2025"))
+				.andExpect(jsonPath("$.collection[0].orderCount").value(2))
+				.andExpect(jsonPath("$.collection[0].totalFee").value(31.5));
+	}
+
 	@Test
 	@DisplayName("DELETE /api/orders/{orderId} - Should return 400 when trying to delete order with IN_PAYMENT status")
 	void testDeleteById_WhenStatusInPayment_ShouldReturnError() throws Exception {
 		// Arrange - Update order to IN_PAYMENT
 		testOrder.setStatus(OrderStatus.IN_PAYMENT);
 		testOrder = orderRepository.save(testOrder);
+		entityManager.flush();
+		entityManager.clear();
 
 		// Act & Assert - IllegalStateException should return 400
 		mockMvc.perform(delete("/api/orders/" + testOrder.getOrderId())
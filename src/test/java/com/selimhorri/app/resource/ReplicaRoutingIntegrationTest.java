@@ -0,0 +1,172 @@
+package com.selimhorri.app.resource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import javax.servlet.http.Cookie;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.selimhorri.app.dto.CartDto;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.replica.ReadYourWritesFilter;
+import com.selimhorri.app.replica.ReplicaLagMonitor;
+import com.selimhorri.app.replica.Replicas;
+
+/**
+ * A primary and a replica in two in-memory H2 databases, the replica migrated here as replication
+ * would have copied it. Nothing replicates between them, so a row on one side only shows where a
+ * request read from. The lag check runs when a test calls it.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:order_primary;DB_CLOSE_DELAY=-1",
+		"app.replica.enabled=true",
+		"app.replica.url=" + ReplicaRoutingIntegrationTest.REPLICA_URL,
+		"app.replica.username=sa",
+		"app.replica.max-lag=5s",
+		"app.replica.lag-check-interval=PT1H",
+		"app.replica.read-your-writes.window=1m",
+		// Cached bodies would hide where the order was read from
+		"app.orders.hot-cache.enabled=false",
+		"spring.flyway.enabled=true",
+		"spring.jpa.hibernate.ddl-auto=validate",
+		"spring.jpa.open-in-view=false" })
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Read replica routing Integration Tests")
+class ReplicaRoutingIntegrationTest {
+
+	static final String REPLICA_URL = "jdbc:h2:mem:order_replica;DB_CLOSE_DELAY=-1";
+
+	private static final String HEARTBEAT_SQL = "SELECT beat_millis FROM replica_heartbeat WHERE heartbeat_id = 1";
+
+	private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private Replicas replicas;
+
+	@Autowired
+	private ReplicaLagMonitor replicaLagMonitor;
+
+	private JdbcTemplate primary;
+
+	@BeforeAll
+	static void migrateReplica() {
+		Flyway.configure()
+				.dataSource(REPLICA_URL, "sa", "")
+				.locations("classpath:db/migration", "classpath:db/vendor/h2", "classpath:db/seed")
+				.load()
+				.migrate();
+	}
+
+	@BeforeEach
+	void setUp() {
+		primary = new JdbcTemplate(replicas.getPrimary());
+		// Caught up: the replica holds the primary's last heartbeat
+		this.replicateHeartbeat(0);
+		replica.update("UPDATE orders SET order_desc = 'init' WHERE order_id = 1");
+	}
+
+	@Test
+	@DisplayName("GET /api/orders/{orderId} - Should read from the replica while it keeps up")
+	void testFindById_ShouldReadFromReplica() throws Exception {
+		// Arrange
+		replica.update("UPDATE orders SET order_desc = 'Replicated' WHERE order_id = 1");
+
+		// Act & Assert
+		assertTrue(replicas.isReplicaUsable());
+		mockMvc.perform(get("/api/orders/1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.orderDesc").value("Replicated"));
+	}
+
+	@Test
+	@DisplayName("GET /api/orders/{orderId} - Should read from the primary while the replica lags too far")
+	void testFindById_WithLaggingReplica_ShouldReadFromPrimary() throws Exception {
+		// Arrange
+		replica.update("UPDATE orders SET order_desc = 'Replicated' WHERE order_id = 1");
+		this.replicateHeartbeat(60_000);
+
+		// Act & Assert
+		assertFalse(replicas.isReplicaUsable());
+		assertEquals(60, replicas.getLag().toSeconds());
+		mockMvc.perform(get("/api/orders/1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.orderDesc").value("init"));
+
+		this.replicateHeartbeat(0);
+		assertTrue(replicas.isReplicaUsable());
+		mockMvc.perform(get("/api/orders/1"))
+				.andExpect(jsonPath("$.orderDesc").value("Replicated"));
+	}
+
+	@Test
+	@DisplayName("POST then GET /api/orders - Should write to the primary and let the writer read it back")
+	void testSave_ShouldReadOwnWriteFromPrimary() throws Exception {
+		// Act
+		final var result = mockMvc.perform(post("/api/orders")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(OrderDto.builder()
+						.orderDesc("Written")
+						.orderFeeCents(1_000L)
+						.cartDto(CartDto.builder().cartId(1).build())
+						.build())))
+				.andExpect(status().isOk())
+				.andExpect(cookie().exists(ReadYourWritesFilter.COOKIE_NAME))
+				.andReturn();
+		final long orderId = objectMapper.readValue(result.getResponse().getContentAsString(), OrderDto.class)
+				.getOrderId();
+		final Cookie readPrimary = result.getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+
+		// Assert
+		assertEquals(1, primary.queryForObject("SELECT COUNT(*) FROM orders WHERE order_id = ?", Integer.class, orderId));
+		assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM orders WHERE order_id = ?", Integer.class, orderId));
+		mockMvc.perform(get("/api/orders/" + orderId).cookie(readPrimary))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.orderDesc").value("Written"));
+		// Another client, or this one after the window, reads the replica, which has not got it yet
+		mockMvc.perform(get("/api/orders/" + orderId))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(get("/api/orders/" + orderId)
+				.cookie(new Cookie(ReadYourWritesFilter.COOKIE_NAME, String.valueOf(System.currentTimeMillis() - 1))))
+				.andExpect(status().isNotFound());
+	}
+
+	// Gives the replica the primary's heartbeat as of lagMillis ago, then measures the lag
+	private void replicateHeartbeat(final long lagMillis) {
+		final Long beat = primary.queryForObject(HEARTBEAT_SQL, Long.class);
+		replica.update("UPDATE replica_heartbeat SET beat_millis = ? WHERE heartbeat_id = 1", beat - lagMillis);
+		replicaLagMonitor.check();
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
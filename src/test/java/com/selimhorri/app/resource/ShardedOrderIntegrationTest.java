@@ -0,0 +1,210 @@
+package com.selimhorri.app.resource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.selimhorri.app.dto.CartDto;
+import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.id.OrderIdGenerator;
+import com.selimhorri.app.shard.Shards;
+
+/**
+ * Three in-memory H2 shards migrated by Flyway. Not rolled back: a transaction stays on one shard,
+ * so every test works with carts of its own users and only asserts on what it created.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:order_shard0;DB_CLOSE_DELAY=-1",
+		"app.sharding.enabled=true",
+		"app.sharding.id-range=1000",
+		"app.sharding.page-size=2",
+		"app.sharding.shards[0].url=jdbc:h2:mem:order_shard1;DB_CLOSE_DELAY=-1",
+		"app.sharding.shards[0].username=sa",
+		"app.sharding.shards[1].url=jdbc:h2:mem:order_shard2;DB_CLOSE_DELAY=-1",
+		"app.sharding.shards[1].username=sa",
+		"spring.flyway.enabled=true",
+		"spring.jpa.hibernate.ddl-auto=validate",
+		"spring.jpa.open-in-view=false" })
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Sharded order storage Integration Tests")
+class ShardedOrderIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private Shards shards;
+
+	@Test
+	@DisplayName("Should place carts by user and keep their orders on the cart's shard, with ids of that shard")
+	void testSave_ShouldStoreCartAndOrdersOnOneShard() throws Exception {
+		for (int userId = 30; userId < 33; userId++) {
+			// Arrange
+			final int shard = userId % 3;
+
+			// Act
+			final int cartId = this.createCart(userId);
+			final long orderId = this.createOrder(cartId, "Order of user " + userId);
+
+			// Assert
+			assertEquals(shard, (cartId - 1) / 1000, "cart id of shard " + shard);
+			assertEquals(shard, OrderIdGenerator.shardOf(orderId), "order id of shard " + shard);
+			assertEquals(1, this.countOnShard(shard, "SELECT COUNT(*) FROM orders WHERE order_id = " + orderId));
+			assertEquals(1, this.countOnShard(shard, "SELECT COUNT(*) FROM order_outbox WHERE aggregate_id = " + orderId));
+			mockMvc.perform(get("/api/orders/" + orderId))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.cart.cartId").value(cartId));
+			mockMvc.perform(get("/api/carts/" + cartId))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.userId").value(userId));
+		}
+	}
+
+	@Test
+	@DisplayName("GET /api/orders - Should merge the orders of all shards in order id order")
+	void testFindAll_ShouldGatherOrdersOfAllShards() throws Exception {
+		// Arrange, more orders per shard than one keyset page
+		final List<Long> created = new ArrayList<>();
+		for (int userId = 40; userId < 43; userId++) {
+			final int cartId = this.createCart(userId);
+			for (int i = 0; i < 3; i++)
+				created.add(this.createOrder(cartId, "Listed"));
+		}
+
+		// Act
+		final List<Long> listed = this.orderIds(mockMvc.perform(get("/api/orders"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+
+		// Assert
+		assertTrue(listed.containsAll(created));
+		assertEquals(listed.stream().sorted().collect(Collectors.toList()), listed);
+		assertTrue(listed.stream().anyMatch(id -> OrderIdGenerator.shardOf(id) == 2), "orders of shard 2 listed");
+	}
+
+	@Test
+	@DisplayName("Should route status changes and cart filters to the shard of the order or cart")
+	void testUpdateStatus_ShouldRouteToTheOrdersShard() throws Exception {
+		// Arrange
+		final int firstCart = this.createCart(52);
+		final int secondCart = this.createCart(53);
+		final long first = this.createOrder(firstCart, "First");
+		final long second = this.createOrder(secondCart, "Second");
+
+		// Act
+		mockMvc.perform(patch("/api/orders/" + first + "/status"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.orderStatus").value("ORDERED"));
+		mockMvc.perform(patch("/api/orders/status")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"orderIds\":[" + first + "," + second + "],\"fromStatus\":\"CREATED\",\"toStatus\":\"ORDERED\"}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.updated").value(1));
+
+		// Assert
+		assertEquals(List.of(second), this.orderIds(mockMvc.perform(get("/api/orders")
+				.param("cartId", String.valueOf(secondCart)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString()));
+		assertEquals("ORDERED", this.onShard(2, () -> jdbcTemplate.queryForObject(
+				"SELECT status FROM orders WHERE order_id = " + second, String.class)));
+	}
+
+	@Test
+	@DisplayName("GET /api/orders/summary - Should add up the summaries of all shards")
+	void testFindDailySummaries_ShouldSumAcrossShards() throws Exception {
+		// Arrange
+		final var today = LocalDate.now().toString();
+		final long before = this.createdToday(today);
+		for (int userId = 60; userId < 63; userId++)
+			this.createOrder(this.createCart(userId), "Summarised");
+
+		// Act
+		final long after = this.createdToday(today);
+
+		// Assert
+		assertEquals(before + 3, after);
+	}
+
+	private long createdToday(final String today) throws Exception {
+		final JsonNode summaries = objectMapper.readTree(mockMvc.perform(get("/api/orders/summary")
+				.param("from", today)
+				.param("to", today)
+				.param("status", "CREATED"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString()).get("collection");
+		return summaries.size() == 0 ? 0 : summaries.get(0).get("orderCount").asLong();
+	}
+
+	private int createCart(final int userId) throws Exception {
+		final String body = mockMvc.perform(post("/api/carts")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(CartDto.builder().userId(userId).build())))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readValue(body, CartDto.class).getCartId();
+	}
+
+	private long createOrder(final int cartId, final String orderDesc) throws Exception {
+		final String body = mockMvc.perform(post("/api/orders")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(OrderDto.builder()
+						.orderDesc(orderDesc)
+						.orderFeeCents(1_000L)
+						.cartDto(CartDto.builder().cartId(cartId).build())
+						.build())))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readValue(body, OrderDto.class).getOrderId();
+	}
+
+	private List<Long> orderIds(final String body) throws Exception {
+		final List<Long> orderIds = new ArrayList<>();
+		objectMapper.readTree(body).get("collection").forEach(order -> orderIds.add(order.get("orderId").asLong()));
+		return orderIds;
+	}
+
+	private int countOnShard(final int shard, final String sql) {
+		return this.onShard(shard, () -> jdbcTemplate.queryForObject(sql, Integer.class));
+	}
+
+	private <T> T onShard(final int shard, final Supplier<T> query) {
+		return shards.on(shard, query);
+	}
+
+}
+
+
+
+
+
+
+
+
+
+
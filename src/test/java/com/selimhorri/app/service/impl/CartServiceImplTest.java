@@ -14,15 +14,23 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.client.RestTemplate;
 
+import com.selimhorri.app.cache.HotOrderCache;
 import com.selimhorri.app.constant.AppConstant;
 import com.selimhorri.app.domain.Cart;
 import com.selimhorri.app.dto.CartDto;
 import com.selimhorri.app.dto.UserDto;
+import com.selimhorri.app.event.bus.ChangeEvent;
+import com.selimhorri.app.event.bus.ChangeEventBus;
 import com.selimhorri.app.exception.wrapper.CartNotFoundException;
+import com.selimhorri.app.exception.wrapper.VersionMismatchException;
 import com.selimhorri.app.repository.CartRepository;
+import com.selimhorri.app.repository.OrderRepository;
+import com.selimhorri.app.shard.Shards;
+import com.selimhorri.app.summary.OrderSummaryRecorder;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("CartServiceImpl Unit Tests")
@@ -31,9 +39,24 @@ class CartServiceImplTest {
 	@Mock
 	private CartRepository cartRepository;
 
+	@Mock
+	private OrderRepository orderRepository;
+
 	@Mock
 	private RestTemplate restTemplate;
 
+	@Mock
+	private ChangeEventBus changeEventBus;
+
+	@Mock
+	private HotOrderCache hotOrderCache;
+
+	@Mock
+	private OrderSummaryRecorder orderSummaryRecorder;
+
+	@Spy
+	private Shards shards = Shards.single();
+
 	@InjectMocks
 	private CartServiceImpl cartService;
 
@@ -126,6 +149,8 @@ class CartServiceImplTest {
 		// Assert
 		assertNotNull(result);
 		verify(cartRepository, times(1)).save(any(Cart.class));
+		verify(changeEventBus, times(1)).publishAfterCommit(argThat(event ->
+				event.getType() == ChangeEvent.Type.CART_CREATED && event.getCartId().equals(1)));
 	}
 
 	@Test
@@ -137,14 +162,14 @@ class CartServiceImplTest {
 				.userId(2)
 				.build();
 
-		when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+		when(cartRepository.saveAndFlush(any(Cart.class))).thenReturn(testCart);
 
 		// Act
 		CartDto result = cartService.update(updatedCartDto);
 
 		// Assert
 		assertNotNull(result);
-		verify(cartRepository, times(1)).save(any(Cart.class));
+		verify(cartRepository, times(1)).saveAndFlush(any(Cart.class));
 	}
 
 	@Test
@@ -158,7 +183,7 @@ class CartServiceImplTest {
 		when(cartRepository.findById(1)).thenReturn(Optional.of(testCart));
 		when(restTemplate.getForObject(anyString(), eq(UserDto.class)))
 				.thenReturn(testUserDto);
-		when(cartRepository.save(any(Cart.class))).thenReturn(testCart);
+		when(cartRepository.saveAndFlush(any(Cart.class))).thenReturn(testCart);
 
 		// Act
 		CartDto result = cartService.update(1, updatedCartDto);
@@ -166,7 +191,25 @@ class CartServiceImplTest {
 		// Assert
 		assertNotNull(result);
 		verify(cartRepository, times(1)).findById(1);
-		verify(cartRepository, times(1)).save(any(Cart.class));
+		verify(cartRepository, times(1)).saveAndFlush(any(Cart.class));
+	}
+
+	@Test
+	@DisplayName("Should reject an update carrying a stale version")
+	void testUpdate_WithStaleVersion_ShouldThrowVersionMismatch() {
+		// Arrange
+		testCart.setVersion(3L);
+		CartDto staleCartDto = CartDto.builder()
+				.cartId(1)
+				.userId(2)
+				.version(2L)
+				.build();
+
+		when(cartRepository.findById(1)).thenReturn(Optional.of(testCart));
+
+		// Act & Assert
+		assertThrows(VersionMismatchException.class, () -> cartService.update(staleCartDto));
+		verify(cartRepository, never()).saveAndFlush(any(Cart.class));
 	}
 
 	@Test
@@ -180,6 +223,8 @@ class CartServiceImplTest {
 
 		// Assert
 		verify(cartRepository, times(1)).deleteById(1);
+		verify(changeEventBus, times(1)).publishAfterCommit(argThat(event ->
+				event.getType() == ChangeEvent.Type.CART_DELETED && event.getCartId().equals(1)));
 	}
 
 	@Test
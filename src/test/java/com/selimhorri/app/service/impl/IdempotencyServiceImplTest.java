@@ -0,0 +1,219 @@
+package com.selimhorri.app.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.selimhorri.app.config.idempotency.IdempotencyProperties;
+import com.selimhorri.app.domain.IdempotencyRecord;
+import com.selimhorri.app.dto.CartDto;
+import com.selimhorri.app.exception.wrapper.IdempotencyKeyConflictException;
+import com.selimhorri.app.repository.IdempotencyRecordRepository;
+import com.selimhorri.app.service.IdempotencyService.Outcome;
+import com.selimhorri.app.shard.Shards;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotencyServiceImpl Unit Tests")
+class IdempotencyServiceImplTest {
+
+	@Mock
+	private IdempotencyRecordRepository idempotencyRecordRepository;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	private IdempotencyServiceImpl idempotencyService;
+
+	private CartDto request;
+
+	@BeforeEach
+	void setUp() {
+		idempotencyService = new IdempotencyServiceImpl(idempotencyRecordRepository, transactionTemplate,
+				new ObjectMapper(), new IdempotencyProperties(), Shards.single());
+		request = CartDto.builder().userId(1).build();
+	}
+
+	private void runTransactionsInline() {
+		when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		when(idempotencyRecordRepository.saveAndFlush(any(IdempotencyRecord.class)))
+				.thenAnswer(invocation -> invocation.getArgument(0));
+	}
+
+	@Test
+	@DisplayName("Should run the action directly when no key is sent")
+	void testExecute_WithoutKey_ShouldRunActionWithoutStoringIt() {
+		// Act
+		Outcome<CartDto> outcome = idempotencyService.execute(null, "POST /api/carts", request, CartDto.class,
+				() -> CartDto.builder().cartId(1).build());
+
+		// Assert
+		assertEquals(1, outcome.getBody().getCartId());
+		assertFalse(outcome.isReplayed());
+		verifyNoInteractions(idempotencyRecordRepository, transactionTemplate);
+	}
+
+	@Test
+	@DisplayName("Should replay the first response without running the action again")
+	void testExecute_WithRepeatedKey_ShouldReplayStoredResponse() {
+		// Arrange
+		runTransactionsInline();
+		when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.empty());
+		AtomicInteger calls = new AtomicInteger();
+
+		// Act
+		Outcome<CartDto> first = idempotencyService.execute("key-1", "POST /api/carts", request, CartDto.class,
+				() -> CartDto.builder().cartId(calls.incrementAndGet()).build());
+		Outcome<CartDto> second = idempotencyService.execute("key-1", "POST /api/carts", request, CartDto.class,
+				() -> CartDto.builder().cartId(calls.incrementAndGet()).build());
+
+		// Assert
+		assertEquals(1, calls.get());
+		assertFalse(first.isReplayed());
+		assertTrue(second.isReplayed());
+		assertEquals(first.getBody(), second.getBody());
+		verify(idempotencyRecordRepository, times(1)).saveAndFlush(any(IdempotencyRecord.class));
+	}
+
+	@Test
+	@DisplayName("Should reject a key reused for a different request")
+	void testExecute_WithKeyReusedForDifferentRequest_ShouldThrowConflict() {
+		// Arrange
+		runTransactionsInline();
+		when(idempotencyRecordRepository.findById("key-2")).thenReturn(Optional.empty());
+		idempotencyService.execute("key-2", "POST /api/carts", request, CartDto.class,
+				() -> CartDto.builder().cartId(1).build());
+
+		// Act & Assert
+		assertThrows(IdempotencyKeyConflictException.class, () -> idempotencyService.execute("key-2",
+				"POST /api/carts", CartDto.builder().userId(2).build(), CartDto.class,
+				() -> CartDto.builder().cartId(2).build()));
+	}
+
+	@Test
+	@DisplayName("Should treat an expired key as unused and store the new response over it")
+	void testExecute_WithExpiredKey_ShouldRunActionAgain() {
+		// Arrange
+		runTransactionsInline();
+		when(idempotencyRecordRepository.findById("key-4")).thenReturn(Optional.of(IdempotencyRecord.builder()
+				.idempotencyKey("key-4")
+				.requestHash("hash-of-another-request")
+				.responseBody("{}")
+				.createdAt(Instant.now().minusSeconds(7200))
+				.expiresAt(Instant.now().minusSeconds(3600))
+				.build()));
+
+		// Act
+		Outcome<CartDto> outcome = idempotencyService.execute("key-4", "POST /api/carts", request, CartDto.class,
+				() -> CartDto.builder().cartId(4).build());
+
+		// Assert
+		assertFalse(outcome.isReplayed());
+		assertEquals(4, outcome.getBody().getCartId());
+		verify(idempotencyRecordRepository).deleteExpiredById(eq("key-4"), any(Instant.class));
+		verify(idempotencyRecordRepository).saveAndFlush(any(IdempotencyRecord.class));
+	}
+
+	@Test
+	@DisplayName("Should evict the least recently used key once the cache is full")
+	void testExecute_WithFullCache_ShouldEvictLeastRecentlyUsedKey() {
+		// Arrange
+		runTransactionsInline();
+		final var properties = new IdempotencyProperties();
+		properties.setCacheSize(1);
+		idempotencyService = new IdempotencyServiceImpl(idempotencyRecordRepository, transactionTemplate,
+				new ObjectMapper(), properties, Shards.single());
+		when(idempotencyRecordRepository.findById(anyString())).thenReturn(Optional.empty());
+
+		// Act
+		idempotencyService.execute("key-a", "POST /api/carts", request, CartDto.class,
+				() -> CartDto.builder().cartId(1).build());
+		idempotencyService.execute("key-b", "POST /api/carts", request, CartDto.class,
+				() -> CartDto.builder().cartId(2).build());
+		Outcome<CartDto> cached = idempotencyService.execute("key-b", "POST /api/carts", request, CartDto.class,
+				() -> CartDto.builder().cartId(3).build());
+		idempotencyService.execute("key-a", "POST /api/carts", request, CartDto.class,
+				() -> CartDto.builder().cartId(4).build());
+
+		// Assert
+		assertTrue(cached.isReplayed());
+		verify(idempotencyRecordRepository, times(1)).findById("key-b");
+		verify(idempotencyRecordRepository, times(2)).findById("key-a");
+	}
+
+	@Test
+	@DisplayName("Should make concurrent duplicates wait for the first request")
+	void testExecute_WithConcurrentDuplicates_ShouldRunActionOnce() throws Exception {
+		// Arrange
+		runTransactionsInline();
+		when(idempotencyRecordRepository.findById("key-3")).thenReturn(Optional.empty());
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		var executor = Executors.newFixedThreadPool(4);
+
+		try {
+			// Act
+			Future<Outcome<CartDto>> first = executor.submit(() -> idempotencyService.execute("key-3",
+					"POST /api/carts", request, CartDto.class, () -> {
+						started.countDown();
+						awaitQuietly(release);
+						return CartDto.builder().cartId(calls.incrementAndGet()).build();
+					}));
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			var duplicates = new ArrayList<Future<Outcome<CartDto>>>();
+			for (int i = 0; i < 3; i++)
+				duplicates.add(executor.submit(() -> idempotencyService.execute("key-3", "POST /api/carts",
+						request, CartDto.class, () -> CartDto.builder().cartId(calls.incrementAndGet()).build())));
+			release.countDown();
+
+			// Assert
+			assertFalse(first.get(5, TimeUnit.SECONDS).isReplayed());
+			for (var duplicate : duplicates) {
+				Outcome<CartDto> outcome = duplicate.get(5, TimeUnit.SECONDS);
+				assertTrue(outcome.isReplayed());
+				assertEquals(1, outcome.getBody().getCartId());
+			}
+			assertEquals(1, calls.get());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	@DisplayName("Should reject blank keys")
+	void testExecute_WithBlankKey_ShouldThrowIllegalArgument() {
+		assertThrows(IllegalArgumentException.class, () -> idempotencyService.execute(" ", "POST /api/carts",
+				request, CartDto.class, () -> CartDto.builder().cartId(1).build()));
+	}
+
+	private static void awaitQuietly(final CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
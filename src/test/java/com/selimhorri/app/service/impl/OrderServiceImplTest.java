@@ -4,10 +4,15 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -15,17 +20,37 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.selimhorri.app.cache.HotOrderCache;
+import com.selimhorri.app.config.order.OrderConfig;
+import com.selimhorri.app.config.order.OrderProperties;
 import com.selimhorri.app.domain.Cart;
 import com.selimhorri.app.domain.Order;
+import com.selimhorri.app.domain.enums.OrderEventType;
 import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.dto.BulkStatusUpdateDto;
 import com.selimhorri.app.dto.CartDto;
 import com.selimhorri.app.dto.OrderDto;
+import com.selimhorri.app.dto.response.BulkStatusUpdateResponse;
+import com.selimhorri.app.event.OrderEventPublisher;
+import com.selimhorri.app.event.bus.ChangeEvent;
+import com.selimhorri.app.event.bus.ChangeEventBus;
 import com.selimhorri.app.exception.wrapper.CartNotFoundException;
 import com.selimhorri.app.exception.wrapper.OrderNotFoundException;
+import com.selimhorri.app.exception.wrapper.OrderStatusConflictException;
+import com.selimhorri.app.exception.wrapper.VersionMismatchException;
+import com.selimhorri.app.readmodel.OrderReadModel;
 import com.selimhorri.app.repository.CartRepository;
+import com.selimhorri.app.repository.OrderDailySummaryRepository;
 import com.selimhorri.app.repository.OrderRepository;
+import com.selimhorri.app.shard.Shards;
+import com.selimhorri.app.statemachine.StateMachine;
+import com.selimhorri.app.summary.OrderStatistics;
+import com.selimhorri.app.summary.OrderSummaryRecorder;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("OrderServiceImpl Unit Tests")
@@ -37,9 +62,44 @@ class OrderServiceImplTest {
 	@Mock
 	private CartRepository cartRepository;
 
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	@Spy
+	private OrderProperties orderProperties = new OrderProperties();
+
+	@Spy
+	private StateMachine<OrderStatus, Long> orderStateMachine = OrderConfig.orderLifecycle().build();
+
+	@Mock
+	private ChangeEventBus changeEventBus;
+
+	@Mock
+	private OrderEventPublisher orderEventPublisher;
+
+	@Mock
+	private OrderReadModel orderReadModel;
+
+	@Mock
+	private HotOrderCache hotOrderCache;
+
+	@Mock
+	private OrderSummaryRecorder orderSummaryRecorder;
+
+	@Mock
+	private OrderDailySummaryRepository orderDailySummaryRepository;
+
+	@Mock
+	private OrderStatistics orderStatistics;
+
+	@Spy
+	private Shards shards = Shards.single();
+
 	@InjectMocks
 	private OrderServiceImpl orderService;
 
+	private static final Timestamp ORDER_DATE = Timestamp.valueOf("2025-03-01 10:00:00");
+
 	private Order testOrder;
 	private OrderDto testOrderDto;
 	private Cart testCart;
@@ -52,20 +112,20 @@ class OrderServiceImplTest {
 				.build();
 
 		testOrder = Order.builder()
-				.orderId(1)
+				.orderId(1L)
 				.orderDate(LocalDateTime.now())
 				.orderDesc("Test order")
-				.orderFee(5000.0)
+				.orderFeeCents(500_000L)
 				.isActive(true)
 				.status(OrderStatus.CREATED)
 				.cart(testCart)
 				.build();
 
 		testOrderDto = OrderDto.builder()
-				.orderId(1)
+				.orderId(1L)
 				.orderDate(LocalDateTime.now())
 				.orderDesc("Test order")
-				.orderFee(5000.0)
+				.orderFeeCents(500_000L)
 				.orderStatus(OrderStatus.CREATED)
 				.cartDto(CartDto.builder().cartId(1).build())
 				.build();
@@ -91,26 +151,57 @@ class OrderServiceImplTest {
 	@DisplayName("Should find order by id when order exists and is active")
 	void testFindById_WhenOrderExists_ShouldReturnOrder() {
 		// Arrange
-		when(orderRepository.findByOrderIdAndIsActiveTrue(1)).thenReturn(Optional.of(testOrder));
+		when(orderRepository.findByOrderIdAndIsActiveTrue(1L)).thenReturn(Optional.of(testOrder));
 
 		// Act
-		OrderDto result = orderService.findById(1);
+		OrderDto result = orderService.findById(1L);
 
 		// Assert
 		assertNotNull(result);
 		assertEquals(1, result.getOrderId());
-		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(1);
+		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(1L);
 	}
 
 	@Test
 	@DisplayName("Should throw OrderNotFoundException when order not found")
 	void testFindById_WhenOrderNotFound_ShouldThrowException() {
 		// Arrange
-		when(orderRepository.findByOrderIdAndIsActiveTrue(999)).thenReturn(Optional.empty());
+		when(orderRepository.findByOrderIdAndIsActiveTrue(999L)).thenReturn(Optional.empty());
 
 		// Act & Assert
-		assertThrows(OrderNotFoundException.class, () -> orderService.findById(999));
-		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(999);
+		assertThrows(OrderNotFoundException.class, () -> orderService.findById(999L));
+		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(999L);
+	}
+
+	@Test
+	@DisplayName("Should answer findById from the read model once it is warm")
+	void testFindById_WhenReadModelIsWarm_ShouldNotQueryRepository() {
+		// Arrange
+		when(orderReadModel.isWarm()).thenReturn(true);
+		when(orderReadModel.findById(1)).thenReturn(testOrderDto);
+
+		// Act
+		OrderDto result = orderService.findById(1L);
+
+		// Assert
+		assertSame(testOrderDto, result);
+		verifyNoInteractions(orderRepository);
+	}
+
+	@Test
+	@DisplayName("Should fall back to the repository for a cart's orders while the read model is not warm")
+	void testFindAllByCart_WhenReadModelIsCold_ShouldQueryRepository() {
+		// Arrange
+		when(orderReadModel.isWarm()).thenReturn(false);
+		when(orderRepository.findAllActive(1, OrderStatus.CREATED)).thenReturn(List.of(testOrder));
+
+		// Act
+		List<OrderDto> result = orderService.findAll(1, OrderStatus.CREATED);
+
+		// Assert
+		assertEquals(1, result.size());
+		assertEquals(1, result.get(0).getCartDto().getCartId());
+		verify(orderReadModel, never()).findAll(any(), any());
 	}
 
 	@Test
@@ -119,7 +210,7 @@ class OrderServiceImplTest {
 		// Arrange
 		OrderDto newOrderDto = OrderDto.builder()
 				.orderDesc("New order")
-				.orderFee(3000.0)
+				.orderFeeCents(300_000L)
 				.cartDto(CartDto.builder().cartId(1).build())
 				.build();
 
@@ -135,6 +226,8 @@ class OrderServiceImplTest {
 		assertNull(newOrderDto.getOrderStatus()); // Should be null after save method
 		verify(cartRepository, times(1)).findById(1);
 		verify(orderRepository, times(1)).save(any(Order.class));
+		verify(orderEventPublisher, times(1)).publish(argThat(event ->
+				event.getEventType() == OrderEventType.ORDER_CREATED && event.getOrderId().equals(1L)));
 	}
 
 	@Test
@@ -143,7 +236,7 @@ class OrderServiceImplTest {
 		// Arrange
 		OrderDto orderDtoWithoutCart = OrderDto.builder()
 				.orderDesc("Order without cart")
-				.orderFee(3000.0)
+				.orderFeeCents(300_000L)
 				.cartDto(null)
 				.build();
 
@@ -159,7 +252,7 @@ class OrderServiceImplTest {
 		// Arrange
 		OrderDto orderDto = OrderDto.builder()
 				.orderDesc("Order")
-				.orderFee(3000.0)
+				.orderFeeCents(300_000L)
 				.cartDto(CartDto.builder().cartId(999).build())
 				.build();
 
@@ -176,27 +269,40 @@ class OrderServiceImplTest {
 	void testUpdateStatus_FromCreatedToOrdered_ShouldUpdate() {
 		// Arrange
 		Order orderWithCreatedStatus = Order.builder()
-				.orderId(1)
+				.orderId(1L)
 				.status(OrderStatus.CREATED)
 				.isActive(true)
 				.cart(testCart)
+				.version(0L)
 				.build();
 
-		when(orderRepository.findByOrderIdAndIsActiveTrue(1))
+		when(orderRepository.findByOrderIdAndIsActiveTrue(1L))
 				.thenReturn(Optional.of(orderWithCreatedStatus));
-		when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
-			Order saved = invocation.getArgument(0);
-			assertEquals(OrderStatus.ORDERED, saved.getStatus());
-			return saved;
-		});
+		when(orderRepository.transitionStatus(eq(1L), eq(OrderStatus.CREATED), eq(OrderStatus.ORDERED), any(Instant.class)))
+				.thenReturn(1);
 
 		// Act
 		OrderDto result = orderService.updateStatus(1);
 
 		// Assert
 		assertNotNull(result);
-		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(1);
-		verify(orderRepository, times(1)).save(any(Order.class));
+		assertEquals(OrderStatus.ORDERED, result.getOrderStatus());
+		assertEquals(1L, result.getVersion());
+		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(1L);
+		verify(orderRepository, never()).save(any(Order.class));
+		verify(hotOrderCache, times(1)).invalidate(1, 1L);
+		verify(orderSummaryRecorder, times(1)).recordAll(argThat(changes -> changes.size() == 2
+				&& changes.get(0).getStatus() == OrderStatus.CREATED && changes.get(0).getOrderCount() == -1
+				&& changes.get(1).getStatus() == OrderStatus.ORDERED && changes.get(1).getOrderCount() == 1));
+		verify(changeEventBus, times(1)).publishAfterCommit(argThat(event ->
+				event.getType() == ChangeEvent.Type.ORDER_STATUS_CHANGED
+						&& event.getFromStatus() == OrderStatus.CREATED
+						&& event.getToStatus() == OrderStatus.ORDERED));
+		verify(orderEventPublisher, times(1)).publish(argThat(event ->
+				event.getEventType() == OrderEventType.ORDER_STATUS_CHANGED
+						&& event.getPreviousStatus() == OrderStatus.CREATED
+						&& event.getOrderStatus() == OrderStatus.ORDERED
+						&& event.getVersion() == 1L));
 	}
 
 	@Test
@@ -204,27 +310,27 @@ class OrderServiceImplTest {
 	void testUpdateStatus_FromOrderedToInPayment_ShouldUpdate() {
 		// Arrange
 		Order orderWithOrderedStatus = Order.builder()
-				.orderId(1)
+				.orderId(1L)
 				.status(OrderStatus.ORDERED)
 				.isActive(true)
 				.cart(testCart)
+				.version(0L)
 				.build();
 
-		when(orderRepository.findByOrderIdAndIsActiveTrue(1))
+		when(orderRepository.findByOrderIdAndIsActiveTrue(1L))
 				.thenReturn(Optional.of(orderWithOrderedStatus));
-		when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
-			Order saved = invocation.getArgument(0);
-			assertEquals(OrderStatus.IN_PAYMENT, saved.getStatus());
-			return saved;
-		});
+		when(orderRepository.transitionStatus(eq(1L), eq(OrderStatus.ORDERED), eq(OrderStatus.IN_PAYMENT), any(Instant.class)))
+				.thenReturn(1);
 
 		// Act
 		OrderDto result = orderService.updateStatus(1);
 
 		// Assert
 		assertNotNull(result);
-		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(1);
-		verify(orderRepository, times(1)).save(any(Order.class));
+		assertEquals(OrderStatus.IN_PAYMENT, result.getOrderStatus());
+		assertEquals(1L, result.getVersion());
+		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(1L);
+		verify(orderRepository, never()).save(any(Order.class));
 	}
 
 	@Test
@@ -232,19 +338,42 @@ class OrderServiceImplTest {
 	void testUpdateStatus_WhenStatusIsInPayment_ShouldThrowException() {
 		// Arrange
 		Order orderWithInPaymentStatus = Order.builder()
-				.orderId(1)
+				.orderId(1L)
 				.status(OrderStatus.IN_PAYMENT)
 				.isActive(true)
 				.cart(testCart)
 				.build();
 
-		when(orderRepository.findByOrderIdAndIsActiveTrue(1))
+		when(orderRepository.findByOrderIdAndIsActiveTrue(1L))
 				.thenReturn(Optional.of(orderWithInPaymentStatus));
 
 		// Act & Assert
 		assertThrows(IllegalStateException.class, () -> orderService.updateStatus(1));
-		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(1);
+		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(1L);
 		verify(orderRepository, never()).save(any(Order.class));
+		verify(orderRepository, never()).transitionStatus(any(), any(), any(), any());
+	}
+
+	@Test
+	@DisplayName("Should throw OrderStatusConflictException when a concurrent update changed the status first")
+	void testUpdateStatus_WhenStatusChangedConcurrently_ShouldThrowConflict() {
+		// Arrange
+		Order orderWithCreatedStatus = Order.builder()
+				.orderId(1L)
+				.status(OrderStatus.CREATED)
+				.isActive(true)
+				.cart(testCart)
+				.build();
+
+		when(orderRepository.findByOrderIdAndIsActiveTrue(1L))
+				.thenReturn(Optional.of(orderWithCreatedStatus));
+		when(orderRepository.transitionStatus(eq(1L), eq(OrderStatus.CREATED), eq(OrderStatus.ORDERED), any(Instant.class)))
+				.thenReturn(0);
+
+		// Act & Assert
+		assertThrows(OrderStatusConflictException.class, () -> orderService.updateStatus(1));
+		verifyNoInteractions(changeEventBus);
+		verifyNoInteractions(orderEventPublisher);
 	}
 
 	@Test
@@ -252,29 +381,48 @@ class OrderServiceImplTest {
 	void testUpdate_ShouldUpdateOrder() {
 		// Arrange
 		OrderDto updatedOrderDto = OrderDto.builder()
-				.orderId(1)
+				.orderId(1L)
 				.orderDesc("Updated order")
-				.orderFee(6000.0)
+				.orderFeeCents(600_000L)
 				.build();
 
-		when(orderRepository.findByOrderIdAndIsActiveTrue(1))
+		when(orderRepository.findByOrderIdAndIsActiveTrue(1L))
 				.thenReturn(Optional.of(testOrder));
-		when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+		when(orderRepository.saveAndFlush(any(Order.class))).thenReturn(testOrder);
 
 		// Act
-		OrderDto result = orderService.update(1, updatedOrderDto);
+		OrderDto result = orderService.update(1L, updatedOrderDto);
 
 		// Assert
 		assertNotNull(result);
-		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(1);
-		verify(orderRepository, times(1)).save(any(Order.class));
+		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(1L);
+		verify(orderRepository, times(1)).saveAndFlush(any(Order.class));
+	}
+
+	@Test
+	@DisplayName("Should reject an update whose If-Match version is no longer current")
+	void testUpdate_WithStaleVersion_ShouldThrowVersionMismatch() {
+		// Arrange
+		testOrder.setVersion(4L);
+		OrderDto staleOrderDto = OrderDto.builder()
+				.orderDesc("Stale order")
+				.orderFeeCents(600_000L)
+				.version(3L)
+				.build();
+
+		when(orderRepository.findByOrderIdAndIsActiveTrue(1L))
+				.thenReturn(Optional.of(testOrder));
+
+		// Act & Assert
+		assertThrows(VersionMismatchException.class, () -> orderService.update(1L, staleOrderDto));
+		verify(orderRepository, never()).saveAndFlush(any(Order.class));
 	}
 
 	@Test
 	@DisplayName("Should delete order (soft delete) when status is not IN_PAYMENT")
 	void testDeleteById_WhenStatusNotInPayment_ShouldDeactivate() {
 		// Arrange
-		when(orderRepository.findByOrderIdAndIsActiveTrue(1))
+		when(orderRepository.findByOrderIdAndIsActiveTrue(1L))
 				.thenReturn(Optional.of(testOrder));
 		when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
 			Order saved = invocation.getArgument(0);
@@ -283,11 +431,16 @@ class OrderServiceImplTest {
 		});
 
 		// Act
-		orderService.deleteById(1);
+		orderService.deleteById(1L);
 
 		// Assert
-		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(1);
+		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(1L);
 		verify(orderRepository, times(1)).save(any(Order.class));
+		verify(orderEventPublisher, times(1)).publish(argThat(event ->
+				event.getEventType() == OrderEventType.ORDER_DEACTIVATED && event.getOrderId().equals(1L)));
+		verify(orderSummaryRecorder, times(1)).record(argThat(change ->
+				change.getStatus() == OrderStatus.CREATED && change.getOrderCount() == -1
+						&& change.getTotalFeeCents() == -500_000));
 	}
 
 	@Test
@@ -295,18 +448,18 @@ class OrderServiceImplTest {
 	void testDeleteById_WhenStatusIsInPayment_ShouldThrowException() {
 		// Arrange
 		Order orderInPayment = Order.builder()
-				.orderId(1)
+				.orderId(1L)
 				.status(OrderStatus.IN_PAYMENT)
 				.isActive(true)
 				.cart(testCart)
 				.build();
 
-		when(orderRepository.findByOrderIdAndIsActiveTrue(1))
+		when(orderRepository.findByOrderIdAndIsActiveTrue(1L))
 				.thenReturn(Optional.of(orderInPayment));
 
 		// Act & Assert
-		assertThrows(IllegalStateException.class, () -> orderService.deleteById(1));
-		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(1);
+		assertThrows(IllegalStateException.class, () -> orderService.deleteById(1L));
+		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(1L);
 		verify(orderRepository, never()).save(any(Order.class));
 	}
 
@@ -314,12 +467,96 @@ class OrderServiceImplTest {
 	@DisplayName("Should throw OrderNotFoundException when order not found for delete")
 	void testDeleteById_WhenOrderNotFound_ShouldThrowException() {
 		// Arrange
-		when(orderRepository.findByOrderIdAndIsActiveTrue(999)).thenReturn(Optional.empty());
+		when(orderRepository.findByOrderIdAndIsActiveTrue(999L)).thenReturn(Optional.empty());
 
 		// Act & Assert
-		assertThrows(OrderNotFoundException.class, () -> orderService.deleteById(999));
-		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(999);
+		assertThrows(OrderNotFoundException.class, () -> orderService.deleteById(999L));
+		verify(orderRepository, times(1)).findByOrderIdAndIsActiveTrue(999L);
 		verify(orderRepository, never()).save(any(Order.class));
 	}
-}
 
+	@Test
+	@DisplayName("Should move eligible orders chunk by chunk and report the others")
+	void testUpdateStatuses_ShouldUpdateEligibleOrdersPerChunk() {
+		// Arrange
+		orderProperties.getBulkStatus().setChunkSize(2);
+		when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		when(orderRepository.lockActiveStatuses(List.of(1L, 2L)))
+				.thenReturn(List.<Object[]>of(new Object[] { 1, "ORDERED", 0L, ORDER_DATE, new BigDecimal("10.00") },
+						new Object[] { 2, "CREATED", 0L, ORDER_DATE, new BigDecimal("20.00") }));
+		when(orderRepository.lockActiveStatuses(List.of(3L, 4L)))
+				.thenReturn(List.<Object[]>of(new Object[] { 3, "ORDERED", 0L, ORDER_DATE, new BigDecimal("30.00") }));
+		when(orderRepository.transitionStatuses(eq(List.of(1L)), eq(OrderStatus.ORDERED), eq(OrderStatus.IN_PAYMENT), any(Instant.class)))
+				.thenReturn(1);
+		when(orderRepository.transitionStatuses(eq(List.of(3L)), eq(OrderStatus.ORDERED), eq(OrderStatus.IN_PAYMENT), any(Instant.class)))
+				.thenReturn(1);
+
+		// Act
+		BulkStatusUpdateResponse response = orderService.updateStatuses(BulkStatusUpdateDto.builder()
+				.orderIds(Set.of(4L, 3L, 2L, 1L))
+				.fromStatus(OrderStatus.ORDERED)
+				.toStatus(OrderStatus.IN_PAYMENT)
+				.build());
+
+		// Assert
+		assertEquals(2, response.getUpdated());
+		assertEquals(List.of(1L, 2L, 3L, 4L), response.getResults().stream()
+				.map(BulkStatusUpdateResponse.Result::getOrderId)
+				.collect(Collectors.toList()));
+		assertEquals(BulkStatusUpdateResponse.Outcome.UPDATED, response.getResults().get(0).getOutcome());
+		assertEquals(BulkStatusUpdateResponse.Outcome.CONFLICT, response.getResults().get(1).getOutcome());
+		assertEquals(OrderStatus.CREATED, response.getResults().get(1).getOrderStatus());
+		assertEquals(BulkStatusUpdateResponse.Outcome.NOT_FOUND, response.getResults().get(3).getOutcome());
+		verify(transactionTemplate, times(2)).execute(any());
+		verify(orderRepository, never()).save(any(Order.class));
+		verify(changeEventBus, times(1)).publishAllAfterCommit(argThat(events -> events.size() == 1
+				&& events.get(0).getEntityId().equals(1L)));
+		verify(changeEventBus, times(1)).publishAllAfterCommit(argThat(events -> events.size() == 1
+				&& events.get(0).getEntityId().equals(3L)));
+		verify(orderEventPublisher, times(2)).publishAll(argThat(events -> events.size() == 1
+				&& events.get(0).getEventType() == OrderEventType.ORDER_STATUS_CHANGED
+				&& events.get(0).getVersion() == 1L));
+	}
+
+	@Test
+	@DisplayName("Should leave orders a transition guard vetoes untouched and report them as rejected")
+	void testUpdateStatuses_WhenGuardRejects_ShouldReportRejected() {
+		// Arrange
+		lenient().doReturn(false).when(orderStateMachine).permits(OrderStatus.ORDERED, OrderStatus.IN_PAYMENT, 2L);
+		when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		when(orderRepository.lockActiveStatuses(List.of(1L, 2L)))
+				.thenReturn(List.<Object[]>of(new Object[] { 1, "ORDERED", 0L, ORDER_DATE, new BigDecimal("10.00") },
+						new Object[] { 2, "ORDERED", 0L, ORDER_DATE, new BigDecimal("20.00") }));
+		when(orderRepository.transitionStatuses(eq(List.of(1L)), eq(OrderStatus.ORDERED), eq(OrderStatus.IN_PAYMENT), any(Instant.class)))
+				.thenReturn(1);
+
+		// Act
+		BulkStatusUpdateResponse response = orderService.updateStatuses(BulkStatusUpdateDto.builder()
+				.orderIds(Set.of(1L, 2L))
+				.fromStatus(OrderStatus.ORDERED)
+				.toStatus(OrderStatus.IN_PAYMENT)
+				.build());
+
+		// Assert
+		assertEquals(1, response.getUpdated());
+		assertEquals(BulkStatusUpdateResponse.Outcome.REJECTED, response.getResults().get(1).getOutcome());
+		assertEquals(OrderStatus.ORDERED, response.getResults().get(1).getOrderStatus());
+	}
+
+	@Test
+	@DisplayName("Should reject bulk transitions that skip or reverse the status sequence")
+	void testUpdateStatuses_WithInvalidTransition_ShouldThrowIllegalArgument() {
+		// Arrange
+		BulkStatusUpdateDto request = BulkStatusUpdateDto.builder()
+				.orderIds(Set.of(1L))
+				.fromStatus(OrderStatus.CREATED)
+				.toStatus(OrderStatus.IN_PAYMENT)
+				.build();
+
+		// Act & Assert
+		assertThrows(IllegalArgumentException.class, () -> orderService.updateStatuses(request));
+		verifyNoInteractions(transactionTemplate);
+	}
+}
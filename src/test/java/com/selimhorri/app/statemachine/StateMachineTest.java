@@ -0,0 +1,62 @@
+package com.selimhorri.app.statemachine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.selimhorri.app.config.order.OrderConfig;
+import com.selimhorri.app.domain.enums.OrderStatus;
+
+@DisplayName("StateMachine Unit Tests")
+class StateMachineTest {
+
+	@Test
+	@DisplayName("Should advance the order lifecycle and stop at IN_PAYMENT")
+	void testNext_OrderLifecycle_ShouldFollowDeclaredSequence() {
+		// Arrange
+		final StateMachine<OrderStatus, Long> machine = OrderConfig.orderLifecycle().build();
+
+		// Act & Assert
+		assertEquals(OrderStatus.ORDERED, machine.next(OrderStatus.CREATED));
+		assertEquals(OrderStatus.IN_PAYMENT, machine.next(OrderStatus.ORDERED));
+		assertNull(machine.next(OrderStatus.IN_PAYMENT));
+		assertTrue(machine.isTerminal(OrderStatus.IN_PAYMENT));
+		assertTrue(machine.canTransition(OrderStatus.CREATED, OrderStatus.ORDERED));
+		assertFalse(machine.canTransition(OrderStatus.CREATED, OrderStatus.IN_PAYMENT));
+		assertFalse(machine.canTransition(OrderStatus.ORDERED, OrderStatus.CREATED));
+		assertEquals(Set.of(), machine.targets(OrderStatus.IN_PAYMENT));
+	}
+
+	@Test
+	@DisplayName("Should consult edge and global guards only on declared transitions")
+	void testPermits_WithGuards_ShouldVetoPerContext() {
+		// Arrange
+		final StateMachine<OrderStatus, Long> machine = OrderConfig.orderLifecycle()
+				.guard(OrderStatus.ORDERED, OrderStatus.IN_PAYMENT, (from, to, orderId) -> orderId != 7)
+				.guard((from, to, orderId) -> orderId > 0)
+				.build();
+
+		// Act & Assert
+		assertTrue(machine.permits(OrderStatus.ORDERED, OrderStatus.IN_PAYMENT, 1L));
+		assertFalse(machine.permits(OrderStatus.ORDERED, OrderStatus.IN_PAYMENT, 7L));
+		assertTrue(machine.permits(OrderStatus.CREATED, OrderStatus.ORDERED, 7L));
+		assertFalse(machine.permits(OrderStatus.CREATED, OrderStatus.ORDERED, -1L));
+		assertFalse(machine.permits(OrderStatus.CREATED, OrderStatus.IN_PAYMENT, 1L));
+		assertThrows(IllegalStateException.class,
+				() -> machine.validate(OrderStatus.ORDERED, OrderStatus.IN_PAYMENT, 7L));
+		assertThrows(IllegalStateException.class,
+				() -> machine.validate(OrderStatus.IN_PAYMENT, OrderStatus.CREATED, 1L));
+	}
+
+	@Test
+	@DisplayName("Should refuse a guard on a transition that is not declared")
+	void testGuard_OnUndeclaredTransition_ShouldThrowIllegalArgument() {
+		// Act & Assert
+		assertThrows(IllegalArgumentException.class, () -> OrderConfig.orderLifecycle()
+				.guard(OrderStatus.IN_PAYMENT, OrderStatus.CREATED, (from, to, orderId) -> true));
+	}
+
+}
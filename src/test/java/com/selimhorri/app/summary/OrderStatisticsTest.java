@@ -0,0 +1,106 @@
+package com.selimhorri.app.summary;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.selimhorri.app.domain.enums.OrderStatus;
+import com.selimhorri.app.shard.Shards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("OrderStatistics Unit Tests")
+class OrderStatisticsTest {
+
+	private static final LocalDateTime ORDER_DATE = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+	private JdbcTemplate jdbcTemplate;
+	private SimpleMeterRegistry meterRegistry;
+	private OrderStatistics statistics;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		jdbcTemplate = mock(JdbcTemplate.class);
+		final ResultSet rs = mock(ResultSet.class);
+		when(rs.getString(1)).thenReturn("CREATED", "ORDERED");
+		when(rs.getLong(2)).thenReturn(3L, 1L);
+		when(rs.getBigDecimal(3)).thenReturn(new BigDecimal("30.30"), new BigDecimal("5.00"));
+		doAnswer(invocation -> {
+			final RowCallbackHandler handler = invocation.getArgument(1);
+			handler.processRow(rs);
+			handler.processRow(rs);
+			return null;
+		}).when(jdbcTemplate).query(eq(OrderStatistics.SEED_SQL), any(RowCallbackHandler.class));
+		meterRegistry = new SimpleMeterRegistry();
+		statistics = new OrderStatistics(jdbcTemplate, Shards.single(), meterRegistry);
+	}
+
+	@Test
+	@DisplayName("Should seed from one aggregate query and then follow the changes")
+	void testSeedAndApply_ShouldTrackActiveOrdersPerStatus() {
+		// Act
+		statistics.start();
+		statistics.applyAfterCommit(List.of(
+				OrderSummaryRecorder.Change.removed(ORDER_DATE, OrderStatus.CREATED, 1_010L),
+				OrderSummaryRecorder.Change.added(ORDER_DATE, OrderStatus.ORDERED, 1_010L)));
+		statistics.applyAfterCommit(List.of(OrderSummaryRecorder.Change.added(ORDER_DATE, OrderStatus.CREATED, 20L)));
+		statistics.createdAfterCommit();
+
+		// Assert
+		verify(jdbcTemplate, times(1)).query(eq(OrderStatistics.SEED_SQL), any(RowCallbackHandler.class));
+		assertEquals(3, statistics.getActiveOrders(OrderStatus.CREATED));
+		assertEquals(new BigDecimal("20.40"), statistics.getActiveFee(OrderStatus.CREATED));
+		assertEquals(2, statistics.getActiveOrders(OrderStatus.ORDERED));
+		assertEquals(0, statistics.getActiveOrders(OrderStatus.IN_PAYMENT));
+		assertEquals(2.0, meterRegistry.get("orders.active").tag("status", "ORDERED").gauge().value());
+		assertEquals(15.10, meterRegistry.get("orders.active.fee").tag("status", "ORDERED").gauge().value(), 1e-9);
+		assertEquals(1.0, meterRegistry.get("orders.created").functionCounter().count());
+	}
+
+	@Test
+	@DisplayName("Should hold changes back until their transaction commits")
+	void testApplyAfterCommit_WithinTransaction_ShouldWaitForCommit() {
+		// Arrange
+		statistics.start();
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			// Act
+			statistics.applyAfterCommit(List.of(OrderSummaryRecorder.Change.added(ORDER_DATE, OrderStatus.CREATED, 100L)));
+			statistics.createdAfterCommit();
+
+			// Assert
+			assertEquals(3, statistics.getActiveOrders(OrderStatus.CREATED));
+			final List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+			synchronizations.forEach(TransactionSynchronization::afterCommit);
+			assertEquals(4, statistics.getActiveOrders(OrderStatus.CREATED));
+			assertEquals(1, statistics.getCreated());
+		}
+		finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+}
+
+
+
+
+
+
+
+
+
+